@@ -10,6 +10,7 @@ import android.view.Menu;
 import android.view.MenuInflater;
 import android.view.MenuItem;
 import android.view.View;
+import android.widget.AbsListView;
 import android.widget.AdapterView;
 import android.widget.ListView;
 
@@ -18,16 +19,19 @@ import com.tasky.android.dialogs.ActionDialogBase;
 import com.tasky.android.dialogs.CreateTaskDialog;
 import com.tasky.android.dialogs.PostponeTaskDialog;
 import com.tasky.android.entities.Task;
-import com.tasky.android.logic.PersistentTaskManager;
-import com.tasky.android.logic.TaskManager;
-import com.tasky.android.storage.SqliteTaskyDataProvider;
+import com.tasky.android.logic.AsyncTaskManager;
+import com.tasky.android.storage.ObservableTaskQuery;
 
 import org.joda.time.DateTime;
 
+import java.util.List;
+
 public class TaskListActivity extends AppCompatActivity {
-    private TaskManager taskManager;
+    private AsyncTaskManager taskManager;
+    private ObservableTaskQuery relevantTasks;
     private Snackbar revertTaskDoneSnackbar;
     private Task lastTaskDone;
+    private Runnable pendingTaskDone;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -46,13 +50,32 @@ public class TaskListActivity extends AppCompatActivity {
 
         revertTaskDoneSnackbar = setupRevertTaskDoneSnackbar(fab);
         registerForContextMenu(findViewById(R.id.relevantTaskList));
+        ((ListView)findViewById(R.id.relevantTaskList)).setOnScrollListener(new AbsListView.OnScrollListener() {
+            @Override
+            public void onScrollStateChanged(AbsListView view, int scrollState) { }
+
+            @Override
+            public void onScroll(AbsListView view, int firstVisibleItem, int visibleItemCount, int totalItemCount) {
+                // Load the next page before the user reaches the end of the list.
+                if (firstVisibleItem + visibleItemCount >= totalItemCount - visibleItemCount) {
+                    loadMoreRelevantTasks();
+                }
+            }
+        });
 
-        // TODO: As a starting point, we do very poor man's DI and Entourage Pattern all the way.
-        // Would be cool to change it. But that needs more understanding...
-        taskManager = new PersistentTaskManager(new SqliteTaskyDataProvider(this));
+        taskManager = ((TaskyApplication)getApplication()).getTaskManager();
+        // Created tasks are picked up by the observed relevant tasks.
+        taskManager.materializeRecurringTasks(null);
         renderRelevantTasks();
     }
 
+    @Override
+    protected void onDestroy() {
+        if (pendingTaskDone != null) pendingTaskDone.run();
+        relevantTasks.close();
+        super.onDestroy();
+    }
+
     @Override
     public boolean onCreateOptionsMenu(Menu menu) {
         // Inflate the menu; this adds items to the action bar if it is present.
@@ -107,9 +130,8 @@ public class TaskListActivity extends AppCompatActivity {
         new CreateTaskDialog(this, new ActionDialogBase.OnActionDialogCompleteListener<CreateTaskDialog.TaskCreateResult>() {
             @Override
             public boolean handleComplete(CreateTaskDialog.TaskCreateResult result) {
-                // Create task via manager and reload the relevant task list accordingly.
-                taskManager.createTask(result.getTitle(), result.getDueDate());
-                renderRelevantTasks();
+                // Create task via manager; the relevant task list is reloaded if it is affected.
+                taskManager.createTask(result.getTitle(), result.getDueDate(), null);
                 return true;
             }
         }).show();
@@ -125,49 +147,76 @@ public class TaskListActivity extends AppCompatActivity {
         new PostponeTaskDialog(this, new ActionDialogBase.OnActionDialogCompleteListener<DateTime>() {
             @Override
             public boolean handleComplete(DateTime result) {
-                taskManager.postponeTask(task.getId(), result);
-                renderRelevantTasks();
+                taskManager.postponeTask(task.getId(), result, null);
                 return true;
             }
         }).show();
     }
 
     /**
-     * Loads all relevant tasks and displays them in the list.
+     * Displays the relevant tasks in the list and keeps them up to date while they change.
      */
     public void renderRelevantTasks() {
-        TaskArrayAdapter adapter = new TaskArrayAdapter(this, new TaskArrayAdapter.OnTaskDoneListener() {
+        final TaskArrayAdapter adapter = new TaskArrayAdapter(this, new TaskArrayAdapter.OnTaskDoneListener() {
             @Override
             public void handleTaskDone(Task task) {
                 setTaskDone(task);
             }
         });
-        adapter.addAll(taskManager.getRelevantTasks());
 
         ListView relevantTaskList = (ListView)findViewById(R.id.relevantTaskList);
         relevantTaskList.setAdapter(adapter);
+
+        if (relevantTasks != null) relevantTasks.close();
+        int pageSize = getResources().getInteger(R.integer.relevant_task_page_size);
+        relevantTasks = taskManager.observeRelevantTasks(pageSize, new ObservableTaskQuery.Observer() {
+            @Override
+            public void onTasksLoaded(List<Task> tasks, boolean hasMore) {
+                // Replace the items of the adapter, so that the list keeps its scroll position.
+                adapter.setNotifyOnChange(false);
+                adapter.clear();
+                adapter.addAll(tasks);
+                adapter.notifyDataSetChanged();
+            }
+
+            @Override
+            public void onError(Exception exception) {
+                Snackbar.make(findViewById(R.id.relevantTaskList), R.string.load_tasks_failed_message, Snackbar.LENGTH_LONG).show();
+            }
+        });
+    }
+
+    /**
+     * Loads the next page of relevant tasks and appends them to the list.
+     */
+    public void loadMoreRelevantTasks() {
+        if (relevantTasks != null) relevantTasks.loadMore();
     }
 
     /**
      * Sets the done-state of the specified task.
      * @param task Task that should be done.
      */
-    public void setTaskDone(Task task) {
-        // Set task to done via manager.
-        taskManager.setTaskDone(task.getId());
+    public void setTaskDone(final Task task) {
+        // A task set to done before is written right away, as its Snackbar is replaced.
+        if (pendingTaskDone != null) pendingTaskDone.run();
 
         // Present an option to revert the action.
         lastTaskDone = task;
         revertTaskDoneSnackbar.show();
 
-        // Reload task list to remove now done task.
+        // Set task to done via manager, which removes it from the list.
         // Little delay to display the Checkbox-Check animation.
-        ActivityTools.delay(new Runnable() {
+        pendingTaskDone = new Runnable() {
             @Override
             public void run() {
-                renderRelevantTasks();
+                if (pendingTaskDone != this) return;
+
+                pendingTaskDone = null;
+                taskManager.setTaskDone(task.getId(), null);
             }
-        }, getResources().getInteger(R.integer.remove_done_task_delay));
+        };
+        ActivityTools.delay(pendingTaskDone, getResources().getInteger(R.integer.remove_done_task_delay));
     }
 
     /**
@@ -182,9 +231,15 @@ public class TaskListActivity extends AppCompatActivity {
                 public void onClick(View v) {
                     if (lastTaskDone == null) return;
 
-                    taskManager.revertTaskDone(lastTaskDone.getId());
+                    if (pendingTaskDone != null) {
+                        // The task has not been set to done yet; only the checkbox has to be reset.
+                        pendingTaskDone = null;
+                        relevantTasks.refresh();
+                    } else {
+                        taskManager.revertTaskDone(lastTaskDone.getId(), null);
+                    }
+
                     lastTaskDone = null;
-                    renderRelevantTasks();
                 }
             });
     }
@@ -0,0 +1,67 @@
+package com.tasky.android;
+
+import android.app.Application;
+import android.util.Log;
+
+import com.tasky.android.logic.AsyncTaskManager;
+import com.tasky.android.logic.PersistentTaskManager;
+import com.tasky.android.logic.TaskArchiveReport;
+import com.tasky.android.storage.CachingTaskyDataProvider;
+import com.tasky.android.storage.SqliteTaskyDataProvider;
+
+/**
+ * Holds the objects shared by all activities of the process, so that the storage,
+ * its cache and the threads of the task manager are created only once.
+ */
+public class TaskyApplication extends Application {
+    private static final String LOG_TAG = "TaskyApplication";
+
+    private AsyncTaskManager taskManager;
+    private boolean storageMaintained;
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+
+        // TODO: As a starting point, we do very poor man's DI and Entourage Pattern all the way.
+        // Would be cool to change it. But that needs more understanding...
+        taskManager = new AsyncTaskManager(new PersistentTaskManager(new CachingTaskyDataProvider(
+            new SqliteTaskyDataProvider(this), getResources().getInteger(R.integer.task_cache_size))));
+        // Done tasks only have to be archived once per process.
+        taskManager.archiveDoneTasks(getResources().getInteger(R.integer.archive_done_task_age_days),
+            new AsyncTaskManager.Callback<TaskArchiveReport>() {
+                @Override
+                public void onComplete(TaskArchiveReport report) {
+                    Log.i(LOG_TAG, report.toString());
+                }
+
+                @Override
+                public void onError(Exception exception) {
+                    Log.e(LOG_TAG, "Archiving done tasks failed.", exception);
+                }
+            });
+    }
+
+    /**
+     * Runs the maintenance of the storage once per process when the user leaves the app,
+     * as it can take long and should not delay the start of the app.
+     * @param level Memory trim level that indicates the state of the app.
+     */
+    @Override
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+        if (level < TRIM_MEMORY_UI_HIDDEN || storageMaintained) return;
+
+        storageMaintained = true;
+        // Failures are logged by the default error handler of the task manager.
+        taskManager.maintainStorage(null);
+    }
+
+    /**
+     * Gets the task manager shared by all activities of the process.
+     * @return The task manager of the process.
+     */
+    public AsyncTaskManager getTaskManager() {
+        return taskManager;
+    }
+}
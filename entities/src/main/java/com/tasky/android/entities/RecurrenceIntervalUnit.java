@@ -0,0 +1,11 @@
+package com.tasky.android.entities;
+
+/**
+ * Represents the unit of the interval in which a recurring task recurs.
+ */
+public enum RecurrenceIntervalUnit {
+    Day,
+    Week,
+    Month,
+    Year
+}
@@ -0,0 +1,102 @@
+package com.tasky.android.entities;
+
+import org.joda.time.DateTime;
+
+/**
+ * Represents a rule from which tasks are created in a regular interval.
+ * The occurrences of the rule are numbered from zero on; the occurrence with
+ * a number is due the number of intervals after the start date.
+ */
+public final class RecurringTask extends TaskyEntityBase {
+    private String title;
+    private DateTime startDate;
+    private DateTime endDate;
+    private int interval;
+    private RecurrenceIntervalUnit intervalUnit;
+    private long nextOccurrence;
+    private DateTime nextOccurrenceDate;
+
+    /**
+     * Gets the title of the tasks created by this RecurringTask.
+     * @return The title of the tasks created by this RecurringTask.
+     */
+    public String getTitle() { return title; }
+
+    /**
+     * Sets the title of the tasks created by this RecurringTask.
+     * @param value The title that should be set.
+     */
+    public void setTitle(String value) { title = value; }
+
+    /**
+     * Gets the date on which the first task of this RecurringTask is due.
+     * @return The date on which the first task of this RecurringTask is due.
+     */
+    public DateTime getStartDate() { return startDate; }
+
+    /**
+     * Sets the date on which the first task of this RecurringTask is due.
+     * @param value The date on which the first task of this RecurringTask should be due.
+     */
+    public void setStartDate(DateTime value) { startDate = value; }
+
+    /**
+     * Gets the date after which no more tasks are created by this RecurringTask.
+     * @return The date after which no more tasks are created; or null if the tasks recur forever.
+     */
+    public DateTime getEndDate() { return endDate; }
+
+    /**
+     * Sets the date after which no more tasks are created by this RecurringTask.
+     * @param value The date after which no more tasks should be created; or null if the tasks should recur forever.
+     */
+    public void setEndDate(DateTime value) { endDate = value; }
+
+    /**
+     * Gets the number of interval units between two tasks created by this RecurringTask.
+     * @return The number of interval units between two tasks.
+     */
+    public int getInterval() { return interval; }
+
+    /**
+     * Sets the number of interval units between two tasks created by this RecurringTask.
+     * @param value The number of interval units between two tasks.
+     */
+    public void setInterval(int value) { interval = value; }
+
+    /**
+     * Gets the unit of the interval between two tasks created by this RecurringTask.
+     * @return The unit of the interval between two tasks.
+     */
+    public RecurrenceIntervalUnit getIntervalUnit() { return intervalUnit; }
+
+    /**
+     * Sets the unit of the interval between two tasks created by this RecurringTask.
+     * @param value The unit of the interval between two tasks.
+     */
+    public void setIntervalUnit(RecurrenceIntervalUnit value) { intervalUnit = value; }
+
+    /**
+     * Gets the number of the next occurrence for which no task has been created yet.
+     * @return The number of the next occurrence for which no task has been created yet.
+     */
+    public long getNextOccurrence() { return nextOccurrence; }
+
+    /**
+     * Sets the number of the next occurrence for which no task has been created yet.
+     * @param value The number of the next occurrence for which no task has been created yet.
+     */
+    public void setNextOccurrence(long value) { nextOccurrence = value; }
+
+    /**
+     * Gets the date on which the next occurrence is due.
+     * @return The date on which the next occurrence is due; or null if there are no more occurrences.
+     */
+    public DateTime getNextOccurrenceDate() { return nextOccurrenceDate; }
+
+    /**
+     * Sets the date on which the next occurrence is due.
+     * @param value The date on which the next occurrence is due; or null if there are no more occurrences.
+     */
+    public void setNextOccurrenceDate(DateTime value) { nextOccurrenceDate = value; }
+}
@@ -3,9 +3,45 @@ package com.tasky.android.entities;
 import org.joda.time.DateTime;
 
 /**
- * Represents a task that the user wants to do.
+ * Represents a task that the user wants to do. The setters record which fields have been changed,
+ * so that only the changed fields have to be written to the storage.
  */
 public final class Task extends TaskyEntityBase {
+    /**
+     * Flag of the title in the bitmask of the changed fields.
+     */
+    public static final int FIELD_TITLE = 1;
+
+    /**
+     * Flag of the creation date in the bitmask of the changed fields.
+     */
+    public static final int FIELD_CREATED_ON = 1 << 1;
+
+    /**
+     * Flag of the done date in the bitmask of the changed fields.
+     */
+    public static final int FIELD_DONE_ON = 1 << 2;
+
+    /**
+     * Flag of the priority in the bitmask of the changed fields.
+     */
+    public static final int FIELD_PRIORITY = 1 << 3;
+
+    /**
+     * Flag of the postponement date in the bitmask of the changed fields.
+     */
+    public static final int FIELD_POSTPONED_UNTIL = 1 << 4;
+
+    /**
+     * Flag of the Id of the RecurringTask in the bitmask of the changed fields.
+     */
+    public static final int FIELD_CREATED_FROM_RECURRING_TASK_ID = 1 << 5;
+
+    /**
+     * Flag of the due date in the bitmask of the changed fields.
+     */
+    public static final int FIELD_DUE_DATE = 1 << 6;
+
     private String title;
     private DateTime createdOn;
     private DateTime doneOn;
@@ -24,7 +60,10 @@ public final class Task extends TaskyEntityBase {
      * Sets the title of this Task.
      * @param value The title that should be set.
      */
-    public void setTitle(String value) { title = value; }
+    public void setTitle(String value) {
+        title = value;
+        markDirty(FIELD_TITLE);
+    }
 
     /**
      * Gets the date and time when the task was created.
@@ -36,7 +75,10 @@ public final class Task extends TaskyEntityBase {
      * Sets the date and time when the task was created.
      * @param value The date and time when the task was created.
      */
-    public void setCreatedOn(DateTime value) { createdOn = value; }
+    public void setCreatedOn(DateTime value) {
+        createdOn = value;
+        markDirty(FIELD_CREATED_ON);
+    }
 
     /**
      * Gets the date and time when this task has been done.
@@ -48,7 +90,10 @@ public final class Task extends TaskyEntityBase {
      * Sets the date and time when this task has been done.
      * @param value The date and time when this task has been done; or null if it not done.
      */
-    public void setDoneOn(DateTime value) { doneOn = value; }
+    public void setDoneOn(DateTime value) {
+        doneOn = value;
+        markDirty(FIELD_DONE_ON);
+    }
 
 
     /**
@@ -61,7 +106,10 @@ public final class Task extends TaskyEntityBase {
      * Sets the priority of this task.
      * @param value The priority that the task should have.
      */
-    public void setPriority(TaskPriority value) { priority = value; }
+    public void setPriority(TaskPriority value) {
+        priority = value;
+        markDirty(FIELD_PRIORITY);
+    }
 
 
     /**
@@ -74,7 +122,10 @@ public final class Task extends TaskyEntityBase {
      * Sets the date until which this Task should be postponed.
      * @param value The date until which this Task should be postponed.
      */
-    public void setPostponedUntil(DateTime value) { postponedUntil = value; }
+    public void setPostponedUntil(DateTime value) {
+        postponedUntil = value;
+        markDirty(FIELD_POSTPONED_UNTIL);
+    }
 
 
     /**
@@ -89,7 +140,10 @@ public final class Task extends TaskyEntityBase {
      * @param value The Id of the RecurringTask from which this Task has been created;
      * or null if it has not been created by a RecurringTask.
      */
-    public void setCreatedFromRecurringTaskId(Integer value) { createdFromRecurringTaskId = value; }
+    public void setCreatedFromRecurringTaskId(Integer value) {
+        createdFromRecurringTaskId = value;
+        markDirty(FIELD_CREATED_FROM_RECURRING_TASK_ID);
+    }
 
 
     /**
@@ -102,7 +156,10 @@ public final class Task extends TaskyEntityBase {
      * Sets the date on which this task is due.
      * @param value The date on which this task should be due; or null if should be immediately due.
      */
-    public void setDueDate(DateTime value) { dueDate = value; }
+    public void setDueDate(DateTime value) {
+        dueDate = value;
+        markDirty(FIELD_DUE_DATE);
+    }
 
     /**
      * Indicates if this Task has been done.
@@ -5,6 +5,7 @@ package com.tasky.android.entities;
  */
 public abstract class TaskyEntityBase {
     private long _id;
+    private int dirtyFields;
 
     /**
      * Gets the identifier of this entity.
@@ -17,4 +18,33 @@ public abstract class TaskyEntityBase {
      * @param value Identifier that should be set.
      */
     public void setId(long value) { _id = value; }
-}
\ No newline at end of file
+
+    /**
+     * Gets the fields that have been changed since this entity has been read from or written to the storage.
+     * @return A bitmask of the changed fields; 0 if no field has been changed.
+     */
+    public int getDirtyFields() { return dirtyFields; }
+
+    /**
+     * Indicates if any field has been changed since this entity has been read from or written to the storage.
+     * @return True, if at least one field has been changed; otherwise false.
+     */
+    public boolean isDirty() { return dirtyFields != 0; }
+
+    /**
+     * Marks all fields as unchanged, after the entity has been read from or written to the storage.
+     */
+    public void clearDirtyFields() { dirtyFields = 0; }
+
+    /**
+     * Marks fields as changed again, after writing them to the storage has been rolled back.
+     * @param fields Bitmask of the fields that have not been written.
+     */
+    public void restoreDirtyFields(int fields) { dirtyFields |= fields; }
+
+    /**
+     * Marks fields as changed; called by the setters of the entity.
+     * @param fields Bitmask of the fields that have been changed.
+     */
+    protected void markDirty(int fields) { dirtyFields |= fields; }
+}
@@ -0,0 +1,554 @@
+package com.tasky.android.logic;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.tasky.android.entities.RecurrenceIntervalUnit;
+import com.tasky.android.entities.RecurringTask;
+import com.tasky.android.entities.Task;
+import com.tasky.android.entities.TaskPriority;
+import com.tasky.android.storage.ObservableTaskQuery;
+import com.tasky.android.utilities.ParameterCheck;
+
+import org.joda.time.DateTime;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the use-cases of a TaskManager away from the calling thread, so that the UI thread
+ * does not wait for the storage. Changes are run one after another on a single writer thread,
+ * while reads are run in parallel on a bounded number of reader threads. A read always sees
+ * the changes that have been requested before it. Results are delivered to callbacks
+ * on the main thread; operations can be cancelled through the returned futures,
+ * in which case their callbacks will not be called. Failures of operations requested
+ * without a callback are passed to a default error handler, which logs them unless
+ * another one is given.
+ */
+public final class AsyncTaskManager {
+    /**
+     * Number of threads that run reads in parallel.
+     */
+    public static final int READER_THREAD_COUNT = 2;
+
+    /**
+     * Receives the result of an operation run by the AsyncTaskManager.
+     * @param <TResult> Type of the result of the operation.
+     */
+    public interface Callback<TResult> {
+        /**
+         * Handles the result of an operation that completed successfully.
+         * @param result Result of the operation.
+         */
+        void onComplete(TResult result);
+
+        /**
+         * Handles the failure of an operation.
+         * @param exception Exception thrown by the operation.
+         */
+        void onError(Exception exception);
+    }
+
+    /**
+     * Handles the failures of operations that have been requested without a callback.
+     */
+    public interface ErrorHandler {
+        /**
+         * Handles the failure of an operation.
+         * @param exception Exception thrown by the operation.
+         */
+        void onError(Exception exception);
+    }
+
+    private static final String LOG_TAG = "AsyncTaskManager";
+    private static final Runnable NO_OPERATION = new Runnable() {
+        @Override
+        public void run() { }
+    };
+
+    private final TaskManager taskManager;
+    private final Executor callbackExecutor;
+    private final ErrorHandler defaultErrorHandler;
+    private final ExecutorService writer;
+    private final ExecutorService readers;
+
+    /**
+     * Creates an AsyncTaskManager delivering results on the main thread and logging
+     * the failures of operations without a callback.
+     * @param taskManager TaskManager of which the use-cases should be run.
+     */
+    public AsyncTaskManager(TaskManager taskManager) {
+        this(taskManager, new MainThreadExecutor());
+    }
+
+    /**
+     * Creates an AsyncTaskManager logging the failures of operations without a callback.
+     * @param taskManager TaskManager of which the use-cases should be run.
+     * @param callbackExecutor Executor on which the callbacks should be called.
+     */
+    public AsyncTaskManager(TaskManager taskManager, Executor callbackExecutor) {
+        this(taskManager, callbackExecutor, new LoggingErrorHandler());
+    }
+
+    /**
+     * Creates an AsyncTaskManager.
+     * @param taskManager TaskManager of which the use-cases should be run.
+     * @param callbackExecutor Executor on which the callbacks and the error handler should be called.
+     * @param defaultErrorHandler Handler of the failures of operations without a callback.
+     */
+    public AsyncTaskManager(TaskManager taskManager, Executor callbackExecutor, ErrorHandler defaultErrorHandler) {
+        ParameterCheck.notNull(taskManager, "taskManager");
+        ParameterCheck.notNull(callbackExecutor, "callbackExecutor");
+        ParameterCheck.notNull(defaultErrorHandler, "defaultErrorHandler");
+
+        this.taskManager = taskManager;
+        this.callbackExecutor = callbackExecutor;
+        this.defaultErrorHandler = defaultErrorHandler;
+        this.writer = createExecutor("tasky-writer", 1);
+        this.readers = createExecutor("tasky-reader", READER_THREAD_COUNT);
+    }
+
+    /**
+     * Creates a new task.
+     * @param title Title of the task.
+     * @param dueDate Indicates when the task is due; or null if it is immediately due.
+     * @param callback Callback that receives the created task; or null.
+     * @return A future that can be used to cancel the operation.
+     */
+    public Future<Task> createTask(final String title, final DateTime dueDate, Callback<Task> callback) {
+        return write(new Callable<Task>() {
+            @Override
+            public Task call() {
+                return taskManager.createTask(title, dueDate);
+            }
+        }, callback);
+    }
+
+    /**
+     * Sets the specified task to done.
+     * @param id Id of the task that should be done.
+     * @param callback Callback that is notified when the task has been changed; or null.
+     * @return A future that can be used to cancel the operation.
+     */
+    public Future<Void> setTaskDone(final long id, Callback<Void> callback) {
+        return write(new Callable<Void>() {
+            @Override
+            public Void call() {
+                taskManager.setTaskDone(id);
+                return null;
+            }
+        }, callback);
+    }
+
+    /**
+     * Reverts the done-state of the specified task.
+     * @param id Id of the task that should not be done anymore.
+     * @param callback Callback that is notified when the task has been changed; or null.
+     * @return A future that can be used to cancel the operation.
+     */
+    public Future<Void> revertTaskDone(final long id, Callback<Void> callback) {
+        return write(new Callable<Void>() {
+            @Override
+            public Void call() {
+                taskManager.revertTaskDone(id);
+                return null;
+            }
+        }, callback);
+    }
+
+    /**
+     * Postpones the specified task to the specified date.
+     * @param id Id of the task to postpone.
+     * @param postponeUntil Date until which the task should be postponed.
+     * @param callback Callback that is notified when the task has been changed; or null.
+     * @return A future that can be used to cancel the operation.
+     */
+    public Future<Void> postponeTask(final long id, final DateTime postponeUntil, Callback<Void> callback) {
+        return write(new Callable<Void>() {
+            @Override
+            public Void call() {
+                taskManager.postponeTask(id, postponeUntil);
+                return null;
+            }
+        }, callback);
+    }
+
+    /**
+     * Changes the priority of the specified task.
+     * @param id Id of the task of which the priority should be changed.
+     * @param priority Priority that the task should have.
+     * @param callback Callback that is notified when the task has been changed; or null.
+     * @return A future that can be used to cancel the operation.
+     */
+    public Future<Void> changeTaskPriority(final long id, final TaskPriority priority, Callback<Void> callback) {
+        return write(new Callable<Void>() {
+            @Override
+            public Void call() {
+                taskManager.changeTaskPriority(id, priority);
+                return null;
+            }
+        }, callback);
+    }
+
+    /**
+     * Sets the specified tasks to done with a single update.
+     * @param ids Ids of the tasks that should be done.
+     * @param callback Callback that receives the number of changed tasks; or null.
+     * @return A future that can be used to cancel the operation.
+     */
+    public Future<Integer> setTasksDone(Collection<Long> ids, Callback<Integer> callback) {
+        ParameterCheck.notNull(ids, "ids");
+
+        // Copy the Ids, so that the caller can reuse the collection while the tasks are changed.
+        final List<Long> idList = new ArrayList(ids);
+        return write(new Callable<Integer>() {
+            @Override
+            public Integer call() {
+                return taskManager.setTasksDone(idList);
+            }
+        }, callback);
+    }
+
+    /**
+     * Postpones the specified tasks to the specified date with a single update.
+     * @param ids Ids of the tasks to postpone.
+     * @param postponeUntil Date until which the tasks should be postponed.
+     * @param callback Callback that receives the number of changed tasks; or null.
+     * @return A future that can be used to cancel the operation.
+     */
+    public Future<Integer> postponeTasks(Collection<Long> ids, final DateTime postponeUntil, Callback<Integer> callback) {
+        ParameterCheck.notNull(ids, "ids");
+
+        final List<Long> idList = new ArrayList(ids);
+        return write(new Callable<Integer>() {
+            @Override
+            public Integer call() {
+                return taskManager.postponeTasks(idList, postponeUntil);
+            }
+        }, callback);
+    }
+
+    /**
+     * Changes the priority of the specified tasks with a single update.
+     * @param ids Ids of the tasks of which the priority should be changed.
+     * @param priority Priority that the tasks should have.
+     * @param callback Callback that receives the number of changed tasks; or null.
+     * @return A future that can be used to cancel the operation.
+     */
+    public Future<Integer> changeTasksPriority(Collection<Long> ids, final TaskPriority priority, Callback<Integer> callback) {
+        ParameterCheck.notNull(ids, "ids");
+
+        final List<Long> idList = new ArrayList(ids);
+        return write(new Callable<Integer>() {
+            @Override
+            public Integer call() {
+                return taskManager.changeTasksPriority(idList, priority);
+            }
+        }, callback);
+    }
+
+    /**
+     * Creates a new recurring task.
+     * @param title Title of the tasks.
+     * @param startDate Date on which the first task is due.
+     * @param endDate Date after which no more tasks should be created; or null if the tasks should recur forever.
+     * @param interval Number of interval units between two tasks.
+     * @param intervalUnit Unit of the interval between two tasks.
+     * @param callback Callback that receives the created recurring task; or null.
+     * @return A future that can be used to cancel the operation.
+     */
+    public Future<RecurringTask> createRecurringTask(final String title, final DateTime startDate, final DateTime endDate,
+                                                     final int interval, final RecurrenceIntervalUnit intervalUnit,
+                                                     Callback<RecurringTask> callback) {
+        return write(new Callable<RecurringTask>() {
+            @Override
+            public RecurringTask call() {
+                return taskManager.createRecurringTask(title, startDate, endDate, interval, intervalUnit);
+            }
+        }, callback);
+    }
+
+    /**
+     * Creates the tasks of the recurring tasks that are due soon and have not been created yet.
+     * @param callback Callback that receives the number of created tasks; or null.
+     * @return A future that can be used to cancel the operation.
+     */
+    public Future<Integer> materializeRecurringTasks(Callback<Integer> callback) {
+        return write(new Callable<Integer>() {
+            @Override
+            public Integer call() {
+                return taskManager.materializeRecurringTasks();
+            }
+        }, callback);
+    }
+
+    /**
+     * Moves the tasks that have been done for at least the specified number of days into the archive.
+     * @param minimumAgeDays Number of days since which the tasks should have been done.
+     * @param callback Callback that receives the report of the archived tasks; or null.
+     * @return A future that can be used to cancel the operation.
+     */
+    public Future<TaskArchiveReport> archiveDoneTasks(final int minimumAgeDays, Callback<TaskArchiveReport> callback) {
+        return write(new Callable<TaskArchiveReport>() {
+            @Override
+            public TaskArchiveReport call() {
+                return taskManager.archiveDoneTasks(minimumAgeDays);
+            }
+        }, callback);
+    }
+
+    /**
+     * Runs the maintenance of the storage that can take long, like rebuilding it to apply new settings.
+     * @param callback Callback that is notified when the maintenance is complete; or null.
+     * @return A future that can be used to cancel the operation.
+     */
+    public Future<Void> maintainStorage(Callback<Void> callback) {
+        return write(new Callable<Void>() {
+            @Override
+            public Void call() {
+                taskManager.maintainStorage();
+                return null;
+            }
+        }, callback);
+    }
+
+    /**
+     * Gets a page of the tasks that are relevant to display to the user.
+     * @param limit Maximum number of tasks in the page.
+     * @param after Last task of the previous page; or null to get the first page.
+     * @param callback Callback that receives the relevant tasks of the page; or null.
+     * @return A future that can be used to cancel the operation.
+     */
+    public Future<List<Task>> getRelevantTasks(final int limit, final Task after, Callback<List<Task>> callback) {
+        return read(new Callable<List<Task>>() {
+            @Override
+            public List<Task> call() {
+                return taskManager.getRelevantTasks(limit, after);
+            }
+        }, callback);
+    }
+
+    /**
+     * Observes the tasks that are relevant to display to the user. The tasks are read
+     * on the reader threads whenever a change can affect them and delivered on the main thread.
+     * @param pageSize Number of tasks to read with each page.
+     * @param observer Observer that receives the relevant tasks.
+     * @return The started query; should be closed when the tasks are not needed anymore.
+     */
+    public ObservableTaskQuery observeRelevantTasks(int pageSize, final ObservableTaskQuery.Observer observer) {
+        ParameterCheck.notNull(observer, "observer");
+
+        return taskManager.observeRelevantTasks(pageSize, readers, new ObservableTaskQuery.Observer() {
+            @Override
+            public void onTasksLoaded(final List<Task> tasks, final boolean hasMore) {
+                callbackExecutor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        observer.onTasksLoaded(tasks, hasMore);
+                    }
+                });
+            }
+
+            @Override
+            public void onError(final Exception exception) {
+                callbackExecutor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        observer.onError(exception);
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Counts the tasks that are relevant to display to the user without reading them.
+     * @param callback Callback that receives the number of relevant tasks; or null.
+     * @return A future that can be used to cancel the operation.
+     */
+    public Future<Long> countRelevantTasks(Callback<Long> callback) {
+        return read(new Callable<Long>() {
+            @Override
+            public Long call() {
+                return taskManager.countRelevantTasks();
+            }
+        }, callback);
+    }
+
+    /**
+     * Searches the tasks with titles containing all words of the search text.
+     * @param searchText Text with the words that the titles of the tasks should contain.
+     * @param limit Maximum number of tasks to find.
+     * @param callback Callback that receives the most relevant matching tasks; or null.
+     * @return A future that can be used to cancel the operation.
+     */
+    public Future<List<Task>> searchTasks(final String searchText, final int limit, Callback<List<Task>> callback) {
+        return read(new Callable<List<Task>>() {
+            @Override
+            public List<Task> call() {
+                return taskManager.searchTasks(searchText, limit);
+            }
+        }, callback);
+    }
+
+    /**
+     * Stops the threads after the operations that have already been requested are completed.
+     * No more operations can be requested afterwards.
+     */
+    public void shutdown() {
+        writer.shutdown();
+        readers.shutdown();
+    }
+
+    /**
+     * Runs the operation on the writer thread after all previously requested changes.
+     */
+    private <TResult> Future<TResult> write(Callable<TResult> operation, Callback<TResult> callback) {
+        Operation<TResult> write = new Operation(operation, callback);
+        writer.execute(write);
+        return write;
+    }
+
+    /**
+     * Runs the operation on a reader thread once all previously requested changes are completed.
+     * The read waits for a barrier queued on the writer thread behind those changes, as the futures
+     * of the changes themselves may be cancelled while they are still queued or running.
+     */
+    private <TResult> Future<TResult> read(final Callable<TResult> operation, Callback<TResult> callback) {
+        final FutureTask<Void> barrier = new FutureTask(NO_OPERATION, null);
+        writer.execute(barrier);
+
+        Operation<TResult> read = new Operation(new Callable<TResult>() {
+            @Override
+            public TResult call() throws Exception {
+                barrier.get();
+                return operation.call();
+            }
+        }, callback);
+        readers.execute(read);
+        return read;
+    }
+
+    private static ExecutorService createExecutor(final String name, int threadCount) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threadCount, threadCount, 30, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+                private final AtomicInteger count = new AtomicInteger();
+
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+
+        // Idle threads are stopped, so that an unused manager does not keep threads alive.
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Runs an operation and delivers its result to the callback, or its failure
+     * to the default error handler if there is no callback, unless the operation
+     * has been cancelled before the delivery.
+     */
+    private final class Operation<TResult> extends FutureTask<TResult> {
+        private final Callback<TResult> callback;
+        private volatile boolean discarded;
+
+        Operation(Callable<TResult> operation, Callback<TResult> callback) {
+            super(operation);
+            this.callback = callback;
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            // A completed operation cannot be cancelled anymore, but its result may not be delivered yet.
+            discarded = true;
+            return super.cancel(mayInterruptIfRunning);
+        }
+
+        @Override
+        protected void done() {
+            if (discarded || (callback == null && !isFailed())) return;
+
+            callbackExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    if (discarded) return;
+
+                    TResult result;
+                    try {
+                        result = get();
+                    } catch (ExecutionException exception) {
+                        Throwable cause = exception.getCause();
+                        if (cause instanceof Error) throw (Error)cause;
+                        if (callback != null) {
+                            callback.onError((Exception)cause);
+                        } else {
+                            defaultErrorHandler.onError((Exception)cause);
+                        }
+                        return;
+                    } catch (InterruptedException exception) {
+                        // Cannot occur, as the operation is already done.
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+
+                    callback.onComplete(result);
+                }
+            });
+        }
+
+        /**
+         * Checks if the completed operation has thrown an exception.
+         */
+        private boolean isFailed() {
+            try {
+                get();
+                return false;
+            } catch (ExecutionException exception) {
+                return true;
+            } catch (InterruptedException exception) {
+                // Cannot occur, as the operation is already done.
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Logs the failures of operations without a callback, so that they are not lost silently.
+     */
+    private static final class LoggingErrorHandler implements ErrorHandler {
+        @Override
+        public void onError(Exception exception) {
+            Log.e(LOG_TAG, "Operation without a callback failed.", exception);
+        }
+    }
+
+    /**
+     * Executes the callbacks on the main thread.
+     */
+    private static final class MainThreadExecutor implements Executor {
+        private final Handler handler = new Handler(Looper.getMainLooper());
+
+        @Override
+        public void execute(Runnable runnable) {
+            handler.post(runnable);
+        }
+    }
+}
@@ -1,9 +1,18 @@
 package com.tasky.android.logic;
 
+import com.tasky.android.entities.RecurrenceIntervalUnit;
+import com.tasky.android.entities.RecurringTask;
 import com.tasky.android.entities.Task;
 import com.tasky.android.entities.TaskPriority;
+import com.tasky.android.storage.ObservableTaskQuery;
+import com.tasky.android.storage.TaskProjection;
+import com.tasky.android.storage.TaskQuery;
+import com.tasky.android.storage.TaskSortKey;
+import com.tasky.android.storage.TaskSortOrder;
+import com.tasky.android.storage.TaskUpdate;
 import com.tasky.android.storage.TaskyContract;
 import com.tasky.android.storage.TaskyDataProvider;
+import com.tasky.android.storage.queries.EmptyQueryFilter;
 import com.tasky.android.storage.queries.QueryFilter;
 import com.tasky.android.storage.queries.QueryFilterBase;
 import com.tasky.android.storage.queries.QueryFilterFactory;
@@ -12,9 +21,9 @@ import com.tasky.android.utilities.ParameterCheck;
 
 import org.joda.time.DateTime;
 
-import java.util.Collections;
-import java.util.Comparator;
+import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.Executor;
 
 
 /**
@@ -22,6 +31,31 @@ import java.util.List;
  * operating on a TaskyDataProvider.
  */
 public final class PersistentTaskManager implements TaskManager {
+    /**
+     * Order of relevant tasks: most important first, older before newer ones.
+     */
+    private static final TaskSortOrder RELEVANT_TASK_ORDER =
+        TaskSortOrder.by(TaskSortKey.Priority, false).thenBy(TaskSortKey.CreatedOn, false);
+
+    /**
+     * Columns read for pages of relevant tasks; enough to display them and to request the next page.
+     */
+    private static final TaskProjection RELEVANT_TASK_PROJECTION = TaskProjection.of(
+        TaskyContract.Task.COLUMN_NAME_TITLE,
+        TaskyContract.Task.COLUMN_NAME_DONE_ON,
+        TaskyContract.Task.COLUMN_NAME_PRIORITY,
+        TaskyContract.Task.COLUMN_NAME_CREATED_ON);
+
+    /**
+     * Number of days ahead for which the tasks of recurring tasks are created.
+     */
+    private static final int RECURRENCE_HORIZON_DAYS = 7;
+
+    /**
+     * Maximum number of tasks moved into the archive within one transaction.
+     */
+    private static final int ARCHIVE_BATCH_SIZE = 200;
+
     private final TaskyDataProvider dataprovider;
 
     /**
@@ -57,9 +91,7 @@ public final class PersistentTaskManager implements TaskManager {
      */
     @Override
     public void setTaskDone(long id) {
-        Task task = getTaskById(id);
-        task.setDoneOn(DateTime.now());
-        dataprovider.updateTask(task);
+        updateTask(id, new TaskUpdate().setDoneOn(DateTime.now()));
     }
 
     /**
@@ -68,9 +100,7 @@ public final class PersistentTaskManager implements TaskManager {
      */
     @Override
     public void revertTaskDone(long id) {
-        Task task = getTaskById(id);
-        task.setDoneOn(null);
-        dataprovider.updateTask(task);
+        updateTask(id, new TaskUpdate().setDoneOn(null));
     }
 
     /**
@@ -80,9 +110,7 @@ public final class PersistentTaskManager implements TaskManager {
      */
     @Override
     public void postponeTask(long id, DateTime postponeUntil) {
-        Task task = getTaskById(id);
-        task.setPostponedUntil(postponeUntil);
-        dataprovider.updateTask(task);
+        updateTask(id, new TaskUpdate().setPostponedUntil(postponeUntil));
     }
 
     /**
@@ -92,9 +120,39 @@ public final class PersistentTaskManager implements TaskManager {
      */
     @Override
     public void changeTaskPriority(long id, TaskPriority priority) {
-        Task task = getTaskById(id);
-        task.setPriority(priority);
-        dataprovider.updateTask(task);
+        updateTask(id, new TaskUpdate().setPriority(priority));
+    }
+
+    /**
+     * Sets the specified tasks to done with a single update.
+     * @param ids Ids of the tasks that should be done.
+     * @return The number of tasks that have been set to done; Ids without a task are ignored.
+     */
+    @Override
+    public int setTasksDone(Collection<Long> ids) {
+        return updateTasks(ids, new TaskUpdate().setDoneOn(DateTime.now()));
+    }
+
+    /**
+     * Postpones the specified tasks to the specified date with a single update.
+     * @param ids Ids of the tasks to postpone.
+     * @param postponeUntil Date until which the tasks should be postponed.
+     * @return The number of postponed tasks; Ids without a task are ignored.
+     */
+    @Override
+    public int postponeTasks(Collection<Long> ids, DateTime postponeUntil) {
+        return updateTasks(ids, new TaskUpdate().setPostponedUntil(postponeUntil));
+    }
+
+    /**
+     * Changes the priority of the specified tasks with a single update.
+     * @param ids Ids of the tasks of which the priority should be changed.
+     * @param priority Priority that the tasks should have.
+     * @return The number of changed tasks; Ids without a task are ignored.
+     */
+    @Override
+    public int changeTasksPriority(Collection<Long> ids, TaskPriority priority) {
+        return updateTasks(ids, new TaskUpdate().setPriority(priority));
     }
 
     /**
@@ -103,6 +161,158 @@ public final class PersistentTaskManager implements TaskManager {
      */
     @Override
     public List<Task> getRelevantTasks() {
+        return dataprovider.queryTasks(new TaskQuery(buildRelevantTasksFilter()).orderBy(RELEVANT_TASK_ORDER));
+    }
+
+    /**
+     * Gets a page of the tasks that are relevant to display to the user. The tasks only
+     * contain the Id, title, done-state, priority and creation date
+     * needed to display them and to request the next page.
+     * @param limit Maximum number of tasks in the page.
+     * @param after Last task of the previous page; or null to get the first page.
+     * @return A list with the relevant tasks of the page; contains less than
+     * the maximum number of tasks if there are no more relevant tasks.
+     */
+    @Override
+    public List<Task> getRelevantTasks(int limit, Task after) {
+        if (limit <= 0) throw new IllegalArgumentException("limit must be positive.");
+
+        TaskQuery query = new TaskQuery(buildRelevantTasksFilter())
+            .orderBy(RELEVANT_TASK_ORDER)
+            .withProjection(RELEVANT_TASK_PROJECTION)
+            .withLimit(limit);
+        if (after != null) query = query.after(after);
+
+        return dataprovider.queryTasks(query);
+    }
+
+    /**
+     * Observes the tasks that are relevant to display to the user: the tasks are read in pages
+     * and read again whenever a change of the tasks can affect them. The filter is built again
+     * for each refresh, so that tasks that became due meanwhile are included. The tasks only
+     * contain the Id, title, done-state, priority and creation date needed to display them.
+     * @param pageSize Number of tasks to read with each page.
+     * @param executor Executor on which the tasks should be read and the observer called.
+     * @param observer Observer that receives the relevant tasks.
+     * @return The started query; should be closed when the tasks are not needed anymore.
+     */
+    @Override
+    public ObservableTaskQuery observeRelevantTasks(final int pageSize, Executor executor, ObservableTaskQuery.Observer observer) {
+        if (pageSize <= 0) throw new IllegalArgumentException("pageSize must be positive.");
+
+        ObservableTaskQuery.QuerySource querySource = new ObservableTaskQuery.QuerySource() {
+            @Override
+            public TaskQuery getQuery() {
+                return new TaskQuery(buildRelevantTasksFilter())
+                    .orderBy(RELEVANT_TASK_ORDER)
+                    .withProjection(RELEVANT_TASK_PROJECTION)
+                    .withLimit(pageSize);
+            }
+        };
+
+        return new ObservableTaskQuery(dataprovider, querySource, executor, observer).start();
+    }
+
+    /**
+     * Counts the tasks that are relevant to display to the user without reading them.
+     * @return The number of relevant tasks.
+     */
+    @Override
+    public long countRelevantTasks() {
+        return dataprovider.countTasks(buildRelevantTasksFilter());
+    }
+
+    /**
+     * Checks if there is any task that is relevant to display to the user.
+     * @return True, if there is at least one relevant task; otherwise false.
+     */
+    @Override
+    public boolean hasRelevantTasks() {
+        return dataprovider.anyTasks(buildRelevantTasksFilter());
+    }
+
+    /**
+     * Searches the tasks with titles containing all words of the search text,
+     * using the words of the search text as prefixes.
+     * @param searchText Text with the words that the titles of the tasks should contain.
+     * @param limit Maximum number of tasks to find.
+     * @return A list with the most relevant matching tasks, starting with the most relevant.
+     */
+    @Override
+    public List<Task> searchTasks(String searchText, int limit) {
+        return dataprovider.searchTasks(searchText, new EmptyQueryFilter(), limit);
+    }
+
+    /**
+     * Creates a new recurring task; its tasks are created by materializeRecurringTasks.
+     * @param title Title of the tasks.
+     * @param startDate Date on which the first task is due.
+     * @param endDate Date after which no more tasks should be created; or null if the tasks should recur forever.
+     * @param interval Number of interval units between two tasks.
+     * @param intervalUnit Unit of the interval between two tasks.
+     * @return The created recurring task.
+     */
+    @Override
+    public RecurringTask createRecurringTask(String title, DateTime startDate, DateTime endDate, int interval, RecurrenceIntervalUnit intervalUnit) {
+        ParameterCheck.notNull(startDate, "startDate");
+        ParameterCheck.notNull(intervalUnit, "intervalUnit");
+        if (interval <= 0) throw new IllegalArgumentException("interval must be positive.");
+
+        RecurringTask recurringTask = new RecurringTask();
+        recurringTask.setTitle(title);
+        recurringTask.setStartDate(startDate);
+        recurringTask.setEndDate(endDate);
+        recurringTask.setInterval(interval);
+        recurringTask.setIntervalUnit(intervalUnit);
+        recurringTask.setNextOccurrence(0);
+        recurringTask.setNextOccurrenceDate(RecurringTaskMaterializer.getOccurrenceDate(recurringTask, 0));
+
+        dataprovider.insertRecurringTask(recurringTask);
+        return recurringTask;
+    }
+
+    /**
+     * Creates the tasks of the recurring tasks that are due soon and have not been created yet.
+     * @return The number of created tasks.
+     */
+    @Override
+    public int materializeRecurringTasks() {
+        return new RecurringTaskMaterializer(dataprovider).materializeUntil(DateTime.now().plusDays(RECURRENCE_HORIZON_DAYS));
+    }
+
+    /**
+     * Moves the tasks that have been done for at least the specified number of days into
+     * the archive, so that they do not slow down the queries for the other tasks,
+     * and releases the storage that they used.
+     * @param minimumAgeDays Number of days since which the tasks should have been done.
+     * @return A report with the number of archived tasks and the number of other tasks before and after.
+     */
+    @Override
+    public TaskArchiveReport archiveDoneTasks(int minimumAgeDays) {
+        if (minimumAgeDays < 0) throw new IllegalArgumentException("minimumAgeDays cannot be negative.");
+
+        long taskCountBefore = dataprovider.countTasks(new EmptyQueryFilter());
+        int archivedTaskCount = dataprovider.archiveTasks(DateTime.now().minusDays(minimumAgeDays), ARCHIVE_BATCH_SIZE);
+        // Only worth the effort if the archived tasks have left free pages behind.
+        if (archivedTaskCount > 0) dataprovider.compactStorage();
+
+        return new TaskArchiveReport(taskCountBefore, archivedTaskCount, dataprovider.countTasks(new EmptyQueryFilter()));
+    }
+
+    /**
+     * Runs the maintenance of the storage that can take long, like rebuilding it to apply new settings.
+     * Should only be run while the user is not waiting, e.g. while the app is in the background.
+     */
+    @Override
+    public void maintainStorage() {
+        dataprovider.rebuildStorage();
+    }
+
+    /**
+     * Builds a filter that matches all tasks that are relevant to display to the user.
+     * @return A filter matching all relevant tasks.
+     */
+    private QueryFilter buildRelevantTasksFilter() {
         // Relevant tasks include only tasks which...
         // ... are not done.
         QueryFilterBase doneFilter = new ValueQueryFilter(TaskyContract.Task.COLUMN_NAME_DONE_ON, ValueQueryFilter.Type.IsNull, null);
@@ -113,25 +323,29 @@ public final class PersistentTaskManager implements TaskManager {
         QueryFilter postponedUntilFilter = QueryFilterFactory.smallerThanOrNull(
                 TaskyContract.Task.COLUMN_NAME_POSTPONED_UNTIL, DateTime.now());
 
-        // Get relevant tasks and sort them by their priority before returning them.
-        List<Task> tasks = dataprovider.queryTasks(doneFilter.And(dueDateFilter).And(postponedUntilFilter));
-        Collections.sort(tasks, new Comparator<Task>() {
-            @Override
-            public int compare(Task o1, Task o2) {
-                return ((Integer)o1.getPriority().getSortIndex()).compareTo(o2.getPriority().getSortIndex());
-            }
-        });
+        return doneFilter.And(dueDateFilter).And(postponedUntilFilter);
+    }
 
-        return tasks;
+    /**
+     * Updates the columns of a task by its Id, without reading the task first.
+     * @param id Id of the task to update.
+     * @param update Update describing the new values of the columns.
+     */
+    private void updateTask(long id, TaskUpdate update) {
+        if (dataprovider.updateTaskColumns(id, update) == 0) {
+            throw new IllegalArgumentException("There is no task with Id " + id + ".");
+        }
     }
 
     /**
-     * Gets a task by its Id.
-     * @param id Id of the task to retreive from the dataprovider.
-     * @return The task with the specified Id.
+     * Updates the columns of all tasks with the specified Ids with a single statement.
+     * @param ids Ids of the tasks to update.
+     * @param update Update describing the new values of the columns.
+     * @return The number of updated tasks.
      */
-    private Task getTaskById(long id) {
-        QueryFilter filter = new ValueQueryFilter(TaskyContract.Task._ID, ValueQueryFilter.Type.Equals, id);
-        return dataprovider.queryTasks(filter).get(0);
+    private int updateTasks(Collection<Long> ids, TaskUpdate update) {
+        ParameterCheck.notNull(ids, "ids");
+
+        return ids.isEmpty() ? 0 : dataprovider.updateTaskColumns(ids, update);
     }
-}
\ No newline at end of file
+}
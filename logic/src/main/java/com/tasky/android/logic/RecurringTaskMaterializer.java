@@ -0,0 +1,145 @@
+package com.tasky.android.logic;
+
+import com.tasky.android.entities.RecurringTask;
+import com.tasky.android.entities.Task;
+import com.tasky.android.entities.TaskPriority;
+import com.tasky.android.storage.TaskyDataProvider;
+import com.tasky.android.utilities.ParameterCheck;
+
+import org.joda.time.DateTime;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Creates the tasks of recurring tasks up to a horizon. Each recurring task keeps a watermark
+ * with the next occurrence for which no task has been created yet, so only the occurrences
+ * between the watermark and the horizon are created; earlier occurrences are never looked at again.
+ * The tasks are inserted in batches, each together with the advanced watermark in one transaction.
+ * The watermark is only advanced if it has not been advanced by another writer since it has been
+ * read; otherwise the batch is rolled back and the recurring task is left to the other writer.
+ */
+public final class RecurringTaskMaterializer {
+    /**
+     * Default number of tasks inserted in one transaction.
+     */
+    public static final int DEFAULT_BATCH_SIZE = 100;
+
+    private final TaskyDataProvider dataprovider;
+    private final int batchSize;
+
+    /**
+     * Creates a RecurringTaskMaterializer inserting the tasks in batches of the default size.
+     * @param dataprovider TaskyDataProvider from which to read the recurring tasks and into which to insert the tasks.
+     */
+    public RecurringTaskMaterializer(TaskyDataProvider dataprovider) {
+        this(dataprovider, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Creates a RecurringTaskMaterializer.
+     * @param dataprovider TaskyDataProvider from which to read the recurring tasks and into which to insert the tasks.
+     * @param batchSize Number of tasks inserted in one transaction.
+     */
+    public RecurringTaskMaterializer(TaskyDataProvider dataprovider, int batchSize) {
+        ParameterCheck.notNull(dataprovider, "dataprovider");
+        if (batchSize <= 0) throw new IllegalArgumentException("batchSize must be positive.");
+
+        this.dataprovider = dataprovider;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Creates the tasks of all occurrences of the recurring tasks that are due before the horizon
+     * and for which no tasks have been created yet.
+     * @param horizon Date before which the occurrences should have tasks.
+     * @return The number of created tasks.
+     */
+    public int materializeUntil(DateTime horizon) {
+        ParameterCheck.notNull(horizon, "horizon");
+
+        int count = 0;
+        for (RecurringTask recurringTask : dataprovider.queryRecurringTasksDueBefore(horizon)) {
+            count += materialize(recurringTask, horizon);
+        }
+
+        return count;
+    }
+
+    /**
+     * Gets the date on which an occurrence of the recurring task is due. The date is calculated
+     * from the start date, so that clipping to the end of a month does not shift later occurrences.
+     * @param recurringTask Recurring task of which the occurrence should be calculated.
+     * @param occurrence Number of the occurrence, starting with zero.
+     * @return The date on which the occurrence is due; or null if it is after the end date.
+     */
+    public static DateTime getOccurrenceDate(RecurringTask recurringTask, long occurrence) {
+        ParameterCheck.notNull(recurringTask, "recurringTask");
+
+        DateTime startDate = recurringTask.getStartDate();
+        int intervals = (int)(occurrence * recurringTask.getInterval());
+        DateTime date;
+        switch (recurringTask.getIntervalUnit()) {
+            case Day: date = startDate.plusDays(intervals); break;
+            case Week: date = startDate.plusWeeks(intervals); break;
+            case Month: date = startDate.plusMonths(intervals); break;
+            case Year: date = startDate.plusYears(intervals); break;
+            default: throw new IllegalArgumentException("Unknown interval unit: " + recurringTask.getIntervalUnit());
+        }
+
+        DateTime endDate = recurringTask.getEndDate();
+        return endDate != null && date.isAfter(endDate) ? null : date;
+    }
+
+    private int materialize(final RecurringTask recurringTask, DateTime horizon) {
+        int count = 0;
+        long occurrence = recurringTask.getNextOccurrence();
+        DateTime date = recurringTask.getNextOccurrenceDate();
+
+        while (date != null && date.isBefore(horizon)) {
+            final long expectedOccurrence = occurrence;
+            final List<Task> batch = new ArrayList();
+            while (batch.size() < batchSize && date != null && date.isBefore(horizon)) {
+                batch.add(createTask(recurringTask, date));
+                date = getOccurrenceDate(recurringTask, ++occurrence);
+            }
+
+            recurringTask.setNextOccurrence(occurrence);
+            recurringTask.setNextOccurrenceDate(date);
+            try {
+                dataprovider.runInTransaction(new Runnable() {
+                    @Override
+                    public void run() {
+                        dataprovider.insertTasks(batch);
+                        if (!dataprovider.advanceRecurringTask(recurringTask, expectedOccurrence)) {
+                            throw new WatermarkChangedException();
+                        }
+                    }
+                });
+            } catch (WatermarkChangedException exception) {
+                // Another writer has created these occurrences meanwhile and continues from its watermark.
+                return count;
+            }
+
+            count += batch.size();
+        }
+
+        return count;
+    }
+
+    /**
+     * Rolls back the transaction of a batch whose watermark has been advanced by another writer.
+     */
+    private static final class WatermarkChangedException extends RuntimeException {
+    }
+
+    private static Task createTask(RecurringTask recurringTask, DateTime dueDate) {
+        Task task = new Task();
+        task.setTitle(recurringTask.getTitle());
+        task.setDueDate(dueDate);
+        task.setCreatedOn(DateTime.now());
+        task.setPriority(TaskPriority.Normal);
+        task.setCreatedFromRecurringTaskId((int)recurringTask.getId());
+        return task;
+    }
+}
@@ -0,0 +1,46 @@
+package com.tasky.android.logic;
+
+/**
+ * Reports the result of archiving the tasks that have been done long ago: how many tasks
+ * have been archived and how many tasks were kept outside of the archive before and after.
+ */
+public final class TaskArchiveReport {
+    private final long taskCountBefore;
+    private final int archivedTaskCount;
+    private final long taskCountAfter;
+
+    /**
+     * Creates a TaskArchiveReport.
+     * @param taskCountBefore Number of tasks outside of the archive before archiving.
+     * @param archivedTaskCount Number of tasks that have been archived.
+     * @param taskCountAfter Number of tasks outside of the archive after archiving.
+     */
+    public TaskArchiveReport(long taskCountBefore, int archivedTaskCount, long taskCountAfter) {
+        this.taskCountBefore = taskCountBefore;
+        this.archivedTaskCount = archivedTaskCount;
+        this.taskCountAfter = taskCountAfter;
+    }
+
+    /**
+     * Gets the number of tasks outside of the archive before archiving.
+     * @return The number of tasks outside of the archive before archiving.
+     */
+    public long getTaskCountBefore() { return taskCountBefore; }
+
+    /**
+     * Gets the number of tasks that have been archived.
+     * @return The number of tasks that have been archived.
+     */
+    public int getArchivedTaskCount() { return archivedTaskCount; }
+
+    /**
+     * Gets the number of tasks outside of the archive after archiving.
+     * @return The number of tasks outside of the archive after archiving.
+     */
+    public long getTaskCountAfter() { return taskCountAfter; }
+
+    @Override
+    public String toString() {
+        return "Archived " + archivedTaskCount + " tasks; " + taskCountBefore + " tasks before, " + taskCountAfter + " tasks after.";
+    }
+}
@@ -1,11 +1,17 @@
 package com.tasky.android.logic;
 
+import com.tasky.android.entities.RecurrenceIntervalUnit;
+import com.tasky.android.entities.RecurringTask;
 import com.tasky.android.entities.Task;
 import com.tasky.android.entities.TaskPriority;
 
+import com.tasky.android.storage.ObservableTaskQuery;
+
 import org.joda.time.DateTime;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.Executor;
 
 /**
  * Provides methods handling use-cases for task management.
@@ -45,9 +51,108 @@ public interface TaskManager {
      */
     void changeTaskPriority(long id, TaskPriority priority);
 
+    /**
+     * Sets the specified tasks to done with a single update.
+     * @param ids Ids of the tasks that should be done.
+     * @return The number of tasks that have been set to done; Ids without a task are ignored.
+     */
+    int setTasksDone(Collection<Long> ids);
+
+    /**
+     * Postpones the specified tasks to the specified date with a single update.
+     * @param ids Ids of the tasks to postpone.
+     * @param postponeUntil Date until which the tasks should be postponed.
+     * @return The number of postponed tasks; Ids without a task are ignored.
+     */
+    int postponeTasks(Collection<Long> ids, DateTime postponeUntil);
+
+    /**
+     * Changes the priority of the specified tasks with a single update.
+     * @param ids Ids of the tasks of which the priority should be changed.
+     * @param priority Priority that the tasks should have.
+     * @return The number of changed tasks; Ids without a task are ignored.
+     */
+    int changeTasksPriority(Collection<Long> ids, TaskPriority priority);
+
     /**
      * Gets all tasks that are relevant to display to the user.
      * @return A list with all relevant tasks.
      */
     List<Task> getRelevantTasks();
+
+    /**
+     * Gets a page of the tasks that are relevant to display to the user. The tasks only
+     * contain the Id, title, done-state, priority and creation date
+     * needed to display them and to request the next page.
+     * @param limit Maximum number of tasks in the page.
+     * @param after Last task of the previous page; or null to get the first page.
+     * @return A list with the relevant tasks of the page; contains less than
+     * the maximum number of tasks if there are no more relevant tasks.
+     */
+    List<Task> getRelevantTasks(int limit, Task after);
+
+    /**
+     * Observes the tasks that are relevant to display to the user: the tasks are read in pages
+     * and read again whenever a change of the tasks can affect them, including tasks that became
+     * due meanwhile. The tasks only contain the Id, title, done-state, priority and creation date
+     * needed to display them.
+     * @param pageSize Number of tasks to read with each page.
+     * @param executor Executor on which the tasks should be read and the observer called.
+     * @param observer Observer that receives the relevant tasks.
+     * @return The started query; should be closed when the tasks are not needed anymore.
+     */
+    ObservableTaskQuery observeRelevantTasks(int pageSize, Executor executor, ObservableTaskQuery.Observer observer);
+
+    /**
+     * Counts the tasks that are relevant to display to the user without reading them.
+     * @return The number of relevant tasks.
+     */
+    long countRelevantTasks();
+
+    /**
+     * Checks if there is any task that is relevant to display to the user.
+     * @return True, if there is at least one relevant task; otherwise false.
+     */
+    boolean hasRelevantTasks();
+
+    /**
+     * Searches the tasks with titles containing all words of the search text,
+     * using the words of the search text as prefixes.
+     * @param searchText Text with the words that the titles of the tasks should contain.
+     * @param limit Maximum number of tasks to find.
+     * @return A list with the most relevant matching tasks, starting with the most relevant.
+     */
+    List<Task> searchTasks(String searchText, int limit);
+
+    /**
+     * Creates a new recurring task; its tasks are created by materializeRecurringTasks.
+     * @param title Title of the tasks.
+     * @param startDate Date on which the first task is due.
+     * @param endDate Date after which no more tasks should be created; or null if the tasks should recur forever.
+     * @param interval Number of interval units between two tasks.
+     * @param intervalUnit Unit of the interval between two tasks.
+     * @return The created recurring task.
+     */
+    RecurringTask createRecurringTask(String title, DateTime startDate, DateTime endDate, int interval, RecurrenceIntervalUnit intervalUnit);
+
+    /**
+     * Creates the tasks of the recurring tasks that are due soon and have not been created yet.
+     * @return The number of created tasks.
+     */
+    int materializeRecurringTasks();
+
+    /**
+     * Moves the tasks that have been done for at least the specified number of days into
+     * the archive, so that they do not slow down the queries for the other tasks,
+     * and releases the storage that they used.
+     * @param minimumAgeDays Number of days since which the tasks should have been done.
+     * @return A report with the number of archived tasks and the number of other tasks before and after.
+     */
+    TaskArchiveReport archiveDoneTasks(int minimumAgeDays);
+
+    /**
+     * Runs the maintenance of the storage that can take long, like rebuilding it to apply new settings.
+     * Should only be run while the user is not waiting, e.g. while the app is in the background.
+     */
+    void maintainStorage();
 }
\ No newline at end of file
@@ -0,0 +1,167 @@
+package com.tasky.android.logic;
+
+import com.tasky.android.entities.Task;
+import com.tasky.android.logic.Mocks.TaskyDataProviderMock;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the implementation of the AsyncTaskManager.
+ */
+public class AsyncTaskManagerTests {
+    private static final Executor DIRECT_EXECUTOR = new Executor() {
+        @Override
+        public void execute(Runnable runnable) {
+            runnable.run();
+        }
+    };
+
+    @Test
+    public void AsyncTaskManager_deliversResultToCallback() throws Exception {
+        AsyncTaskManager sut = new AsyncTaskManager(new PersistentTaskManager(new TaskyDataProviderMock()), DIRECT_EXECUTOR);
+        RecordingCallback<Task> callback = new RecordingCallback();
+
+        sut.createTask("TITLE", null, callback);
+
+        assertTrue(callback.await());
+        assertEquals("TITLE", callback.result.get().getTitle());
+        assertNull(callback.exception.get());
+        sut.shutdown();
+    }
+
+    @Test
+    public void AsyncTaskManager_readsSeeEarlierWrites() throws Exception {
+        TaskyDataProviderMock dataproviderMock = new TaskyDataProviderMock();
+        AsyncTaskManager sut = new AsyncTaskManager(new PersistentTaskManager(dataproviderMock), DIRECT_EXECUTOR);
+
+        for (int i = 0; i < 20; i++) {
+            sut.createTask("TITLE " + i, null, null);
+        }
+        Future<List<Task>> result = sut.getRelevantTasks(100, null, null);
+
+        assertEquals(20, result.get(5, TimeUnit.SECONDS).size());
+        sut.shutdown();
+    }
+
+    @Test
+    public void AsyncTaskManager_readsSeeEarlierWritesAfterCancelledWrite() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        TaskyDataProviderMock dataproviderMock = new TaskyDataProviderMock() {
+            @Override
+            public void insertTask(Task task) {
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException exception) {
+                    Thread.currentThread().interrupt();
+                }
+                super.insertTask(task);
+            }
+        };
+        AsyncTaskManager sut = new AsyncTaskManager(new PersistentTaskManager(dataproviderMock), DIRECT_EXECUTOR);
+
+        sut.createTask("RUNNING", null, null);
+        sut.createTask("CANCELLED", null, null).cancel(false);
+        Future<Long> result = sut.countRelevantTasks(null);
+
+        try {
+            result.get(100, TimeUnit.MILLISECONDS);
+            fail();
+        } catch (TimeoutException exception) {
+            // Expected, as the running write has not completed yet.
+        }
+        release.countDown();
+
+        assertEquals(Long.valueOf(1), result.get(5, TimeUnit.SECONDS));
+        sut.shutdown();
+    }
+
+    @Test
+    public void AsyncTaskManager_deliversFailureToCallback() throws Exception {
+        AsyncTaskManager sut = new AsyncTaskManager(new PersistentTaskManager(new TaskyDataProviderMock()), DIRECT_EXECUTOR);
+        RecordingCallback<Void> callback = new RecordingCallback();
+
+        sut.setTaskDone(42, callback);
+
+        assertTrue(callback.await());
+        assertTrue(callback.exception.get() instanceof IllegalArgumentException);
+        sut.shutdown();
+    }
+
+    @Test
+    public void AsyncTaskManager_deliversFailureWithoutCallbackToErrorHandler() throws Exception {
+        final CountDownLatch handled = new CountDownLatch(1);
+        final AtomicReference<Exception> failure = new AtomicReference();
+        AsyncTaskManager sut = new AsyncTaskManager(new PersistentTaskManager(new TaskyDataProviderMock()), DIRECT_EXECUTOR,
+            new AsyncTaskManager.ErrorHandler() {
+                @Override
+                public void onError(Exception exception) {
+                    failure.set(exception);
+                    handled.countDown();
+                }
+            });
+
+        sut.createTask("TITLE", null, null);
+        sut.setTaskDone(42, null);
+
+        assertTrue(handled.await(1, TimeUnit.SECONDS));
+        assertTrue(failure.get() instanceof IllegalArgumentException);
+        sut.shutdown();
+    }
+
+    @Test
+    public void AsyncTaskManager_doesNotDeliverCancelledOperations() throws Exception {
+        final CountDownLatch delivery = new CountDownLatch(1);
+        final AtomicReference<Runnable> pendingCallback = new AtomicReference();
+        AsyncTaskManager sut = new AsyncTaskManager(new PersistentTaskManager(new TaskyDataProviderMock()), new Executor() {
+            @Override
+            public void execute(Runnable runnable) {
+                pendingCallback.set(runnable);
+                delivery.countDown();
+            }
+        });
+        RecordingCallback<Long> callback = new RecordingCallback();
+
+        Future<Long> result = sut.countRelevantTasks(callback);
+        assertTrue(delivery.await(5, TimeUnit.SECONDS));
+        result.cancel(false);
+        pendingCallback.get().run();
+
+        assertFalse(callback.await());
+        sut.shutdown();
+    }
+
+    /**
+     * Records the result or the failure passed to the callback.
+     */
+    private static class RecordingCallback<TResult> implements AsyncTaskManager.Callback<TResult> {
+        private final CountDownLatch called = new CountDownLatch(1);
+        final AtomicReference<TResult> result = new AtomicReference();
+        final AtomicReference<Exception> exception = new AtomicReference();
+
+        @Override
+        public void onComplete(TResult result) {
+            this.result.set(result);
+            called.countDown();
+        }
+
+        @Override
+        public void onError(Exception exception) {
+            this.exception.set(exception);
+            called.countDown();
+        }
+
+        boolean await() throws InterruptedException {
+            return called.await(1, TimeUnit.SECONDS);
+        }
+    }
+}
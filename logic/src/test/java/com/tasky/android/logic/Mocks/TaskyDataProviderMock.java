@@ -1,12 +1,24 @@
 package com.tasky.android.logic.Mocks;
 
+import com.tasky.android.entities.RecurringTask;
 import com.tasky.android.entities.Task;
+import com.tasky.android.storage.TaskChangeEvent;
+import com.tasky.android.storage.TaskChangeListener;
+import com.tasky.android.storage.TaskChangeNotifier;
+import com.tasky.android.storage.TaskQuery;
+import com.tasky.android.storage.TaskUpdate;
+import com.tasky.android.storage.TaskVisitor;
 import com.tasky.android.storage.TaskyDataProvider;
+import com.tasky.android.storage.queries.FullTextQueryFilter;
 import com.tasky.android.storage.queries.QueryFilter;
 import com.tasky.android.utilities.ReflectionTools;
 
+import org.joda.time.DateTime;
+
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 
 /**
@@ -14,6 +26,8 @@ import java.util.List;
  */
 public class TaskyDataProviderMock implements TaskyDataProvider {
     private final List<Task> tasks = new ArrayList();
+    private final List<RecurringTask> recurringTasks = new ArrayList();
+    private final TaskChangeNotifier changeNotifier = new TaskChangeNotifier();
 
     // Start from a big number so we can use fixed small numbers in unit tests
     // when adding to the task list directly.
@@ -37,20 +51,98 @@ public class TaskyDataProviderMock implements TaskyDataProvider {
     public void insertTask(Task task) {
         task.setId(generateIdCursor++);
         tasks.add(cloneTask(task));
+        changeNotifier.notifyChanged(TaskChangeEvent.Type.Inserted, task);
+    }
+
+    @Override
+    public void insertTasks(Collection<Task> tasks) {
+        for (Task task:tasks) {
+            insertTask(task);
+        }
+    }
+
+    @Override
+    public Task getTask(long id) {
+        for (Task task:tasks) {
+            if (task.getId() == id) return cloneTask(task);
+        }
+
+        return null;
     }
 
     @Override
     public List<Task> queryTasks(QueryFilter filter) {
-        List<Task> result = new ArrayList();
+        return queryTasks(new TaskQuery(filter));
+    }
+
+    @Override
+    public List<Task> queryTasks(TaskQuery query) {
+        final List<Task> result = new ArrayList();
+        visitTasks(query, false, new TaskVisitor() {
+            @Override
+            public boolean visit(Task task) {
+                result.add(task);
+                return true;
+            }
+        });
+
+        return result;
+    }
+
+    @Override
+    public void visitTasks(QueryFilter filter, boolean reuseInstance, TaskVisitor visitor) {
+        visitTasks(new TaskQuery(filter), reuseInstance, visitor);
+    }
+
+    @Override
+    public void visitTasks(TaskQuery query, boolean reuseInstance, TaskVisitor visitor) {
+        QueryFilter filter = query.getFilter();
+        List<Task> matches = new ArrayList();
         for (Task task:tasks) {
-            try{
-                if (filter.evaluate(task)) {
-                    result.add(cloneTask(task));
-                }
+            if (evaluate(filter, task) && query.isAfterPreviousPage(task)) {
+                matches.add(task);
             }
-            catch(IllegalAccessException exception) {
-                // Do nothing, should not occur.
-                // Will cause error in unit test if relevant.
+        }
+
+        Collections.sort(matches, query.getSortOrder().getComparator());
+        if (query.getLimit() > 0 && matches.size() > query.getLimit()) {
+            matches = matches.subList(0, query.getLimit());
+        }
+
+        Task reusedTask = new Task();
+        for (Task task:matches) {
+            Task visited = reuseInstance ? copyTask(task, reusedTask) : cloneTask(task);
+            if (!visitor.visit(visited)) return;
+        }
+    }
+
+    @Override
+    public long countTasks(QueryFilter filter) {
+        long count = 0;
+        for (Task task:tasks) {
+            if (evaluate(filter, task)) count++;
+        }
+
+        return count;
+    }
+
+    @Override
+    public boolean anyTasks(QueryFilter filter) {
+        for (Task task:tasks) {
+            if (evaluate(filter, task)) return true;
+        }
+
+        return false;
+    }
+
+    @Override
+    public List<Task> searchTasks(String searchText, QueryFilter filter, int limit) {
+        // Matches are returned in the order of storage without ranking.
+        QueryFilter searchFilter = new FullTextQueryFilter(searchText);
+        List<Task> result = new ArrayList();
+        for (Task task:tasks) {
+            if (result.size() < limit && evaluate(searchFilter, task) && evaluate(filter, task)) {
+                result.add(cloneTask(task));
             }
         }
 
@@ -59,17 +151,140 @@ public class TaskyDataProviderMock implements TaskyDataProvider {
 
     @Override
     public void updateTask(Task task) {
-        for (Task t: tasks) {
-            if (t.getId() == task.getId()) {
-                tasks.remove(t);
-                tasks.add(cloneTask(task));
+        for (int i = 0; i < tasks.size(); i++) {
+            if (tasks.get(i).getId() == task.getId()) {
+                tasks.set(i, cloneTask(task));
+                changeNotifier.notifyChanged(TaskChangeEvent.Type.Updated, task);
             }
         }
     }
 
+    @Override
+    public void updateTasks(Collection<Task> tasks) {
+        for (Task task:tasks) {
+            updateTask(task);
+        }
+    }
+
+    @Override
+    public int updateTaskColumns(long id, TaskUpdate update) {
+        for (Task task:tasks) {
+            if (task.getId() == id) {
+                update.applyTo(task);
+                changeNotifier.notifyChanged(TaskChangeEvent.Type.Updated, task);
+                return 1;
+            }
+        }
+
+        return 0;
+    }
+
+    @Override
+    public int updateTaskColumns(Collection<Long> ids, TaskUpdate update) {
+        int count = 0;
+        for (Long id : new HashSet<Long>(ids)) {
+            count += updateTaskColumns(id, update);
+        }
+
+        return count;
+    }
+
+    @Override
+    public void insertRecurringTask(RecurringTask recurringTask) {
+        recurringTask.setId(recurringTasks.size() + 1);
+        recurringTasks.add(recurringTask);
+    }
+
+    @Override
+    public List<RecurringTask> queryRecurringTasksDueBefore(DateTime date) {
+        List<RecurringTask> result = new ArrayList();
+        for (RecurringTask recurringTask : recurringTasks) {
+            if (recurringTask.getNextOccurrenceDate() != null && recurringTask.getNextOccurrenceDate().isBefore(date)) {
+                result.add(recurringTask);
+            }
+        }
+
+        return result;
+    }
+
+    @Override
+    public void updateRecurringTask(RecurringTask recurringTask) {
+        // Recurring tasks are stored by reference, so they are always up to date.
+    }
+
+    @Override
+    public boolean advanceRecurringTask(RecurringTask recurringTask, long expectedNextOccurrence) {
+        // Recurring tasks are stored by reference, so the stored state cannot be compared.
+        return true;
+    }
+
+    public List<RecurringTask> getRecurringTasks() { return recurringTasks; }
+
+    @Override
+    public int archiveTasks(DateTime doneBefore, int batchSize) {
+        List<Task> archivedTasks = new ArrayList();
+        for (Task task : tasks) {
+            if (task.getDoneOn() != null && task.getDoneOn().isBefore(doneBefore)) archivedTasks.add(task);
+        }
+
+        tasks.removeAll(archivedTasks);
+        if (!archivedTasks.isEmpty()) changeNotifier.notifyChanged(TaskChangeEvent.Type.Archived, archivedTasks);
+        return archivedTasks.size();
+    }
+
+    @Override
+    public void compactStorage() {
+    }
+
+    @Override
+    public void rebuildStorage() {
+    }
+
+    @Override
+    public void runInTransaction(Runnable action) {
+        // Keep a copy of the stored tasks to restore it if the action fails.
+        List<Task> snapshot = new ArrayList(tasks);
+        changeNotifier.beginTransaction();
+        boolean successful = false;
+        try {
+            action.run();
+            successful = true;
+        } catch (RuntimeException exception) {
+            tasks.clear();
+            tasks.addAll(snapshot);
+            throw exception;
+        } finally {
+            changeNotifier.endTransaction(successful);
+        }
+    }
+
+    @Override
+    public void addTaskChangeListener(TaskChangeListener listener) {
+        changeNotifier.addListener(listener);
+    }
+
+    @Override
+    public void removeTaskChangeListener(TaskChangeListener listener) {
+        changeNotifier.removeListener(listener);
+    }
+
+    private boolean evaluate(QueryFilter filter, Task task) {
+        try {
+            return filter.evaluate(task);
+        } catch (IllegalAccessException exception) {
+            // Do nothing, should not occur.
+            // Will cause error in unit test if relevant.
+            return false;
+        }
+    }
+
     private Task cloneTask(Task task) {
+        return copyTask(task, new Task());
+    }
+
+    private Task copyTask(Task task, Task target) {
         try {
-            return ReflectionTools.copyFields(task, new Task());
+            return ReflectionTools.copyFields(task, target);
         } catch (IllegalAccessException e) {
             // Do nothing, should not occur.
             // Will cause error in unit test if relevant.
@@ -8,6 +8,8 @@ import org.joda.time.DateTime;
 import org.joda.time.Period;
 import org.junit.Test;
 
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 import static org.junit.Assert.*;
@@ -61,6 +63,50 @@ public class PersistentTaskManagerTests {
             Period.seconds(1).getMillis());
     }
 
+    @Test
+    public void PersistentTaskManager_setsTasksDone() {
+        Task first = new Task();
+        first.setId(1);
+        Task second = new Task();
+        second.setId(2);
+        Task third = new Task();
+        third.setId(3);
+        TaskyDataProviderMock dataproviderMock = new TaskyDataProviderMock(first, second, third);
+
+        PersistentTaskManager sut = new PersistentTaskManager(dataproviderMock);
+        int count = sut.setTasksDone(Arrays.asList(1L, 3L, 42L));
+
+        assertEquals(2, count);
+        assertNotNull(dataproviderMock.getTasks().get(0).getDoneOn());
+        assertNull(dataproviderMock.getTasks().get(1).getDoneOn());
+        assertNotNull(dataproviderMock.getTasks().get(2).getDoneOn());
+    }
+
+    @Test
+    public void PersistentTaskManager_changesTasksPriority() {
+        Task first = new Task();
+        first.setId(1);
+        first.setPriority(TaskPriority.Normal);
+        Task second = new Task();
+        second.setId(2);
+        second.setPriority(TaskPriority.Normal);
+        TaskyDataProviderMock dataproviderMock = new TaskyDataProviderMock(first, second);
+
+        PersistentTaskManager sut = new PersistentTaskManager(dataproviderMock);
+        int count = sut.changeTasksPriority(Arrays.asList(1L, 2L), TaskPriority.High);
+
+        assertEquals(2, count);
+        assertEquals(TaskPriority.High, dataproviderMock.getTasks().get(0).getPriority());
+        assertEquals(TaskPriority.High, dataproviderMock.getTasks().get(1).getPriority());
+    }
+
+    @Test
+    public void PersistentTaskManager_ignoresEmptyBulkUpdate() {
+        PersistentTaskManager sut = new PersistentTaskManager(new TaskyDataProviderMock());
+
+        assertEquals(0, sut.postponeTasks(Collections.<Long>emptyList(), new DateTime(2017, 6, 18, 0, 0)));
+    }
+
     @Test
     public void PersistentTaskManager_yieldsRelevantTask() {
         Task task = new Task();
@@ -181,4 +227,109 @@ public class PersistentTaskManagerTests {
         assertEquals(middle.getId(), result.get(1).getId());
         assertEquals(low.getId(), result.get(2).getId());
     }
+
+    @Test
+    public void PersistentTaskManager_pagesRelevantTasksByPriority() {
+        Task normal1 = createTask(1, TaskPriority.Normal);
+        Task low = createTask(2, TaskPriority.Low);
+        Task high = createTask(3, TaskPriority.High);
+        Task normal2 = createTask(4, TaskPriority.Normal);
+        TaskyDataProviderMock dataproviderMock = new TaskyDataProviderMock(normal1, low, high, normal2);
+
+        PersistentTaskManager sut = new PersistentTaskManager(dataproviderMock);
+        List<Task> firstPage = sut.getRelevantTasks(2, null);
+        List<Task> secondPage = sut.getRelevantTasks(2, firstPage.get(1));
+        List<Task> thirdPage = sut.getRelevantTasks(2, secondPage.get(1));
+
+        assertEquals(2, firstPage.size());
+        assertEquals(high.getId(), firstPage.get(0).getId());
+        assertEquals(normal1.getId(), firstPage.get(1).getId());
+        assertEquals(2, secondPage.size());
+        assertEquals(normal2.getId(), secondPage.get(0).getId());
+        assertEquals(low.getId(), secondPage.get(1).getId());
+        assertEquals(0, thirdPage.size());
+    }
+
+    @Test
+    public void PersistentTaskManager_sortsRelevantTasksOfSamePriorityByCreation() {
+        Task newer = createTask(1, TaskPriority.Normal);
+        newer.setCreatedOn(new DateTime(2017, 6, 20, 0, 0));
+        Task older = createTask(2, TaskPriority.Normal);
+        older.setCreatedOn(new DateTime(2017, 6, 19, 0, 0));
+        TaskyDataProviderMock dataproviderMock = new TaskyDataProviderMock(newer, older);
+
+        PersistentTaskManager sut = new PersistentTaskManager(dataproviderMock);
+        List<Task> result = sut.getRelevantTasks();
+
+        assertEquals(2, result.size());
+        assertEquals(older.getId(), result.get(0).getId());
+        assertEquals(newer.getId(), result.get(1).getId());
+    }
+
+    @Test
+    public void PersistentTaskManager_pagesOnlyRelevantTasks() {
+        Task open = createTask(1, TaskPriority.Normal);
+        Task done = createTask(2, TaskPriority.Normal);
+        done.setDoneOn(DateTime.now().minusDays(1));
+        TaskyDataProviderMock dataproviderMock = new TaskyDataProviderMock(open, done);
+
+        PersistentTaskManager sut = new PersistentTaskManager(dataproviderMock);
+        List<Task> result = sut.getRelevantTasks(10, null);
+
+        assertEquals(1, result.size());
+        assertEquals(open.getId(), result.get(0).getId());
+    }
+
+    @Test
+    public void PersistentTaskManager_countsRelevantTasks() {
+        Task open = createTask(1, TaskPriority.Normal);
+        Task done = createTask(2, TaskPriority.Normal);
+        done.setDoneOn(DateTime.now().minusDays(1));
+        Task postponed = createTask(3, TaskPriority.Normal);
+        postponed.setPostponedUntil(DateTime.now().plusDays(1));
+        TaskyDataProviderMock dataproviderMock = new TaskyDataProviderMock(open, done, postponed);
+
+        PersistentTaskManager sut = new PersistentTaskManager(dataproviderMock);
+
+        assertEquals(1, sut.countRelevantTasks());
+        assertTrue(sut.hasRelevantTasks());
+    }
+
+    @Test
+    public void PersistentTaskManager_hasNoRelevantTasks_IfAllDone() {
+        Task done = createTask(1, TaskPriority.Normal);
+        done.setDoneOn(DateTime.now().minusDays(1));
+        TaskyDataProviderMock dataproviderMock = new TaskyDataProviderMock(done);
+
+        PersistentTaskManager sut = new PersistentTaskManager(dataproviderMock);
+
+        assertEquals(0, sut.countRelevantTasks());
+        assertFalse(sut.hasRelevantTasks());
+    }
+
+    @Test
+    public void PersistentTaskManager_archivesTasksDoneLongAgo() {
+        Task open = createTask(1, TaskPriority.Normal);
+        Task doneLongAgo = createTask(2, TaskPriority.Normal);
+        doneLongAgo.setDoneOn(DateTime.now().minusDays(40));
+        Task doneRecently = createTask(3, TaskPriority.Normal);
+        doneRecently.setDoneOn(DateTime.now().minusDays(1));
+        TaskyDataProviderMock dataproviderMock = new TaskyDataProviderMock(open, doneLongAgo, doneRecently);
+
+        PersistentTaskManager sut = new PersistentTaskManager(dataproviderMock);
+        TaskArchiveReport report = sut.archiveDoneTasks(30);
+
+        assertEquals(3, report.getTaskCountBefore());
+        assertEquals(1, report.getArchivedTaskCount());
+        assertEquals(2, report.getTaskCountAfter());
+        assertNull(dataproviderMock.getTask(2));
+    }
+
+    private Task createTask(long id, TaskPriority priority) {
+        Task task = new Task();
+        task.setId(id);
+        task.setPriority(priority);
+        task.setCreatedOn(new DateTime(2017, 6, 18, 0, 0));
+        return task;
+    }
 }
\ No newline at end of file
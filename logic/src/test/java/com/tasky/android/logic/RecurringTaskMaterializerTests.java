@@ -0,0 +1,164 @@
+package com.tasky.android.logic;
+
+import com.tasky.android.entities.RecurrenceIntervalUnit;
+import com.tasky.android.entities.RecurringTask;
+import com.tasky.android.entities.Task;
+import com.tasky.android.storage.InMemoryTaskyDataProvider;
+import com.tasky.android.storage.TaskQuery;
+import com.tasky.android.storage.TaskSortKey;
+import com.tasky.android.storage.TaskSortOrder;
+import com.tasky.android.storage.queries.EmptyQueryFilter;
+
+import org.joda.time.DateTime;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the implementation of the RecurringTaskMaterializer.
+ */
+public class RecurringTaskMaterializerTests {
+    private static final DateTime START = new DateTime(2016, 1, 31, 9, 0);
+
+    @Test
+    public void RecurringTaskMaterializer_createsOccurrencesBeforeHorizon() {
+        InMemoryTaskyDataProvider dataprovider = new InMemoryTaskyDataProvider();
+        RecurringTask recurringTask = insertRecurringTask(dataprovider, null, 1, RecurrenceIntervalUnit.Day);
+        RecurringTaskMaterializer sut = new RecurringTaskMaterializer(dataprovider);
+
+        int count = sut.materializeUntil(START.plusDays(3));
+
+        List<Task> tasks = queryTasksByDueDate(dataprovider);
+        assertEquals(3, count);
+        assertEquals(3, tasks.size());
+        assertEquals(START, tasks.get(0).getDueDate());
+        assertEquals(START.plusDays(2), tasks.get(2).getDueDate());
+        assertEquals("TITLE", tasks.get(0).getTitle());
+        assertEquals(Integer.valueOf((int)recurringTask.getId()), tasks.get(0).getCreatedFromRecurringTaskId());
+    }
+
+    @Test
+    public void RecurringTaskMaterializer_continuesFromWatermark() {
+        InMemoryTaskyDataProvider dataprovider = new InMemoryTaskyDataProvider();
+        insertRecurringTask(dataprovider, null, 1, RecurrenceIntervalUnit.Week);
+        RecurringTaskMaterializer sut = new RecurringTaskMaterializer(dataprovider);
+
+        sut.materializeUntil(START.plusWeeks(2));
+        int secondCount = sut.materializeUntil(START.plusWeeks(2));
+        int thirdCount = sut.materializeUntil(START.plusWeeks(5));
+
+        List<Task> tasks = queryTasksByDueDate(dataprovider);
+        assertEquals(0, secondCount);
+        assertEquals(3, thirdCount);
+        assertEquals(5, tasks.size());
+        assertEquals(START.plusWeeks(4), tasks.get(4).getDueDate());
+
+        RecurringTask stored = dataprovider.queryRecurringTasksDueBefore(START.plusYears(1)).get(0);
+        assertEquals(5, stored.getNextOccurrence());
+        assertEquals(START.plusWeeks(5), stored.getNextOccurrenceDate());
+    }
+
+    @Test
+    public void RecurringTaskMaterializer_stopsAtEndDate() {
+        InMemoryTaskyDataProvider dataprovider = new InMemoryTaskyDataProvider();
+        insertRecurringTask(dataprovider, START.plusDays(4), 2, RecurrenceIntervalUnit.Day);
+        RecurringTaskMaterializer sut = new RecurringTaskMaterializer(dataprovider);
+
+        int count = sut.materializeUntil(START.plusYears(1));
+
+        assertEquals(3, count);
+        assertTrue(dataprovider.queryRecurringTasksDueBefore(START.plusYears(10)).isEmpty());
+    }
+
+    @Test
+    public void RecurringTaskMaterializer_keepsDayOfMonthAfterClipping() {
+        InMemoryTaskyDataProvider dataprovider = new InMemoryTaskyDataProvider();
+        insertRecurringTask(dataprovider, null, 1, RecurrenceIntervalUnit.Month);
+        RecurringTaskMaterializer sut = new RecurringTaskMaterializer(dataprovider);
+
+        sut.materializeUntil(START.plusMonths(2).plusDays(1));
+
+        List<Task> tasks = queryTasksByDueDate(dataprovider);
+        assertEquals(3, tasks.size());
+        assertEquals(29, tasks.get(1).getDueDate().getDayOfMonth());
+        assertEquals(31, tasks.get(2).getDueDate().getDayOfMonth());
+    }
+
+    @Test
+    public void RecurringTaskMaterializer_insertsInBatches() {
+        InMemoryTaskyDataProvider dataprovider = new InMemoryTaskyDataProvider();
+        insertRecurringTask(dataprovider, null, 1, RecurrenceIntervalUnit.Day);
+        RecurringTaskMaterializer sut = new RecurringTaskMaterializer(dataprovider, 7);
+
+        int count = sut.materializeUntil(START.plusDays(365));
+
+        assertEquals(365, count);
+        assertEquals(365, dataprovider.countTasks(new EmptyQueryFilter()));
+        assertEquals(365, dataprovider.queryRecurringTasksDueBefore(START.plusYears(2)).get(0).getNextOccurrence());
+    }
+
+    @Test
+    public void RecurringTaskMaterializer_ignoresRecurringTasksNotDue() {
+        InMemoryTaskyDataProvider dataprovider = new InMemoryTaskyDataProvider();
+        insertRecurringTask(dataprovider, null, 1, RecurrenceIntervalUnit.Year);
+        RecurringTaskMaterializer sut = new RecurringTaskMaterializer(dataprovider);
+
+        int count = sut.materializeUntil(START);
+
+        assertEquals(0, count);
+        assertEquals(0, dataprovider.countTasks(new EmptyQueryFilter()));
+    }
+
+    @Test
+    public void RecurringTaskMaterializer_rollsBackBatchWhenWatermarkHasBeenAdvanced() {
+        final ConcurrentTaskyDataProvider dataprovider = new ConcurrentTaskyDataProvider();
+        insertRecurringTask(dataprovider, null, 1, RecurrenceIntervalUnit.Day);
+        RecurringTaskMaterializer sut = new RecurringTaskMaterializer(dataprovider);
+        dataprovider.afterQuery = new Runnable() {
+            @Override
+            public void run() {
+                new RecurringTaskMaterializer(dataprovider).materializeUntil(START.plusDays(3));
+            }
+        };
+
+        int count = sut.materializeUntil(START.plusDays(3));
+
+        assertEquals(0, count);
+        assertEquals(3, dataprovider.countTasks(new EmptyQueryFilter()));
+        assertEquals(3, dataprovider.queryRecurringTasksDueBefore(START.plusYears(1)).get(0).getNextOccurrence());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void RecurringTaskMaterializer_rejectsNonPositiveBatchSize() {
+        new RecurringTaskMaterializer(new InMemoryTaskyDataProvider(), 0);
+    }
+
+    /**
+     * Runs another writer once after the recurring tasks have been read.
+     */
+    private static class ConcurrentTaskyDataProvider extends InMemoryTaskyDataProvider {
+        Runnable afterQuery;
+
+        @Override
+        public List<RecurringTask> queryRecurringTasksDueBefore(DateTime date) {
+            List<RecurringTask> recurringTasks = super.queryRecurringTasksDueBefore(date);
+
+            Runnable action = afterQuery;
+            afterQuery = null;
+            if (action != null) action.run();
+
+            return recurringTasks;
+        }
+    }
+
+    private static RecurringTask insertRecurringTask(InMemoryTaskyDataProvider dataprovider, DateTime endDate,
+                                                     int interval, RecurrenceIntervalUnit intervalUnit) {
+        return new PersistentTaskManager(dataprovider).createRecurringTask("TITLE", START, endDate, interval, intervalUnit);
+    }
+
+    private static List<Task> queryTasksByDueDate(InMemoryTaskyDataProvider dataprovider) {
+        return dataprovider.queryTasks(new TaskQuery(new EmptyQueryFilter()).orderBy(TaskSortOrder.by(TaskSortKey.DueDate, false)));
+    }
+}
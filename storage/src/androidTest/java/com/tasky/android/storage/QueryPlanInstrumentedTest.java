@@ -0,0 +1,105 @@
+package com.tasky.android.storage;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+
+import com.tasky.android.storage.migrations.OpenTaskIndexMigration;
+import com.tasky.android.storage.queries.BetweenQueryFilter;
+import com.tasky.android.storage.queries.CompiledQueryFilter;
+import com.tasky.android.storage.queries.InQueryFilter;
+import com.tasky.android.storage.queries.QueryFilter;
+import com.tasky.android.storage.queries.QueryFilterCompiler;
+import com.tasky.android.storage.queries.ValueQueryFilter;
+
+import org.joda.time.DateTime;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Instrumentation tests checking that the SQL generated for filters can be answered
+ * by the indexes of the task table, using EXPLAIN QUERY PLAN.
+ */
+@RunWith(AndroidJUnit4.class)
+public class QueryPlanInstrumentedTest {
+    private TaskyDbHelper dbHelper;
+
+    @Before
+    public void setUp() {
+        InstrumentationRegistry.getTargetContext().deleteDatabase(TaskyDbHelper.DATABASE_NAME);
+        dbHelper = new TaskyDbHelper(InstrumentationRegistry.getTargetContext());
+    }
+
+    @After
+    public void tearDown() {
+        dbHelper.close();
+        InstrumentationRegistry.getTargetContext().deleteDatabase(TaskyDbHelper.DATABASE_NAME);
+    }
+
+    @Test
+    public void boundIdSet_usesPrimaryKey() {
+        String plan = explain(new InQueryFilter(TaskyContract.Task._ID, createIds(QueryFilterCompiler.MAXIMUM_PARAMETERS)));
+        assertTrue(plan, plan.contains("INTEGER PRIMARY KEY"));
+    }
+
+    @Test
+    public void largeIdSet_usesPrimaryKey() {
+        String plan = explain(new InQueryFilter(TaskyContract.Task._ID, createIds(5000)));
+        assertTrue(plan, plan.contains("INTEGER PRIMARY KEY"));
+    }
+
+    @Test
+    public void dueDateRangeOfOpenTasks_usesOpenTaskIndex() {
+        DateTime now = DateTime.now();
+        QueryFilter filter = new ValueQueryFilter(TaskyContract.Task.COLUMN_NAME_DONE_ON, ValueQueryFilter.Type.IsNull, null)
+            .And(new BetweenQueryFilter(TaskyContract.Task.COLUMN_NAME_DUE_DATE, now.minusDays(7), now));
+
+        String plan = explain(filter);
+        assertTrue(plan, plan.contains(OpenTaskIndexMigration.INDEX_OPEN_TASKS));
+    }
+
+    @Test
+    public void dueDateLowerBoundOfOpenTasks_usesOpenTaskIndex() {
+        QueryFilter filter = new ValueQueryFilter(TaskyContract.Task.COLUMN_NAME_DONE_ON, ValueQueryFilter.Type.IsNull, null)
+            .And(new ValueQueryFilter(TaskyContract.Task.COLUMN_NAME_DUE_DATE, ValueQueryFilter.Type.GreaterOrEqual, DateTime.now()));
+
+        String plan = explain(filter);
+        assertTrue(plan, plan.contains(OpenTaskIndexMigration.INDEX_OPEN_TASKS));
+    }
+
+    private String explain(QueryFilter filter) {
+        CompiledQueryFilter compiled = QueryFilterCompiler.compile(filter);
+        SQLiteDatabase db = dbHelper.getReadableDatabase();
+        Cursor cursor = db.rawQuery("EXPLAIN QUERY PLAN SELECT * FROM " + TaskyContract.Task.TABLE_NAME
+            + " WHERE " + compiled.getWhereClause(), compiled.getSqliteParameters());
+
+        try {
+            StringBuilder plan = new StringBuilder();
+            int detailIndex = cursor.getColumnIndexOrThrow("detail");
+            while (cursor.moveToNext()) {
+                plan.append(cursor.getString(detailIndex)).append('\n');
+            }
+
+            return plan.toString();
+        } finally {
+            cursor.close();
+        }
+    }
+
+    private static List<Long> createIds(int count) {
+        List<Long> ids = new ArrayList();
+        for (long i = 1; i <= count; i++) {
+            ids.add(i);
+        }
+
+        return ids;
+    }
+}
@@ -0,0 +1,96 @@
+package com.tasky.android.storage;
+
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+
+import com.tasky.android.entities.Task;
+import com.tasky.android.entities.TaskPriority;
+
+import org.joda.time.DateTime;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Instrumentation tests for the change events of the SqliteTaskyDataProvider.
+ */
+@RunWith(AndroidJUnit4.class)
+public class SqliteTaskyDataProviderInstrumentedTest {
+    private SqliteTaskyDataProvider sut;
+    private final List<TaskChangeEvent> events = new ArrayList();
+
+    @Before
+    public void setUp() {
+        InstrumentationRegistry.getTargetContext().deleteDatabase(TaskyDbHelper.DATABASE_NAME);
+        sut = new SqliteTaskyDataProvider(InstrumentationRegistry.getTargetContext());
+        sut.addTaskChangeListener(new TaskChangeListener() {
+            @Override
+            public void onTasksChanged(TaskChangeEvent event) {
+                events.add(event);
+            }
+        });
+    }
+
+    @After
+    public void tearDown() {
+        sut.close();
+        InstrumentationRegistry.getTargetContext().deleteDatabase(TaskyDbHelper.DATABASE_NAME);
+    }
+
+    @Test
+    public void updateTaskColumns_announcesWholeTask() {
+        Task task = createTask("TITLE");
+        sut.insertTask(task);
+        events.clear();
+
+        sut.updateTaskColumns(task.getId(), new TaskUpdate().setDoneOn(null));
+
+        assertEquals(1, events.size());
+        Task announced = events.get(0).getTasks().get(0);
+        assertEquals(task.getId(), announced.getId());
+        assertEquals("TITLE", announced.getTitle());
+        assertEquals(TaskPriority.High, announced.getPriority());
+        assertNull(announced.getDoneOn());
+    }
+
+    @Test
+    public void updateTaskColumns_announcesNothingForUnknownId() {
+        sut.updateTaskColumns(42, new TaskUpdate().setTitle("TITLE"));
+
+        assertTrue(events.isEmpty());
+    }
+
+    @Test
+    public void updateTaskColumnsByIds_announcesOnlyUpdatedTasks() {
+        Task first = createTask("FIRST");
+        Task second = createTask("SECOND");
+        sut.insertTasks(Arrays.asList(first, second));
+        events.clear();
+
+        int count = sut.updateTaskColumns(Arrays.asList(first.getId(), 42L), new TaskUpdate().setPriority(TaskPriority.Low));
+
+        assertEquals(1, count);
+        assertEquals(1, events.size());
+        assertEquals(1, events.get(0).getTasks().size());
+        Task announced = events.get(0).getTasks().get(0);
+        assertEquals(first.getId(), announced.getId());
+        assertEquals("FIRST", announced.getTitle());
+        assertEquals(TaskPriority.Low, announced.getPriority());
+    }
+
+    private static Task createTask(String title) {
+        Task task = new Task();
+        task.setTitle(title);
+        task.setCreatedOn(new DateTime(2017, 6, 18, 12, 0));
+        task.setDoneOn(new DateTime(2017, 6, 19, 12, 0));
+        task.setPriority(TaskPriority.High);
+        return task;
+    }
+}
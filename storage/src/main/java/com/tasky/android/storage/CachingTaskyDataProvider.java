@@ -0,0 +1,591 @@
+package com.tasky.android.storage;
+
+import com.tasky.android.entities.RecurringTask;
+import com.tasky.android.entities.Task;
+import com.tasky.android.storage.queries.QueryFilter;
+import com.tasky.android.utilities.ParameterCheck;
+
+import org.joda.time.DateTime;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Decorates a TaskyDataProvider with a bounded cache of tasks by their Id,
+ * so that tasks can be read by their Id without querying the underlying storage.
+ * Tasks inserted or updated through this provider are written through to the cache;
+ * within transactions run through this provider, they are removed from the cache instead
+ * until the transaction has been committed, so that no uncommitted state is served.
+ * Tasks that the underlying provider announces as changed by other writers are removed
+ * from the cache; writes to the storage that bypass the underlying provider have to be
+ * announced by calling invalidate or invalidateAll.
+ */
+public class CachingTaskyDataProvider implements TaskyDataProvider {
+    private static final TaskColumnAccessor[] COLUMN_ACCESSORS = TaskColumnAccessor.values();
+
+    private final TaskyDataProvider dataprovider;
+    private final int maximumSize;
+    private final Map<Long, Task> tasks;
+    private final ThreadLocal<int[]> writeDepth = new ThreadLocal<int[]>() {
+        @Override
+        protected int[] initialValue() { return new int[1]; }
+    };
+    private final ThreadLocal<PendingTransaction> transactions = new ThreadLocal();
+    private long hitCount;
+    private long missCount;
+    private long generation;
+
+    /**
+     * Creates a CachingTaskyDataProvider.
+     * @param dataprovider TaskyDataProvider that should be decorated.
+     * @param maximumSize Maximum number of tasks to keep; the least recently
+     *                    used task will be dropped when the maximum is exceeded.
+     */
+    public CachingTaskyDataProvider(TaskyDataProvider dataprovider, int maximumSize) {
+        ParameterCheck.notNull(dataprovider, "dataprovider");
+        if (maximumSize < 1) throw new IllegalArgumentException("maximumSize must be positive.");
+
+        this.dataprovider = dataprovider;
+        this.maximumSize = maximumSize;
+        this.tasks = new LinkedHashMap<Long, Task>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Task> eldest) {
+                return size() > CachingTaskyDataProvider.this.maximumSize;
+            }
+        };
+
+        dataprovider.addTaskChangeListener(new TaskChangeListener() {
+            @Override
+            public void onTasksChanged(TaskChangeEvent event) {
+                // Writes through this provider update the cache themselves and are announced
+                // while they are running on the same thread.
+                if (writeDepth.get()[0] > 0) return;
+
+                synchronized (tasks) {
+                    generation++;
+                    for (Task task : event.getTasks()) {
+                        tasks.remove(task.getId());
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Inserts a new task into the storage. On insertion, a new Id
+     * will be generated and assigned to the Id property of the task.
+     * @param task Task that should be inserted into the storage.
+     */
+    @Override
+    public void insertTask(Task task) {
+        beginWrite();
+        try {
+            dataprovider.insertTask(task);
+        } finally {
+            endWrite();
+        }
+
+        put(task);
+    }
+
+    /**
+     * Inserts new tasks into the storage within a single transaction. On insertion, new Ids
+     * will be generated and assigned to the Id properties of the tasks.
+     * @param tasks Tasks that should be inserted into the storage.
+     */
+    @Override
+    public void insertTasks(Collection<Task> tasks) {
+        beginWrite();
+        try {
+            dataprovider.insertTasks(tasks);
+        } finally {
+            endWrite();
+        }
+
+        for (Task task : tasks) {
+            put(task);
+        }
+    }
+
+    /**
+     * Gets the stored task with the specified Id. The task is served from the cache if possible.
+     * @param id Id of the task that should be read.
+     * @return The task with the specified Id; or null if there is no such task.
+     */
+    @Override
+    public Task getTask(long id) {
+        long readGeneration;
+        synchronized (tasks) {
+            Task cachedTask = tasks.get(id);
+            if (cachedTask != null) {
+                hitCount++;
+                return copyTask(cachedTask, new Task());
+            }
+
+            missCount++;
+            readGeneration = generation;
+        }
+
+        Task task = dataprovider.getTask(id);
+        // Within a transaction, the read state may be uncommitted and is not shared with other threads.
+        if (task != null && transactions.get() == null) {
+            Task cachedTask = copyTask(task, new Task());
+            synchronized (tasks) {
+                // The task may have been changed while it was read, so the read state may already be stale.
+                if (generation == readGeneration && !tasks.containsKey(id)) tasks.put(id, cachedTask);
+            }
+        }
+
+        return task;
+    }
+
+    /**
+     * Queries the stored task filtered by the specified conditions.
+     * @param filter Filter that should be applied to exclude elements from the result.
+     * @return A list of the tasks from the storage that match the filter.
+     */
+    @Override
+    public List<Task> queryTasks(QueryFilter filter) {
+        return dataprovider.queryTasks(filter);
+    }
+
+    /**
+     * Queries the stored tasks as described by the specified query.
+     * @param query Query describing the filter, order and page of the tasks to read.
+     * @return A list of the tasks from the storage that are described by the query.
+     */
+    @Override
+    public List<Task> queryTasks(TaskQuery query) {
+        return dataprovider.queryTasks(query);
+    }
+
+    /**
+     * Queries the stored tasks filtered by the specified conditions and passes them to the visitor
+     * one by one as they are read, without keeping the whole result in memory.
+     * @param filter Filter that should be applied to exclude elements from the result.
+     * @param reuseInstance True, if a single Task instance should be filled with each row;
+     *                      false, if a new instance should be created for each row.
+     * @param visitor Visitor that receives the tasks matching the filter.
+     */
+    @Override
+    public void visitTasks(QueryFilter filter, boolean reuseInstance, TaskVisitor visitor) {
+        dataprovider.visitTasks(filter, reuseInstance, visitor);
+    }
+
+    /**
+     * Queries the stored tasks as described by the specified query and passes them to the visitor
+     * one by one as they are read, without keeping the whole result in memory.
+     * @param query Query describing the filter, order and page of the tasks to read.
+     * @param reuseInstance True, if a single Task instance should be filled with each row;
+     *                      false, if a new instance should be created for each row.
+     * @param visitor Visitor that receives the tasks described by the query.
+     */
+    @Override
+    public void visitTasks(TaskQuery query, boolean reuseInstance, TaskVisitor visitor) {
+        dataprovider.visitTasks(query, reuseInstance, visitor);
+    }
+
+    /**
+     * Counts the stored tasks matching the specified conditions without reading them.
+     * @param filter Filter that should be applied to exclude elements from the count.
+     * @return The number of tasks from the storage that match the filter.
+     */
+    @Override
+    public long countTasks(QueryFilter filter) {
+        return dataprovider.countTasks(filter);
+    }
+
+    /**
+     * Checks if any stored task matches the specified conditions without reading it.
+     * @param filter Filter that should be applied to exclude elements.
+     * @return True, if at least one task from the storage matches the filter; otherwise false.
+     */
+    @Override
+    public boolean anyTasks(QueryFilter filter) {
+        return dataprovider.anyTasks(filter);
+    }
+
+    /**
+     * Searches the stored tasks with titles containing all words of the search text,
+     * using words of the search text as prefixes. The tasks are ordered by their relevance:
+     * tasks with more occurrences of rare words come first.
+     * @param searchText Text with the words that the titles of the tasks should contain.
+     * @param filter Filter that should be applied to exclude elements from the result.
+     * @param limit Maximum number of tasks to read.
+     * @return A list of the most relevant matching tasks, starting with the most relevant.
+     */
+    @Override
+    public List<Task> searchTasks(String searchText, QueryFilter filter, int limit) {
+        return dataprovider.searchTasks(searchText, filter, limit);
+    }
+
+    /**
+     * Updates the task in the storage to match the current state of the specified entity.
+     * The changed fields are written through to the cached task; a task that is not cached
+     * is not cached by the update, as it may only hold the changed fields.
+     * @param task Task with the state that should be stored; will be identified by the Id.
+     */
+    @Override
+    public void updateTask(Task task) {
+        // The changed fields are reset by the underlying provider.
+        int dirtyFields = task.getDirtyFields();
+        beginWrite();
+        try {
+            dataprovider.updateTask(task);
+        } finally {
+            endWrite();
+        }
+
+        putChanges(task, dirtyFields);
+    }
+
+    /**
+     * Updates the columns described by the update for the task with the specified Id,
+     * without reading the task first.
+     * The new values are written through to the cached task.
+     * @param id Id of the task that should be updated.
+     * @param update Update describing the new values of the columns.
+     * @return The number of updated tasks; 0 if there is no task with the Id.
+     */
+    @Override
+    public int updateTaskColumns(long id, TaskUpdate update) {
+        int updatedCount;
+        beginWrite();
+        try {
+            updatedCount = dataprovider.updateTaskColumns(id, update);
+        } finally {
+            endWrite();
+        }
+
+        if (updatedCount > 0) applyToCachedTasks(Collections.singleton(id), update);
+
+        return updatedCount;
+    }
+
+    /**
+     * Updates the columns described by the update for all tasks with the specified Ids
+     * in a single statement, without reading the tasks first.
+     * The new values are written through to the cached tasks.
+     * @param ids Ids of the tasks that should be updated.
+     * @param update Update describing the new values of the columns.
+     * @return The number of updated tasks; Ids without a task are ignored.
+     */
+    @Override
+    public int updateTaskColumns(Collection<Long> ids, TaskUpdate update) {
+        int updatedCount;
+        beginWrite();
+        try {
+            updatedCount = dataprovider.updateTaskColumns(ids, update);
+        } finally {
+            endWrite();
+        }
+
+        if (updatedCount > 0) applyToCachedTasks(ids, update);
+
+        return updatedCount;
+    }
+
+    /**
+     * Updates the tasks in the storage within a single transaction
+     * to match the current state of the specified entities.
+     * @param tasks Tasks with the state that should be stored; will be identified by their Ids.
+     */
+    @Override
+    public void updateTasks(Collection<Task> tasks) {
+        int[] dirtyFields = new int[tasks.size()];
+        int index = 0;
+        for (Task task : tasks) {
+            dirtyFields[index++] = task.getDirtyFields();
+        }
+
+        beginWrite();
+        try {
+            dataprovider.updateTasks(tasks);
+        } finally {
+            endWrite();
+        }
+
+        index = 0;
+        for (Task task : tasks) {
+            putChanges(task, dirtyFields[index++]);
+        }
+    }
+
+    /**
+     * Runs the specified action within a single transaction. Changes made by the action
+     * are only committed if it completes without throwing an exception. A failed nested
+     * transaction rolls back the whole outermost transaction, even if the failure has been caught.
+     * @param action Action that should be run within the transaction.
+     */
+    @Override
+    public void runInTransaction(Runnable action) {
+        PendingTransaction transaction = transactions.get();
+        if (transaction == null) {
+            transaction = new PendingTransaction();
+            transactions.set(transaction);
+        }
+
+        transaction.depth++;
+        beginWrite();
+        boolean successful = false;
+        try {
+            dataprovider.runInTransaction(action);
+            successful = true;
+        } catch (RuntimeException exception) {
+            // Tasks read into the cache by the action may hold state that has been rolled back.
+            invalidateAll();
+            throw exception;
+        } finally {
+            endWrite();
+            if (--transaction.depth == 0) {
+                transactions.remove();
+                // Other threads may have cached the previous state of the written tasks meanwhile.
+                if (successful) remove(transaction.writtenIds);
+            }
+        }
+    }
+
+    /**
+     * Registers a listener that should be notified about the changes of tasks
+     * made through this provider, after they have been committed.
+     * @param listener Listener that should be notified about changes.
+     */
+    @Override
+    public void addTaskChangeListener(TaskChangeListener listener) {
+        dataprovider.addTaskChangeListener(listener);
+    }
+
+    /**
+     * Unregisters a listener, so that it is not notified about changes anymore.
+     * @param listener Listener that should not be notified about changes anymore.
+     */
+    @Override
+    public void removeTaskChangeListener(TaskChangeListener listener) {
+        dataprovider.removeTaskChangeListener(listener);
+    }
+
+    /**
+     * Inserts a new recurring task into the storage. On insertion, a new Id
+     * will be generated and assigned to the Id property of the recurring task.
+     * @param recurringTask Recurring task that should be inserted into the storage.
+     */
+    @Override
+    public void insertRecurringTask(RecurringTask recurringTask) {
+        dataprovider.insertRecurringTask(recurringTask);
+    }
+
+    /**
+     * Queries the stored recurring tasks with a next occurrence due before the specified date.
+     * @param date Date before which the next occurrence should be due.
+     * @return A list of the matching recurring tasks, ordered by the dates of their next occurrences.
+     */
+    @Override
+    public List<RecurringTask> queryRecurringTasksDueBefore(DateTime date) {
+        return dataprovider.queryRecurringTasksDueBefore(date);
+    }
+
+    /**
+     * Updates the recurring task in the storage to match the current state of the specified entity.
+     * @param recurringTask Recurring task with the state that should be stored; will be identified by the Id.
+     */
+    @Override
+    public void updateRecurringTask(RecurringTask recurringTask) {
+        dataprovider.updateRecurringTask(recurringTask);
+    }
+
+    /**
+     * Stores the next occurrence and its date of the recurring task, but only if the stored
+     * next occurrence is still the expected one.
+     * @param recurringTask Recurring task with the next occurrence that should be stored; will be identified by the Id.
+     * @param expectedNextOccurrence Next occurrence the stored recurring task should have.
+     * @return True, if the next occurrence has been stored; false, if the recurring task has been changed or removed.
+     */
+    @Override
+    public boolean advanceRecurringTask(RecurringTask recurringTask, long expectedNextOccurrence) {
+        return dataprovider.advanceRecurringTask(recurringTask, expectedNextOccurrence);
+    }
+
+    /**
+     * Moves the tasks that have been done before the specified date into the archive.
+     * The archived tasks are removed from the cache when the underlying provider announces them.
+     * @param doneBefore Date before which the tasks should have been done.
+     * @param batchSize Maximum number of tasks moved within one transaction.
+     * @return The number of archived tasks.
+     */
+    @Override
+    public int archiveTasks(DateTime doneBefore, int batchSize) {
+        return dataprovider.archiveTasks(doneBefore, batchSize);
+    }
+
+    /**
+     * Releases the storage that is not used anymore, e.g. after tasks have been archived.
+     */
+    @Override
+    public void compactStorage() {
+        dataprovider.compactStorage();
+    }
+
+    /**
+     * Rebuilds the storage to apply settings that only take effect on a rebuild.
+     */
+    @Override
+    public void rebuildStorage() {
+        dataprovider.rebuildStorage();
+    }
+
+    /**
+     * Removes the task with the specified Id from the cache,
+     * after it has been changed without using this provider.
+     * @param id Id of the task that should be removed from the cache.
+     */
+    public void invalidate(long id) {
+        synchronized (tasks) {
+            generation++;
+            tasks.remove(id);
+        }
+    }
+
+    /**
+     * Removes all tasks from the cache, after the storage has been changed without using this provider.
+     */
+    public void invalidateAll() {
+        synchronized (tasks) {
+            generation++;
+            tasks.clear();
+        }
+    }
+
+    /**
+     * Gets the number of reads by Id that have been served from the cache.
+     * @return The number of reads by Id that have been served from the cache.
+     */
+    public long getHitCount() {
+        synchronized (tasks) {
+            return hitCount;
+        }
+    }
+
+    /**
+     * Gets the number of reads by Id that had to query the underlying storage.
+     * @return The number of reads by Id that had to query the underlying storage.
+     */
+    public long getMissCount() {
+        synchronized (tasks) {
+            return missCount;
+        }
+    }
+
+    /**
+     * Puts a copy of the task into the cache, so that later changes
+     * of the instance by the caller do not affect the cached state.
+     */
+    private void put(Task task) {
+        if (deferUntilCommit(Collections.singleton(task.getId()))) return;
+
+        Task cachedTask = copyTask(task, new Task());
+        synchronized (tasks) {
+            generation++;
+            tasks.put(cachedTask.getId(), cachedTask);
+        }
+    }
+
+    /**
+     * Writes the changed fields of the task through to the cached task. A task that is not cached
+     * stays uncached, as it may only hold the changed fields or may not be stored at all;
+     * the new generation keeps reads started before the update from caching the previous state.
+     */
+    private void putChanges(Task task, int dirtyFields) {
+        if (dirtyFields == 0 || deferUntilCommit(Collections.singleton(task.getId()))) return;
+
+        synchronized (tasks) {
+            generation++;
+            Task cachedTask = tasks.get(task.getId());
+            if (cachedTask != null) {
+                for (TaskColumnAccessor accessor : COLUMN_ACCESSORS) {
+                    if ((accessor.getDirtyField() & dirtyFields) != 0) accessor.copy(task, cachedTask);
+                }
+
+                cachedTask.clearDirtyFields();
+            }
+        }
+    }
+
+    /**
+     * Removes the written tasks from the cache instead of writing them through, if the current
+     * thread is within a transaction that may still be rolled back; they are removed
+     * once more after the transaction has been committed.
+     * @return True, if the write has been deferred; false, if it can be written through.
+     */
+    private boolean deferUntilCommit(Collection<Long> ids) {
+        PendingTransaction transaction = transactions.get();
+        if (transaction == null) return false;
+
+        transaction.writtenIds.addAll(ids);
+        remove(ids);
+        return true;
+    }
+
+    private void remove(Collection<Long> ids) {
+        synchronized (tasks) {
+            generation++;
+            for (Long id : ids) {
+                tasks.remove(id);
+            }
+        }
+    }
+
+    /**
+     * Marks the current thread as writing through this provider, so that the changes
+     * announced by the underlying provider are not taken as changes of other writers.
+     */
+    private void beginWrite() {
+        writeDepth.get()[0]++;
+    }
+
+    private void endWrite() {
+        writeDepth.get()[0]--;
+    }
+
+    /**
+     * Copies all values of the task into the target.
+     */
+    private static Task copyTask(Task task, Task target) {
+        for (TaskColumnAccessor accessor : COLUMN_ACCESSORS) {
+            accessor.copy(task, target);
+        }
+
+        target.clearDirtyFields();
+        return target;
+    }
+
+    /**
+     * Writes the values of the update into the cached tasks with the specified Ids.
+     */
+    private void applyToCachedTasks(Collection<Long> ids, TaskUpdate update) {
+        if (deferUntilCommit(ids)) return;
+
+        synchronized (tasks) {
+            generation++;
+            for (Long id : ids) {
+                Task cachedTask = tasks.get(id);
+                if (cachedTask != null) {
+                    update.applyTo(cachedTask);
+                    cachedTask.clearDirtyFields();
+                }
+            }
+        }
+    }
+
+    /**
+     * Ids of the tasks written within the transactions of a thread.
+     */
+    private static final class PendingTransaction {
+        final Set<Long> writtenIds = new HashSet();
+        int depth;
+    }
+}
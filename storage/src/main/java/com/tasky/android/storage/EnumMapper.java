@@ -1,21 +1,47 @@
 package com.tasky.android.storage;
 
+import com.tasky.android.entities.RecurrenceIntervalUnit;
 import com.tasky.android.entities.TaskPriority;
 import com.tasky.android.utilities.ParameterCheck;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Maps values of enums in entities to Integers for storage in the database.
+ * Code that knows the enum at compile time should use the typed mappings,
+ * which work without boxing and without looking up the enum class.
  */
 public class EnumMapper {
-    private static final Map<Class, Map<Object, Integer>> EnumMaps;
+    private static final ConcurrentMap<Class, EnumMapping> EnumMappings = new ConcurrentHashMap();
 
-    static {
-        // Create maps of all known enums to integers.
-        EnumMaps = new HashMap();
-        addTaskPriorityMap();
+    /**
+     * Mapping of task priorities to the codes stored in the database.
+     */
+    public static final EnumMapping<TaskPriority> TASK_PRIORITY = register(TaskPriority.class, 0, 1, 2);
+
+    /**
+     * Mapping of the units of recurrence intervals to the codes stored in the database.
+     */
+    public static final EnumMapping<RecurrenceIntervalUnit> RECURRENCE_INTERVAL_UNIT =
+        register(RecurrenceIntervalUnit.class, 0, 1, 2, 3);
+
+    /**
+     * Registers the mapping of an enum to the codes stored in the database.
+     * @param enumClass Class of the enum that should be mapped.
+     * @param codes Codes of the enum values in the order of their declaration;
+     *              must be distinct, non-negative and small, as they are used as array indices.
+     * @param <T> Type of the enum that should be mapped.
+     * @return The registered mapping.
+     */
+    public static <T extends Enum<T>> EnumMapping<T> register(Class<T> enumClass, int... codes) {
+        EnumMapping<T> mapping = new EnumMapping(enumClass, codes);
+        // Keep an existing mapping, so that a rejected registration does not replace it.
+        if (EnumMappings.putIfAbsent(enumClass, mapping) != null) {
+            throw new IllegalArgumentException("A mapping for enum " + enumClass + " has already been registered.");
+        }
+
+        return mapping;
     }
 
     /**
@@ -27,11 +53,7 @@ public class EnumMapper {
         // Map null values to null integers.
         if (enumValue == null) return null;
 
-        ParameterCheck.isKeyOf(enumValue.getClass(), EnumMaps, "Class of enumValue", "EnumMaps");
-        Map<Object, Integer> enumMap = EnumMaps.get(enumValue.getClass());
-        ParameterCheck.isKeyOf(enumValue, enumMap, "enumValue", "enumMap");
-
-        return enumMap.get(enumValue);
+        return getMapping(enumValue.getClass(), "Class of enumValue").getCode((Enum)enumValue);
     }
 
     /**
@@ -46,27 +68,15 @@ public class EnumMapper {
         if (integerValue == null) return null;
 
         ParameterCheck.notNull(enumClass, "enumClass");
-        ParameterCheck.isKeyOf(enumClass, EnumMaps, "enumClass", "EnumMaps");
-        Map<Object, Integer> enumMap = EnumMaps.get(enumClass);
-
-        // Search map for entry that has the specified Integer as its value.
-        for (Map.Entry<Object, Integer> entry : enumMap.entrySet()) {
-            if (entry.getValue().equals(integerValue)) {
-                // If found, return the key.
-                return (T)entry.getKey();
-            }
-        }
-
-        // If not found, throw exception.
-        throw new IllegalArgumentException("Integer " + integerValue + " could not be mapped to enum " + enumClass + ".");
+        return (T)getMapping(enumClass, "enumClass").getValue(integerValue);
     }
 
-    private static void addTaskPriorityMap() {
-        Map<Object, Integer> map = new HashMap();
-        map.put(TaskPriority.Low, 0);
-        map.put(TaskPriority.Normal, 1);
-        map.put(TaskPriority.High, 2);
+    private static EnumMapping getMapping(Class enumClass, String parameterName) {
+        EnumMapping mapping = EnumMappings.get(enumClass);
+        if (mapping == null) {
+            throw new IllegalArgumentException(parameterName + " is not a valid key of EnumMappings");
+        }
 
-        EnumMaps.put(TaskPriority.class, map);
+        return mapping;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,78 @@
+package com.tasky.android.storage;
+
+import com.tasky.android.utilities.ParameterCheck;
+
+/**
+ * Maps the values of a single enum to integer codes for storage in the database and back.
+ * Both directions are array lookups, so they need neither boxing nor allocations.
+ * @param <T> Type of the mapped enum.
+ */
+public final class EnumMapping<T extends Enum<T>> {
+    private final Class<T> enumClass;
+    private final int[] codesByOrdinal;
+    private final T[] valuesByCode;
+
+    /**
+     * Creates an EnumMapping.
+     * @param enumClass Class of the mapped enum.
+     * @param codes Codes of the enum values in the order of their declaration;
+     *              must be distinct, non-negative and small, as they are used as array indices.
+     */
+    EnumMapping(Class<T> enumClass, int... codes) {
+        ParameterCheck.notNull(enumClass, "enumClass");
+        ParameterCheck.notNull(codes, "codes");
+
+        T[] values = enumClass.getEnumConstants();
+        if (codes.length != values.length) {
+            throw new IllegalArgumentException("Expected " + values.length + " codes for enum " + enumClass + ", but got " + codes.length + ".");
+        }
+
+        int maximumCode = -1;
+        for (int code : codes) {
+            if (code < 0) throw new IllegalArgumentException("Codes for enum " + enumClass + " cannot be negative.");
+            maximumCode = Math.max(maximumCode, code);
+        }
+
+        T[] valuesByCode = (T[])java.lang.reflect.Array.newInstance(enumClass, maximumCode + 1);
+        for (int ordinal = 0; ordinal < codes.length; ordinal++) {
+            if (valuesByCode[codes[ordinal]] != null) {
+                throw new IllegalArgumentException("Code " + codes[ordinal] + " is used twice for enum " + enumClass + ".");
+            }
+            valuesByCode[codes[ordinal]] = values[ordinal];
+        }
+
+        this.enumClass = enumClass;
+        this.codesByOrdinal = codes.clone();
+        this.valuesByCode = valuesByCode;
+    }
+
+    /**
+     * Gets the class of the mapped enum.
+     * @return The class of the mapped enum.
+     */
+    public Class<T> getEnumClass() { return enumClass; }
+
+    /**
+     * Gets the code that represents the specified enum value in the database.
+     * @param value Enum value that should be stored in the database.
+     * @return The code that represents the enum value.
+     */
+    public int getCode(T value) {
+        ParameterCheck.notNull(value, "value");
+        return codesByOrdinal[value.ordinal()];
+    }
+
+    /**
+     * Gets the enum value that is represented by the specified code.
+     * @param code Code stored in the database that represents an enum value.
+     * @return The enum value represented by the code.
+     */
+    public T getValue(int code) {
+        T value = code >= 0 && code < valuesByCode.length ? valuesByCode[code] : null;
+        if (value == null) {
+            throw new IllegalArgumentException("Integer " + code + " could not be mapped to enum " + enumClass + ".");
+        }
+
+        return value;
+    }
+}
@@ -0,0 +1,754 @@
+package com.tasky.android.storage;
+
+import com.tasky.android.entities.RecurringTask;
+import com.tasky.android.entities.Task;
+import com.tasky.android.storage.queries.BetweenQueryFilter;
+import com.tasky.android.storage.queries.CombinedQueryFilter;
+import com.tasky.android.storage.queries.EmptyQueryFilter;
+import com.tasky.android.storage.queries.FullTextQueryFilter;
+import com.tasky.android.storage.queries.InQueryFilter;
+import com.tasky.android.storage.queries.QueryFilter;
+import com.tasky.android.storage.queries.QueryFilterNormalizer;
+import com.tasky.android.storage.queries.ValueQueryFilter;
+import com.tasky.android.utilities.ParameterCheck;
+
+import org.joda.time.DateTime;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Provides access to Tasky application data held in memory. Tasks are indexed by their Id
+ * and by their dates, so that typical filters can be answered without scanning all tasks.
+ */
+public class InMemoryTaskyDataProvider implements TaskyDataProvider {
+    private static final TaskColumnAccessor[] COLUMN_ACCESSORS = TaskColumnAccessor.values();
+
+    private final Map<Long, Task> tasksById = new LinkedHashMap();
+    private final TaskDateIndex[] dateIndexes = new TaskDateIndex[] {
+        new TaskDateIndex(TaskColumnAccessor.DueDate),
+        new TaskDateIndex(TaskColumnAccessor.PostponedUntil),
+        new TaskDateIndex(TaskColumnAccessor.DoneOn)
+    };
+
+    private final Map<Long, Task> archivedTasksById = new LinkedHashMap();
+    private final Map<Long, RecurringTask> recurringTasksById = new LinkedHashMap();
+
+    /**
+     * Actions restoring the previous states of the entities changed within
+     * the current transactions, to run them in reverse order if a transaction fails.
+     */
+    private final List<Runnable> undoLog = new ArrayList();
+    private int transactionDepth;
+    private boolean transactionFailed;
+    // Only ever grows, so new tasks never get the Id of an archived task.
+    private long nextId = 1;
+    private long nextRecurringTaskId = 1;
+    private final TaskChangeNotifier changeNotifier = new TaskChangeNotifier();
+
+    /**
+     * Inserts a new task into the storage. On insertion, a new Id
+     * will be generated and assigned to the Id property of the task.
+     * @param task Task that should be inserted into the storage.
+     */
+    @Override
+    public synchronized void insertTask(Task task) {
+        ParameterCheck.notNull(task, "task");
+
+        task.setId(nextId++);
+        store(task.getId(), copyTask(task, new Task(), COLUMN_ACCESSORS));
+        clearDirtyFields(task);
+        changeNotifier.notifyChanged(TaskChangeEvent.Type.Inserted, task);
+    }
+
+    /**
+     * Inserts new tasks into the storage within a single transaction. On insertion, new Ids
+     * will be generated and assigned to the Id properties of the tasks.
+     * @param tasks Tasks that should be inserted into the storage.
+     */
+    @Override
+    public void insertTasks(final Collection<Task> tasks) {
+        ParameterCheck.notNull(tasks, "tasks");
+
+        runInTransaction(new Runnable() {
+            @Override
+            public void run() {
+                for (Task task : tasks) {
+                    insertTask(task);
+                }
+            }
+        });
+    }
+
+    /**
+     * Gets the stored task with the specified Id.
+     * @param id Id of the task that should be read.
+     * @return The task with the specified Id; or null if there is no such task.
+     */
+    @Override
+    public synchronized Task getTask(long id) {
+        Task task = tasksById.get(id);
+        return task == null ? null : copyTask(task, new Task(), COLUMN_ACCESSORS);
+    }
+
+    /**
+     * Queries the stored task filtered by the specified conditions.
+     * @param filter Filter that should be applied to exclude elements from the result.
+     * @return A list of the tasks from the storage that match the filter.
+     */
+    @Override
+    public List<Task> queryTasks(QueryFilter filter) {
+        ParameterCheck.notNull(filter, "filter");
+        return queryTasks(new TaskQuery(filter));
+    }
+
+    /**
+     * Queries the stored tasks as described by the specified query.
+     * @param query Query describing the filter, order and page of the tasks to read.
+     * @return A list of the tasks from the storage that are described by the query.
+     */
+    @Override
+    public List<Task> queryTasks(TaskQuery query) {
+        final List<Task> tasks = new ArrayList();
+        visitTasks(query, false, new TaskVisitor() {
+            @Override
+            public boolean visit(Task task) {
+                tasks.add(task);
+                return true;
+            }
+        });
+
+        return tasks;
+    }
+
+    /**
+     * Queries the stored tasks filtered by the specified conditions and passes them to the visitor
+     * one by one as they are read, without keeping the whole result in memory.
+     * @param filter Filter that should be applied to exclude elements from the result.
+     * @param reuseInstance True, if a single Task instance should be filled with each row;
+     *                      false, if a new instance should be created for each row.
+     * @param visitor Visitor that receives the tasks matching the filter.
+     */
+    @Override
+    public void visitTasks(QueryFilter filter, boolean reuseInstance, TaskVisitor visitor) {
+        ParameterCheck.notNull(filter, "filter");
+        visitTasks(new TaskQuery(filter), reuseInstance, visitor);
+    }
+
+    /**
+     * Queries the stored tasks as described by the specified query and passes them to the visitor
+     * one by one as they are read. Only the columns of the projection are filled.
+     * @param query Query describing the filter, order and page of the tasks to read.
+     * @param reuseInstance True, if a single Task instance should be filled with each row;
+     *                      false, if a new instance should be created for each row.
+     * @param visitor Visitor that receives the tasks described by the query.
+     */
+    @Override
+    public void visitTasks(TaskQuery query, boolean reuseInstance, TaskVisitor visitor) {
+        ParameterCheck.notNull(query, "query");
+        ParameterCheck.notNull(visitor, "visitor");
+
+        // Copy the matches while holding the lock, so that the visitor sees a consistent state.
+        QueryFilter filter = QueryFilterNormalizer.optimizeForEvaluation(query.getFilter());
+        List<Task> matches = new ArrayList();
+        synchronized (this) {
+            for (Task task : findCandidates(filter)) {
+                if (query.isAfterPreviousPage(task) && evaluate(filter, task)) {
+                    matches.add(task);
+                }
+            }
+
+            if (query.isIncludingArchived()) {
+                for (Task task : archivedTasksById.values()) {
+                    if (query.isAfterPreviousPage(task) && evaluate(filter, task)) {
+                        matches.add(task);
+                    }
+                }
+            }
+
+            Collections.sort(matches, query.getSortOrder().getComparator());
+            if (query.getLimit() > 0 && matches.size() > query.getLimit()) {
+                matches = matches.subList(0, query.getLimit());
+            }
+
+            TaskColumnAccessor[] accessors = getAccessors(query.getProjection());
+            for (int i = 0; i < matches.size(); i++) {
+                matches.set(i, copyTask(matches.get(i), new Task(), accessors));
+            }
+        }
+
+        Task reusedTask = new Task();
+        for (Task task : matches) {
+            if (!visitor.visit(reuseInstance ? copyTask(task, reusedTask, COLUMN_ACCESSORS) : task)) break;
+        }
+    }
+
+    /**
+     * Counts the stored tasks matching the specified conditions without reading them.
+     * @param filter Filter that should be applied to exclude elements from the count.
+     * @return The number of tasks from the storage that match the filter.
+     */
+    @Override
+    public synchronized long countTasks(QueryFilter filter) {
+        ParameterCheck.notNull(filter, "filter");
+        filter = QueryFilterNormalizer.optimizeForEvaluation(filter);
+
+        long count = 0;
+        for (Task task : findCandidates(filter)) {
+            if (evaluate(filter, task)) count++;
+        }
+
+        return count;
+    }
+
+    /**
+     * Checks if any stored task matches the specified conditions without reading it.
+     * @param filter Filter that should be applied to exclude elements.
+     * @return True, if at least one task from the storage matches the filter; otherwise false.
+     */
+    @Override
+    public synchronized boolean anyTasks(QueryFilter filter) {
+        ParameterCheck.notNull(filter, "filter");
+        filter = QueryFilterNormalizer.optimizeForEvaluation(filter);
+
+        for (Task task : findCandidates(filter)) {
+            if (evaluate(filter, task)) return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Searches the stored tasks with titles containing all words of the search text,
+     * using words of the search text as prefixes. The tasks are ordered by their relevance:
+     * tasks with more occurrences of rare words come first.
+     * @param searchText Text with the words that the titles of the tasks should contain.
+     * @param filter Filter that should be applied to exclude elements from the result.
+     * @param limit Maximum number of tasks to read.
+     * @return A list of the most relevant matching tasks, starting with the most relevant.
+     */
+    @Override
+    public synchronized List<Task> searchTasks(String searchText, QueryFilter filter, int limit) {
+        ParameterCheck.notNull(filter, "filter");
+        List<String> terms = new FullTextQueryFilter(searchText).getTerms();
+        TaskSearchRanking ranking = new TaskSearchRanking(limit);
+        filter = QueryFilterNormalizer.optimizeForEvaluation(filter);
+
+        // The relevance depends on how many of all tasks contain each term, like in the full-text index.
+        int[] documentCounts = new int[terms.size()];
+        Map<Task, int[]> hitCountsByTask = new LinkedHashMap();
+        for (Task task : tasksById.values()) {
+            List<String> words = FullTextQueryFilter.tokenize(task.getTitle() == null ? "" : task.getTitle());
+            int[] hitCounts = new int[terms.size()];
+            boolean matchesAll = true;
+            for (int i = 0; i < hitCounts.length; i++) {
+                hitCounts[i] = FullTextQueryFilter.countMatches(terms.get(i), words);
+                if (hitCounts[i] > 0) documentCounts[i]++;
+                else matchesAll = false;
+            }
+
+            if (matchesAll) hitCountsByTask.put(task, hitCounts);
+        }
+
+        for (Map.Entry<Task, int[]> entry : hitCountsByTask.entrySet()) {
+            if (evaluate(filter, entry.getKey())) {
+                ranking.add(entry.getKey().getId(), TaskSearchRanking.score(entry.getValue(), documentCounts, tasksById.size()));
+            }
+        }
+
+        List<Task> tasks = new ArrayList();
+        for (Long id : ranking.getRankedIds()) {
+            tasks.add(copyTask(tasksById.get(id), new Task(), COLUMN_ACCESSORS));
+        }
+
+        return tasks;
+    }
+
+    /**
+     * Updates the task in the storage to match the current state of the specified entity.
+     * Only the fields that have been changed since the task has been read or written are updated;
+     * nothing is written if no field has been changed. Tasks that are not stored are ignored.
+     * @param task Task with the state that should be stored; will be identified by the Id.
+     */
+    @Override
+    public synchronized void updateTask(Task task) {
+        ParameterCheck.notNull(task, "task");
+
+        Task stored = tasksById.get(task.getId());
+        if (stored == null || !task.isDirty()) return;
+
+        Task updated = copyTask(stored, new Task(), COLUMN_ACCESSORS);
+        for (TaskColumnAccessor accessor : COLUMN_ACCESSORS) {
+            if (accessor.isDirty(task)) accessor.copy(task, updated);
+        }
+
+        updated.clearDirtyFields();
+        store(task.getId(), updated);
+        clearDirtyFields(task);
+        changeNotifier.notifyChanged(TaskChangeEvent.Type.Updated, task);
+    }
+
+    /**
+     * Updates the columns described by the update for the task with the specified Id,
+     * without reading the task first.
+     * @param id Id of the task that should be updated.
+     * @param update Update describing the new values of the columns.
+     * @return The number of updated tasks; 0 if there is no task with the Id.
+     */
+    @Override
+    public synchronized int updateTaskColumns(long id, TaskUpdate update) {
+        ParameterCheck.notNull(update, "update");
+        if (update.isEmpty()) throw new IllegalArgumentException("update must set at least one column.");
+
+        return updateTaskColumns(Collections.singleton(id), update);
+    }
+
+    /**
+     * Updates the columns described by the update for all tasks with the specified Ids
+     * at once, without reading the tasks first.
+     * @param ids Ids of the tasks that should be updated.
+     * @param update Update describing the new values of the columns.
+     * @return The number of updated tasks; Ids without a task are ignored.
+     */
+    @Override
+    public synchronized int updateTaskColumns(Collection<Long> ids, TaskUpdate update) {
+        ParameterCheck.notNull(ids, "ids");
+        ParameterCheck.notNull(update, "update");
+        if (update.isEmpty()) throw new IllegalArgumentException("update must set at least one column.");
+
+        List<Task> updatedTasks = new ArrayList();
+        for (Long id : new HashSet<Long>(ids)) {
+            Task stored = tasksById.get(id);
+            if (stored == null) continue;
+
+            Task updated = copyTask(stored, new Task(), COLUMN_ACCESSORS);
+            update.applyTo(updated);
+            updated.clearDirtyFields();
+            store(id, updated);
+            updatedTasks.add(updated);
+        }
+
+        if (!updatedTasks.isEmpty()) changeNotifier.notifyChanged(TaskChangeEvent.Type.Updated, updatedTasks);
+        return updatedTasks.size();
+    }
+
+    /**
+     * Updates the tasks in the storage within a single transaction
+     * to match the current state of the specified entities.
+     * @param tasks Tasks with the state that should be stored; will be identified by their Ids.
+     */
+    @Override
+    public void updateTasks(final Collection<Task> tasks) {
+        ParameterCheck.notNull(tasks, "tasks");
+
+        runInTransaction(new Runnable() {
+            @Override
+            public void run() {
+                for (Task task : tasks) {
+                    updateTask(task);
+                }
+            }
+        });
+    }
+
+    /**
+     * Runs the specified action within a single transaction. Changes made by the action
+     * are only kept if it completes without throwing an exception. Like Sqlite on Android,
+     * a failed nested transaction rolls back the whole outermost transaction at its end,
+     * even if the failure has been caught.
+     * @param action Action that should be run within the transaction.
+     */
+    @Override
+    public synchronized void runInTransaction(Runnable action) {
+        ParameterCheck.notNull(action, "action");
+
+        transactionDepth++;
+        changeNotifier.beginTransaction();
+        boolean successful = false;
+        try {
+            action.run();
+            successful = true;
+        } finally {
+            if (!successful) transactionFailed = true;
+            transactionDepth--;
+            if (transactionDepth == 0) {
+                if (transactionFailed) rollback();
+                undoLog.clear();
+                transactionFailed = false;
+            }
+            changeNotifier.endTransaction(successful);
+        }
+    }
+
+    /**
+     * Marks the fields of a written task as unchanged, and as changed again if the
+     * transaction that wrote them is rolled back, so that the write can be retried.
+     */
+    private void clearDirtyFields(final Task task) {
+        final int dirtyFields = task.getDirtyFields();
+        task.clearDirtyFields();
+        changeNotifier.runOnRollback(new Runnable() {
+            @Override
+            public void run() {
+                task.restoreDirtyFields(dirtyFields);
+            }
+        });
+    }
+
+    /**
+     * Registers a listener that should be notified about the changes of tasks
+     * made through this provider, after they have been committed.
+     * @param listener Listener that should be notified about changes.
+     */
+    @Override
+    public void addTaskChangeListener(TaskChangeListener listener) {
+        changeNotifier.addListener(listener);
+    }
+
+    /**
+     * Unregisters a listener, so that it is not notified about changes anymore.
+     * @param listener Listener that should not be notified about changes anymore.
+     */
+    @Override
+    public void removeTaskChangeListener(TaskChangeListener listener) {
+        changeNotifier.removeListener(listener);
+    }
+
+    /**
+     * Inserts a new recurring task into the storage. On insertion, a new Id
+     * will be generated and assigned to the Id property of the recurring task.
+     * @param recurringTask Recurring task that should be inserted into the storage.
+     */
+    @Override
+    public synchronized void insertRecurringTask(RecurringTask recurringTask) {
+        ParameterCheck.notNull(recurringTask, "recurringTask");
+
+        recurringTask.setId(nextRecurringTaskId++);
+        storeRecurringTask(recurringTask.getId(), copyRecurringTask(recurringTask));
+    }
+
+    /**
+     * Queries the stored recurring tasks with a next occurrence due before the specified date.
+     * @param date Date before which the next occurrence should be due.
+     * @return A list of the matching recurring tasks, ordered by the dates of their next occurrences.
+     */
+    @Override
+    public synchronized List<RecurringTask> queryRecurringTasksDueBefore(DateTime date) {
+        ParameterCheck.notNull(date, "date");
+
+        List<RecurringTask> recurringTasks = new ArrayList();
+        for (RecurringTask recurringTask : recurringTasksById.values()) {
+            DateTime nextOccurrenceDate = recurringTask.getNextOccurrenceDate();
+            if (nextOccurrenceDate != null && nextOccurrenceDate.isBefore(date)) {
+                recurringTasks.add(copyRecurringTask(recurringTask));
+            }
+        }
+
+        Collections.sort(recurringTasks, new Comparator<RecurringTask>() {
+            @Override
+            public int compare(RecurringTask first, RecurringTask second) {
+                return first.getNextOccurrenceDate().compareTo(second.getNextOccurrenceDate());
+            }
+        });
+
+        return recurringTasks;
+    }
+
+    /**
+     * Updates the recurring task in the storage to match the current state of the specified entity.
+     * Recurring tasks that are not stored are ignored.
+     * @param recurringTask Recurring task with the state that should be stored; will be identified by the Id.
+     */
+    @Override
+    public synchronized void updateRecurringTask(RecurringTask recurringTask) {
+        ParameterCheck.notNull(recurringTask, "recurringTask");
+
+        if (recurringTasksById.containsKey(recurringTask.getId())) {
+            storeRecurringTask(recurringTask.getId(), copyRecurringTask(recurringTask));
+        }
+    }
+
+    /**
+     * Stores the next occurrence and its date of the recurring task, but only if the stored
+     * next occurrence is still the expected one, so that concurrent writers cannot advance
+     * the same recurring task from the same state twice.
+     * @param recurringTask Recurring task with the next occurrence that should be stored; will be identified by the Id.
+     * @param expectedNextOccurrence Next occurrence the stored recurring task should have.
+     * @return True, if the next occurrence has been stored; false, if the recurring task has been changed or removed.
+     */
+    @Override
+    public synchronized boolean advanceRecurringTask(RecurringTask recurringTask, long expectedNextOccurrence) {
+        ParameterCheck.notNull(recurringTask, "recurringTask");
+
+        RecurringTask stored = recurringTasksById.get(recurringTask.getId());
+        if (stored == null || stored.getNextOccurrence() != expectedNextOccurrence) return false;
+
+        RecurringTask advanced = copyRecurringTask(stored);
+        advanced.setNextOccurrence(recurringTask.getNextOccurrence());
+        advanced.setNextOccurrenceDate(recurringTask.getNextOccurrenceDate());
+        storeRecurringTask(recurringTask.getId(), advanced);
+        return true;
+    }
+
+    /**
+     * Moves the tasks that have been done before the specified date into the archive.
+     * Archived tasks are only read by queries including archived tasks; all other methods
+     * only see the tasks that are not archived. The tasks are moved in batches, each
+     * within its own transaction.
+     * @param doneBefore Date before which the tasks should have been done.
+     * @param batchSize Maximum number of tasks moved within one transaction.
+     * @return The number of archived tasks.
+     */
+    @Override
+    public int archiveTasks(DateTime doneBefore, int batchSize) {
+        ParameterCheck.notNull(doneBefore, "doneBefore");
+        if (batchSize <= 0) throw new IllegalArgumentException("batchSize must be positive.");
+
+        final TaskQuery batchQuery = new TaskQuery(new ValueQueryFilter(
+            TaskyContract.Task.COLUMN_NAME_DONE_ON, ValueQueryFilter.Type.SmallerThan, doneBefore)).withLimit(batchSize);
+
+        int count = 0;
+        final int[] batchCount = new int[1];
+        do {
+            runInTransaction(new Runnable() {
+                @Override
+                public void run() {
+                    List<Task> tasks = queryTasks(batchQuery);
+                    for (Task task : tasks) {
+                        archive(task.getId());
+                    }
+
+                    batchCount[0] = tasks.size();
+                    if (!tasks.isEmpty()) changeNotifier.notifyChanged(TaskChangeEvent.Type.Archived, tasks);
+                }
+            });
+
+            count += batchCount[0];
+        } while (batchCount[0] == batchSize);
+
+        return count;
+    }
+
+    /**
+     * Does nothing, as the tasks do not use more memory than needed.
+     */
+    @Override
+    public void compactStorage() {
+    }
+
+    /**
+     * Does nothing, as there are no settings that need a rebuild.
+     */
+    @Override
+    public void rebuildStorage() {
+    }
+
+    /**
+     * Finds the stored tasks that can match the filter, using the indexes where possible.
+     * The filter still has to be evaluated on the returned tasks.
+     */
+    private Collection<Task> findCandidates(QueryFilter filter) {
+        Set<Long> ids = findCandidateIds(filter);
+        if (ids == null) return tasksById.values();
+
+        List<Task> candidates = new ArrayList(ids.size());
+        for (Long id : ids) {
+            candidates.add(tasksById.get(id));
+        }
+
+        return candidates;
+    }
+
+    /**
+     * Finds the Ids of the tasks that can match the filter from the indexes.
+     * @return The Ids of the tasks that can match; or null if all tasks have to be scanned.
+     */
+    private Set<Long> findCandidateIds(QueryFilter filter) {
+        if (filter instanceof ValueQueryFilter) {
+            ValueQueryFilter valueFilter = (ValueQueryFilter)filter;
+            TaskColumnAccessor accessor = TaskColumnAccessor.find(valueFilter.getColumnName());
+
+            if (accessor == TaskColumnAccessor.Id && valueFilter.getType() == ValueQueryFilter.Type.Equals) {
+                Set<Long> ids = new HashSet();
+                Object id = valueFilter.getExpected();
+                if (id instanceof Long && tasksById.containsKey(id)) ids.add((Long)id);
+                return ids;
+            }
+
+            TaskDateIndex index = findDateIndex(accessor);
+            Set<Long> ids = new HashSet();
+            return index != null && index.collect(valueFilter.getType(), valueFilter.getExpected(), ids) ? ids : null;
+        }
+
+        if (filter instanceof InQueryFilter) {
+            InQueryFilter inFilter = (InQueryFilter)filter;
+            if (TaskColumnAccessor.find(inFilter.getColumnName()) != TaskColumnAccessor.Id) return null;
+
+            Set<Long> ids = new HashSet();
+            for (Object value : inFilter.getValues()) {
+                Object id = InQueryFilter.normalize(value);
+                if (id instanceof Long && tasksById.containsKey(id)) ids.add((Long)id);
+            }
+            return ids;
+        }
+
+        if (filter instanceof BetweenQueryFilter) {
+            BetweenQueryFilter betweenFilter = (BetweenQueryFilter)filter;
+            TaskDateIndex index = findDateIndex(TaskColumnAccessor.find(betweenFilter.getColumnName()));
+
+            Set<Long> ids = new HashSet();
+            return index != null && index.collectBetween(betweenFilter.getLower(), betweenFilter.getUpper(), ids) ? ids : null;
+        }
+
+        if (filter instanceof CombinedQueryFilter) {
+            CombinedQueryFilter combinedFilter = (CombinedQueryFilter)filter;
+            boolean and = combinedFilter.getCombinationType() == CombinedQueryFilter.CombinationType.And;
+            Set<Long> result = null;
+
+            for (QueryFilter combined : combinedFilter.getFilters()) {
+                Set<Long> ids = findCandidateIds(combined);
+                if (and) {
+                    // Any filter limits the candidates; the smallest set is the cheapest to evaluate.
+                    if (ids != null && (result == null || ids.size() < result.size())) result = ids;
+                } else {
+                    // All filters have to be answered by the indexes to limit the candidates.
+                    if (ids == null) return null;
+                    if (result == null) result = ids;
+                    else result.addAll(ids);
+                }
+            }
+
+            return result;
+        }
+
+        return null;
+    }
+
+    private TaskDateIndex findDateIndex(TaskColumnAccessor accessor) {
+        for (TaskDateIndex index : dateIndexes) {
+            if (index.getAccessor() == accessor) return index;
+        }
+
+        return null;
+    }
+
+    /**
+     * Stores the task by its Id, replacing the previous state in the indexes.
+     */
+    private void store(final long id, Task task) {
+        final Task previous = tasksById.put(id, task);
+        if (transactionDepth > 0) {
+            undoLog.add(new Runnable() {
+                @Override
+                public void run() {
+                    Task current = previous == null ? tasksById.remove(id) : tasksById.put(id, previous);
+                    for (TaskDateIndex index : dateIndexes) {
+                        if (current != null) index.remove(current);
+                        if (previous != null) index.add(previous);
+                    }
+                }
+            });
+        }
+
+        for (TaskDateIndex index : dateIndexes) {
+            if (previous != null) index.remove(previous);
+            index.add(task);
+        }
+    }
+
+    /**
+     * Moves the task with the specified Id from the stored tasks and the indexes into the archive.
+     */
+    private void archive(final long id) {
+        final Task task = tasksById.remove(id);
+        archivedTasksById.put(id, task);
+        for (TaskDateIndex index : dateIndexes) {
+            index.remove(task);
+        }
+
+        if (transactionDepth > 0) {
+            undoLog.add(new Runnable() {
+                @Override
+                public void run() {
+                    archivedTasksById.remove(id);
+                    tasksById.put(id, task);
+                    for (TaskDateIndex index : dateIndexes) {
+                        index.add(task);
+                    }
+                }
+            });
+        }
+    }
+
+    private void storeRecurringTask(final long id, RecurringTask recurringTask) {
+        final RecurringTask previous = recurringTasksById.put(id, recurringTask);
+        if (transactionDepth > 0) {
+            undoLog.add(new Runnable() {
+                @Override
+                public void run() {
+                    if (previous == null) recurringTasksById.remove(id);
+                    else recurringTasksById.put(id, previous);
+                }
+            });
+        }
+    }
+
+    /**
+     * Restores the states of the entities from before the outermost transaction.
+     */
+    private void rollback() {
+        for (int i = undoLog.size() - 1; i >= 0; i--) {
+            undoLog.remove(i).run();
+        }
+    }
+
+    private static boolean evaluate(QueryFilter filter, Task task) {
+        if (filter instanceof EmptyQueryFilter) return true;
+
+        try {
+            return filter.evaluate(task);
+        } catch (IllegalAccessException exception) {
+            throw new IllegalStateException("Filter could not be evaluated on task " + task.getId() + ".", exception);
+        }
+    }
+
+    private static TaskColumnAccessor[] getAccessors(TaskProjection projection) {
+        String[] columns = projection.getSqliteColumns();
+        TaskColumnAccessor[] accessors = new TaskColumnAccessor[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            accessors[i] = TaskColumnAccessor.find(columns[i]);
+        }
+
+        return accessors;
+    }
+
+    private static RecurringTask copyRecurringTask(RecurringTask source) {
+        RecurringTask copy = new RecurringTask();
+        copy.setId(source.getId());
+        copy.setTitle(source.getTitle());
+        copy.setStartDate(source.getStartDate());
+        copy.setEndDate(source.getEndDate());
+        copy.setInterval(source.getInterval());
+        copy.setIntervalUnit(source.getIntervalUnit());
+        copy.setNextOccurrence(source.getNextOccurrence());
+        copy.setNextOccurrenceDate(source.getNextOccurrenceDate());
+        return copy;
+    }
+
+    private static Task copyTask(Task source, Task target, TaskColumnAccessor[] accessors) {
+        for (TaskColumnAccessor accessor : accessors) {
+            accessor.copy(source, target);
+        }
+
+        // Copies hold the stored state, so that they are not written again without being changed.
+        target.clearDirtyFields();
+        return target;
+    }
+}
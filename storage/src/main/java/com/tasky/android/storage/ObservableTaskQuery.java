@@ -0,0 +1,309 @@
+package com.tasky.android.storage;
+
+import com.tasky.android.entities.Task;
+import com.tasky.android.storage.queries.QueryFilter;
+import com.tasky.android.utilities.ParameterCheck;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+/**
+ * Keeps the result of a TaskQuery up to date: the query is only run again when a task changes
+ * that is part of the current result or matches the filter of the query. Changes arriving
+ * while a refresh is pending are combined into that refresh. If the query has a limit,
+ * the result is read in pages of that size and loadMore appends the next page.
+ * Queries that depend on the current time can be built again for each refresh by a QuerySource.
+ */
+public final class ObservableTaskQuery implements TaskChangeListener {
+    /**
+     * Receives the results of an ObservableTaskQuery.
+     */
+    public interface Observer {
+        /**
+         * Handles the current result of the query. Called on the executor of the query
+         * while the query is locked, so it should pass the result on without blocking.
+         * @param tasks All tasks of the result that have been loaded so far.
+         * @param hasMore True, if loadMore can read more tasks; otherwise false.
+         */
+        void onTasksLoaded(List<Task> tasks, boolean hasMore);
+
+        /**
+         * Handles the failure to read the result or its next page. Called on the executor of the query;
+         * the query keeps observing the changes of the tasks and can be refreshed again.
+         * @param exception Exception thrown while reading the tasks.
+         */
+        void onError(Exception exception);
+    }
+
+    /**
+     * Builds the query to run, whenever the result is refreshed or the changes of tasks are checked.
+     */
+    public interface QuerySource {
+        /**
+         * Builds the query describing the tasks to read.
+         * @return The query to run; its limit is used as page size.
+         */
+        TaskQuery getQuery();
+    }
+
+    private final TaskyDataProvider dataprovider;
+    private final QuerySource querySource;
+    private final Executor executor;
+    private final Observer observer;
+    private final Runnable refresh = new Runnable() {
+        @Override
+        public void run() {
+            runRefresh();
+        }
+    };
+
+    private TaskQuery query;
+    private List<Task> tasks = new ArrayList();
+    private Set<Long> taskIds = new HashSet();
+    private boolean hasMore = true;
+    private boolean refreshPending;
+    private boolean loadPending;
+    private boolean closed;
+    private int refreshCount;
+    private int loadCount;
+
+    /**
+     * Creates an ObservableTaskQuery. Call start to read the first result and begin observing.
+     * @param dataprovider TaskyDataProvider from which to read the tasks.
+     * @param query Query describing the tasks to read; its limit is used as page size.
+     * @param executor Executor on which the query should be run and the observer called.
+     * @param observer Observer that should receive the results.
+     */
+    public ObservableTaskQuery(TaskyDataProvider dataprovider, TaskQuery query, Executor executor, Observer observer) {
+        this(dataprovider, createConstantSource(query), executor, observer);
+    }
+
+    /**
+     * Creates an ObservableTaskQuery running a query that is built again for each refresh.
+     * Call start to read the first result and begin observing.
+     * @param dataprovider TaskyDataProvider from which to read the tasks.
+     * @param querySource Source of the query describing the tasks to read; its limit is used as page size.
+     * @param executor Executor on which the query should be run and the observer called.
+     * @param observer Observer that should receive the results.
+     */
+    public ObservableTaskQuery(TaskyDataProvider dataprovider, QuerySource querySource, Executor executor, Observer observer) {
+        ParameterCheck.notNull(dataprovider, "dataprovider");
+        ParameterCheck.notNull(querySource, "querySource");
+        ParameterCheck.notNull(executor, "executor");
+        ParameterCheck.notNull(observer, "observer");
+
+        this.dataprovider = dataprovider;
+        this.querySource = querySource;
+        this.executor = executor;
+        this.observer = observer;
+    }
+
+    /**
+     * Starts observing the changes of the tasks and reads the first result.
+     * @return This ObservableTaskQuery.
+     */
+    public ObservableTaskQuery start() {
+        dataprovider.addTaskChangeListener(this);
+        refresh();
+        return this;
+    }
+
+    /**
+     * Stops observing the changes of the tasks. Pending results will not be delivered anymore.
+     */
+    public synchronized void close() {
+        closed = true;
+        dataprovider.removeTaskChangeListener(this);
+    }
+
+    /**
+     * Runs the query again, unless a refresh is already pending.
+     */
+    public void refresh() {
+        synchronized (this) {
+            if (closed || refreshPending) return;
+            refreshPending = true;
+        }
+
+        try {
+            executor.execute(refresh);
+        } catch (RuntimeException exception) {
+            // The refresh will not run, so a later one must not be skipped.
+            synchronized (this) {
+                refreshPending = false;
+            }
+            throw exception;
+        }
+    }
+
+    /**
+     * Reads the next page of the result and appends it to the tasks that have been loaded.
+     */
+    public void loadMore() {
+        final TaskQuery query;
+        final Task lastTask;
+        final int refreshNumber;
+        final int loadNumber;
+        synchronized (this) {
+            if (closed || refreshPending || loadPending || !hasMore || this.query == null) return;
+            loadPending = true;
+            query = this.query;
+            lastTask = tasks.isEmpty() ? null : tasks.get(tasks.size() - 1);
+            refreshNumber = refreshCount;
+            loadNumber = ++loadCount;
+        }
+
+        try {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    runLoadMore(query, lastTask, refreshNumber, loadNumber);
+                }
+            });
+        } catch (RuntimeException exception) {
+            // The page will not be read, so a later one must not be skipped.
+            endLoad(loadNumber);
+            throw exception;
+        }
+    }
+
+    /**
+     * Gets the number of times the query has been run to refresh the result.
+     * @return The number of refreshes.
+     */
+    public synchronized int getRefreshCount() { return refreshCount; }
+
+    /**
+     * Refreshes the result if the changed tasks can affect it.
+     * @param event Event describing the changed tasks.
+     */
+    @Override
+    public void onTasksChanged(TaskChangeEvent event) {
+        if (isAffectedBy(event)) refresh();
+    }
+
+    private boolean isAffectedBy(TaskChangeEvent event) {
+        if (!TaskyContract.Task.TABLE_NAME.equals(event.getTableName())) return false;
+
+        synchronized (this) {
+            for (Task task : event.getTasks()) {
+                if (taskIds.contains(task.getId())) return true;
+            }
+        }
+
+        QueryFilter filter = querySource.getQuery().getFilter();
+        for (Task task : event.getTasks()) {
+            try {
+                if (filter.evaluate(task)) return true;
+            } catch (IllegalAccessException exception) {
+                // The filter cannot tell, so the result may be affected.
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private void runRefresh() {
+        TaskQuery query;
+        int limit;
+        int refreshNumber;
+        synchronized (this) {
+            // Changes from now on need another refresh, as they may not be seen by this one.
+            refreshPending = false;
+            if (closed) return;
+            refreshNumber = ++refreshCount;
+        }
+
+        List<Task> result;
+        try {
+            query = querySource.getQuery();
+            synchronized (this) {
+                limit = query.getLimit() > 0 ? Math.max(query.getLimit(), tasks.size()) : 0;
+            }
+
+            result = dataprovider.queryTasks(limit > 0 ? query.withLimit(limit) : query);
+        } catch (RuntimeException exception) {
+            deliverError(exception, refreshNumber, false);
+            return;
+        }
+
+        synchronized (this) {
+            if (refreshNumber == refreshCount) this.query = query;
+        }
+        deliver(result, refreshNumber, false, limit > 0 && result.size() == limit);
+    }
+
+    private void runLoadMore(TaskQuery query, Task lastTask, int refreshNumber, int loadNumber) {
+        try {
+            List<Task> result;
+            try {
+                TaskQuery page = lastTask == null ? query : query.after(lastTask);
+                result = dataprovider.queryTasks(page);
+            } catch (RuntimeException exception) {
+                deliverError(exception, refreshNumber, true);
+                return;
+            }
+
+            deliver(result, refreshNumber, true, result.size() == query.getLimit());
+        } finally {
+            endLoad(loadNumber);
+        }
+    }
+
+    /**
+     * Allows to load the next page again, unless another page has been requested meanwhile.
+     */
+    private synchronized void endLoad(int loadNumber) {
+        if (loadNumber == loadCount) loadPending = false;
+    }
+
+    /**
+     * Stores and delivers a result, unless a later refresh has been started meanwhile.
+     * @param refreshNumber Number of the refresh that read the result or that the page continues.
+     */
+    private synchronized void deliver(List<Task> result, int refreshNumber, boolean append, boolean hasMore) {
+        // The observer may request the next page right away.
+        if (append) loadPending = false;
+        if (closed || refreshNumber != refreshCount) return;
+
+        List<Task> tasks = append ? new ArrayList(this.tasks) : new ArrayList();
+        tasks.addAll(result);
+        Set<Long> taskIds = new HashSet();
+        for (Task task : tasks) {
+            taskIds.add(task.getId());
+        }
+
+        this.tasks = tasks;
+        this.taskIds = taskIds;
+        this.hasMore = hasMore;
+        observer.onTasksLoaded(Collections.unmodifiableList(tasks), hasMore);
+    }
+
+    /**
+     * Delivers the failure to read a result, unless a later refresh has been started meanwhile.
+     * A failed page is not read again until the next refresh.
+     */
+    private synchronized void deliverError(Exception exception, int refreshNumber, boolean append) {
+        if (append) loadPending = false;
+        if (closed || refreshNumber != refreshCount) return;
+
+        if (append) hasMore = false;
+        observer.onError(exception);
+    }
+
+    private static QuerySource createConstantSource(final TaskQuery query) {
+        ParameterCheck.notNull(query, "query");
+
+        return new QuerySource() {
+            @Override
+            public TaskQuery getQuery() {
+                return query;
+            }
+        };
+    }
+}
@@ -0,0 +1,83 @@
+package com.tasky.android.storage;
+
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+
+import com.tasky.android.utilities.ParameterCheck;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Keeps compiled statements of a database connection for reuse,
+ * so that their SQL does not have to be parsed again on every execution.
+ */
+public class SqliteStatementCache {
+    private final int maximumSize;
+    private final Map<String, SQLiteStatement> statements;
+    private SQLiteDatabase database;
+
+    /**
+     * Creates an SqliteStatementCache.
+     * @param maximumSize Maximum number of statements to keep; the least recently used
+     *                    statement will be closed when the maximum is exceeded.
+     */
+    public SqliteStatementCache(int maximumSize) {
+        if (maximumSize < 1) throw new IllegalArgumentException("maximumSize must be positive.");
+
+        this.maximumSize = maximumSize;
+        this.statements = new LinkedHashMap<String, SQLiteStatement>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, SQLiteStatement> eldest) {
+                if (size() <= SqliteStatementCache.this.maximumSize) return false;
+
+                // Only the reference of the cache is released, so callers still executing
+                // the statement can finish; it is closed when they release theirs.
+                eldest.getValue().releaseReference();
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Gets a compiled statement for the specified SQL. Callers have to bind all parameters
+     * and synchronize on the returned statement while binding and executing it. The statement
+     * holds a reference for the caller, which has to be released with releaseReference
+     * after the execution, so that evicting the statement cannot close it while it is in use.
+     * @param db Database for which the statement should be compiled.
+     * @param sql SQL of the statement.
+     * @return A compiled statement for the specified SQL.
+     */
+    public synchronized SQLiteStatement get(SQLiteDatabase db, String sql) {
+        ParameterCheck.notNull(db, "db");
+        ParameterCheck.notNull(sql, "sql");
+
+        // Statements belong to the database they have been compiled for.
+        if (db != database) {
+            clear();
+            database = db;
+        }
+
+        SQLiteStatement statement = statements.get(sql);
+        if (statement == null) {
+            statement = db.compileStatement(sql);
+            statements.put(sql, statement);
+        }
+
+        statement.acquireReference();
+        return statement;
+    }
+
+    /**
+     * Removes all cached statements. They are closed once their callers
+     * have released them.
+     */
+    public synchronized void clear() {
+        for (SQLiteStatement statement : statements.values()) {
+            statement.releaseReference();
+        }
+
+        statements.clear();
+        database = null;
+    }
+}
@@ -1,16 +1,29 @@
 package com.tasky.android.storage;
 
-import android.content.ContentValues;
 import android.content.Context;
 import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
 
+import com.tasky.android.entities.RecurringTask;
 import com.tasky.android.entities.Task;
-import com.tasky.android.entities.TaskPriority;
+import com.tasky.android.storage.queries.CompiledQueryFilter;
+import com.tasky.android.storage.queries.FullTextQueryFilter;
+import com.tasky.android.storage.queries.InQueryFilter;
 import com.tasky.android.storage.queries.QueryFilter;
+import com.tasky.android.storage.queries.QueryFilterCompiler;
+import com.tasky.android.storage.queries.QueryFilterNormalizer;
+import com.tasky.android.storage.queries.ValueQueryFilter;
 import com.tasky.android.utilities.ParameterCheck;
 
+import org.joda.time.DateTime;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -18,7 +31,12 @@ import java.util.Map;
  * Provides access to an Sqlite database holding Tasky application data.
  */
 public class SqliteTaskyDataProvider implements TaskyDataProvider {
+    private static final int STATEMENT_CACHE_SIZE = 16;
+
     private final TaskyDbHelper dbHelper;
+    private final SqliteStatementCache statements = new SqliteStatementCache(STATEMENT_CACHE_SIZE);
+    private final Map<TaskProjection, TaskRowMapper> rowMappers = new HashMap();
+    private final TaskChangeNotifier changeNotifier = new TaskChangeNotifier();
 
     /**
      * Creates an SqliteTaskyDataProvider.
@@ -28,6 +46,15 @@ public class SqliteTaskyDataProvider implements TaskyDataProvider {
         dbHelper = new TaskyDbHelper(context);
     }
 
+    /**
+     * Creates an SqliteTaskyDataProvider.
+     * @param context Context used by the DbHelper to access the Sqlite database.
+     * @param configuration Settings that should be applied to the database connections.
+     */
+    public SqliteTaskyDataProvider(Context context, TaskyDbConfiguration configuration) {
+        dbHelper = new TaskyDbHelper(context, configuration);
+    }
+
     /**
      * Inserts a new task into the storage. On insertion, a new Id
      * will be generated and assigned to the Id property of the task.
@@ -38,9 +65,50 @@ public class SqliteTaskyDataProvider implements TaskyDataProvider {
         if (task == null) throw new IllegalArgumentException("Parameter task cannot be null.");
 
         // Insert new task and put generated Id into the task object.
-        SQLiteDatabase db = dbHelper.getWritableDatabase();
-        long id = db.insert(TaskyContract.Task.TABLE_NAME, null, createContentValuesFromTask(task));
-        task.setId(id);
+        SQLiteStatement statement = statements.get(dbHelper.getWritableDatabase(), SQL_INSERT_TASK);
+        try {
+            synchronized (statement) {
+                bindTaskToStatement(statement, task);
+                task.setId(statement.executeInsert());
+            }
+        } finally {
+            statement.releaseReference();
+        }
+
+        clearDirtyFields(task);
+
+        changeNotifier.notifyChanged(TaskChangeEvent.Type.Inserted, task);
+    }
+
+    /**
+     * Inserts new tasks into the storage within a single transaction. On insertion, new Ids
+     * will be generated and assigned to the Id properties of the tasks.
+     * @param tasks Tasks that should be inserted into the storage.
+     */
+    @Override
+    public void insertTasks(final Collection<Task> tasks) {
+        ParameterCheck.notNull(tasks, "tasks");
+
+        runInTransaction(new Runnable() {
+            @Override
+            public void run() {
+                for (Task task : tasks) {
+                    insertTask(task);
+                }
+            }
+        });
+    }
+
+    /**
+     * Gets the stored task with the specified Id.
+     * @param id Id of the task that should be read.
+     * @return The task with the specified Id; or null if there is no such task.
+     */
+    @Override
+    public Task getTask(long id) {
+        QueryFilter filter = new ValueQueryFilter(TaskyContract.Task._ID, ValueQueryFilter.Type.Equals, id);
+        List<Task> tasks = queryTasks(new TaskQuery(filter).withLimit(1));
+        return tasks.isEmpty() ? null : tasks.get(0);
     }
 
     /**
@@ -51,58 +119,829 @@ public class SqliteTaskyDataProvider implements TaskyDataProvider {
     @Override
     public List<Task> queryTasks(QueryFilter filter) {
         ParameterCheck.notNull(filter, "filter");
+        return queryTasks(new TaskQuery(filter));
+    }
+
+    /**
+     * Queries the stored tasks as described by the specified query.
+     * @param query Query describing the filter, order and page of the tasks to read.
+     * @return A list of the tasks from the storage that are described by the query.
+     */
+    @Override
+    public List<Task> queryTasks(TaskQuery query) {
+        final List<Task> tasks = new ArrayList();
+        visitTasks(query, false, new TaskVisitor() {
+            @Override
+            public boolean visit(Task task) {
+                tasks.add(task);
+                return true;
+            }
+        });
+
+        return tasks;
+    }
+
+    /**
+     * Queries the stored tasks filtered by the specified conditions and passes them to the visitor
+     * one by one as they are read, without keeping the whole result in memory.
+     * @param filter Filter that should be applied to exclude elements from the result.
+     * @param reuseInstance True, if a single Task instance should be filled with each row;
+     *                      false, if a new instance should be created for each row.
+     * @param visitor Visitor that receives the tasks matching the filter.
+     */
+    @Override
+    public void visitTasks(QueryFilter filter, boolean reuseInstance, TaskVisitor visitor) {
+        ParameterCheck.notNull(filter, "filter");
+        visitTasks(new TaskQuery(filter), reuseInstance, visitor);
+    }
 
-        List<String> params = filter.getSqliteParameters();
+    /**
+     * Queries the stored tasks as described by the specified query and passes them to the visitor
+     * one by one as they are read, without keeping the whole result in memory.
+     * @param query Query describing the filter, order and page of the tasks to read.
+     * @param reuseInstance True, if a single Task instance should be filled with each row;
+     *                      false, if a new instance should be created for each row.
+     * @param visitor Visitor that receives the tasks described by the query.
+     */
+    @Override
+    public void visitTasks(TaskQuery query, boolean reuseInstance, TaskVisitor visitor) {
+        ParameterCheck.notNull(query, "query");
+        ParameterCheck.notNull(visitor, "visitor");
+
+        CompiledQueryFilter filter = QueryFilterCompiler.compile(QueryFilterNormalizer.normalize(query.buildSqlitePageFilter()));
         SQLiteDatabase db = dbHelper.getReadableDatabase();
-        Cursor cursor = db.query(TaskyContract.Task.TABLE_NAME, null,
-                filter.buildSqliteWhereClause(),
-                params.toArray(new String[params.size()]), null, null, null);
+        String table = query.isIncludingArchived() ? TaskyContract.TaskArchive.VIEW_NAME_ALL_TASKS : TaskyContract.Task.TABLE_NAME;
+        Cursor cursor = db.query(table, query.getProjection().getSqliteColumns(),
+                filter.getWhereClause(), filter.getSqliteParameters(), null, null,
+                query.buildSqliteOrderClause(), query.buildSqliteLimitClause());
+
+        try {
+            TaskRowMapper rowMapper = getRowMapper(query.getProjection());
+            Task reusedTask = reuseInstance ? new Task() : null;
+            while (cursor.moveToNext()) {
+                Task task = rowMapper.read(cursor, reuseInstance ? reusedTask : new Task());
+                if (!visitor.visit(task)) break;
+            }
+        } finally {
+            cursor.close();
+        }
+    }
+
+    /**
+     * Counts the stored tasks matching the specified conditions without reading them.
+     * @param filter Filter that should be applied to exclude elements from the count.
+     * @return The number of tasks from the storage that match the filter.
+     */
+    @Override
+    public long countTasks(QueryFilter filter) {
+        ParameterCheck.notNull(filter, "filter");
+
+        CompiledQueryFilter compiled = QueryFilterCompiler.compile(QueryFilterNormalizer.normalize(filter));
+        String sql = "SELECT COUNT(*) FROM " + TaskyContract.Task.TABLE_NAME + buildWhere(compiled);
+        return queryForLong(sql, compiled);
+    }
+
+    /**
+     * Checks if any stored task matches the specified conditions without reading it.
+     * @param filter Filter that should be applied to exclude elements.
+     * @return True, if at least one task from the storage matches the filter; otherwise false.
+     */
+    @Override
+    public boolean anyTasks(QueryFilter filter) {
+        ParameterCheck.notNull(filter, "filter");
+
+        CompiledQueryFilter compiled = QueryFilterCompiler.compile(QueryFilterNormalizer.normalize(filter));
+        String sql = "SELECT EXISTS(SELECT 1 FROM " + TaskyContract.Task.TABLE_NAME + buildWhere(compiled) + ")";
+        return queryForLong(sql, compiled) != 0;
+    }
+
+    /**
+     * Searches the stored tasks with titles containing all words of the search text,
+     * using words of the search text as prefixes. The tasks are ordered by their relevance:
+     * tasks with more occurrences of rare words come first. The matches are found
+     * by the full-text index and ranked by the statistics that it collects.
+     * @param searchText Text with the words that the titles of the tasks should contain.
+     * @param filter Filter that should be applied to exclude elements from the result.
+     * @param limit Maximum number of tasks to read.
+     * @return A list of the most relevant matching tasks, starting with the most relevant.
+     */
+    @Override
+    public List<Task> searchTasks(String searchText, QueryFilter filter, int limit) {
+        ParameterCheck.notNull(filter, "filter");
+        FullTextQueryFilter search = new FullTextQueryFilter(searchText);
+        TaskSearchRanking ranking = new TaskSearchRanking(limit);
+
+        CompiledQueryFilter compiled = QueryFilterCompiler.compile(QueryFilterNormalizer.normalize(filter));
+        String sql = SQL_SEARCH_TASKS;
+        if (compiled.getWhereClause() != null) {
+            sql += " AND " + TaskyContract.TaskSearch.COLUMN_NAME_DOCID + " IN (SELECT " + TaskyContract.Task._ID
+                + " FROM " + TaskyContract.Task.TABLE_NAME + " WHERE " + compiled.getWhereClause() + ")";
+        }
+
+        String[] parameters = new String[compiled.getParameterCount() + 1];
+        parameters[0] = search.getSqliteMatchExpression();
+        System.arraycopy(compiled.getSqliteParameters(), 0, parameters, 1, compiled.getParameterCount());
 
-        List<Task> tasks = new ArrayList();
-        Map<String, Integer> indices = SqliteTools.getColumnIndices(cursor);
-        while(cursor.moveToNext()) {
-            tasks.add(readTaskFromCursor(cursor, indices));
+        Cursor cursor = dbHelper.getReadableDatabase().rawQuery(sql, parameters);
+        try {
+            int termCount = search.getTerms().size();
+            int[] hitCounts = new int[termCount];
+            int[] documentCounts = new int[termCount];
+            while (cursor.moveToNext()) {
+                long taskCount = readMatchInfo(cursor.getBlob(1), hitCounts, documentCounts);
+                ranking.add(cursor.getLong(0), TaskSearchRanking.score(hitCounts, documentCounts, taskCount));
+            }
+        } finally {
+            cursor.close();
         }
-        cursor.close();
+
+        List<Long> ids = ranking.getRankedIds();
+        if (ids.isEmpty()) return new ArrayList();
+
+        Map<Long, Task> tasksById = new HashMap();
+        for (Task task : queryTasks(new InQueryFilter(TaskyContract.Task._ID, ids))) {
+            tasksById.put(task.getId(), task);
+        }
+
+        List<Task> tasks = new ArrayList(ids.size());
+        for (Long id : ids) {
+            Task task = tasksById.get(id);
+            if (task != null) tasks.add(task);
+        }
+
         return tasks;
     }
 
     /**
      * Updates the task in the storage to match the current state of the specified entity.
+     * Only the columns of the fields that have been changed since the task has been read or written
+     * are updated; nothing is written if no field has been changed.
      * @param task Task with the state that should be stored; will be identified by the Id.
      */
     @Override
     public void updateTask(Task task) {
         ParameterCheck.notNull(task, "task");
+        if (!task.isDirty()) return;
+
+        if (updateDirtyColumns(task.getId(), task) > 0) {
+            clearDirtyFields(task);
+            changeNotifier.notifyChanged(TaskChangeEvent.Type.Updated, task);
+        }
+    }
+
+    /**
+     * Updates the columns described by the update for the task with the specified Id,
+     * without reading the task first. Only if listeners have to be notified, the updated
+     * task is read within the same transaction, so that they get its whole state.
+     * @param id Id of the task that should be updated.
+     * @param update Update describing the new values of the columns.
+     * @return The number of updated tasks; 0 if there is no task with the Id.
+     */
+    @Override
+    public int updateTaskColumns(final long id, final TaskUpdate update) {
+        ParameterCheck.notNull(update, "update");
+        if (update.isEmpty()) throw new IllegalArgumentException("update must set at least one column.");
+
+        if (!changeNotifier.hasListeners()) return updateDirtyColumns(id, update.getValues());
+
+        final int[] updatedCount = new int[1];
+        runInTransaction(new Runnable() {
+            @Override
+            public void run() {
+                updatedCount[0] = updateDirtyColumns(id, update.getValues());
+                if (updatedCount[0] > 0) {
+                    changeNotifier.notifyChanged(TaskChangeEvent.Type.Updated, getTask(id));
+                }
+            }
+        });
+
+        return updatedCount[0];
+    }
+
+    /**
+     * Updates the columns described by the update for all tasks with the specified Ids
+     * in a single statement, without reading the tasks first. Only if listeners have to be
+     * notified, the updated tasks are read within the same transaction, so that they get
+     * the whole state of the tasks that actually exist.
+     * @param ids Ids of the tasks that should be updated.
+     * @param update Update describing the new values of the columns.
+     * @return The number of updated tasks; Ids without a task are ignored.
+     */
+    @Override
+    public int updateTaskColumns(Collection<Long> ids, final TaskUpdate update) {
+        ParameterCheck.notNull(ids, "ids");
+        ParameterCheck.notNull(update, "update");
+        if (update.isEmpty()) throw new IllegalArgumentException("update must set at least one column.");
+        if (ids.isEmpty()) return 0;
+
+        final InQueryFilter idFilter = new InQueryFilter(TaskyContract.Task._ID, ids);
+        if (!changeNotifier.hasListeners()) return updateDirtyColumns(idFilter.compile(), update.getValues());
+
+        final int[] updatedCount = new int[1];
+        runInTransaction(new Runnable() {
+            @Override
+            public void run() {
+                updatedCount[0] = updateDirtyColumns(idFilter.compile(), update.getValues());
+                if (updatedCount[0] > 0) {
+                    changeNotifier.notifyChanged(TaskChangeEvent.Type.Updated, queryTasks(idFilter));
+                }
+            }
+        });
+
+        return updatedCount[0];
+    }
+
+    /**
+     * Updates the tasks in the storage within a single transaction
+     * to match the current state of the specified entities.
+     * @param tasks Tasks with the state that should be stored; will be identified by their Ids.
+     */
+    @Override
+    public void updateTasks(final Collection<Task> tasks) {
+        ParameterCheck.notNull(tasks, "tasks");
+
+        runInTransaction(new Runnable() {
+            @Override
+            public void run() {
+                for (Task task : tasks) {
+                    updateTask(task);
+                }
+            }
+        });
+    }
+
+    /**
+     * Runs the specified action within a single transaction. Changes made by the action
+     * are only committed if it completes without throwing an exception. A failed nested
+     * transaction rolls back the whole outermost transaction, even if the failure has been caught.
+     * @param action Action that should be run within the transaction.
+     */
+    @Override
+    public void runInTransaction(Runnable action) {
+        ParameterCheck.notNull(action, "action");
 
-        // Update task with the current data, matching it by its Id.
         SQLiteDatabase db = dbHelper.getWritableDatabase();
-        db.update(TaskyContract.Task.TABLE_NAME, createContentValuesFromTask(task),
-                TaskyContract.Task._ID + "=?", new String[] { String.valueOf(task.getId()) });
-    }
-
-    private ContentValues createContentValuesFromTask(Task task) {
-        ContentValues values = new ContentValues();
-        values.put(TaskyContract.Task.COLUMN_NAME_TITLE, task.getTitle());
-        values.put(TaskyContract.Task.COLUMN_NAME_CREATED_ON, SqliteTools.convertDateTime(task.getCreatedOn()));
-        values.put(TaskyContract.Task.COLUMN_NAME_DONE_ON, SqliteTools.convertDateTime(task.getDoneOn()));
-        values.put(TaskyContract.Task.COLUMN_NAME_PRIORITY, SqliteTools.convertEnum(task.getPriority()));
-        values.put(TaskyContract.Task.COLUMN_NAME_POSTPONED_UNTIL, SqliteTools.convertDateTime(task.getPostponedUntil()));
-        values.put(TaskyContract.Task.COLUMN_NAME_CREATED_FROM_RECURRING_TASK_ID, task.getCreatedFromRecurringTaskId());
-        values.put(TaskyContract.Task.COLUMN_NAME_DUE_DATE, SqliteTools.convertDateTime(task.getDueDate()));
-        return values;
-    }
-
-    private Task readTaskFromCursor(Cursor cursor, Map<String, Integer> indices) {
-        Task task = new Task();
-        task.setId(cursor.getLong(indices.get(TaskyContract.Task._ID)));
-        task.setTitle(cursor.getString(indices.get(TaskyContract.Task.COLUMN_NAME_TITLE)));
-        task.setCreatedOn(SqliteTools.getDateTime(cursor, indices.get(TaskyContract.Task.COLUMN_NAME_CREATED_ON)));
-        task.setDoneOn(SqliteTools.getDateTime(cursor, indices.get(TaskyContract.Task.COLUMN_NAME_DONE_ON)));
-        task.setPriority(SqliteTools.<TaskPriority>getEnum(cursor, indices.get(TaskyContract.Task.COLUMN_NAME_PRIORITY), TaskPriority.class));
-        task.setPostponedUntil(SqliteTools.getDateTime(cursor, indices.get(TaskyContract.Task.COLUMN_NAME_POSTPONED_UNTIL)));
-        task.setCreatedFromRecurringTaskId(SqliteTools.getNullableInt(cursor, indices.get(TaskyContract.Task.COLUMN_NAME_CREATED_FROM_RECURRING_TASK_ID)));
-        task.setDueDate(SqliteTools.getDateTime(cursor, indices.get(TaskyContract.Task.COLUMN_NAME_DUE_DATE)));
-        return task;
-    }
-}
\ No newline at end of file
+        db.beginTransaction();
+        changeNotifier.beginTransaction();
+        boolean successful = false;
+        try {
+            action.run();
+            db.setTransactionSuccessful();
+            successful = true;
+        } finally {
+            db.endTransaction();
+            changeNotifier.endTransaction(successful);
+        }
+    }
+
+    /**
+     * Marks the fields of a written task as unchanged, and as changed again if the
+     * transaction that wrote them is rolled back, so that the write can be retried.
+     */
+    private void clearDirtyFields(final Task task) {
+        final int dirtyFields = task.getDirtyFields();
+        task.clearDirtyFields();
+        changeNotifier.runOnRollback(new Runnable() {
+            @Override
+            public void run() {
+                task.restoreDirtyFields(dirtyFields);
+            }
+        });
+    }
+
+    /**
+     * Registers a listener that should be notified about the changes of tasks
+     * made through this provider, after they have been committed.
+     * @param listener Listener that should be notified about changes.
+     */
+    @Override
+    public void addTaskChangeListener(TaskChangeListener listener) {
+        changeNotifier.addListener(listener);
+    }
+
+    /**
+     * Unregisters a listener, so that it is not notified about changes anymore.
+     * @param listener Listener that should not be notified about changes anymore.
+     */
+    @Override
+    public void removeTaskChangeListener(TaskChangeListener listener) {
+        changeNotifier.removeListener(listener);
+    }
+
+    /**
+     * Inserts a new recurring task into the storage. On insertion, a new Id
+     * will be generated and assigned to the Id property of the recurring task.
+     * @param recurringTask Recurring task that should be inserted into the storage.
+     */
+    @Override
+    public void insertRecurringTask(RecurringTask recurringTask) {
+        ParameterCheck.notNull(recurringTask, "recurringTask");
+
+        SQLiteStatement statement = statements.get(dbHelper.getWritableDatabase(), SQL_INSERT_RECURRING_TASK);
+        try {
+            synchronized (statement) {
+                bindRecurringTaskToStatement(statement, recurringTask);
+                recurringTask.setId(statement.executeInsert());
+            }
+        } finally {
+            statement.releaseReference();
+        }
+    }
+
+    /**
+     * Queries the stored recurring tasks with a next occurrence due before the specified date.
+     * @param date Date before which the next occurrence should be due.
+     * @return A list of the matching recurring tasks, ordered by the dates of their next occurrences.
+     */
+    @Override
+    public List<RecurringTask> queryRecurringTasksDueBefore(DateTime date) {
+        ParameterCheck.notNull(date, "date");
+
+        Cursor cursor = dbHelper.getReadableDatabase().query(TaskyContract.RecurringTask.TABLE_NAME,
+            RECURRING_TASK_QUERY_COLUMNS, TaskyContract.RecurringTask.COLUMN_NAME_NEXT_OCCURRENCE_DATE + " < ?",
+            new String[] { SqliteTools.convertSqliteParameter(date) }, null, null,
+            TaskyContract.RecurringTask.COLUMN_NAME_NEXT_OCCURRENCE_DATE);
+
+        try {
+            List<RecurringTask> recurringTasks = new ArrayList(cursor.getCount());
+            while (cursor.moveToNext()) {
+                recurringTasks.add(readRecurringTask(cursor));
+            }
+
+            return recurringTasks;
+        } finally {
+            cursor.close();
+        }
+    }
+
+    /**
+     * Updates the recurring task in the storage to match the current state of the specified entity.
+     * @param recurringTask Recurring task with the state that should be stored; will be identified by the Id.
+     */
+    @Override
+    public void updateRecurringTask(RecurringTask recurringTask) {
+        ParameterCheck.notNull(recurringTask, "recurringTask");
+
+        SQLiteStatement statement = statements.get(dbHelper.getWritableDatabase(), SQL_UPDATE_RECURRING_TASK);
+        try {
+            synchronized (statement) {
+                bindRecurringTaskToStatement(statement, recurringTask);
+                statement.bindLong(RECURRING_TASK_COLUMNS.length + 1, recurringTask.getId());
+                statement.executeUpdateDelete();
+            }
+        } finally {
+            statement.releaseReference();
+        }
+    }
+
+    /**
+     * Stores the next occurrence and its date of the recurring task, but only if the stored
+     * next occurrence is still the expected one, so that concurrent writers cannot advance
+     * the same recurring task from the same state twice.
+     * @param recurringTask Recurring task with the next occurrence that should be stored; will be identified by the Id.
+     * @param expectedNextOccurrence Next occurrence the stored recurring task should have.
+     * @return True, if the next occurrence has been stored; false, if the recurring task has been changed or removed.
+     */
+    @Override
+    public boolean advanceRecurringTask(RecurringTask recurringTask, long expectedNextOccurrence) {
+        ParameterCheck.notNull(recurringTask, "recurringTask");
+
+        SQLiteStatement statement = statements.get(dbHelper.getWritableDatabase(), SQL_ADVANCE_RECURRING_TASK);
+        try {
+            synchronized (statement) {
+                statement.bindLong(1, recurringTask.getNextOccurrence());
+                SqliteTools.bindDateTime(statement, 2, recurringTask.getNextOccurrenceDate());
+                statement.bindLong(3, recurringTask.getId());
+                statement.bindLong(4, expectedNextOccurrence);
+                return statement.executeUpdateDelete() > 0;
+            }
+        } finally {
+            statement.releaseReference();
+        }
+    }
+
+    /**
+     * Moves the tasks that have been done before the specified date into the archive.
+     * Archived tasks are only read by queries including archived tasks; all other methods
+     * only see the tasks that are not archived. The tasks are moved in batches, each
+     * within its own transaction, so that other writers are not blocked for long.
+     * @param doneBefore Date before which the tasks should have been done.
+     * @param batchSize Maximum number of tasks moved within one transaction.
+     * @return The number of archived tasks.
+     */
+    @Override
+    public int archiveTasks(DateTime doneBefore, int batchSize) {
+        ParameterCheck.notNull(doneBefore, "doneBefore");
+        if (batchSize <= 0) throw new IllegalArgumentException("batchSize must be positive.");
+
+        QueryFilter filter = new ValueQueryFilter(TaskyContract.Task.COLUMN_NAME_DONE_ON, ValueQueryFilter.Type.SmallerThan, doneBefore);
+        final TaskQuery batchQuery = new TaskQuery(filter).withLimit(batchSize);
+
+        int count = 0;
+        final int[] batchCount = new int[1];
+        do {
+            runInTransaction(new Runnable() {
+                @Override
+                public void run() {
+                    List<Task> tasks = queryTasks(batchQuery);
+                    batchCount[0] = tasks.size();
+                    if (tasks.isEmpty()) return;
+
+                    List<Long> ids = new ArrayList(tasks.size());
+                    for (Task task : tasks) {
+                        ids.add(task.getId());
+                    }
+
+                    CompiledQueryFilter idFilter = QueryFilterCompiler.compile(new InQueryFilter(TaskyContract.Task._ID, ids));
+                    SQLiteDatabase db = dbHelper.getWritableDatabase();
+                    db.execSQL(SQL_ARCHIVE_TASKS + idFilter.getWhereClause(), idFilter.getSqliteParameters());
+                    db.execSQL(SQL_DELETE_TASKS + idFilter.getWhereClause(), idFilter.getSqliteParameters());
+                    changeNotifier.notifyChanged(TaskChangeEvent.Type.Archived, tasks);
+                }
+            });
+
+            count += batchCount[0];
+        } while (batchCount[0] == batchSize);
+
+        return count;
+    }
+
+    /**
+     * Releases the free pages of the database file if incremental vacuum is enabled; otherwise they
+     * are kept for reuse by later writes. Does nothing for databases that still have to be rebuilt
+     * by rebuildStorage to switch to incremental vacuum.
+     */
+    @Override
+    public void compactStorage() {
+        if (dbHelper.getConfiguration().isIncrementalVacuumEnabled()) {
+            SqliteTools.executePragma(dbHelper.getWritableDatabase(), "incremental_vacuum");
+        }
+    }
+
+    /**
+     * Rebuilds the database file by a full vacuum if it was created without the vacuum mode
+     * of the configuration, which only takes effect on a rebuild. Rewrites the whole file,
+     * so this should only be run while the user is not waiting.
+     */
+    @Override
+    public void rebuildStorage() {
+        SQLiteDatabase db = dbHelper.getWritableDatabase();
+        long expectedMode = dbHelper.getConfiguration().isIncrementalVacuumEnabled()
+            ? AUTO_VACUUM_INCREMENTAL : AUTO_VACUUM_NONE;
+
+        if (queryPragmaForLong(db, "auto_vacuum") != expectedMode) {
+            // Cannot be run within a transaction; rebuilds the file with the current auto_vacuum setting.
+            db.execSQL("VACUUM");
+        }
+    }
+
+    /**
+     * Releases the compiled statements and closes the underlying database.
+     */
+    public void close() {
+        statements.clear();
+        dbHelper.close();
+    }
+
+    /**
+     * Builds a where clause including the WHERE keyword from the filter.
+     */
+    private String buildWhere(CompiledQueryFilter filter) {
+        String whereClause = filter.getWhereClause();
+        return whereClause == null ? "" : " WHERE " + whereClause;
+    }
+
+    /**
+     * Runs a query with a single numeric result through a cached statement;
+     * statements with values written into their SQL are not cached.
+     */
+    private long queryForLong(String sql, CompiledQueryFilter filter) {
+        if (filter.hasInlinedValues()) {
+            SQLiteStatement statement = dbHelper.getReadableDatabase().compileStatement(sql);
+            try {
+                filter.bind(statement, 1);
+                return statement.simpleQueryForLong();
+            } finally {
+                statement.close();
+            }
+        }
+
+        SQLiteStatement statement = statements.get(dbHelper.getReadableDatabase(), sql);
+        try {
+            synchronized (statement) {
+                filter.bind(statement, 1);
+                return statement.simpleQueryForLong();
+            }
+        } finally {
+            statement.releaseReference();
+        }
+    }
+
+    /**
+     * Reads the numeric value of a pragma.
+     */
+    private static long queryPragmaForLong(SQLiteDatabase db, String pragma) {
+        Cursor cursor = db.rawQuery("PRAGMA " + pragma, null);
+        try {
+            return cursor.moveToFirst() ? cursor.getLong(0) : 0;
+        } finally {
+            cursor.close();
+        }
+    }
+
+    /**
+     * Reads the statistics of a full-text match in the format "nx" of the matchinfo function:
+     * the number of indexed tasks, followed by three numbers for each term: the occurrences
+     * in the matching title, the occurrences in all titles and the number of titles containing it.
+     * @return The number of indexed tasks.
+     */
+    private static long readMatchInfo(byte[] matchInfo, int[] hitCounts, int[] documentCounts) {
+        IntBuffer values = ByteBuffer.wrap(matchInfo).order(ByteOrder.nativeOrder()).asIntBuffer();
+        long taskCount = values.get(0) & 0xFFFFFFFFL;
+        for (int i = 0; i < hitCounts.length; i++) {
+            hitCounts[i] = values.get(1 + 3 * i);
+            documentCounts[i] = values.get(3 + 3 * i);
+        }
+
+        return taskCount;
+    }
+
+    /**
+     * Binds the values of the task to the first parameters of the statement,
+     * in the order of the columns in TASK_COLUMNS.
+     */
+    private static void bindTaskToStatement(SQLiteStatement statement, Task task) {
+        for (int i = 0; i < TASK_COLUMN_ACCESSORS.length; i++) {
+            bindColumn(statement, i + 1, TASK_COLUMN_ACCESSORS[i], task);
+        }
+    }
+
+    /**
+     * Binds the value of a column of the task to the parameter of the statement.
+     */
+    private static void bindColumn(SQLiteStatement statement, int index, TaskColumnAccessor column, Task task) {
+        switch (column) {
+            case Title:
+                SqliteTools.bindString(statement, index, task.getTitle());
+                break;
+            case CreatedFromRecurringTaskId:
+                SqliteTools.bindNullableLong(statement, index, task.getCreatedFromRecurringTaskId());
+                break;
+            case Priority:
+                if (task.getPriority() == null) statement.bindNull(index);
+                else statement.bindLong(index, EnumMapper.TASK_PRIORITY.getCode(task.getPriority()));
+                break;
+            case PrioritySortIndex:
+                // The sort index is stored besides the priority, so that Sqlite can order by it.
+                if (task.getPriority() == null) statement.bindNull(index);
+                else statement.bindLong(index, task.getPriority().getSortIndex());
+                break;
+            case CreatedOn:
+            case DoneOn:
+            case PostponedUntil:
+            case DueDate:
+                SqliteTools.bindDateTime(statement, index, (DateTime)column.get(task));
+                break;
+            default:
+                throw new IllegalArgumentException("Column " + column.getColumn() + " cannot be written.");
+        }
+    }
+
+    /**
+     * Writes the changed fields of the values to the columns of the task with the specified Id.
+     * @return The number of updated tasks.
+     */
+    private int updateDirtyColumns(long id, Task values) {
+        List<TaskColumnAccessor> columns = getDirtyColumns(values);
+        SQLiteStatement statement = statements.get(dbHelper.getWritableDatabase(),
+            buildUpdateSql(columns, TaskyContract.Task._ID + "=?"));
+        try {
+            synchronized (statement) {
+                for (int i = 0; i < columns.size(); i++) {
+                    bindColumn(statement, i + 1, columns.get(i), values);
+                }
+                statement.bindLong(columns.size() + 1, id);
+                return statement.executeUpdateDelete();
+            }
+        } finally {
+            statement.releaseReference();
+        }
+    }
+
+    /**
+     * Writes the changed fields of the values to the columns of the tasks matching the filter.
+     * The statement depends on the number of Ids, so it is not kept in the statement cache.
+     * @return The number of updated tasks.
+     */
+    private int updateDirtyColumns(CompiledQueryFilter filter, Task values) {
+        List<TaskColumnAccessor> columns = getDirtyColumns(values);
+        SQLiteStatement statement = dbHelper.getWritableDatabase().compileStatement(
+            buildUpdateSql(columns, filter.getWhereClause()));
+        try {
+            for (int i = 0; i < columns.size(); i++) {
+                bindColumn(statement, i + 1, columns.get(i), values);
+            }
+            filter.bind(statement, columns.size() + 1);
+            return statement.executeUpdateDelete();
+        } finally {
+            statement.close();
+        }
+    }
+
+    /**
+     * Gets the columns of which the values have been changed.
+     */
+    private static List<TaskColumnAccessor> getDirtyColumns(Task values) {
+        List<TaskColumnAccessor> columns = new ArrayList(TASK_COLUMN_ACCESSORS.length);
+        for (TaskColumnAccessor accessor : TASK_COLUMN_ACCESSORS) {
+            if (accessor.isDirty(values)) columns.add(accessor);
+        }
+
+        return columns;
+    }
+
+    /**
+     * Builds the SQL-Statement that updates the specified columns of the tasks matching the where clause.
+     */
+    private static String buildUpdateSql(List<TaskColumnAccessor> columns, String whereClause) {
+        StringBuilder sql = new StringBuilder("UPDATE ").append(TaskyContract.Task.TABLE_NAME).append(" SET ");
+        for (int i = 0; i < columns.size(); i++) {
+            if (i > 0) sql.append(',');
+            sql.append(columns.get(i).getColumn()).append("=?");
+        }
+
+        return sql.append(" WHERE ").append(whereClause).toString();
+    }
+
+    /**
+     * Binds the values of the recurring task to the first parameters of the statement,
+     * in the order of the columns in RECURRING_TASK_COLUMNS.
+     */
+    private static void bindRecurringTaskToStatement(SQLiteStatement statement, RecurringTask recurringTask) {
+        SqliteTools.bindString(statement, 1, recurringTask.getTitle());
+        SqliteTools.bindDateTime(statement, 2, recurringTask.getStartDate());
+        SqliteTools.bindDateTime(statement, 3, recurringTask.getEndDate());
+        statement.bindLong(4, recurringTask.getInterval());
+        statement.bindLong(5, EnumMapper.RECURRENCE_INTERVAL_UNIT.getCode(recurringTask.getIntervalUnit()));
+        statement.bindLong(6, recurringTask.getNextOccurrence());
+        SqliteTools.bindDateTime(statement, 7, recurringTask.getNextOccurrenceDate());
+    }
+
+    /**
+     * Reads a recurring task from the current row of a cursor with the RECURRING_TASK_QUERY_COLUMNS.
+     */
+    private static RecurringTask readRecurringTask(Cursor cursor) {
+        RecurringTask recurringTask = new RecurringTask();
+        recurringTask.setId(cursor.getLong(0));
+        recurringTask.setTitle(cursor.getString(1));
+        recurringTask.setStartDate(SqliteTools.getDateTime(cursor, 2));
+        recurringTask.setEndDate(SqliteTools.getDateTime(cursor, 3));
+        recurringTask.setInterval(cursor.getInt(4));
+        recurringTask.setIntervalUnit(EnumMapper.RECURRENCE_INTERVAL_UNIT.getValue(cursor.getInt(5)));
+        recurringTask.setNextOccurrence(cursor.getLong(6));
+        recurringTask.setNextOccurrenceDate(SqliteTools.getDateTime(cursor, 7));
+        return recurringTask;
+    }
+
+    /**
+     * Gets the row mapper for the projection, resolving its column ordinals only once.
+     */
+    private TaskRowMapper getRowMapper(TaskProjection projection) {
+        synchronized (rowMappers) {
+            TaskRowMapper rowMapper = rowMappers.get(projection);
+            if (rowMapper == null) {
+                rowMapper = new TaskRowMapper(projection);
+                rowMappers.put(projection, rowMapper);
+            }
+
+            return rowMapper;
+        }
+    }
+
+    /**
+     * SQL-Statement that finds the tasks matching a full-text search with the statistics for their ranking.
+     */
+    private static final String SQL_SEARCH_TASKS =
+        "SELECT " + TaskyContract.TaskSearch.COLUMN_NAME_DOCID + ", matchinfo(" + TaskyContract.TaskSearch.TABLE_NAME + ",'nx')" +
+            " FROM " + TaskyContract.TaskSearch.TABLE_NAME +
+            " WHERE " + TaskyContract.TaskSearch.TABLE_NAME + " MATCH ?";
+
+    /**
+     * Accessors of the columns written from a task, in the order in which they are bound by bindTaskToStatement.
+     */
+    private static final TaskColumnAccessor[] TASK_COLUMN_ACCESSORS = new TaskColumnAccessor[] {
+        TaskColumnAccessor.Title,
+        TaskColumnAccessor.CreatedOn,
+        TaskColumnAccessor.DoneOn,
+        TaskColumnAccessor.Priority,
+        TaskColumnAccessor.PostponedUntil,
+        TaskColumnAccessor.CreatedFromRecurringTaskId,
+        TaskColumnAccessor.DueDate,
+        TaskColumnAccessor.PrioritySortIndex
+    };
+
+    /**
+     * Columns written from a task, in the order in which they are bound by bindTaskToStatement.
+     */
+    private static final String[] TASK_COLUMNS = new String[] {
+        TaskyContract.Task.COLUMN_NAME_TITLE,
+        TaskyContract.Task.COLUMN_NAME_CREATED_ON,
+        TaskyContract.Task.COLUMN_NAME_DONE_ON,
+        TaskyContract.Task.COLUMN_NAME_PRIORITY,
+        TaskyContract.Task.COLUMN_NAME_POSTPONED_UNTIL,
+        TaskyContract.Task.COLUMN_NAME_CREATED_FROM_RECURRING_TASK_ID,
+        TaskyContract.Task.COLUMN_NAME_DUE_DATE,
+        TaskyContract.Task.COLUMN_NAME_PRIORITY_SORT_INDEX
+    };
+
+    /**
+     * SQL-Statement that inserts a task. The Id follows the highest Id of the tasks and the archived
+     * tasks, as Sqlite would otherwise reuse the Ids of archived tasks that had the highest Id.
+     */
+    private static final String SQL_INSERT_TASK =
+        "INSERT INTO " + TaskyContract.Task.TABLE_NAME +
+            " (" + TaskyContract.Task._ID + "," + SqliteTools.join(TASK_COLUMNS, ",") + ")" +
+            " VALUES (" +
+                "MAX((SELECT IFNULL(MAX(" + TaskyContract.Task._ID + "),0) FROM " + TaskyContract.Task.TABLE_NAME + ")," +
+                "(SELECT IFNULL(MAX(" + TaskyContract.Task._ID + "),0) FROM " + TaskyContract.TaskArchive.TABLE_NAME + "))+1," +
+                SqliteTools.placeholders(TASK_COLUMNS.length) + ")";
+
+    /**
+     * Value of the auto_vacuum pragma if free pages are only released by a full vacuum.
+     */
+    private static final long AUTO_VACUUM_NONE = 0;
+
+    /**
+     * Value of the auto_vacuum pragma if free pages are released by incremental vacuums.
+     */
+    private static final long AUTO_VACUUM_INCREMENTAL = 2;
+
+    /**
+     * SQL-Statement that copies tasks into the archive; has to be followed by the condition selecting the tasks.
+     */
+    private static final String SQL_ARCHIVE_TASKS =
+        "INSERT INTO " + TaskyContract.TaskArchive.TABLE_NAME +
+            " (" + TaskyContract.Task._ID + "," + SqliteTools.join(TASK_COLUMNS, ",") + ")" +
+            " SELECT " + TaskyContract.Task._ID + "," + SqliteTools.join(TASK_COLUMNS, ",") +
+            " FROM " + TaskyContract.Task.TABLE_NAME + " WHERE ";
+
+    /**
+     * SQL-Statement that deletes tasks; has to be followed by the condition selecting the tasks.
+     */
+    private static final String SQL_DELETE_TASKS =
+        "DELETE FROM " + TaskyContract.Task.TABLE_NAME + " WHERE ";
+
+    /**
+     * Columns written from a recurring task, in the order in which they are bound by bindRecurringTaskToStatement.
+     */
+    private static final String[] RECURRING_TASK_COLUMNS = new String[] {
+        TaskyContract.RecurringTask.COLUMN_NAME_TITLE,
+        TaskyContract.RecurringTask.COLUMN_NAME_START_DATE,
+        TaskyContract.RecurringTask.COLUMN_NAME_END_DATE,
+        TaskyContract.RecurringTask.COLUMN_NAME_INTERVAL,
+        TaskyContract.RecurringTask.COLUMN_NAME_INTERVAL_UNIT,
+        TaskyContract.RecurringTask.COLUMN_NAME_NEXT_OCCURRENCE,
+        TaskyContract.RecurringTask.COLUMN_NAME_NEXT_OCCURRENCE_DATE
+    };
+
+    /**
+     * Columns read for a recurring task, in the order in which they are read by readRecurringTask.
+     */
+    private static final String[] RECURRING_TASK_QUERY_COLUMNS = new String[] {
+        TaskyContract.RecurringTask._ID,
+        TaskyContract.RecurringTask.COLUMN_NAME_TITLE,
+        TaskyContract.RecurringTask.COLUMN_NAME_START_DATE,
+        TaskyContract.RecurringTask.COLUMN_NAME_END_DATE,
+        TaskyContract.RecurringTask.COLUMN_NAME_INTERVAL,
+        TaskyContract.RecurringTask.COLUMN_NAME_INTERVAL_UNIT,
+        TaskyContract.RecurringTask.COLUMN_NAME_NEXT_OCCURRENCE,
+        TaskyContract.RecurringTask.COLUMN_NAME_NEXT_OCCURRENCE_DATE
+    };
+
+    /**
+     * SQL-Statement that inserts a recurring task.
+     */
+    private static final String SQL_INSERT_RECURRING_TASK =
+        "INSERT INTO " + TaskyContract.RecurringTask.TABLE_NAME +
+            " (" + SqliteTools.join(RECURRING_TASK_COLUMNS, ",") + ")" +
+            " VALUES (" + SqliteTools.placeholders(RECURRING_TASK_COLUMNS.length) + ")";
+
+    /**
+     * SQL-Statement that updates a recurring task identified by its Id.
+     */
+    private static final String SQL_UPDATE_RECURRING_TASK =
+        "UPDATE " + TaskyContract.RecurringTask.TABLE_NAME +
+            " SET " + SqliteTools.join(RECURRING_TASK_COLUMNS, "=?,") + "=?" +
+            " WHERE " + TaskyContract.RecurringTask._ID + "=?";
+
+    /**
+     * SQL-Statement that advances the next occurrence of a recurring task identified by its Id,
+     * if its next occurrence has not been changed since it has been read.
+     */
+    private static final String SQL_ADVANCE_RECURRING_TASK =
+        "UPDATE " + TaskyContract.RecurringTask.TABLE_NAME +
+            " SET " + TaskyContract.RecurringTask.COLUMN_NAME_NEXT_OCCURRENCE + "=?," +
+            TaskyContract.RecurringTask.COLUMN_NAME_NEXT_OCCURRENCE_DATE + "=?" +
+            " WHERE " + TaskyContract.RecurringTask._ID + "=? AND " +
+            TaskyContract.RecurringTask.COLUMN_NAME_NEXT_OCCURRENCE + "=?";
+}
@@ -1,15 +1,14 @@
 package com.tasky.android.storage;
 
 import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteProgram;
 import android.support.annotation.Nullable;
 
 import com.tasky.android.utilities.ParameterCheck;
 
 import org.joda.time.DateTime;
 
-import java.util.Map;
-import java.util.TreeMap;
-
 /**
  * Utility methods for working with an Sqlite database.
  */
@@ -47,23 +46,100 @@ public class SqliteTools {
         if (value instanceof Boolean) {
             value = (Boolean) value ? 1 : 0;
         }
+        if (value instanceof Enum) {
+            value = convertEnum(value);
+        }
 
         return value.toString();
     }
 
     /**
-     * Gets a map of the column names from the cursor with their indices.
-     * @param cursor Cursor to get column names from.
-     * @return A map of the column names with their indices.
+     * Binds a Joda DateTime value to a parameter of a compiled statement.
+     * @param statement Statement to which the value should be bound.
+     * @param index 1-based index of the parameter.
+     * @param value Joda DateTime value to bind; can be null.
+     */
+    public static void bindDateTime(SQLiteProgram statement, int index, DateTime value) {
+        if (value == null) statement.bindNull(index);
+        else statement.bindLong(index, value.getMillis());
+    }
+
+    /**
+     * Binds an enum value to a parameter of a compiled statement.
+     * @param statement Statement to which the value should be bound.
+     * @param index 1-based index of the parameter.
+     * @param enumValue Enum value to bind; can be null.
+     */
+    public static void bindEnum(SQLiteProgram statement, int index, Object enumValue) {
+        bindNullableLong(statement, index, convertEnum(enumValue));
+    }
+
+    /**
+     * Binds a nullable integral value to a parameter of a compiled statement.
+     * @param statement Statement to which the value should be bound.
+     * @param index 1-based index of the parameter.
+     * @param value Integral value to bind; can be null.
+     */
+    public static void bindNullableLong(SQLiteProgram statement, int index, Number value) {
+        if (value == null) statement.bindNull(index);
+        else statement.bindLong(index, value.longValue());
+    }
+
+    /**
+     * Binds a String value to a parameter of a compiled statement.
+     * @param statement Statement to which the value should be bound.
+     * @param index 1-based index of the parameter.
+     * @param value String value to bind; can be null.
      */
-    public static Map<String, Integer> getColumnIndices(Cursor cursor) {
-        Map<String, Integer> map = new TreeMap(String.CASE_INSENSITIVE_ORDER);
+    public static void bindString(SQLiteProgram statement, int index, String value) {
+        if (value == null) statement.bindNull(index);
+        else statement.bindString(index, value);
+    }
+
+    /**
+     * Joins the specified values with a separator, e.g. to build a list of columns.
+     * @param values Values that should be joined.
+     * @param separator Separator that should be put between the values.
+     * @return A String with the joined values.
+     */
+    public static String join(String[] values, String separator) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) builder.append(separator);
+            builder.append(values[i]);
+        }
+
+        return builder.toString();
+    }
 
-        for(String columnName : cursor.getColumnNames()) {
-            map.put(columnName, cursor.getColumnIndex(columnName));
+    /**
+     * Creates a comma-separated list of parameter placeholders.
+     * @param count Number of placeholders.
+     * @return A String with the specified number of placeholders.
+     */
+    public static String placeholders(int count) {
+        StringBuilder builder = new StringBuilder(count * 2);
+        for (int i = 0; i < count; i++) {
+            if (i > 0) builder.append(',');
+            builder.append('?');
         }
 
-        return map;
+        return builder.toString();
+    }
+
+    /**
+     * Executes a PRAGMA statement. Some pragmas report their new value as a result row,
+     * which is not allowed for statements run by SQLiteDatabase.execSQL.
+     * @param db Database on which the pragma should be executed.
+     * @param pragma Pragma with its assignment, without the PRAGMA keyword.
+     */
+    public static void executePragma(SQLiteDatabase db, String pragma) {
+        Cursor cursor = db.rawQuery("PRAGMA " + pragma, null);
+        try {
+            cursor.moveToFirst();
+        } finally {
+            cursor.close();
+        }
     }
 
     /**
@@ -72,7 +148,7 @@ public class SqliteTools {
      * @param columnIndex Index of the column from which to read the boolean value.
      * @return Value read from the cursor.
      */
-    public static boolean getBoolean(Cursor cursor, Integer columnIndex) {
+    public static boolean getBoolean(Cursor cursor, int columnIndex) {
         return cursor.getInt(columnIndex) == 1;
     }
 
@@ -83,7 +159,7 @@ public class SqliteTools {
      * @return Value read from the cursor.
      */
     @Nullable
-    public static DateTime getDateTime(Cursor cursor, Integer columnIndex) {
+    public static DateTime getDateTime(Cursor cursor, int columnIndex) {
         return cursor.isNull(columnIndex) ? null : new DateTime(cursor.getLong(columnIndex));
     }
 
@@ -95,7 +171,7 @@ public class SqliteTools {
      * @param <T> Type of the enum value that should be read.
      * @return The enum value read from the cursor.
      */
-    public static<T> T getEnum(Cursor cursor, Integer columnIndex, Class enumClass) {
+    public static<T> T getEnum(Cursor cursor, int columnIndex, Class enumClass) {
         return EnumMapper.getEnumByInteger(cursor.getInt(columnIndex), enumClass);
     }
 
@@ -106,7 +182,7 @@ public class SqliteTools {
      * @return Value read from the cursor; null if the column contains a NULL value.
      */
     @Nullable
-    public static Integer getNullableInt(Cursor cursor, Integer columnIndex) {
+    public static Integer getNullableInt(Cursor cursor, int columnIndex) {
         return cursor.isNull(columnIndex) ? null : cursor.getInt(columnIndex);
     }
 }
\ No newline at end of file
@@ -0,0 +1,70 @@
+package com.tasky.android.storage;
+
+import com.tasky.android.entities.Task;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Describes tasks that have been changed in a storage, with their state after the change.
+ */
+public final class TaskChangeEvent {
+    /**
+     * Kinds of changes made to the tasks.
+     */
+    public enum Type {
+        Inserted,
+        Updated,
+
+        /**
+         * The tasks have been moved into the archive; they are only read by queries including archived tasks.
+         */
+        Archived
+    }
+
+    private final Type type;
+    private final List<Task> tasks;
+
+    /**
+     * Creates a TaskChangeEvent.
+     * @param type Kind of the change made to the tasks.
+     * @param tasks States of the tasks after the change; should not be changed afterwards.
+     */
+    TaskChangeEvent(Type type, Collection<Task> tasks) {
+        this.type = type;
+        this.tasks = Collections.unmodifiableList(new ArrayList(tasks));
+    }
+
+    /**
+     * Gets the table in which the tasks have been changed.
+     * @return The name of the table in which the tasks have been changed.
+     */
+    public String getTableName() { return TaskyContract.Task.TABLE_NAME; }
+
+    /**
+     * Gets the kind of the change made to the tasks.
+     * @return The kind of the change made to the tasks.
+     */
+    public Type getType() { return type; }
+
+    /**
+     * Gets the states of the changed tasks after the change. The tasks must not be changed.
+     * @return A list with the states of the changed tasks.
+     */
+    public List<Task> getTasks() { return tasks; }
+
+    /**
+     * Checks if the task with the specified Id has been changed.
+     * @param id Id of the task to check.
+     * @return True, if the task with the specified Id has been changed; otherwise false.
+     */
+    public boolean containsTask(long id) {
+        for (Task task : tasks) {
+            if (task.getId() == id) return true;
+        }
+
+        return false;
+    }
+}
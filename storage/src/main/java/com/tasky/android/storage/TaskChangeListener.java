@@ -0,0 +1,13 @@
+package com.tasky.android.storage;
+
+/**
+ * Receives the changes of the tasks in a storage after they have been committed.
+ */
+public interface TaskChangeListener {
+    /**
+     * Handles changed tasks. Called on the thread that made the change,
+     * so it should not do any expensive work.
+     * @param event Event describing the changed tasks.
+     */
+    void onTasksChanged(TaskChangeEvent event);
+}
@@ -0,0 +1,170 @@
+package com.tasky.android.storage;
+
+import com.tasky.android.entities.Task;
+import com.tasky.android.utilities.ParameterCheck;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Notifies TaskChangeListeners about the changes made by a TaskyDataProvider.
+ * Changes made within a transaction are collected and only passed to the listeners
+ * once the outermost transaction has been committed; changes of consecutive
+ * writes of the same kind are combined into a single event. Like Sqlite on Android,
+ * a failed nested transaction fails the whole outermost transaction, even if the
+ * failure has been caught. Actions can be registered
+ * to undo in-memory state if the transaction that made a change is rolled back.
+ */
+public final class TaskChangeNotifier {
+    private static final TaskColumnAccessor[] COLUMN_ACCESSORS = TaskColumnAccessor.values();
+
+    private final List<TaskChangeListener> listeners = new CopyOnWriteArrayList();
+    private final ThreadLocal<Transaction> transactions = new ThreadLocal();
+
+    /**
+     * Registers a listener that should be notified about changes.
+     * @param listener Listener that should be notified about changes.
+     */
+    public void addListener(TaskChangeListener listener) {
+        ParameterCheck.notNull(listener, "listener");
+        listeners.add(listener);
+    }
+
+    /**
+     * Unregisters a listener, so that it is not notified about changes anymore.
+     * @param listener Listener that should not be notified about changes anymore.
+     */
+    public void removeListener(TaskChangeListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Checks if any listener is registered, so that changes have to be announced.
+     * @return True, if at least one listener is registered; otherwise false.
+     */
+    public boolean hasListeners() {
+        return !listeners.isEmpty();
+    }
+
+    /**
+     * Starts collecting the changes made by the current thread, until the matching call
+     * of endTransaction. Transactions can be nested.
+     */
+    public void beginTransaction() {
+        Transaction transaction = transactions.get();
+        if (transaction == null) {
+            transaction = new Transaction();
+            transactions.set(transaction);
+        }
+
+        transaction.depth++;
+    }
+
+    /**
+     * Ends the innermost transaction of the current thread. At the end of the outermost transaction,
+     * the changes are passed to the listeners if all nested transactions have been successful;
+     * otherwise the changes are dropped and the rollback actions are run.
+     * @param successful True, if the transaction has been marked as successful; otherwise false.
+     */
+    public void endTransaction(boolean successful) {
+        Transaction transaction = transactions.get();
+        if (transaction == null) throw new IllegalStateException("There is no transaction to end.");
+
+        if (!successful) transaction.failed = true;
+        if (--transaction.depth > 0) return;
+
+        transactions.remove();
+        if (transaction.failed) {
+            for (int i = transaction.rollbackActions.size() - 1; i >= 0; i--) {
+                transaction.rollbackActions.get(i).run();
+            }
+        } else {
+            for (TaskChangeEvent event : transaction.changes) {
+                dispatch(event);
+            }
+        }
+    }
+
+    /**
+     * Registers an action that undoes in-memory state, like cleared dirty fields, if the transaction
+     * of the current thread is rolled back. Outside of a transaction, changes are committed at once
+     * and the action is dropped.
+     * @param action Action that should be run if the current transaction is rolled back.
+     */
+    public void runOnRollback(Runnable action) {
+        ParameterCheck.notNull(action, "action");
+
+        Transaction transaction = transactions.get();
+        if (transaction != null) transaction.rollbackActions.add(action);
+    }
+
+    /**
+     * Announces changed tasks. The listeners are notified immediately,
+     * or at the end of the transaction of the current thread.
+     * @param type Kind of the change made to the tasks.
+     * @param tasks Tasks with their state after the change.
+     */
+    public void notifyChanged(TaskChangeEvent.Type type, Collection<Task> tasks) {
+        if (listeners.isEmpty() || tasks.isEmpty()) return;
+
+        // Listeners get snapshots, as the caller can still change its instances.
+        List<Task> snapshots = new ArrayList(tasks.size());
+        for (Task task : tasks) {
+            snapshots.add(copyTask(task));
+        }
+
+        Transaction transaction = transactions.get();
+        if (transaction == null) {
+            dispatch(new TaskChangeEvent(type, snapshots));
+            return;
+        }
+
+        // Combine with the previous change of the same kind, as the changes are only committed together.
+        List<TaskChangeEvent> changes = transaction.changes;
+        if (!changes.isEmpty() && changes.get(changes.size() - 1).getType() == type) {
+            TaskChangeEvent previous = changes.remove(changes.size() - 1);
+            snapshots.addAll(0, previous.getTasks());
+        }
+
+        changes.add(new TaskChangeEvent(type, snapshots));
+    }
+
+    /**
+     * Announces a changed task. The listeners are notified immediately,
+     * or at the end of the transaction of the current thread.
+     * @param type Kind of the change made to the task.
+     * @param task Task with its state after the change.
+     */
+    public void notifyChanged(TaskChangeEvent.Type type, Task task) {
+        notifyChanged(type, Collections.singletonList(task));
+    }
+
+    private void dispatch(TaskChangeEvent event) {
+        for (TaskChangeListener listener : listeners) {
+            listener.onTasksChanged(event);
+        }
+    }
+
+    private static Task copyTask(Task task) {
+        Task copy = new Task();
+        for (TaskColumnAccessor accessor : COLUMN_ACCESSORS) {
+            accessor.copy(task, copy);
+        }
+
+        copy.clearDirtyFields();
+        return copy;
+    }
+
+    /**
+     * Changes and rollback actions collected within the transactions of a thread.
+     */
+    private static final class Transaction {
+        final List<TaskChangeEvent> changes = new ArrayList();
+        final List<Runnable> rollbackActions = new ArrayList();
+        int depth;
+        boolean failed;
+    }
+}
@@ -0,0 +1,175 @@
+package com.tasky.android.storage;
+
+import com.tasky.android.entities.Task;
+import com.tasky.android.utilities.ParameterCheck;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Columns of the task table with direct access to the corresponding values of a task entity,
+ * so that filters can be evaluated in memory without reflection.
+ */
+public enum TaskColumnAccessor {
+    /**
+     * Accesses the Id of a task.
+     */
+    Id(TaskyContract.Task._ID, 0) {
+        @Override
+        public Object get(Task task) { return task.getId(); }
+
+        @Override
+        public void copy(Task source, Task target) { target.setId(source.getId()); }
+    },
+
+    /**
+     * Accesses the title of a task.
+     */
+    Title(TaskyContract.Task.COLUMN_NAME_TITLE, Task.FIELD_TITLE) {
+        @Override
+        public Object get(Task task) { return task.getTitle(); }
+
+        @Override
+        public void copy(Task source, Task target) { target.setTitle(source.getTitle()); }
+    },
+
+    /**
+     * Accesses the date and time when a task was created.
+     */
+    CreatedOn(TaskyContract.Task.COLUMN_NAME_CREATED_ON, Task.FIELD_CREATED_ON) {
+        @Override
+        public Object get(Task task) { return task.getCreatedOn(); }
+
+        @Override
+        public void copy(Task source, Task target) { target.setCreatedOn(source.getCreatedOn()); }
+    },
+
+    /**
+     * Accesses the date and time when a task has been done.
+     */
+    DoneOn(TaskyContract.Task.COLUMN_NAME_DONE_ON, Task.FIELD_DONE_ON) {
+        @Override
+        public Object get(Task task) { return task.getDoneOn(); }
+
+        @Override
+        public void copy(Task source, Task target) { target.setDoneOn(source.getDoneOn()); }
+    },
+
+    /**
+     * Accesses the priority of a task.
+     */
+    Priority(TaskyContract.Task.COLUMN_NAME_PRIORITY, Task.FIELD_PRIORITY) {
+        @Override
+        public Object get(Task task) { return task.getPriority(); }
+
+        @Override
+        public void copy(Task source, Task target) { target.setPriority(source.getPriority()); }
+    },
+
+    /**
+     * Accesses the date until which a task has been postponed.
+     */
+    PostponedUntil(TaskyContract.Task.COLUMN_NAME_POSTPONED_UNTIL, Task.FIELD_POSTPONED_UNTIL) {
+        @Override
+        public Object get(Task task) { return task.getPostponedUntil(); }
+
+        @Override
+        public void copy(Task source, Task target) { target.setPostponedUntil(source.getPostponedUntil()); }
+    },
+
+    /**
+     * Accesses the Id of the RecurringTask from which a task was created.
+     */
+    CreatedFromRecurringTaskId(TaskyContract.Task.COLUMN_NAME_CREATED_FROM_RECURRING_TASK_ID, Task.FIELD_CREATED_FROM_RECURRING_TASK_ID) {
+        @Override
+        public Object get(Task task) { return task.getCreatedFromRecurringTaskId(); }
+
+        @Override
+        public void copy(Task source, Task target) { target.setCreatedFromRecurringTaskId(source.getCreatedFromRecurringTaskId()); }
+    },
+
+    /**
+     * Accesses the date on which a task is due.
+     */
+    DueDate(TaskyContract.Task.COLUMN_NAME_DUE_DATE, Task.FIELD_DUE_DATE) {
+        @Override
+        public Object get(Task task) { return task.getDueDate(); }
+
+        @Override
+        public void copy(Task source, Task target) { target.setDueDate(source.getDueDate()); }
+    },
+
+    /**
+     * Accesses the sort index of the priority of a task; derived from the priority.
+     */
+    PrioritySortIndex(TaskyContract.Task.COLUMN_NAME_PRIORITY_SORT_INDEX, Task.FIELD_PRIORITY) {
+        @Override
+        public Object get(Task task) {
+            return task.getPriority() == null ? null : task.getPriority().getSortIndex();
+        }
+
+        @Override
+        public void copy(Task source, Task target) {
+            // Derived from the priority, which is copied by its own accessor.
+        }
+    };
+
+    private static final Map<String, TaskColumnAccessor> accessorsByColumn = new HashMap();
+    static {
+        for (TaskColumnAccessor accessor : values()) {
+            accessorsByColumn.put(accessor.column.toLowerCase(Locale.US), accessor);
+        }
+    }
+
+    private final String column;
+    private final int dirtyField;
+
+    TaskColumnAccessor(String column, int dirtyField) {
+        this.column = column;
+        this.dirtyField = dirtyField;
+    }
+
+    /**
+     * Finds the accessor for the specified column of the task table.
+     * @param column Name of the column; compared ignoring case, like Sqlite does.
+     * @return The accessor for the column; or null if the task table has no such column.
+     */
+    public static TaskColumnAccessor find(String column) {
+        ParameterCheck.notNull(column, "column");
+        return accessorsByColumn.get(column.toLowerCase(Locale.US));
+    }
+
+    /**
+     * Gets the name of the accessed column.
+     * @return The name of the accessed column.
+     */
+    public String getColumn() { return column; }
+
+    /**
+     * Gets the flag in the bitmask of the changed fields of a task that indicates a change of the column.
+     * @return The flag of the field stored in the column; 0 for the Id, which cannot change.
+     */
+    public int getDirtyField() { return dirtyField; }
+
+    /**
+     * Checks if the column has to be written because the field stored in it has been changed.
+     * @param task Task of which the changed fields should be checked.
+     * @return True, if the field stored in the column has been changed; otherwise false.
+     */
+    public boolean isDirty(Task task) { return (task.getDirtyFields() & dirtyField) != 0; }
+
+    /**
+     * Gets the value of the column from the task.
+     * @param task Task from which the value should be read.
+     * @return The value of the column in the task.
+     */
+    public abstract Object get(Task task);
+
+    /**
+     * Copies the value of the column from one task to another.
+     * @param source Task from which the value should be read.
+     * @param target Task to which the value should be written.
+     */
+    public abstract void copy(Task source, Task target);
+}
@@ -0,0 +1,129 @@
+package com.tasky.android.storage;
+
+import com.tasky.android.entities.Task;
+import com.tasky.android.storage.queries.ValueQueryFilter;
+
+import org.joda.time.DateTime;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Sorted index of tasks by a date column, used by the InMemoryTaskyDataProvider
+ * to find the tasks matching a comparison without scanning all tasks.
+ */
+final class TaskDateIndex {
+    private final TaskColumnAccessor accessor;
+    private final NavigableMap<Long, Set<Long>> idsByDate = new TreeMap();
+    private final Set<Long> idsWithoutDate = new HashSet();
+
+    /**
+     * Creates a TaskDateIndex.
+     * @param accessor Accessor of the date column that should be indexed.
+     */
+    TaskDateIndex(TaskColumnAccessor accessor) {
+        this.accessor = accessor;
+    }
+
+    /**
+     * Gets the accessor of the indexed date column.
+     * @return The accessor of the indexed date column.
+     */
+    TaskColumnAccessor getAccessor() { return accessor; }
+
+    /**
+     * Adds the task to the index.
+     * @param task Task that should be added.
+     */
+    void add(Task task) {
+        DateTime date = (DateTime)accessor.get(task);
+        if (date == null) {
+            idsWithoutDate.add(task.getId());
+            return;
+        }
+
+        Set<Long> ids = idsByDate.get(date.getMillis());
+        if (ids == null) {
+            ids = new HashSet();
+            idsByDate.put(date.getMillis(), ids);
+        }
+
+        ids.add(task.getId());
+    }
+
+    /**
+     * Removes the task from the index.
+     * @param task Task with the values that have been added to the index.
+     */
+    void remove(Task task) {
+        DateTime date = (DateTime)accessor.get(task);
+        if (date == null) {
+            idsWithoutDate.remove(task.getId());
+            return;
+        }
+
+        Set<Long> ids = idsByDate.get(date.getMillis());
+        if (ids != null && ids.remove(task.getId()) && ids.isEmpty()) {
+            idsByDate.remove(date.getMillis());
+        }
+    }
+
+    /**
+     * Adds the Ids of the tasks matching the comparison to the specified collection.
+     * @param type Type of the comparison.
+     * @param expected Value that is used for the comparison.
+     * @param target Collection to which the matching Ids should be added.
+     * @return True, if the comparison could be answered by the index; otherwise false.
+     */
+    boolean collect(ValueQueryFilter.Type type, Object expected, Collection<Long> target) {
+        if (type == ValueQueryFilter.Type.IsNull) {
+            target.addAll(idsWithoutDate);
+            return true;
+        }
+
+        if (!(expected instanceof DateTime)) return false;
+        long millis = ((DateTime)expected).getMillis();
+
+        Map<Long, Set<Long>> matches;
+        switch (type) {
+            case Equals: matches = idsByDate.subMap(millis, true, millis, true); break;
+            case SmallerThan: matches = idsByDate.headMap(millis, false); break;
+            case GreaterThan: matches = idsByDate.tailMap(millis, false); break;
+            case SmallerOrEqual: matches = idsByDate.headMap(millis, true); break;
+            case GreaterOrEqual: matches = idsByDate.tailMap(millis, true); break;
+            default: return false;
+        }
+
+        addAll(matches, target);
+        return true;
+    }
+
+    /**
+     * Adds the Ids of the tasks with dates within the range, including its bounds, to the specified collection.
+     * @param lower Smallest date of the range.
+     * @param upper Greatest date of the range.
+     * @param target Collection to which the matching Ids should be added.
+     * @return True, if the range could be answered by the index; otherwise false.
+     */
+    boolean collectBetween(Object lower, Object upper, Collection<Long> target) {
+        if (!(lower instanceof DateTime) || !(upper instanceof DateTime)) return false;
+
+        long lowerMillis = ((DateTime)lower).getMillis();
+        long upperMillis = ((DateTime)upper).getMillis();
+        if (lowerMillis <= upperMillis) {
+            addAll(idsByDate.subMap(lowerMillis, true, upperMillis, true), target);
+        }
+
+        return true;
+    }
+
+    private static void addAll(Map<Long, Set<Long>> matches, Collection<Long> target) {
+        for (Set<Long> ids : matches.values()) {
+            target.addAll(ids);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.tasky.android.storage;
+
+import com.tasky.android.utilities.ParameterCheck;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Describes which columns should be read for the tasks of a query. Fields of columns
+ * that are not part of the projection are left empty on the tasks read by Sqlite queries,
+ * so tasks read with a partial projection must not be written back to the storage.
+ */
+public final class TaskProjection {
+    private static final String[] KNOWN_COLUMNS = new String[] {
+        TaskyContract.Task._ID,
+        TaskyContract.Task.COLUMN_NAME_TITLE,
+        TaskyContract.Task.COLUMN_NAME_CREATED_ON,
+        TaskyContract.Task.COLUMN_NAME_DONE_ON,
+        TaskyContract.Task.COLUMN_NAME_PRIORITY,
+        TaskyContract.Task.COLUMN_NAME_POSTPONED_UNTIL,
+        TaskyContract.Task.COLUMN_NAME_CREATED_FROM_RECURRING_TASK_ID,
+        TaskyContract.Task.COLUMN_NAME_DUE_DATE
+    };
+
+    /**
+     * Projection that reads all columns of the tasks.
+     */
+    public static final TaskProjection ALL = new TaskProjection(KNOWN_COLUMNS);
+
+    private final String[] columns;
+
+    private TaskProjection(String[] columns) {
+        this.columns = columns;
+    }
+
+    /**
+     * Creates a projection that reads the specified columns. The Id is always read.
+     * @param columns Columns of the Task table that should be read.
+     * @return A projection reading the specified columns.
+     */
+    public static TaskProjection of(String... columns) {
+        ParameterCheck.notNull(columns, "columns");
+
+        List<String> result = new ArrayList();
+        result.add(TaskyContract.Task._ID);
+        for (String column : columns) {
+            ParameterCheck.notNull(column, "column");
+            if (!Arrays.asList(KNOWN_COLUMNS).contains(column)) {
+                throw new IllegalArgumentException(column + " is not a column of the Task table.");
+            }
+            if (!result.contains(column)) result.add(column);
+        }
+
+        return new TaskProjection(result.toArray(new String[result.size()]));
+    }
+
+    /**
+     * Gets the columns that should be read in an Sqlite query.
+     * @return An array with the columns to read, always starting with the Id.
+     */
+    public String[] getSqliteColumns() {
+        return columns.clone();
+    }
+
+    /**
+     * Indicates if the specified column is read by this projection.
+     * @param column Column of the Task table.
+     * @return True, if the column is read by this projection; otherwise false.
+     */
+    public boolean contains(String column) {
+        return Arrays.asList(columns).contains(column);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof TaskProjection && Arrays.equals(columns, ((TaskProjection)other).columns);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(columns);
+    }
+}
@@ -0,0 +1,202 @@
+package com.tasky.android.storage;
+
+import com.tasky.android.entities.Task;
+import com.tasky.android.storage.queries.EmptyQueryFilter;
+import com.tasky.android.storage.queries.QueryFilter;
+import com.tasky.android.storage.queries.QueryFilterBase;
+import com.tasky.android.storage.queries.ValueQueryFilter;
+import com.tasky.android.utilities.ParameterCheck;
+
+/**
+ * Describes which tasks should be read from the storage, in which order and how many of them.
+ * Pages are requested by keyset: the next page starts after the last task of the previous one,
+ * identified by its values of the sort keys and its Id, so that reading a page does not
+ * depend on the number of tasks that come before it.
+ */
+public final class TaskQuery {
+    private final QueryFilter filter;
+    private TaskSortOrder sortOrder = TaskSortOrder.ID;
+    private int limit;
+    private Task afterTask;
+    private TaskProjection projection = TaskProjection.ALL;
+    private boolean includingArchived;
+
+    /**
+     * Creates a TaskQuery for all columns of all tasks matching the filter, ordered by their Ids.
+     * @param filter Filter that should be applied to exclude elements from the result.
+     */
+    public TaskQuery(QueryFilter filter) {
+        ParameterCheck.notNull(filter, "filter");
+        this.filter = filter;
+    }
+
+    /**
+     * Creates a copy of this query that is ordered by the specified sort order.
+     * @param sortOrder Order in which the tasks should be read; the sort keys must not
+     *                  have null values if the query is used for paging.
+     * @return A TaskQuery with the specified order.
+     */
+    public TaskQuery orderBy(TaskSortOrder sortOrder) {
+        ParameterCheck.notNull(sortOrder, "sortOrder");
+
+        TaskQuery result = copy();
+        result.sortOrder = sortOrder;
+        result.afterTask = null;
+        return result;
+    }
+
+    /**
+     * Creates a copy of this query that reads at most the specified number of tasks.
+     * @param limit Maximum number of tasks to read; 0 to read all tasks.
+     * @return A TaskQuery with the specified limit.
+     */
+    public TaskQuery withLimit(int limit) {
+        if (limit < 0) throw new IllegalArgumentException("limit cannot be negative.");
+
+        TaskQuery result = copy();
+        result.limit = limit;
+        return result;
+    }
+
+    /**
+     * Creates a copy of this query that only reads the columns of the specified projection.
+     * @param projection Projection with the columns that should be read.
+     * @return A TaskQuery with the specified projection.
+     */
+    public TaskQuery withProjection(TaskProjection projection) {
+        ParameterCheck.notNull(projection, "projection");
+
+        TaskQuery result = copy();
+        result.projection = projection;
+        return result;
+    }
+
+    /**
+     * Creates a copy of this query that also reads the tasks that have been archived.
+     * @return A TaskQuery including archived tasks.
+     */
+    public TaskQuery includingArchived() {
+        TaskQuery result = copy();
+        result.includingArchived = true;
+        return result;
+    }
+
+    /**
+     * Creates a copy of this query that starts after the specified task, to read the next page.
+     * @param lastTask Last task of the previous page; must not be changed while the query is used.
+     * @return A TaskQuery that reads the tasks following the specified task.
+     */
+    public TaskQuery after(Task lastTask) {
+        ParameterCheck.notNull(lastTask, "lastTask");
+
+        for (int i = 0; i < sortOrder.getKeyCount(); i++) {
+            if (sortOrder.getKey(i).getSqliteValue(lastTask) == null) {
+                throw new IllegalArgumentException("Cannot page by sort key " + sortOrder.getKey(i) + " with null values.");
+            }
+        }
+
+        TaskQuery result = copy();
+        result.afterTask = lastTask;
+        return result;
+    }
+
+    /**
+     * Gets the filter that the tasks have to match.
+     * @return The filter that the tasks have to match.
+     */
+    public QueryFilter getFilter() { return filter; }
+
+    /**
+     * Gets the order in which the tasks are read.
+     * @return The order in which the tasks are read.
+     */
+    public TaskSortOrder getSortOrder() { return sortOrder; }
+
+    /**
+     * Gets the maximum number of tasks to read.
+     * @return The maximum number of tasks to read; 0 if all tasks should be read.
+     */
+    public int getLimit() { return limit; }
+
+    /**
+     * Gets the projection with the columns that should be read.
+     * @return The projection with the columns that should be read.
+     */
+    public TaskProjection getProjection() { return projection; }
+
+    /**
+     * Indicates if the tasks that have been archived are read as well.
+     * @return True, if archived tasks are read as well; otherwise false.
+     */
+    public boolean isIncludingArchived() { return includingArchived; }
+
+    /**
+     * Builds the filter that has to be matched in Sqlite by the tasks of the requested page,
+     * combining the filter of the query with the condition to start after the previous page.
+     * @return The filter for the tasks of the requested page.
+     */
+    public QueryFilter buildSqlitePageFilter() {
+        if (afterTask == null) return filter;
+
+        // The task either has the same values for the first keys and comes after
+        // the last task by the next key, or it has equal values for all keys and a greater Id.
+        QueryFilterBase keysetFilter = null;
+        QueryFilterBase equalKeys = null;
+        for (int i = 0; i < sortOrder.getKeyCount(); i++) {
+            TaskSortKey key = sortOrder.getKey(i);
+            Object value = key.getSqliteValue(afterTask);
+
+            QueryFilterBase following = and(equalKeys, new ValueQueryFilter(key.getSqliteColumn(),
+                sortOrder.isDescending(i) ? ValueQueryFilter.Type.SmallerThan : ValueQueryFilter.Type.GreaterThan, value));
+            keysetFilter = keysetFilter == null ? following : keysetFilter.Or(following);
+            equalKeys = and(equalKeys, new ValueQueryFilter(key.getSqliteColumn(), ValueQueryFilter.Type.Equals, value));
+        }
+
+        if (!sortOrder.endsWithId()) {
+            keysetFilter = keysetFilter.Or(and(equalKeys,
+                new ValueQueryFilter(TaskyContract.Task._ID, ValueQueryFilter.Type.GreaterThan, afterTask.getId())));
+        }
+
+        return filter instanceof EmptyQueryFilter ? keysetFilter : keysetFilter.And(filter);
+    }
+
+    /**
+     * Checks in memory if the specified task comes after the previous page.
+     * Used together with the filter by providers that do not evaluate the Sqlite page filter.
+     * @param task Task that should be checked.
+     * @return True, if the task comes after the previous page or the first page is requested; otherwise false.
+     */
+    public boolean isAfterPreviousPage(Task task) {
+        return afterTask == null || sortOrder.getComparator().compare(task, afterTask) > 0;
+    }
+
+    /**
+     * Builds the order clause that can be used in an Sqlite query.
+     * @return A String with the order clause.
+     */
+    public String buildSqliteOrderClause() {
+        return sortOrder.buildSqliteOrderClause();
+    }
+
+    /**
+     * Builds the limit clause that can be used in an Sqlite query.
+     * @return A String with the limit clause; or null if all tasks should be read.
+     */
+    public String buildSqliteLimitClause() {
+        return limit > 0 ? String.valueOf(limit) : null;
+    }
+
+    private TaskQuery copy() {
+        TaskQuery result = new TaskQuery(filter);
+        result.sortOrder = sortOrder;
+        result.limit = limit;
+        result.afterTask = afterTask;
+        result.projection = projection;
+        result.includingArchived = includingArchived;
+        return result;
+    }
+
+    private static QueryFilterBase and(QueryFilterBase first, QueryFilterBase second) {
+        return first == null ? second : first.And(second);
+    }
+}
@@ -0,0 +1,69 @@
+package com.tasky.android.storage;
+
+import android.database.Cursor;
+
+import com.tasky.android.entities.Task;
+import com.tasky.android.utilities.ParameterCheck;
+
+import java.util.Arrays;
+
+/**
+ * Reads tasks from the rows of a cursor by fixed column ordinals. The ordinals are resolved
+ * once from the projection of the query, so no column lookup is needed per row.
+ */
+public final class TaskRowMapper {
+    private static final int ABSENT = -1;
+
+    private final int idIndex;
+    private final int titleIndex;
+    private final int createdOnIndex;
+    private final int doneOnIndex;
+    private final int priorityIndex;
+    private final int postponedUntilIndex;
+    private final int createdFromRecurringTaskIdIndex;
+    private final int dueDateIndex;
+
+    /**
+     * Creates a TaskRowMapper for cursors of queries with the specified projection.
+     * @param projection Projection of the queries; its columns are read in the order of the projection.
+     */
+    public TaskRowMapper(TaskProjection projection) {
+        ParameterCheck.notNull(projection, "projection");
+
+        String[] columns = projection.getSqliteColumns();
+        idIndex = indexOf(columns, TaskyContract.Task._ID);
+        titleIndex = indexOf(columns, TaskyContract.Task.COLUMN_NAME_TITLE);
+        createdOnIndex = indexOf(columns, TaskyContract.Task.COLUMN_NAME_CREATED_ON);
+        doneOnIndex = indexOf(columns, TaskyContract.Task.COLUMN_NAME_DONE_ON);
+        priorityIndex = indexOf(columns, TaskyContract.Task.COLUMN_NAME_PRIORITY);
+        postponedUntilIndex = indexOf(columns, TaskyContract.Task.COLUMN_NAME_POSTPONED_UNTIL);
+        createdFromRecurringTaskIdIndex = indexOf(columns, TaskyContract.Task.COLUMN_NAME_CREATED_FROM_RECURRING_TASK_ID);
+        dueDateIndex = indexOf(columns, TaskyContract.Task.COLUMN_NAME_DUE_DATE);
+    }
+
+    /**
+     * Fills the task with the values of the current row of the cursor.
+     * Fields of columns that are not part of the projection are left untouched.
+     * Afterwards, no field of the task is marked as changed.
+     * @param cursor Cursor positioned on the row to read.
+     * @param task Task that should be filled.
+     * @return The filled task.
+     */
+    public Task read(Cursor cursor, Task task) {
+        task.setId(cursor.getLong(idIndex));
+        if (titleIndex != ABSENT) task.setTitle(cursor.getString(titleIndex));
+        if (createdOnIndex != ABSENT) task.setCreatedOn(SqliteTools.getDateTime(cursor, createdOnIndex));
+        if (doneOnIndex != ABSENT) task.setDoneOn(SqliteTools.getDateTime(cursor, doneOnIndex));
+        if (priorityIndex != ABSENT) task.setPriority(EnumMapper.TASK_PRIORITY.getValue(cursor.getInt(priorityIndex)));
+        if (postponedUntilIndex != ABSENT) task.setPostponedUntil(SqliteTools.getDateTime(cursor, postponedUntilIndex));
+        if (createdFromRecurringTaskIdIndex != ABSENT) task.setCreatedFromRecurringTaskId(SqliteTools.getNullableInt(cursor, createdFromRecurringTaskIdIndex));
+        if (dueDateIndex != ABSENT) task.setDueDate(SqliteTools.getDateTime(cursor, dueDateIndex));
+        // The task now matches the stored row.
+        task.clearDirtyFields();
+        return task;
+    }
+
+    private static int indexOf(String[] columns, String column) {
+        return Arrays.asList(columns).indexOf(column);
+    }
+}
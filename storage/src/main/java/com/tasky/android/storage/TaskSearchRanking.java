@@ -0,0 +1,93 @@
+package com.tasky.android.storage;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Collects the tasks matching a full-text search with their relevance
+ * and keeps only the most relevant ones up to a limit.
+ */
+final class TaskSearchRanking {
+    /**
+     * Orders the results from the least to the most relevant; results
+     * with the same relevance are ordered from the newest to the oldest.
+     */
+    private static final Comparator<Result> RELEVANCE_ORDER = new Comparator<Result>() {
+        @Override
+        public int compare(Result first, Result second) {
+            int result = Double.compare(first.score, second.score);
+            return result != 0 ? result : (first.id < second.id ? 1 : (first.id == second.id ? 0 : -1));
+        }
+    };
+
+    private final int limit;
+    private final PriorityQueue<Result> results;
+
+    /**
+     * Creates a TaskSearchRanking.
+     * @param limit Maximum number of results to keep.
+     */
+    TaskSearchRanking(int limit) {
+        if (limit <= 0) throw new IllegalArgumentException("limit must be positive.");
+
+        this.limit = limit;
+        this.results = new PriorityQueue(Math.min(limit, 64) + 1, RELEVANCE_ORDER);
+    }
+
+    /**
+     * Adds a matching task to the ranking.
+     * @param id Id of the matching task.
+     * @param score Relevance of the task as calculated by score.
+     */
+    void add(long id, double score) {
+        results.add(new Result(id, score));
+        if (results.size() > limit) results.poll();
+    }
+
+    /**
+     * Gets the Ids of the most relevant tasks.
+     * @return A list with the Ids of the most relevant tasks, starting with the most relevant.
+     */
+    List<Long> getRankedIds() {
+        List<Result> ranked = new ArrayList(results);
+        Collections.sort(ranked, Collections.reverseOrder(RELEVANCE_ORDER));
+
+        List<Long> ids = new ArrayList(ranked.size());
+        for (Result result : ranked) {
+            ids.add(result.id);
+        }
+
+        return ids;
+    }
+
+    /**
+     * Calculates the relevance of a task for a search: each term contributes the more
+     * the more often it occurs in the title and the fewer tasks contain it at all.
+     * @param hitCounts Number of occurrences of each term in the title of the task.
+     * @param documentCounts Number of tasks containing each term.
+     * @param taskCount Number of all indexed tasks.
+     * @return The relevance of the task; greater values are more relevant.
+     */
+    static double score(int[] hitCounts, int[] documentCounts, long taskCount) {
+        double score = 0;
+        for (int i = 0; i < hitCounts.length; i++) {
+            double inverseDocumentFrequency = Math.log(1 + (double)taskCount / Math.max(1, documentCounts[i]));
+            score += inverseDocumentFrequency * hitCounts[i] / (hitCounts[i] + 1.0);
+        }
+
+        return score;
+    }
+
+    private static final class Result {
+        final long id;
+        final double score;
+
+        Result(long id, double score) {
+            this.id = id;
+            this.score = score;
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.tasky.android.storage;
+
+import com.tasky.android.entities.Task;
+
+import org.joda.time.DateTime;
+
+/**
+ * Values of tasks by which they can be sorted, both in Sqlite and in memory.
+ */
+public enum TaskSortKey {
+    /**
+     * Sorts by the Id of the tasks.
+     */
+    Id(TaskyContract.Task._ID) {
+        @Override
+        public Object getSqliteValue(Task task) { return task.getId(); }
+
+        @Override
+        public int compare(Task first, Task second) { return compareLongs(first.getId(), second.getId()); }
+    },
+
+    /**
+     * Sorts by the priority of the tasks, most important first.
+     * Uses the stored sort index, as the stored priority codes do not reflect the order.
+     */
+    Priority(TaskyContract.Task.COLUMN_NAME_PRIORITY_SORT_INDEX) {
+        @Override
+        public Object getSqliteValue(Task task) {
+            return task.getPriority() == null ? null : task.getPriority().getSortIndex();
+        }
+
+        @Override
+        public int compare(Task first, Task second) {
+            return compareLongs(getSortIndex(first), getSortIndex(second));
+        }
+
+        private int getSortIndex(Task task) {
+            return task.getPriority() == null ? Integer.MAX_VALUE : task.getPriority().getSortIndex();
+        }
+    },
+
+    /**
+     * Sorts by the date on which the tasks are due; tasks without due date first.
+     */
+    DueDate(TaskyContract.Task.COLUMN_NAME_DUE_DATE) {
+        @Override
+        public Object getSqliteValue(Task task) { return SqliteTools.convertDateTime(task.getDueDate()); }
+
+        @Override
+        public int compare(Task first, Task second) { return compareDates(first.getDueDate(), second.getDueDate()); }
+    },
+
+    /**
+     * Sorts by the date on which the tasks have been created.
+     */
+    CreatedOn(TaskyContract.Task.COLUMN_NAME_CREATED_ON) {
+        @Override
+        public Object getSqliteValue(Task task) { return SqliteTools.convertDateTime(task.getCreatedOn()); }
+
+        @Override
+        public int compare(Task first, Task second) { return compareDates(first.getCreatedOn(), second.getCreatedOn()); }
+    },
+
+    /**
+     * Sorts by the date until which the tasks have been postponed; tasks not postponed first.
+     */
+    PostponedUntil(TaskyContract.Task.COLUMN_NAME_POSTPONED_UNTIL) {
+        @Override
+        public Object getSqliteValue(Task task) { return SqliteTools.convertDateTime(task.getPostponedUntil()); }
+
+        @Override
+        public int compare(Task first, Task second) { return compareDates(first.getPostponedUntil(), second.getPostponedUntil()); }
+    },
+
+    /**
+     * Sorts by the date on which the tasks have been done; tasks not done first.
+     */
+    DoneOn(TaskyContract.Task.COLUMN_NAME_DONE_ON) {
+        @Override
+        public Object getSqliteValue(Task task) { return SqliteTools.convertDateTime(task.getDoneOn()); }
+
+        @Override
+        public int compare(Task first, Task second) { return compareDates(first.getDoneOn(), second.getDoneOn()); }
+    };
+
+    private final String sqliteColumn;
+    TaskSortKey(String sqliteColumn) {
+        this.sqliteColumn = sqliteColumn;
+    }
+
+    /**
+     * Gets the column that holds the values of this key in Sqlite.
+     * @return The name of the column that holds the values of this key.
+     */
+    public String getSqliteColumn() { return sqliteColumn; }
+
+    /**
+     * Gets the value of this key for the specified task as it is stored in Sqlite.
+     * @param task Task from which to get the value.
+     * @return The value of this key as stored in Sqlite; or null if the task has no value.
+     */
+    public abstract Object getSqliteValue(Task task);
+
+    /**
+     * Compares two tasks by the value of this key in ascending order,
+     * ordering null values first like Sqlite does.
+     * @param first First task to compare.
+     * @param second Second task to compare.
+     * @return A negative number, zero or a positive number if the first task is sorted
+     * before, equal to or after the second task.
+     */
+    public abstract int compare(Task first, Task second);
+
+    private static int compareLongs(long first, long second) {
+        return first < second ? -1 : (first == second ? 0 : 1);
+    }
+
+    private static int compareDates(DateTime first, DateTime second) {
+        if (first == null) return second == null ? 0 : -1;
+        if (second == null) return 1;
+        return compareLongs(first.getMillis(), second.getMillis());
+    }
+}
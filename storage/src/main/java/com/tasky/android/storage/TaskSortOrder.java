@@ -0,0 +1,115 @@
+package com.tasky.android.storage;
+
+import com.tasky.android.entities.Task;
+import com.tasky.android.utilities.ParameterCheck;
+
+import java.util.Comparator;
+
+/**
+ * Specifies the order of tasks by one or more keys. Tasks with equal
+ * values for all keys are ordered by their Ids, so that the order is stable.
+ */
+public final class TaskSortOrder {
+    /**
+     * Order of tasks by their Ids.
+     */
+    public static final TaskSortOrder ID = by(TaskSortKey.Id, false);
+
+    private final TaskSortKey[] keys;
+    private final boolean[] descending;
+
+    private TaskSortOrder(TaskSortKey[] keys, boolean[] descending) {
+        this.keys = keys;
+        this.descending = descending;
+    }
+
+    /**
+     * Creates a sort order by the specified key.
+     * @param key Key by which the tasks should be sorted.
+     * @param descending True, if the tasks should be sorted in descending order; otherwise false.
+     * @return A TaskSortOrder by the specified key.
+     */
+    public static TaskSortOrder by(TaskSortKey key, boolean descending) {
+        ParameterCheck.notNull(key, "key");
+        return new TaskSortOrder(new TaskSortKey[] { key }, new boolean[] { descending });
+    }
+
+    /**
+     * Creates a copy of this sort order that sorts tasks with equal values by another key.
+     * @param key Key by which tasks with equal values should be sorted.
+     * @param descending True, if the tasks should be sorted in descending order; otherwise false.
+     * @return A TaskSortOrder with the additional key.
+     */
+    public TaskSortOrder thenBy(TaskSortKey key, boolean descending) {
+        ParameterCheck.notNull(key, "key");
+
+        TaskSortKey[] newKeys = new TaskSortKey[keys.length + 1];
+        boolean[] newDescending = new boolean[keys.length + 1];
+        System.arraycopy(keys, 0, newKeys, 0, keys.length);
+        System.arraycopy(this.descending, 0, newDescending, 0, keys.length);
+        newKeys[keys.length] = key;
+        newDescending[keys.length] = descending;
+        return new TaskSortOrder(newKeys, newDescending);
+    }
+
+    /**
+     * Gets the number of keys of this sort order.
+     * @return The number of keys.
+     */
+    public int getKeyCount() { return keys.length; }
+
+    /**
+     * Gets a key of this sort order.
+     * @param index Index of the key.
+     * @return The key at the specified index.
+     */
+    public TaskSortKey getKey(int index) { return keys[index]; }
+
+    /**
+     * Indicates if a key of this sort order is sorted in descending order.
+     * @param index Index of the key.
+     * @return True, if the key is sorted in descending order; otherwise false.
+     */
+    public boolean isDescending(int index) { return descending[index]; }
+
+    /**
+     * Builds the order clause that can be used in an Sqlite query.
+     * @return A String with the order clause.
+     */
+    public String buildSqliteOrderClause() {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < keys.length; i++) {
+            if (i > 0) builder.append(',');
+            builder.append(keys[i].getSqliteColumn()).append(descending[i] ? " DESC" : " ASC");
+        }
+
+        if (!endsWithId()) builder.append(',').append(TaskyContract.Task._ID).append(" ASC");
+        return builder.toString();
+    }
+
+    /**
+     * Gets a comparator that orders tasks in memory in the same way as the Sqlite order clause.
+     * @return A comparator that orders tasks as specified by this sort order.
+     */
+    public Comparator<Task> getComparator() {
+        return new Comparator<Task>() {
+            @Override
+            public int compare(Task first, Task second) {
+                for (int i = 0; i < keys.length; i++) {
+                    int result = keys[i].compare(first, second);
+                    if (result != 0) return descending[i] ? -result : result;
+                }
+
+                return TaskSortKey.Id.compare(first, second);
+            }
+        };
+    }
+
+    /**
+     * Indicates if the Id is the last key, in which case no further key is needed to make the order stable.
+     * @return True, if the Id is the last key; otherwise false.
+     */
+    boolean endsWithId() {
+        return keys[keys.length - 1] == TaskSortKey.Id;
+    }
+}
@@ -0,0 +1,91 @@
+package com.tasky.android.storage;
+
+import com.tasky.android.entities.Task;
+import com.tasky.android.entities.TaskPriority;
+import com.tasky.android.utilities.ParameterCheck;
+
+import org.joda.time.DateTime;
+
+/**
+ * Describes new values for some columns of tasks, so that tasks can be changed
+ * without reading them first. Only the columns for which a value has been set are written.
+ */
+public final class TaskUpdate {
+    private final Task values = new Task();
+
+    /**
+     * Sets the title that the tasks should have.
+     * @param title The title that should be set.
+     * @return This TaskUpdate.
+     */
+    public TaskUpdate setTitle(String title) {
+        values.setTitle(title);
+        return this;
+    }
+
+    /**
+     * Sets the date and time when the tasks have been done.
+     * @param doneOn The date and time when the tasks have been done; or null if they are not done.
+     * @return This TaskUpdate.
+     */
+    public TaskUpdate setDoneOn(DateTime doneOn) {
+        values.setDoneOn(doneOn);
+        return this;
+    }
+
+    /**
+     * Sets the priority that the tasks should have.
+     * @param priority The priority that the tasks should have.
+     * @return This TaskUpdate.
+     */
+    public TaskUpdate setPriority(TaskPriority priority) {
+        ParameterCheck.notNull(priority, "priority");
+
+        values.setPriority(priority);
+        return this;
+    }
+
+    /**
+     * Sets the date until which the tasks should be postponed.
+     * @param postponedUntil The date until which the tasks should be postponed; or null if they should not be postponed.
+     * @return This TaskUpdate.
+     */
+    public TaskUpdate setPostponedUntil(DateTime postponedUntil) {
+        values.setPostponedUntil(postponedUntil);
+        return this;
+    }
+
+    /**
+     * Sets the date on which the tasks should be due.
+     * @param dueDate The date on which the tasks should be due; or null if they should be immediately due.
+     * @return This TaskUpdate.
+     */
+    public TaskUpdate setDueDate(DateTime dueDate) {
+        values.setDueDate(dueDate);
+        return this;
+    }
+
+    /**
+     * Indicates if no value has been set, so that the update would not change anything.
+     * @return True, if no value has been set; otherwise false.
+     */
+    public boolean isEmpty() { return !values.isDirty(); }
+
+    /**
+     * Writes the values that have been set into the task, leaving the other fields untouched.
+     * @param task Task that should be changed.
+     */
+    public void applyTo(Task task) {
+        ParameterCheck.notNull(task, "task");
+
+        for (TaskColumnAccessor column : TaskColumnAccessor.values()) {
+            if (column.isDirty(values)) column.copy(values, task);
+        }
+    }
+
+    /**
+     * Gets a task holding the values that have been set, marked as changed fields.
+     * @return A task with the values of the update; must not be changed.
+     */
+    Task getValues() { return values; }
+}
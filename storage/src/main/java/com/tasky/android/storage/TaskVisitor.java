@@ -0,0 +1,16 @@
+package com.tasky.android.storage;
+
+import com.tasky.android.entities.Task;
+
+/**
+ * Receives the tasks of a query one by one while they are read from the storage.
+ */
+public interface TaskVisitor {
+    /**
+     * Handles a single task of the query result.
+     * @param task Task read from the storage. If the query reuses a single instance, the task
+     *             will be overwritten by the next one and must not be kept after returning.
+     * @return True, if the next task should be visited; false to stop reading the result.
+     */
+    boolean visit(Task task);
+}
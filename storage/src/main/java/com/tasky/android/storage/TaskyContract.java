@@ -22,6 +22,30 @@ public final class TaskyContract {
         public static final String COLUMN_NAME_POSTPONED_UNTIL = "postponedUntil";
         public static final String COLUMN_NAME_CREATED_FROM_RECURRING_TASK_ID = "createdFromRecurringTaskId";
         public static final String COLUMN_NAME_DUE_DATE = "dueDate";
+        public static final String COLUMN_NAME_PRIORITY_SORT_INDEX = "prioritySortIndex";
+    }
+
+    /**
+     * Contract of the archive of tasks that have been done long ago.
+     * The archive has the same columns as the Task table.
+     */
+    public static class TaskArchive {
+        public static final String TABLE_NAME = "taskArchive";
+
+        /**
+         * Name of the view combining the tasks of the Task table and the archive.
+         */
+        public static final String VIEW_NAME_ALL_TASKS = "taskWithArchive";
+    }
+
+    /**
+     * Contract of the full-text index over the titles of tasks.
+     * The docid of each entry is the Id of the indexed task.
+     */
+    public static class TaskSearch {
+        public static final String TABLE_NAME = "taskSearch";
+        public static final String COLUMN_NAME_DOCID = "docid";
+        public static final String COLUMN_NAME_TITLE = "title";
     }
 
     /**
@@ -34,5 +58,7 @@ public final class TaskyContract {
         public static final String COLUMN_NAME_END_DATE = "endDate";
         public static final String COLUMN_NAME_INTERVAL = "interval";
         public static final String COLUMN_NAME_INTERVAL_UNIT = "intervalUnit";
+        public static final String COLUMN_NAME_NEXT_OCCURRENCE = "nextOccurrence";
+        public static final String COLUMN_NAME_NEXT_OCCURRENCE_DATE = "nextOccurrenceDate";
     }
 }
\ No newline at end of file
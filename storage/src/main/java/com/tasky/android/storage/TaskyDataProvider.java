@@ -1,8 +1,12 @@
 package com.tasky.android.storage;
 
+import com.tasky.android.entities.RecurringTask;
 import com.tasky.android.entities.Task;
 import com.tasky.android.storage.queries.QueryFilter;
 
+import org.joda.time.DateTime;
+
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -12,10 +16,25 @@ public interface TaskyDataProvider {
     /**
      * Inserts a new task into the storage. On insertion, a new Id
      * will be generated and assigned to the Id property of the task.
+     * The new Id is higher than the Ids of all stored tasks, including the archived ones.
      * @param task Task that should be inserted into the storage.
      */
     void insertTask(Task task);
 
+    /**
+     * Inserts new tasks into the storage within a single transaction. On insertion, new Ids
+     * will be generated and assigned to the Id properties of the tasks.
+     * @param tasks Tasks that should be inserted into the storage.
+     */
+    void insertTasks(Collection<Task> tasks);
+
+    /**
+     * Gets the stored task with the specified Id.
+     * @param id Id of the task that should be read.
+     * @return The task with the specified Id; or null if there is no such task.
+     */
+    Task getTask(long id);
+
     /**
      * Queries the stored task filtered by the specified conditions.
      * @param filter Filter that should be applied to exclude elements from the result.
@@ -23,9 +42,159 @@ public interface TaskyDataProvider {
      */
     List<Task> queryTasks(QueryFilter filter);
 
+    /**
+     * Queries the stored tasks as described by the specified query.
+     * @param query Query describing the filter, order and page of the tasks to read.
+     * @return A list of the tasks from the storage that are described by the query.
+     */
+    List<Task> queryTasks(TaskQuery query);
+
+    /**
+     * Queries the stored tasks filtered by the specified conditions and passes them to the visitor
+     * one by one as they are read, without keeping the whole result in memory.
+     * @param filter Filter that should be applied to exclude elements from the result.
+     * @param reuseInstance True, if a single Task instance should be filled with each row;
+     *                      false, if a new instance should be created for each row.
+     * @param visitor Visitor that receives the tasks matching the filter.
+     */
+    void visitTasks(QueryFilter filter, boolean reuseInstance, TaskVisitor visitor);
+
+    /**
+     * Queries the stored tasks as described by the specified query and passes them to the visitor
+     * one by one as they are read, without keeping the whole result in memory.
+     * @param query Query describing the filter, order and page of the tasks to read.
+     * @param reuseInstance True, if a single Task instance should be filled with each row;
+     *                      false, if a new instance should be created for each row.
+     * @param visitor Visitor that receives the tasks described by the query.
+     */
+    void visitTasks(TaskQuery query, boolean reuseInstance, TaskVisitor visitor);
+
+    /**
+     * Counts the stored tasks matching the specified conditions without reading them.
+     * @param filter Filter that should be applied to exclude elements from the count.
+     * @return The number of tasks from the storage that match the filter.
+     */
+    long countTasks(QueryFilter filter);
+
+    /**
+     * Checks if any stored task matches the specified conditions without reading it.
+     * @param filter Filter that should be applied to exclude elements.
+     * @return True, if at least one task from the storage matches the filter; otherwise false.
+     */
+    boolean anyTasks(QueryFilter filter);
+
+    /**
+     * Searches the stored tasks with titles containing all words of the search text,
+     * using words of the search text as prefixes. The tasks are ordered by their relevance:
+     * tasks with more occurrences of rare words come first.
+     * @param searchText Text with the words that the titles of the tasks should contain.
+     * @param filter Filter that should be applied to exclude elements from the result.
+     * @param limit Maximum number of tasks to read.
+     * @return A list of the most relevant matching tasks, starting with the most relevant.
+     */
+    List<Task> searchTasks(String searchText, QueryFilter filter, int limit);
+
     /**
      * Updates the task in the storage to match the current state of the specified entity.
      * @param task Task with the state that should be stored; will be identified by the Id.
      */
     void updateTask(Task task);
-}
\ No newline at end of file
+
+    /**
+     * Updates the tasks in the storage within a single transaction
+     * to match the current state of the specified entities.
+     * @param tasks Tasks with the state that should be stored; will be identified by their Ids.
+     */
+    void updateTasks(Collection<Task> tasks);
+
+    /**
+     * Updates the columns described by the update for the task with the specified Id,
+     * without reading the task first.
+     * @param id Id of the task that should be updated.
+     * @param update Update describing the new values of the columns.
+     * @return The number of updated tasks; 0 if there is no task with the Id.
+     */
+    int updateTaskColumns(long id, TaskUpdate update);
+
+    /**
+     * Updates the columns described by the update for all tasks with the specified Ids
+     * in a single statement, without reading the tasks first.
+     * @param ids Ids of the tasks that should be updated.
+     * @param update Update describing the new values of the columns.
+     * @return The number of updated tasks; Ids without a task are ignored.
+     */
+    int updateTaskColumns(Collection<Long> ids, TaskUpdate update);
+
+    /**
+     * Runs the specified action within a single transaction. Changes made by the action
+     * are only committed if it completes without throwing an exception. A failed nested
+     * transaction rolls back the whole outermost transaction, even if the failure has been caught.
+     * @param action Action that should be run within the transaction.
+     */
+    void runInTransaction(Runnable action);
+
+    /**
+     * Registers a listener that should be notified about the changes of tasks
+     * made through this provider, after they have been committed.
+     * @param listener Listener that should be notified about changes.
+     */
+    void addTaskChangeListener(TaskChangeListener listener);
+
+    /**
+     * Unregisters a listener, so that it is not notified about changes anymore.
+     * @param listener Listener that should not be notified about changes anymore.
+     */
+    void removeTaskChangeListener(TaskChangeListener listener);
+
+    /**
+     * Inserts a new recurring task into the storage. On insertion, a new Id
+     * will be generated and assigned to the Id property of the recurring task.
+     * @param recurringTask Recurring task that should be inserted into the storage.
+     */
+    void insertRecurringTask(RecurringTask recurringTask);
+
+    /**
+     * Queries the stored recurring tasks with a next occurrence due before the specified date.
+     * @param date Date before which the next occurrence should be due.
+     * @return A list of the matching recurring tasks, ordered by the dates of their next occurrences.
+     */
+    List<RecurringTask> queryRecurringTasksDueBefore(DateTime date);
+
+    /**
+     * Updates the recurring task in the storage to match the current state of the specified entity.
+     * @param recurringTask Recurring task with the state that should be stored; will be identified by the Id.
+     */
+    void updateRecurringTask(RecurringTask recurringTask);
+
+    /**
+     * Stores the next occurrence and its date of the recurring task, but only if the stored
+     * next occurrence is still the expected one, so that concurrent writers cannot advance
+     * the same recurring task from the same state twice.
+     * @param recurringTask Recurring task with the next occurrence that should be stored; will be identified by the Id.
+     * @param expectedNextOccurrence Next occurrence the stored recurring task should have.
+     * @return True, if the next occurrence has been stored; false, if the recurring task has been changed or removed.
+     */
+    boolean advanceRecurringTask(RecurringTask recurringTask, long expectedNextOccurrence);
+
+    /**
+     * Moves the tasks that have been done before the specified date into the archive.
+     * Archived tasks are only read by queries including archived tasks; all other methods
+     * only see the tasks that are not archived. The tasks are moved in batches, each
+     * within its own transaction, so that other writers are not blocked for long.
+     * @param doneBefore Date before which the tasks should have been done.
+     * @param batchSize Maximum number of tasks moved within one transaction.
+     * @return The number of archived tasks.
+     */
+    int archiveTasks(DateTime doneBefore, int batchSize);
+
+    /**
+     * Releases the storage that is not used anymore, e.g. after tasks have been archived.
+     */
+    void compactStorage();
+
+    /**
+     * Rebuilds the storage to apply settings that only take effect on a rebuild.
+     * Can take long, so this should only be run while the user is not waiting.
+     */
+    void rebuildStorage();
+}
@@ -0,0 +1,149 @@
+package com.tasky.android.storage;
+
+/**
+ * Holds the settings that are applied to connections of the Tasky database.
+ * Settings that apply to a single connection only take effect on the primary connection, which performs all writes;
+ * the connections that Android opens for parallel readers under write-ahead logging use Sqlite defaults.
+ */
+public final class TaskyDbConfiguration {
+    private boolean writeAheadLoggingEnabled = true;
+    private SynchronousMode synchronousMode = SynchronousMode.Normal;
+    private int cacheSizeKibibytes = 2048;
+    private long mmapSizeBytes = 0;
+    private boolean tempStoreInMemory = true;
+    private int pageSizeBytes = 4096;
+    private boolean incrementalVacuumEnabled = true;
+
+    /**
+     * Indicates if the database should use write-ahead logging,
+     * so that readers are not blocked by a writer.
+     * @return True, if write-ahead logging is enabled; otherwise false.
+     */
+    public boolean isWriteAheadLoggingEnabled() { return writeAheadLoggingEnabled; }
+
+    /**
+     * Sets if the database should use write-ahead logging.
+     * @param value True, if write-ahead logging should be enabled; otherwise false.
+     */
+    public void setWriteAheadLoggingEnabled(boolean value) { writeAheadLoggingEnabled = value; }
+
+    /**
+     * Gets how thoroughly Sqlite waits for data to be written to disk on commit.
+     * @return The synchronous mode used by the database.
+     */
+    public SynchronousMode getSynchronousMode() { return synchronousMode; }
+
+    /**
+     * Sets how thoroughly Sqlite waits for data to be written to disk on commit.
+     * @param value The synchronous mode that should be used by the database.
+     */
+    public void setSynchronousMode(SynchronousMode value) {
+        if (value == null) throw new IllegalArgumentException("value cannot be null.");
+        synchronousMode = value;
+    }
+
+    /**
+     * Gets the size of the page cache of each connection.
+     * @return The size of the page cache in KiB.
+     */
+    public int getCacheSizeKibibytes() { return cacheSizeKibibytes; }
+
+    /**
+     * Sets the size of the page cache of each connection.
+     * @param value The size of the page cache in KiB.
+     */
+    public void setCacheSizeKibibytes(int value) {
+        if (value < 0) throw new IllegalArgumentException("value cannot be negative.");
+        cacheSizeKibibytes = value;
+    }
+
+    /**
+     * Gets the maximum number of bytes of the database file that are accessed by memory-mapped I/O.
+     * @return The maximum size for memory-mapped I/O in bytes; 0 if it is disabled.
+     */
+    public long getMmapSizeBytes() { return mmapSizeBytes; }
+
+    /**
+     * Sets the maximum number of bytes of the database file that are accessed by memory-mapped I/O.
+     * Ignored by Sqlite versions without support for memory-mapped I/O.
+     * @param value The maximum size for memory-mapped I/O in bytes; 0 to disable it.
+     */
+    public void setMmapSizeBytes(long value) {
+        if (value < 0) throw new IllegalArgumentException("value cannot be negative.");
+        mmapSizeBytes = value;
+    }
+
+    /**
+     * Indicates if temporary tables and indices are kept in memory instead of files.
+     * @return True, if temporary storage is kept in memory; otherwise false.
+     */
+    public boolean isTempStoreInMemory() { return tempStoreInMemory; }
+
+    /**
+     * Sets if temporary tables and indices are kept in memory instead of files.
+     * @param value True, if temporary storage should be kept in memory; otherwise false.
+     */
+    public void setTempStoreInMemory(boolean value) { tempStoreInMemory = value; }
+
+    /**
+     * Gets the page size of the database file.
+     * @return The page size in bytes.
+     */
+    public int getPageSizeBytes() { return pageSizeBytes; }
+
+    /**
+     * Sets the page size of the database file. Only takes effect when the database is created.
+     * @param value The page size in bytes; a power of two between 512 and 65536.
+     */
+    public void setPageSizeBytes(int value) {
+        if (value < 512 || value > 65536 || Integer.bitCount(value) != 1) {
+            throw new IllegalArgumentException("value must be a power of two between 512 and 65536.");
+        }
+        pageSizeBytes = value;
+    }
+
+    /**
+     * Indicates if free pages are released from the database file by an incremental vacuum
+     * when the storage is compacted, instead of being kept in the file for reuse by later writes.
+     * @return True, if incremental vacuum is enabled; otherwise false.
+     */
+    public boolean isIncrementalVacuumEnabled() { return incrementalVacuumEnabled; }
+
+    /**
+     * Sets if free pages are released by an incremental vacuum. Only takes effect
+     * when the database is created or the next time it is compacted.
+     * @param value True, if incremental vacuum should be enabled; otherwise false.
+     */
+    public void setIncrementalVacuumEnabled(boolean value) { incrementalVacuumEnabled = value; }
+
+    /**
+     * Modes indicating how thoroughly Sqlite waits for data to be written to disk.
+     */
+    public enum SynchronousMode {
+        /**
+         * Hands data to the operating system without waiting for it to be written.
+         */
+        Off("OFF"),
+
+        /**
+         * Waits at critical moments; safe with write-ahead logging.
+         */
+        Normal("NORMAL"),
+
+        /**
+         * Waits for all data to be written on every commit.
+         */
+        Full("FULL");
+
+        private final String sqliteValue;
+        SynchronousMode(String sqliteValue) {
+            this.sqliteValue = sqliteValue;
+        }
+
+        /**
+         * Gets the keyword that is used in Sqlite to represent the mode.
+         * @return The keyword that is used in Sqlite to represent the mode.
+         */
+        public String getSqliteValue() { return sqliteValue; }
+    }
+}
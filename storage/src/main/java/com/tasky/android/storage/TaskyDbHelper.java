@@ -3,52 +3,107 @@ package com.tasky.android.storage;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteOpenHelper;
 import android.content.Context;
+import android.os.Build;
+
+import com.tasky.android.storage.migrations.InitialSchemaMigration;
+import com.tasky.android.storage.migrations.MigrationPlan;
+import com.tasky.android.storage.migrations.OpenTaskIndexMigration;
+import com.tasky.android.storage.migrations.PrioritySortIndexMigration;
+import com.tasky.android.storage.migrations.RecurrenceWatermarkMigration;
+import com.tasky.android.storage.migrations.TaskArchiveMigration;
+import com.tasky.android.storage.migrations.TaskSearchMigration;
+import com.tasky.android.utilities.ParameterCheck;
 
 /**
  * Provides access to the database used by the Tasky application.
  */
 public class TaskyDbHelper extends SQLiteOpenHelper {
-    // If you change the database schema, you must increment the database version.
-    public static final int DATABASE_VERSION = 1;
+    /**
+     * Migrations that build up the database schema, ordered by their target version.
+     * If you change the database schema, add a new migration at the end.
+     */
+    public static final MigrationPlan MIGRATIONS = new MigrationPlan(
+        new InitialSchemaMigration(),
+        new OpenTaskIndexMigration(),
+        new PrioritySortIndexMigration(),
+        new TaskSearchMigration(),
+        new RecurrenceWatermarkMigration(),
+        new TaskArchiveMigration());
+
+    public static final int DATABASE_VERSION = MIGRATIONS.getLatestVersion();
     public static final String DATABASE_NAME = "Tasky.db";
 
+    private final TaskyDbConfiguration configuration;
+
     public TaskyDbHelper(Context context) {
+        this(context, new TaskyDbConfiguration());
+    }
+
+    public TaskyDbHelper(Context context, TaskyDbConfiguration configuration) {
         super(context, DATABASE_NAME, null, DATABASE_VERSION);
+        ParameterCheck.notNull(configuration, "configuration");
+        this.configuration = configuration;
+
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+            setWriteAheadLoggingEnabled(configuration.isWriteAheadLoggingEnabled());
+        }
+    }
+
+    /**
+     * Gets the settings that are applied to the connections of the database.
+     * @return The settings that are applied to the connections of the database.
+     */
+    public TaskyDbConfiguration getConfiguration() { return configuration; }
+
+    @Override
+    public void onConfigure(SQLiteDatabase db) {
+        // Only called from Jelly Bean on; older versions are configured in onOpen.
+        applyConfiguration(db);
     }
 
     public void onCreate(SQLiteDatabase db) {
-        db.execSQL(SQL_CREATE_RECURRING_TASKS);
-        db.execSQL(SQL_CREATE_TASKS);
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.JELLY_BEAN) {
+            // onOpen comes too late for the settings of the file, as the tables exist by then.
+            applyFileConfiguration(db);
+        }
+        MIGRATIONS.migrate(db, 0, DATABASE_VERSION);
     }
 
     public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
-        // Do nothing yet.
+        MIGRATIONS.migrate(db, oldVersion, newVersion);
+    }
+
+    @Override
+    public void onOpen(SQLiteDatabase db) {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.JELLY_BEAN && !db.isReadOnly()) {
+            if (configuration.isWriteAheadLoggingEnabled()) db.enableWriteAheadLogging();
+            applyConfiguration(db);
+        }
     }
 
     /**
-     * SQL-Statement that creates the Task table.
+     * Applies the settings of the configuration to the primary connection of the specified database.
+     * Connections opened for parallel readers under write-ahead logging use Sqlite defaults,
+     * as Android offers no way to configure them.
+     * @param db Database to which the settings should be applied.
      */
-    private static final String SQL_CREATE_TASKS =
-        "CREATE TABLE " + TaskyContract.Task.TABLE_NAME + " (" +
-            TaskyContract.Task._ID + " INTEGER PRIMARY KEY," +
-            TaskyContract.Task.COLUMN_NAME_TITLE + " TEXT NOT NULL," +
-            TaskyContract.Task.COLUMN_NAME_CREATED_ON + " DATE NOT NULL," +
-            TaskyContract.Task.COLUMN_NAME_DONE_ON + " DATE," +
-            TaskyContract.Task.COLUMN_NAME_PRIORITY + " INTEGER NOT NULL," +
-            TaskyContract.Task.COLUMN_NAME_POSTPONED_UNTIL + " DATE," +
-            TaskyContract.Task.COLUMN_NAME_CREATED_FROM_RECURRING_TASK_ID + " INTEGER" +
-                " REFERENCES "+ TaskyContract.RecurringTask.TABLE_NAME + "(" + TaskyContract.RecurringTask._ID + ")," +
-            TaskyContract.Task.COLUMN_NAME_DUE_DATE + " DATE)";
+    private void applyConfiguration(SQLiteDatabase db) {
+        applyFileConfiguration(db);
+        SqliteTools.executePragma(db, "synchronous=" + configuration.getSynchronousMode().getSqliteValue());
+        // Negative values are interpreted as KiB instead of a number of pages.
+        SqliteTools.executePragma(db, "cache_size=-" + configuration.getCacheSizeKibibytes());
+        SqliteTools.executePragma(db, "temp_store=" + (configuration.isTempStoreInMemory() ? "MEMORY" : "DEFAULT"));
+        SqliteTools.executePragma(db, "mmap_size=" + configuration.getMmapSizeBytes());
+    }
 
     /**
-     * SQL-Statement that creates the Task table.
+     * Applies the settings of the configuration that are stored in the database file.
+     * They only take effect before the first table has been created.
+     * @param db Database to which the settings should be applied.
      */
-    private static final String SQL_CREATE_RECURRING_TASKS =
-        "CREATE TABLE " + TaskyContract.RecurringTask.TABLE_NAME + " (" +
-            TaskyContract.RecurringTask._ID + " INTEGER PRIMARY KEY," +
-            TaskyContract.RecurringTask.COLUMN_NAME_TITLE + " TEXT NOT NULL," +
-            TaskyContract.RecurringTask.COLUMN_NAME_START_DATE + " DATE NOT NULL," +
-            TaskyContract.RecurringTask.COLUMN_NAME_END_DATE + " DATE," +
-            TaskyContract.RecurringTask.COLUMN_NAME_INTERVAL + " INTEGER NOT NULL," +
-            TaskyContract.RecurringTask.COLUMN_NAME_INTERVAL_UNIT + " INTEGER NOT NULL)";
-}
\ No newline at end of file
+    private void applyFileConfiguration(SQLiteDatabase db) {
+        SqliteTools.executePragma(db, "page_size=" + configuration.getPageSizeBytes());
+        // Existing databases switch to the mode the next time they are vacuumed.
+        SqliteTools.executePragma(db, "auto_vacuum=" + (configuration.isIncrementalVacuumEnabled() ? "INCREMENTAL" : "NONE"));
+    }
+}
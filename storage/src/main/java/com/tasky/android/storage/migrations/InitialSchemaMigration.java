@@ -0,0 +1,46 @@
+package com.tasky.android.storage.migrations;
+
+import android.database.sqlite.SQLiteDatabase;
+
+import com.tasky.android.storage.TaskyContract;
+
+/**
+ * Creates the tables of the first version of the database.
+ */
+public final class InitialSchemaMigration implements Migration {
+    @Override
+    public int getTargetVersion() { return 1; }
+
+    @Override
+    public void apply(SQLiteDatabase db) {
+        db.execSQL(SQL_CREATE_RECURRING_TASKS);
+        db.execSQL(SQL_CREATE_TASKS);
+    }
+
+    /**
+     * SQL-Statement that creates the Task table.
+     */
+    private static final String SQL_CREATE_TASKS =
+        "CREATE TABLE " + TaskyContract.Task.TABLE_NAME + " (" +
+            TaskyContract.Task._ID + " INTEGER PRIMARY KEY," +
+            TaskyContract.Task.COLUMN_NAME_TITLE + " TEXT NOT NULL," +
+            TaskyContract.Task.COLUMN_NAME_CREATED_ON + " DATE NOT NULL," +
+            TaskyContract.Task.COLUMN_NAME_DONE_ON + " DATE," +
+            TaskyContract.Task.COLUMN_NAME_PRIORITY + " INTEGER NOT NULL," +
+            TaskyContract.Task.COLUMN_NAME_POSTPONED_UNTIL + " DATE," +
+            TaskyContract.Task.COLUMN_NAME_CREATED_FROM_RECURRING_TASK_ID + " INTEGER" +
+                " REFERENCES "+ TaskyContract.RecurringTask.TABLE_NAME + "(" + TaskyContract.RecurringTask._ID + ")," +
+            TaskyContract.Task.COLUMN_NAME_DUE_DATE + " DATE)";
+
+    /**
+     * SQL-Statement that creates the RecurringTask table.
+     */
+    private static final String SQL_CREATE_RECURRING_TASKS =
+        "CREATE TABLE " + TaskyContract.RecurringTask.TABLE_NAME + " (" +
+            TaskyContract.RecurringTask._ID + " INTEGER PRIMARY KEY," +
+            TaskyContract.RecurringTask.COLUMN_NAME_TITLE + " TEXT NOT NULL," +
+            TaskyContract.RecurringTask.COLUMN_NAME_START_DATE + " DATE NOT NULL," +
+            TaskyContract.RecurringTask.COLUMN_NAME_END_DATE + " DATE," +
+            TaskyContract.RecurringTask.COLUMN_NAME_INTERVAL + " INTEGER NOT NULL," +
+            TaskyContract.RecurringTask.COLUMN_NAME_INTERVAL_UNIT + " INTEGER NOT NULL)";
+}
@@ -0,0 +1,20 @@
+package com.tasky.android.storage.migrations;
+
+import android.database.sqlite.SQLiteDatabase;
+
+/**
+ * Represents a single step that brings the database schema to a specific version.
+ */
+public interface Migration {
+    /**
+     * Gets the database version that the schema has after this migration has been applied.
+     * @return The database version reached by this migration.
+     */
+    int getTargetVersion();
+
+    /**
+     * Applies this migration to the specified database.
+     * @param db Database that is at the version directly preceding the target version.
+     */
+    void apply(SQLiteDatabase db);
+}
@@ -0,0 +1,71 @@
+package com.tasky.android.storage.migrations;
+
+import android.database.sqlite.SQLiteDatabase;
+
+import com.tasky.android.utilities.ParameterCheck;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Ordered set of migrations that together build up the schema of a database.
+ */
+public final class MigrationPlan {
+    private final List<Migration> migrations;
+
+    /**
+     * Creates a MigrationPlan from the specified migrations.
+     * @param migrations Migrations ordered by their target version, starting at version 1
+     *                   and increasing by exactly one with each migration.
+     */
+    public MigrationPlan(Migration... migrations) {
+        ParameterCheck.notNull(migrations, "migrations");
+
+        for (int i = 0; i < migrations.length; i++) {
+            ParameterCheck.notNull(migrations[i], "migrations[" + i + "]");
+            if (migrations[i].getTargetVersion() != i + 1) {
+                throw new IllegalArgumentException("Migration at position " + i + " targets version "
+                    + migrations[i].getTargetVersion() + ", but version " + (i + 1) + " was expected.");
+            }
+        }
+
+        this.migrations = Collections.unmodifiableList(new ArrayList(Arrays.asList(migrations)));
+    }
+
+    /**
+     * Gets the version that a database has after all migrations have been applied.
+     * @return The latest version known to this plan.
+     */
+    public int getLatestVersion() { return migrations.size(); }
+
+    /**
+     * Gets the migrations that have to be applied to get from one version to another.
+     * @param oldVersion Version the database currently has; 0 for a new database.
+     * @param newVersion Version the database should have after migrating.
+     * @return The migrations to apply in the order in which they have to be applied.
+     */
+    public List<Migration> getMigrations(int oldVersion, int newVersion) {
+        if (oldVersion < 0 || oldVersion > newVersion || newVersion > getLatestVersion()) {
+            throw new IllegalArgumentException("Cannot migrate from version " + oldVersion
+                + " to version " + newVersion + ".");
+        }
+
+        return migrations.subList(oldVersion, newVersion);
+    }
+
+    /**
+     * Migrates the specified database from one version to another.
+     * @param db Database that should be migrated.
+     * @param oldVersion Version the database currently has; 0 for a new database.
+     * @param newVersion Version the database should have after migrating.
+     */
+    public void migrate(SQLiteDatabase db, int oldVersion, int newVersion) {
+        ParameterCheck.notNull(db, "db");
+
+        for (Migration migration : getMigrations(oldVersion, newVersion)) {
+            migration.apply(db);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.tasky.android.storage.migrations;
+
+import android.database.sqlite.SQLiteDatabase;
+import android.os.Build;
+
+import com.tasky.android.storage.TaskyContract;
+
+/**
+ * Adds indices that serve the queries for tasks that are not done yet.
+ */
+public final class OpenTaskIndexMigration implements Migration {
+    /**
+     * Name of the index covering the columns used to find relevant open tasks.
+     */
+    public static final String INDEX_OPEN_TASKS = "task_open_idx";
+
+    /**
+     * Name of the index on the date on which tasks have been done.
+     */
+    public static final String INDEX_DONE_ON = "task_doneOn_idx";
+
+    @Override
+    public int getTargetVersion() { return 2; }
+
+    @Override
+    public void apply(SQLiteDatabase db) {
+        // Partial indices are supported from Sqlite 3.8.0 on, which ships with Lollipop.
+        // Older versions fall back to a full index led by the done-state,
+        // which then also serves lookups by the done-date.
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+            db.execSQL(SQL_CREATE_PARTIAL_OPEN_TASKS_INDEX);
+            db.execSQL(SQL_CREATE_DONE_ON_INDEX);
+        } else {
+            db.execSQL(SQL_CREATE_FULL_OPEN_TASKS_INDEX);
+        }
+    }
+
+    /**
+     * SQL-Statement that creates an index only containing tasks that are not done.
+     */
+    private static final String SQL_CREATE_PARTIAL_OPEN_TASKS_INDEX =
+        "CREATE INDEX " + INDEX_OPEN_TASKS + " ON " + TaskyContract.Task.TABLE_NAME + " (" +
+            TaskyContract.Task.COLUMN_NAME_DUE_DATE + "," +
+            TaskyContract.Task.COLUMN_NAME_POSTPONED_UNTIL + "," +
+            TaskyContract.Task.COLUMN_NAME_PRIORITY + ")" +
+            " WHERE " + TaskyContract.Task.COLUMN_NAME_DONE_ON + " IS NULL";
+
+    /**
+     * SQL-Statement that creates an index on the open task columns for all tasks.
+     */
+    private static final String SQL_CREATE_FULL_OPEN_TASKS_INDEX =
+        "CREATE INDEX " + INDEX_OPEN_TASKS + " ON " + TaskyContract.Task.TABLE_NAME + " (" +
+            TaskyContract.Task.COLUMN_NAME_DONE_ON + "," +
+            TaskyContract.Task.COLUMN_NAME_DUE_DATE + "," +
+            TaskyContract.Task.COLUMN_NAME_POSTPONED_UNTIL + "," +
+            TaskyContract.Task.COLUMN_NAME_PRIORITY + ")";
+
+    /**
+     * SQL-Statement that creates an index on the date on which tasks have been done.
+     */
+    private static final String SQL_CREATE_DONE_ON_INDEX =
+        "CREATE INDEX " + INDEX_DONE_ON + " ON " + TaskyContract.Task.TABLE_NAME + " (" +
+            TaskyContract.Task.COLUMN_NAME_DONE_ON + ")";
+}
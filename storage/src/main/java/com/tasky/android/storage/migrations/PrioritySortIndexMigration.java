@@ -0,0 +1,62 @@
+package com.tasky.android.storage.migrations;
+
+import android.database.sqlite.SQLiteDatabase;
+import android.os.Build;
+
+import com.tasky.android.entities.TaskPriority;
+import com.tasky.android.storage.EnumMapper;
+import com.tasky.android.storage.TaskyContract;
+
+/**
+ * Stores the sort index of the priority besides the priority of each task,
+ * so that tasks can be ordered by their priority using an index.
+ */
+public final class PrioritySortIndexMigration implements Migration {
+    /**
+     * Name of the index serving open tasks in the order of their priority.
+     */
+    public static final String INDEX_OPEN_TASKS_BY_PRIORITY = "task_open_priority_idx";
+
+    @Override
+    public int getTargetVersion() { return 3; }
+
+    @Override
+    public void apply(SQLiteDatabase db) {
+        db.execSQL("ALTER TABLE " + TaskyContract.Task.TABLE_NAME +
+            " ADD COLUMN " + TaskyContract.Task.COLUMN_NAME_PRIORITY_SORT_INDEX +
+            " INTEGER NOT NULL DEFAULT " + TaskPriority.Normal.getSortIndex());
+
+        // Fill the sort index of existing tasks from their stored priority.
+        for (TaskPriority priority : TaskPriority.values()) {
+            db.execSQL("UPDATE " + TaskyContract.Task.TABLE_NAME +
+                " SET " + TaskyContract.Task.COLUMN_NAME_PRIORITY_SORT_INDEX + "=?" +
+                " WHERE " + TaskyContract.Task.COLUMN_NAME_PRIORITY + "=?",
+                new Object[] { priority.getSortIndex(), EnumMapper.getIntegerByEnum(priority) });
+        }
+
+        // Partial indices are supported from Sqlite 3.8.0 on, which ships with Lollipop.
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+            db.execSQL(SQL_CREATE_PARTIAL_INDEX);
+        } else {
+            db.execSQL(SQL_CREATE_FULL_INDEX);
+        }
+    }
+
+    /**
+     * SQL-Statement that creates an index on the order of tasks that are not done.
+     */
+    private static final String SQL_CREATE_PARTIAL_INDEX =
+        "CREATE INDEX " + INDEX_OPEN_TASKS_BY_PRIORITY + " ON " + TaskyContract.Task.TABLE_NAME + " (" +
+            TaskyContract.Task.COLUMN_NAME_PRIORITY_SORT_INDEX + "," +
+            TaskyContract.Task.COLUMN_NAME_CREATED_ON + ")" +
+            " WHERE " + TaskyContract.Task.COLUMN_NAME_DONE_ON + " IS NULL";
+
+    /**
+     * SQL-Statement that creates an index on the order of tasks led by the done-state.
+     */
+    private static final String SQL_CREATE_FULL_INDEX =
+        "CREATE INDEX " + INDEX_OPEN_TASKS_BY_PRIORITY + " ON " + TaskyContract.Task.TABLE_NAME + " (" +
+            TaskyContract.Task.COLUMN_NAME_DONE_ON + "," +
+            TaskyContract.Task.COLUMN_NAME_PRIORITY_SORT_INDEX + "," +
+            TaskyContract.Task.COLUMN_NAME_CREATED_ON + ")";
+}
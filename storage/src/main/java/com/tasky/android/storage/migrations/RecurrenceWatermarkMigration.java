@@ -0,0 +1,57 @@
+package com.tasky.android.storage.migrations;
+
+import android.database.sqlite.SQLiteDatabase;
+
+import com.tasky.android.storage.TaskyContract;
+
+/**
+ * Adds the watermark up to which tasks have been created from each recurring task,
+ * so that tasks can be created for new occurrences only.
+ */
+public final class RecurrenceWatermarkMigration implements Migration {
+    /**
+     * Name of the index on the date of the next occurrence of recurring tasks.
+     */
+    public static final String INDEX_NEXT_OCCURRENCE_DATE = "recurringTask_nextOccurrenceDate_idx";
+
+    @Override
+    public int getTargetVersion() { return 5; }
+
+    @Override
+    public void apply(SQLiteDatabase db) {
+        db.execSQL(SQL_ADD_NEXT_OCCURRENCE);
+        db.execSQL(SQL_ADD_NEXT_OCCURRENCE_DATE);
+        db.execSQL(SQL_FILL_NEXT_OCCURRENCE_DATE);
+        db.execSQL(SQL_CREATE_NEXT_OCCURRENCE_DATE_INDEX);
+    }
+
+    /**
+     * SQL-Statement that adds the number of the next occurrence without a task.
+     */
+    private static final String SQL_ADD_NEXT_OCCURRENCE =
+        "ALTER TABLE " + TaskyContract.RecurringTask.TABLE_NAME +
+            " ADD COLUMN " + TaskyContract.RecurringTask.COLUMN_NAME_NEXT_OCCURRENCE + " INTEGER NOT NULL DEFAULT 0";
+
+    /**
+     * SQL-Statement that adds the date of the next occurrence without a task.
+     */
+    private static final String SQL_ADD_NEXT_OCCURRENCE_DATE =
+        "ALTER TABLE " + TaskyContract.RecurringTask.TABLE_NAME +
+            " ADD COLUMN " + TaskyContract.RecurringTask.COLUMN_NAME_NEXT_OCCURRENCE_DATE + " DATE";
+
+    /**
+     * SQL-Statement that starts the existing recurring tasks with their first occurrence,
+     * as no tasks have been created from them before.
+     */
+    private static final String SQL_FILL_NEXT_OCCURRENCE_DATE =
+        "UPDATE " + TaskyContract.RecurringTask.TABLE_NAME +
+            " SET " + TaskyContract.RecurringTask.COLUMN_NAME_NEXT_OCCURRENCE_DATE + "=" +
+            TaskyContract.RecurringTask.COLUMN_NAME_START_DATE;
+
+    /**
+     * SQL-Statement that creates an index to find the recurring tasks with occurrences due before a date.
+     */
+    private static final String SQL_CREATE_NEXT_OCCURRENCE_DATE_INDEX =
+        "CREATE INDEX " + INDEX_NEXT_OCCURRENCE_DATE + " ON " + TaskyContract.RecurringTask.TABLE_NAME + " (" +
+            TaskyContract.RecurringTask.COLUMN_NAME_NEXT_OCCURRENCE_DATE + ")";
+}
@@ -0,0 +1,60 @@
+package com.tasky.android.storage.migrations;
+
+import android.database.sqlite.SQLiteDatabase;
+
+import com.tasky.android.storage.TaskyContract;
+
+/**
+ * Creates the archive into which tasks that have been done long ago are moved,
+ * so that they do not enlarge the Task table, and a view combining both tables.
+ */
+public final class TaskArchiveMigration implements Migration {
+    @Override
+    public int getTargetVersion() { return 6; }
+
+    @Override
+    public void apply(SQLiteDatabase db) {
+        db.execSQL(SQL_CREATE_TASK_ARCHIVE);
+        db.execSQL(SQL_CREATE_ALL_TASKS_VIEW);
+    }
+
+    /**
+     * Columns of the Task table, which are also the columns of the archive.
+     */
+    private static final String TASK_COLUMNS =
+        TaskyContract.Task._ID + "," +
+            TaskyContract.Task.COLUMN_NAME_TITLE + "," +
+            TaskyContract.Task.COLUMN_NAME_CREATED_ON + "," +
+            TaskyContract.Task.COLUMN_NAME_DONE_ON + "," +
+            TaskyContract.Task.COLUMN_NAME_PRIORITY + "," +
+            TaskyContract.Task.COLUMN_NAME_POSTPONED_UNTIL + "," +
+            TaskyContract.Task.COLUMN_NAME_CREATED_FROM_RECURRING_TASK_ID + "," +
+            TaskyContract.Task.COLUMN_NAME_DUE_DATE + "," +
+            TaskyContract.Task.COLUMN_NAME_PRIORITY_SORT_INDEX;
+
+    /**
+     * SQL-Statement that creates the archive with the columns of the Task table.
+     * Archived tasks are only read, so the archive has no indices besides its Ids.
+     */
+    private static final String SQL_CREATE_TASK_ARCHIVE =
+        "CREATE TABLE " + TaskyContract.TaskArchive.TABLE_NAME + " (" +
+            TaskyContract.Task._ID + " INTEGER PRIMARY KEY," +
+            TaskyContract.Task.COLUMN_NAME_TITLE + " TEXT NOT NULL," +
+            TaskyContract.Task.COLUMN_NAME_CREATED_ON + " DATE NOT NULL," +
+            TaskyContract.Task.COLUMN_NAME_DONE_ON + " DATE," +
+            TaskyContract.Task.COLUMN_NAME_PRIORITY + " INTEGER NOT NULL," +
+            TaskyContract.Task.COLUMN_NAME_POSTPONED_UNTIL + " DATE," +
+            TaskyContract.Task.COLUMN_NAME_CREATED_FROM_RECURRING_TASK_ID + " INTEGER" +
+                " REFERENCES "+ TaskyContract.RecurringTask.TABLE_NAME + "(" + TaskyContract.RecurringTask._ID + ")," +
+            TaskyContract.Task.COLUMN_NAME_DUE_DATE + " DATE," +
+            TaskyContract.Task.COLUMN_NAME_PRIORITY_SORT_INDEX + " INTEGER NOT NULL)";
+
+    /**
+     * SQL-Statement that creates the view combining the Task table and the archive.
+     */
+    private static final String SQL_CREATE_ALL_TASKS_VIEW =
+        "CREATE VIEW " + TaskyContract.TaskArchive.VIEW_NAME_ALL_TASKS + " AS" +
+            " SELECT " + TASK_COLUMNS + " FROM " + TaskyContract.Task.TABLE_NAME +
+            " UNION ALL" +
+            " SELECT " + TASK_COLUMNS + " FROM " + TaskyContract.TaskArchive.TABLE_NAME;
+}
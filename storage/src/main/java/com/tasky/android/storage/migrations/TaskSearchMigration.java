@@ -0,0 +1,69 @@
+package com.tasky.android.storage.migrations;
+
+import android.database.sqlite.SQLiteDatabase;
+
+import com.tasky.android.storage.TaskyContract;
+
+/**
+ * Adds a full-text index over the titles of tasks, kept in sync with the task table by triggers.
+ * The index stores its own copy of the titles, as external content tables
+ * are not supported by the Sqlite versions of all supported Android versions.
+ */
+public final class TaskSearchMigration implements Migration {
+    @Override
+    public int getTargetVersion() { return 4; }
+
+    @Override
+    public void apply(SQLiteDatabase db) {
+        db.execSQL(SQL_CREATE_SEARCH_TABLE);
+        db.execSQL(SQL_FILL_SEARCH_TABLE);
+        db.execSQL(SQL_CREATE_INSERT_TRIGGER);
+        db.execSQL(SQL_CREATE_UPDATE_TRIGGER);
+        db.execSQL(SQL_CREATE_DELETE_TRIGGER);
+    }
+
+    /**
+     * SQL-Statement that creates the full-text index. Search terms are matched as prefixes,
+     * so the index also holds the prefixes of two and three characters, which the user types first
+     * and which would otherwise have to be looked up by scanning all terms starting with them.
+     */
+    private static final String SQL_CREATE_SEARCH_TABLE =
+        "CREATE VIRTUAL TABLE " + TaskyContract.TaskSearch.TABLE_NAME + " USING fts4(" +
+            TaskyContract.TaskSearch.COLUMN_NAME_TITLE + ",prefix=\"2,3\")";
+
+    /**
+     * SQL-Statement that indexes the titles of the existing tasks.
+     */
+    private static final String SQL_FILL_SEARCH_TABLE =
+        "INSERT INTO " + TaskyContract.TaskSearch.TABLE_NAME + " (" +
+            TaskyContract.TaskSearch.COLUMN_NAME_DOCID + "," + TaskyContract.TaskSearch.COLUMN_NAME_TITLE + ")" +
+            " SELECT " + TaskyContract.Task._ID + "," + TaskyContract.Task.COLUMN_NAME_TITLE +
+            " FROM " + TaskyContract.Task.TABLE_NAME;
+
+    /**
+     * SQL-Statement that creates a trigger indexing the titles of inserted tasks.
+     */
+    private static final String SQL_CREATE_INSERT_TRIGGER =
+        "CREATE TRIGGER " + TaskyContract.TaskSearch.TABLE_NAME + "_insert AFTER INSERT ON " + TaskyContract.Task.TABLE_NAME +
+            " BEGIN INSERT INTO " + TaskyContract.TaskSearch.TABLE_NAME + " (" +
+            TaskyContract.TaskSearch.COLUMN_NAME_DOCID + "," + TaskyContract.TaskSearch.COLUMN_NAME_TITLE + ")" +
+            " VALUES (new." + TaskyContract.Task._ID + ",new." + TaskyContract.Task.COLUMN_NAME_TITLE + "); END";
+
+    /**
+     * SQL-Statement that creates a trigger updating the index when the title of a task changes.
+     */
+    private static final String SQL_CREATE_UPDATE_TRIGGER =
+        "CREATE TRIGGER " + TaskyContract.TaskSearch.TABLE_NAME + "_update AFTER UPDATE OF " +
+            TaskyContract.Task.COLUMN_NAME_TITLE + " ON " + TaskyContract.Task.TABLE_NAME +
+            " BEGIN UPDATE " + TaskyContract.TaskSearch.TABLE_NAME +
+            " SET " + TaskyContract.TaskSearch.COLUMN_NAME_TITLE + "=new." + TaskyContract.Task.COLUMN_NAME_TITLE +
+            " WHERE " + TaskyContract.TaskSearch.COLUMN_NAME_DOCID + "=old." + TaskyContract.Task._ID + "; END";
+
+    /**
+     * SQL-Statement that creates a trigger removing deleted tasks from the index.
+     */
+    private static final String SQL_CREATE_DELETE_TRIGGER =
+        "CREATE TRIGGER " + TaskyContract.TaskSearch.TABLE_NAME + "_delete AFTER DELETE ON " + TaskyContract.Task.TABLE_NAME +
+            " BEGIN DELETE FROM " + TaskyContract.TaskSearch.TABLE_NAME +
+            " WHERE " + TaskyContract.TaskSearch.COLUMN_NAME_DOCID + "=old." + TaskyContract.Task._ID + "; END";
+}
@@ -0,0 +1,91 @@
+package com.tasky.android.storage.queries;
+
+import com.tasky.android.utilities.ParameterCheck;
+
+/**
+ * Represents a QueryFilter that checks if the value of a single property
+ * of the target items lies within a range, including its bounds.
+ */
+public class BetweenQueryFilter<TValue extends Comparable<? super TValue>> extends QueryFilterBase {
+    private final String columnName;
+    private final TValue lower;
+    private final TValue upper;
+    private final ColumnValueReader reader;
+
+    /**
+     * Creates a BetweenQueryFilter.
+     * @param columnName Column that the BetweenQueryFilter should compare.
+     * @param lower Smallest value that the column may have.
+     * @param upper Greatest value that the column may have.
+     */
+    public BetweenQueryFilter(String columnName, TValue lower, TValue upper) {
+        ParameterCheck.notNull(columnName, "columnName");
+        ParameterCheck.notNull(lower, "lower");
+        ParameterCheck.notNull(upper, "upper");
+
+        this.columnName = columnName;
+        this.lower = lower;
+        this.upper = upper;
+        this.reader = new ColumnValueReader(columnName);
+    }
+
+    /**
+     * Gets the column that the BetweenQueryFilter compares.
+     * @return The column that the BetweenQueryFilter compares.
+     */
+    public String getColumnName() { return columnName; }
+
+    /**
+     * Gets the smallest value that the column may have.
+     * @return The smallest value that the column may have.
+     */
+    public TValue getLower() { return lower; }
+
+    /**
+     * Gets the greatest value that the column may have.
+     * @return The greatest value that the column may have.
+     */
+    public TValue getUpper() { return upper; }
+
+    /**
+     * Appends the where clause and the parameters of this QueryFilter to the compiler.
+     * @param compiler Compiler that collects the where clause and the parameters.
+     */
+    @Override
+    protected void compileSqlite(QueryFilterCompiler compiler) {
+        compiler.append(columnName);
+        compiler.append(" BETWEEN ? AND ?");
+        compiler.appendParameter(lower);
+        compiler.appendParameter(upper);
+    }
+
+    /**
+     * Appends the where clause that matches the items which this QueryFilter does not match, including
+     * those with null values, and its parameters to the compiler.
+     * @param compiler Compiler that collects the where clause and the parameters.
+     */
+    @Override
+    protected void compileNegatedSqlite(QueryFilterCompiler compiler) {
+        compiler.beginNegatedComparison(columnName);
+        compiler.append(" NOT BETWEEN ? AND ?");
+        compiler.appendParameter(lower);
+        compiler.appendParameter(upper);
+        compiler.endNegatedComparison(columnName);
+    }
+
+    /**
+     * Checks if the specified object satisfies the filter condition.
+     * @param target Object on which to test the filter condition.
+     * @return True, if the object satisfies the filter condition; otherwise false.
+     */
+    @Override
+    public boolean evaluate(Object target) throws IllegalAccessException {
+        try {
+            TValue actual = (TValue)reader.read(target);
+            return actual != null && actual.compareTo(lower) >= 0 && actual.compareTo(upper) <= 0;
+        } catch (NoSuchFieldException exception) {
+            // Field not found in target object; cannot match.
+            return false;
+        }
+    }
+}
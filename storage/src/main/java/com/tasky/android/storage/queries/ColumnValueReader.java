@@ -0,0 +1,39 @@
+package com.tasky.android.storage.queries;
+
+import com.tasky.android.entities.Task;
+import com.tasky.android.storage.TaskColumnAccessor;
+import com.tasky.android.utilities.ReflectionTools;
+
+/**
+ * Reads the value of a column from the items on which QueryFilters are evaluated in memory.
+ */
+final class ColumnValueReader {
+    private final String columnName;
+    private final TaskColumnAccessor accessor;
+
+    /**
+     * Creates a ColumnValueReader, resolving the accessor for tasks once.
+     * @param columnName Column of which the value should be read.
+     */
+    ColumnValueReader(String columnName) {
+        this.columnName = columnName;
+        this.accessor = TaskColumnAccessor.find(columnName);
+    }
+
+    /**
+     * Reads the value of the column from the specified item.
+     * @param target Item from which the value should be read.
+     * @return The value of the column.
+     * @throws NoSuchFieldException If the item has no value for the column.
+     */
+    Object read(Object target) throws IllegalAccessException, NoSuchFieldException {
+        // Read values of tasks directly through the accessor of the column.
+        if (accessor != null && target instanceof Task) {
+            return accessor.get((Task)target);
+        }
+
+        // Search for field in object with same name as the column.
+        // Ignoring case because Sqlite is not case-sensitive.
+        return ReflectionTools.getFieldValueIgnoreCase(target, columnName);
+    }
+}
@@ -2,14 +2,15 @@ package com.tasky.android.storage.queries;
 
 import com.tasky.android.utilities.ParameterCheck;
 
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 /**
  * Represents a QueryFilter that is composed by other QueryFilters.
  */
 public final class CombinedQueryFilter extends QueryFilterBase {
-    private final QueryFilter first;
-    private final QueryFilter second;
+    private final List<QueryFilter> filters;
     private final CombinationType combinationType;
 
     /**
@@ -19,47 +20,95 @@ public final class CombinedQueryFilter extends QueryFilterBase {
      * @param combinationType Type indicating how the combination should behave.
      */
     public CombinedQueryFilter(QueryFilter first, QueryFilter second, CombinationType combinationType) {
-        ParameterCheck.notNull(first, "first");
-        ParameterCheck.notNull(second, "second");
+        this(combinationType, Arrays.asList(first, second));
+    }
+
+    /**
+     * Creates a CombinedQueryFilter from any number of QueryFilters.
+     * @param combinationType Type indicating how the combination should behave.
+     * @param filters QueryFilters that should be combined; at least two.
+     */
+    public CombinedQueryFilter(CombinationType combinationType, List<? extends QueryFilter> filters) {
         ParameterCheck.notNull(combinationType, "combinationType");
+        ParameterCheck.notNull(filters, "filters");
+        if (filters.size() < 2) throw new IllegalArgumentException("At least two filters have to be combined.");
+        for (int i = 0; i < filters.size(); i++) {
+            ParameterCheck.notNull(filters.get(i), getParameterName(i));
+        }
 
-        this.first = first;
-        this.second = second;
+        this.filters = Collections.unmodifiableList(Arrays.asList(filters.toArray(new QueryFilter[filters.size()])));
         this.combinationType = combinationType;
     }
 
     /**
-     * Generates a where clause that can be used in an Sqlite query.
-     * @return A String with the where clause.
+     * Gets the combined QueryFilters.
+     * @return The combined QueryFilters in the order in which they are applied.
+     */
+    public List<QueryFilter> getFilters() { return filters; }
+
+    /**
+     * Gets the type indicating how the combination behaves.
+     * @return The type indicating how the combination behaves.
+     */
+    public CombinationType getCombinationType() { return combinationType; }
+
+    /**
+     * Appends the where clause and the parameters of this QueryFilter to the compiler.
+     * @param compiler Compiler that collects the where clause and the parameters.
      */
     @Override
-    public String buildSqliteWhereClause() {
-        return  "(" + first.buildSqliteWhereClause() + ")" +
-                combinationType.getSqliteOperator() +
-                "(" + second.buildSqliteWhereClause() + ")";
+    protected void compileSqlite(QueryFilterCompiler compiler) {
+        for (int i = 0; i < filters.size(); i++) {
+            if (i > 0) compiler.append(combinationType.getSqliteOperator());
+            compiler.append("(");
+            compiler.appendFilter(filters.get(i));
+            compiler.append(")");
+        }
     }
 
     /**
-     * Gets a list of the parameters used in the where clause in the order of their appearance.
-     * @return A list of the parameters.
+     * Appends the where clause that matches the items which this QueryFilter does not match,
+     * and its parameters to the compiler; following De Morgan's laws, the negated
+     * QueryFilters are combined the other way round.
+     * @param compiler Compiler that collects the where clause and the parameters.
      */
     @Override
-    public List<String> getSqliteParameters() {
-        List<String> parameters = first.getSqliteParameters();
-        parameters.addAll(second.getSqliteParameters());
-        return parameters;
+    protected void compileNegatedSqlite(QueryFilterCompiler compiler) {
+        CombinationType negatedType = combinationType == CombinationType.And ? CombinationType.Or : CombinationType.And;
+        for (int i = 0; i < filters.size(); i++) {
+            if (i > 0) compiler.append(negatedType.getSqliteOperator());
+            compiler.append("(");
+            compiler.appendNegatedFilter(filters.get(i));
+            compiler.append(")");
+        }
     }
 
     /**
      * Checks if the specified object satisfies the filter condition.
+     * Stops at the first combined QueryFilter that decides the result.
      * @param target Object on which to test the filter condition.
      * @return True, if the object satisfies the filter condition; otherwise false.
      */
     @Override
     public boolean evaluate(Object target) throws IllegalAccessException {
-        return combinationType.evaluate(first.evaluate(target), second.evaluate(target));
+        boolean decisiveResult = combinationType.getDecisiveResult();
+        for (int i = 0; i < filters.size(); i++) {
+            if (filters.get(i).evaluate(target) == decisiveResult) return decisiveResult;
+        }
+
+        return !decisiveResult;
     }
 
+    /**
+     * Gets the name of the constructor parameter that passed the filter at the specified index.
+     */
+    private static String getParameterName(int index) {
+        switch (index) {
+            case 0: return "first";
+            case 1: return "second";
+            default: return "filters";
+        }
+    }
 
     /**
      * Types that indicate how a combination can behave.
@@ -68,26 +117,18 @@ public final class CombinedQueryFilter extends QueryFilterBase {
         /**
          * Will result in a match if both of the combined QueryFilters match.
          */
-        And("AND") {
-            @Override
-            public boolean evaluate(boolean first, boolean second) {
-                return first && second;
-            }
-        },
+        And("AND", false),
 
         /**
          * Will result in a match if at least one of the combined QueryFilters match.
          */
-        Or("OR") {
-            @Override
-            public boolean evaluate(boolean first, boolean second) {
-                return first || second;
-            }
-        };
+        Or("OR", true);
 
         private final String sqliteOperator;
-        CombinationType(String sqliteOperator) {
+        private final boolean decisiveResult;
+        CombinationType(String sqliteOperator, boolean decisiveResult) {
             this.sqliteOperator = sqliteOperator;
+            this.decisiveResult = decisiveResult;
         }
 
         /**
@@ -97,11 +138,9 @@ public final class CombinedQueryFilter extends QueryFilterBase {
         public String getSqliteOperator() { return sqliteOperator; }
 
         /**
-         * Checks if the combination is matched by the individual results of the combination.
-         * @param first Result of the first combined QueryFilter.
-         * @param second Result of the second combined QueryFilter.
-         * @return True, if the combination is matched; otherwise false.
+         * Gets the result of a single combined QueryFilter that decides the result of the whole combination.
+         * @return False for AND, as a single mismatch fails the combination; true for OR.
          */
-        public abstract boolean evaluate(boolean first, boolean second);
+        public boolean getDecisiveResult() { return decisiveResult; }
     }
-}
\ No newline at end of file
+}
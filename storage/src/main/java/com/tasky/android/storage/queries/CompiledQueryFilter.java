@@ -0,0 +1,79 @@
+package com.tasky.android.storage.queries;
+
+import android.database.sqlite.SQLiteProgram;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Represents a QueryFilter that has been translated to Sqlite syntax: a where clause
+ * with placeholders and the parameters to bind to them. Instances are immutable.
+ */
+public final class CompiledQueryFilter {
+    /**
+     * Compiled form of a filter that matches everything and has no where clause.
+     */
+    public static final CompiledQueryFilter EMPTY = new CompiledQueryFilter(null, new String[0], false);
+
+    private final String whereClause;
+    private final String[] parameters;
+    private final boolean hasInlinedValues;
+
+    CompiledQueryFilter(String whereClause, String[] parameters, boolean hasInlinedValues) {
+        this.whereClause = whereClause;
+        this.parameters = parameters;
+        this.hasInlinedValues = hasInlinedValues;
+    }
+
+    /**
+     * Gets the where clause that can be used in an Sqlite query.
+     * @return A String with the where clause; or null if the filter matches everything.
+     */
+    public String getWhereClause() { return whereClause; }
+
+    /**
+     * Indicates if values have been written into the where clause instead of being bound
+     * as parameters. Statements using such a where clause should not be kept for reuse,
+     * as they only match the same values.
+     * @return True, if the where clause contains values; otherwise false.
+     */
+    public boolean hasInlinedValues() { return hasInlinedValues; }
+
+    /**
+     * Gets the number of parameters used in the where clause.
+     * @return The number of parameters used in the where clause.
+     */
+    public int getParameterCount() { return parameters.length; }
+
+    /**
+     * Gets the parameters used in the where clause in the order of their appearance.
+     * @return A new array with the parameters.
+     */
+    public String[] getSqliteParameters() { return parameters.clone(); }
+
+    /**
+     * Gets the parameters used in the where clause in the order of their appearance.
+     * @return A new list with the parameters.
+     */
+    public List<String> getSqliteParameterList() { return new ArrayList(Arrays.asList(parameters)); }
+
+    /**
+     * Adds the parameters used in the where clause to the specified list.
+     */
+    void addSqliteParametersTo(List<String> target) {
+        Collections.addAll(target, parameters);
+    }
+
+    /**
+     * Binds the parameters of the where clause to a compiled statement.
+     * @param program Statement to which the parameters should be bound.
+     * @param firstIndex 1-based index of the placeholder to which the first parameter should be bound.
+     */
+    public void bind(SQLiteProgram program, int firstIndex) {
+        for (int i = 0; i < parameters.length; i++) {
+            program.bindString(firstIndex + i, parameters[i]);
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.tasky.android.storage.queries;
+
+import com.tasky.android.entities.Task;
+import com.tasky.android.storage.TaskyContract;
+import com.tasky.android.utilities.ParameterCheck;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+/**
+ * Represents a QueryFilter that matches the tasks with titles containing all words of a search text.
+ * Each word of the search text matches the words of the title starting with it, ignoring the case.
+ * The filter is answered by the full-text index of the task titles in Sqlite.
+ */
+public final class FullTextQueryFilter extends QueryFilterBase {
+    private static final String SQL_MATCHING_IDS = "(SELECT " + TaskyContract.TaskSearch.COLUMN_NAME_DOCID
+        + " FROM " + TaskyContract.TaskSearch.TABLE_NAME
+        + " WHERE " + TaskyContract.TaskSearch.TABLE_NAME + " MATCH ?)";
+
+    private final String searchText;
+    private final List<String> terms;
+
+    /**
+     * Creates a FullTextQueryFilter.
+     * @param searchText Text with the words that the titles of the tasks should contain.
+     */
+    public FullTextQueryFilter(String searchText) {
+        ParameterCheck.notNull(searchText, "searchText");
+
+        List<String> terms = new ArrayList(new LinkedHashSet(tokenize(searchText)));
+        if (terms.isEmpty()) throw new IllegalArgumentException("searchText must contain at least one word.");
+
+        this.searchText = searchText;
+        this.terms = Collections.unmodifiableList(terms);
+    }
+
+    /**
+     * Gets the text with the words that the titles of the tasks should contain.
+     * @return The text with the words that the titles of the tasks should contain.
+     */
+    public String getSearchText() { return searchText; }
+
+    /**
+     * Gets the distinct words of the search text in lower case.
+     * @return The distinct words of the search text in lower case.
+     */
+    public List<String> getTerms() { return terms; }
+
+    /**
+     * Gets the expression that is matched against the full-text index.
+     * @return The expression that is matched against the full-text index.
+     */
+    public String getSqliteMatchExpression() {
+        StringBuilder expression = new StringBuilder();
+        for (String term : terms) {
+            if (expression.length() > 0) expression.append(' ');
+            expression.append(term).append('*');
+        }
+
+        return expression.toString();
+    }
+
+    /**
+     * Appends the where clause and the parameters of this QueryFilter to the compiler.
+     * @param compiler Compiler that collects the where clause and the parameters.
+     */
+    @Override
+    protected void compileSqlite(QueryFilterCompiler compiler) {
+        compiler.append(TaskyContract.Task._ID + " IN " + SQL_MATCHING_IDS);
+        compiler.appendParameter(getSqliteMatchExpression());
+    }
+
+    /**
+     * Appends the where clause that matches the tasks which this QueryFilter does not match,
+     * and its parameters to the compiler.
+     * @param compiler Compiler that collects the where clause and the parameters.
+     */
+    @Override
+    protected void compileNegatedSqlite(QueryFilterCompiler compiler) {
+        compiler.append(TaskyContract.Task._ID + " NOT IN " + SQL_MATCHING_IDS);
+        compiler.appendParameter(getSqliteMatchExpression());
+    }
+
+    /**
+     * Checks if the specified object satisfies the filter condition.
+     * @param target Object on which to test the filter condition.
+     * @return True, if the object satisfies the filter condition; otherwise false.
+     */
+    @Override
+    public boolean evaluate(Object target) throws IllegalAccessException {
+        if (!(target instanceof Task)) return false;
+
+        String title = ((Task)target).getTitle();
+        if (title == null) return false;
+
+        List<String> words = tokenize(title);
+        for (String term : terms) {
+            if (countMatches(term, words) == 0) return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Splits the text into lower case words the same way as the full-text index does:
+     * words are separated by all ASCII characters other than letters and digits,
+     * and only ASCII letters are converted to lower case.
+     * @param text Text that should be split into words.
+     * @return A list with the words of the text in the order of their appearance.
+     */
+    public static List<String> tokenize(String text) {
+        List<String> words = new ArrayList();
+        StringBuilder word = new StringBuilder();
+        for (int i = 0; i < text.length(); i++) {
+            char character = text.charAt(i);
+            if (character >= 128 || Character.isLetterOrDigit(character)) {
+                word.append(character >= 'A' && character <= 'Z' ? (char)(character + ('a' - 'A')) : character);
+            } else if (word.length() > 0) {
+                words.add(word.toString());
+                word.setLength(0);
+            }
+        }
+
+        if (word.length() > 0) words.add(word.toString());
+        return words;
+    }
+
+    /**
+     * Counts the words that start with the specified term.
+     * @param term Term in lower case of which the occurrences should be counted.
+     * @param words Words as returned by tokenize.
+     * @return The number of words starting with the term.
+     */
+    public static int countMatches(String term, List<String> words) {
+        int count = 0;
+        for (String word : words) {
+            if (word.startsWith(term)) count++;
+        }
+
+        return count;
+    }
+}
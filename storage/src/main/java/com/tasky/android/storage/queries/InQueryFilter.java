@@ -0,0 +1,147 @@
+package com.tasky.android.storage.queries;
+
+import com.tasky.android.utilities.ParameterCheck;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Represents a QueryFilter that checks if the value of a single property
+ * of the target items is one of the specified values.
+ */
+public class InQueryFilter<TValue> extends QueryFilterBase {
+    private final String columnName;
+    private final List<TValue> values;
+    private final Set<Object> valueSet;
+    private final ColumnValueReader reader;
+    private final boolean integral;
+
+    /**
+     * Creates an InQueryFilter.
+     * @param columnName Column that the InQueryFilter should compare.
+     * @param values Values of which the column should have one; duplicates are ignored.
+     */
+    public InQueryFilter(String columnName, Collection<? extends TValue> values) {
+        ParameterCheck.notNull(columnName, "columnName");
+        ParameterCheck.notNull(values, "values");
+        if (values.isEmpty()) throw new IllegalArgumentException("values cannot be empty.");
+        // Not values.contains(null), as some collections reject looking up null.
+        for (TValue value : values) {
+            if (value == null) throw new IllegalArgumentException("values cannot contain null.");
+        }
+
+        this.columnName = columnName;
+        this.values = Collections.unmodifiableList(new ArrayList(new LinkedHashSet(values)));
+        this.valueSet = new HashSet();
+        for (TValue value : this.values) {
+            valueSet.add(normalize(value));
+        }
+        this.reader = new ColumnValueReader(columnName);
+
+        this.integral = areIntegral(this.values);
+
+        // Sqlite limits the number of parameters, so only integral values can exceed it.
+        if (this.values.size() > QueryFilterCompiler.MAXIMUM_PARAMETERS && !integral) {
+            throw new IllegalArgumentException("Only integral values can be used for more than "
+                + QueryFilterCompiler.MAXIMUM_PARAMETERS + " values.");
+        }
+    }
+
+    /**
+     * Gets the column that the InQueryFilter compares.
+     * @return The column that the InQueryFilter compares.
+     */
+    public String getColumnName() { return columnName; }
+
+    /**
+     * Gets the values of which the column should have one.
+     * @return The distinct values of which the column should have one.
+     */
+    public List<TValue> getValues() { return values; }
+
+    /**
+     * Appends the where clause and the parameters of this QueryFilter to the compiler.
+     * @param compiler Compiler that collects the where clause and the parameters.
+     */
+    @Override
+    protected void compileSqlite(QueryFilterCompiler compiler) {
+        compiler.append(columnName);
+        compiler.append(" IN ");
+        appendValues(compiler);
+    }
+
+    /**
+     * Appends the where clause that matches the items which this QueryFilter does not match, including
+     * those with null values, and its parameters to the compiler.
+     * @param compiler Compiler that collects the where clause and the parameters.
+     */
+    @Override
+    protected void compileNegatedSqlite(QueryFilterCompiler compiler) {
+        compiler.beginNegatedComparison(columnName);
+        compiler.append(" NOT IN ");
+        appendValues(compiler);
+        compiler.endNegatedComparison(columnName);
+    }
+
+    /**
+     * Appends the parenthesized list of the values to the compiler.
+     */
+    private void appendValues(QueryFilterCompiler compiler) {
+        compiler.append("(");
+        boolean inlineValues = integral && compiler.isInliningIntegralValues();
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) compiler.append(",");
+            if (inlineValues) {
+                // Integral values cannot inject SQL.
+                compiler.appendInlinedValue(((Number)values.get(i)).longValue());
+            } else {
+                compiler.append("?");
+                compiler.appendParameter(values.get(i));
+            }
+        }
+        compiler.append(")");
+    }
+
+    /**
+     * Checks if the specified object satisfies the filter condition.
+     * @param target Object on which to test the filter condition.
+     * @return True, if the object satisfies the filter condition; otherwise false.
+     */
+    @Override
+    public boolean evaluate(Object target) throws IllegalAccessException {
+        try {
+            Object actual = reader.read(target);
+            return actual != null && valueSet.contains(normalize(actual));
+        } catch (NoSuchFieldException exception) {
+            // Field not found in target object; cannot match.
+            return false;
+        }
+    }
+
+    /**
+     * Converts integral values to Long, so that values of different integral types
+     * are equal if they have the same numeric value, as they are in Sqlite.
+     * @param value Value that should be converted.
+     * @return The value as Long if it is integral; otherwise the value itself.
+     */
+    public static Object normalize(Object value) {
+        return isIntegral(value) && !(value instanceof Long) ? ((Number)value).longValue() : value;
+    }
+
+    private static boolean areIntegral(Collection<?> values) {
+        for (Object value : values) {
+            if (!isIntegral(value)) return false;
+        }
+
+        return true;
+    }
+
+    private static boolean isIntegral(Object value) {
+        return value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte;
+    }
+}
@@ -0,0 +1,54 @@
+package com.tasky.android.storage.queries;
+
+import com.tasky.android.utilities.ParameterCheck;
+
+/**
+ * Represents a QueryFilter that matches the items which are not matched by another QueryFilter.
+ */
+public final class NotQueryFilter extends QueryFilterBase {
+    private final QueryFilter negated;
+
+    /**
+     * Creates a NotQueryFilter.
+     * @param negated QueryFilter that should be negated.
+     */
+    public NotQueryFilter(QueryFilter negated) {
+        ParameterCheck.notNull(negated, "negated");
+        this.negated = negated;
+    }
+
+    /**
+     * Gets the QueryFilter that is negated.
+     * @return The QueryFilter that is negated.
+     */
+    public QueryFilter getNegated() { return negated; }
+
+    /**
+     * Appends the where clause and the parameters of this QueryFilter to the compiler.
+     * The negation is pushed down into the negated QueryFilter, so that its columns can still be looked up in indexes.
+     * @param compiler Compiler that collects the where clause and the parameters.
+     */
+    @Override
+    protected void compileSqlite(QueryFilterCompiler compiler) {
+        compiler.appendNegatedFilter(negated);
+    }
+
+    /**
+     * Appends the where clause of the negated QueryFilter and its parameters to the compiler.
+     * @param compiler Compiler that collects the where clause and the parameters.
+     */
+    @Override
+    protected void compileNegatedSqlite(QueryFilterCompiler compiler) {
+        compiler.appendFilter(negated);
+    }
+
+    /**
+     * Checks if the specified object satisfies the filter condition.
+     * @param target Object on which to test the filter condition.
+     * @return True, if the object satisfies the filter condition; otherwise false.
+     */
+    @Override
+    public boolean evaluate(Object target) throws IllegalAccessException {
+        return !negated.evaluate(target);
+    }
+}
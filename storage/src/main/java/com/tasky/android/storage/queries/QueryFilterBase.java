@@ -4,19 +4,58 @@ import java.util.List;
 
 /**
  * Base implementation of a QueryFilter with basic features.
+ * As QueryFilters are immutable, the translation to Sqlite syntax is only done once.
  */
 public abstract class QueryFilterBase implements QueryFilter {
+    private volatile CompiledQueryFilter compiled;
+
     /**
      * Generates a where clause that can be used in an Sqlite query.
      * @return A String with the where clause.
      */
-    public abstract String buildSqliteWhereClause();
+    public String buildSqliteWhereClause() {
+        return compile().getWhereClause();
+    }
 
     /**
      * Gets a list of the parameters used in the where clause in the order of their appearance.
      * @return A list of the parameters.
      */
-    public abstract List<String> getSqliteParameters();
+    public List<String> getSqliteParameters() {
+        return compile().getSqliteParameterList();
+    }
+
+    /**
+     * Gets the translation of this QueryFilter to Sqlite syntax.
+     * @return The compiled form of this QueryFilter.
+     */
+    public CompiledQueryFilter compile() {
+        CompiledQueryFilter result = compiled;
+        if (result == null) {
+            result = QueryFilterCompiler.compileTree(this);
+            compiled = result;
+        }
+
+        return result;
+    }
+
+    /**
+     * Gets the translation of this QueryFilter if it has already been compiled.
+     */
+    CompiledQueryFilter getCompiledIfPresent() { return compiled; }
+
+    /**
+     * Appends the where clause and the parameters of this QueryFilter to the compiler.
+     * @param compiler Compiler that collects the where clause and the parameters.
+     */
+    protected abstract void compileSqlite(QueryFilterCompiler compiler);
+
+    /**
+     * Appends the where clause that matches exactly the items which this QueryFilter does not match,
+     * and the parameters of that where clause, to the compiler.
+     * @param compiler Compiler that collects the where clause and the parameters.
+     */
+    protected abstract void compileNegatedSqlite(QueryFilterCompiler compiler);
 
     /**
      * Checks if the specified object satisfies the filter condition.
@@ -42,4 +81,4 @@ public abstract class QueryFilterBase implements QueryFilter {
     public QueryFilterBase Or(QueryFilter other) {
         return new CombinedQueryFilter(this, other, CombinedQueryFilter.CombinationType.Or);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,173 @@
+package com.tasky.android.storage.queries;
+
+import com.tasky.android.storage.SqliteTools;
+import com.tasky.android.storage.TaskyContract;
+import com.tasky.android.utilities.ParameterCheck;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Translates QueryFilters to Sqlite syntax in a single walk over the filter tree,
+ * collecting the where clause and the converted parameters on the way.
+ */
+public final class QueryFilterCompiler {
+    /**
+     * Maximum number of parameters of a statement that Sqlite accepts.
+     */
+    public static final int MAXIMUM_PARAMETERS = 999;
+
+    private final StringBuilder whereClause = new StringBuilder();
+    private final List<String> parameters = new ArrayList();
+    private final boolean inliningIntegralValues;
+    private boolean hasInlinedValues;
+
+    private QueryFilterCompiler(boolean inliningIntegralValues) {
+        this.inliningIntegralValues = inliningIntegralValues;
+    }
+
+    /**
+     * Compiles the specified filter to Sqlite syntax.
+     * @param filter Filter that should be compiled.
+     * @return The compiled filter.
+     */
+    public static CompiledQueryFilter compile(QueryFilter filter) {
+        ParameterCheck.notNull(filter, "filter");
+
+        if (filter instanceof EmptyQueryFilter) return CompiledQueryFilter.EMPTY;
+        if (filter instanceof QueryFilterBase) return ((QueryFilterBase)filter).compile();
+        return compileTree(filter);
+    }
+
+    /**
+     * Walks the filter tree to compile the specified filter.
+     */
+    static CompiledQueryFilter compileTree(QueryFilter filter) {
+        QueryFilterCompiler compiler = new QueryFilterCompiler(false);
+        compiler.appendFilter(filter);
+
+        // Only if the whole filter needs too many parameters, integral values are
+        // written into the SQL, as this gives every set of values its own statement.
+        if (compiler.parameters.size() > MAXIMUM_PARAMETERS) {
+            compiler = new QueryFilterCompiler(true);
+            compiler.appendFilter(filter);
+            if (compiler.parameters.size() > MAXIMUM_PARAMETERS) {
+                throw new IllegalArgumentException("The filter needs more than " + MAXIMUM_PARAMETERS + " parameters.");
+            }
+        }
+
+        return new CompiledQueryFilter(
+            compiler.whereClause.toString(),
+            compiler.parameters.toArray(new String[compiler.parameters.size()]),
+            compiler.hasInlinedValues);
+    }
+
+    /**
+     * Appends the specified filter to the where clause.
+     * @param filter Filter that should be appended.
+     */
+    public void appendFilter(QueryFilter filter) {
+        if (filter instanceof QueryFilterBase) {
+            // Reuse the translation of subtrees that have already been compiled.
+            CompiledQueryFilter compiled = ((QueryFilterBase)filter).getCompiledIfPresent();
+            if (compiled == null || (inliningIntegralValues && compiled.getParameterCount() > 0)) {
+                ((QueryFilterBase)filter).compileSqlite(this);
+            } else {
+                whereClause.append(compiled.getWhereClause());
+                compiled.addSqliteParametersTo(parameters);
+                hasInlinedValues |= compiled.hasInlinedValues();
+            }
+        } else if (filter instanceof EmptyQueryFilter) {
+            // Matches everything when nested into other filters.
+            whereClause.append('1');
+        } else {
+            whereClause.append(filter.buildSqliteWhereClause());
+            parameters.addAll(filter.getSqliteParameters());
+        }
+    }
+
+    /**
+     * Appends the negation of the specified filter to the where clause.
+     * Filters push the negation down into their operands, so that the columns stay bare
+     * and Sqlite can still use their indexes.
+     * @param filter Filter of which the negation should be appended.
+     */
+    public void appendNegatedFilter(QueryFilter filter) {
+        if (filter instanceof QueryFilterBase) {
+            ((QueryFilterBase)filter).compileNegatedSqlite(this);
+        } else if (filter instanceof EmptyQueryFilter) {
+            // Matches nothing when negated.
+            whereClause.append('0');
+        } else {
+            // Comparisons with null values are unknown in Sqlite and would stay unknown when negated,
+            // while they do not match in memory; so unknown results are treated as no match first.
+            whereClause.append("NOT IFNULL((");
+            whereClause.append(filter.buildSqliteWhereClause());
+            whereClause.append("),0)");
+            parameters.addAll(filter.getSqliteParameters());
+        }
+    }
+
+    /**
+     * Appends the start of a negated comparison of the specified column.
+     * Comparisons with null values are unknown in Sqlite and stay unknown when negated,
+     * while they do not match in memory, so their negation does; so the negated comparison
+     * is combined with a null check unless the column cannot be null.
+     * @param columnName Column that is compared.
+     */
+    public void beginNegatedComparison(String columnName) {
+        if (isNullable(columnName)) whereClause.append('(');
+        whereClause.append(columnName);
+    }
+
+    /**
+     * Appends the end of a negated comparison started with beginNegatedComparison.
+     * @param columnName Column that is compared.
+     */
+    public void endNegatedComparison(String columnName) {
+        if (isNullable(columnName)) {
+            whereClause.append(" OR ");
+            whereClause.append(columnName);
+            whereClause.append(" ISNULL)");
+        }
+    }
+
+    /**
+     * Appends the specified Sqlite syntax to the where clause.
+     * @param sql Sqlite syntax that should be appended.
+     */
+    public void append(String sql) {
+        whereClause.append(sql);
+    }
+
+    /**
+     * Indicates if integral values should be written into the where clause instead of being
+     * bound as parameters, because the filter needs more parameters than Sqlite accepts.
+     * @return True, if integral values should be written into the where clause; otherwise false.
+     */
+    public boolean isInliningIntegralValues() { return inliningIntegralValues; }
+
+    /**
+     * Appends an integral value directly to the where clause instead of binding it as a parameter.
+     * @param value Integral value that should be appended.
+     */
+    public void appendInlinedValue(long value) {
+        whereClause.append(value);
+        hasInlinedValues = true;
+    }
+
+    /**
+     * Adds a value as the parameter for the next placeholder in the where clause.
+     * @param value Value of the parameter; will be converted for the use in Sqlite.
+     */
+    public void appendParameter(Object value) {
+        parameters.add(SqliteTools.convertSqliteParameter(value));
+    }
+
+    /**
+     * Checks if the column can contain null values; only the row Ids cannot.
+     */
+    private static boolean isNullable(String columnName) {
+        return !TaskyContract.Task._ID.equals(columnName);
+    }
+}
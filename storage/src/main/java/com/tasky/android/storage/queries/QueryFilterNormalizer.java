@@ -0,0 +1,192 @@
+package com.tasky.android.storage.queries;
+
+import com.tasky.android.storage.TaskColumnAccessor;
+import com.tasky.android.utilities.ParameterCheck;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Rewrites QueryFilters into equivalent, simpler forms: nested combinations of the same type
+ * are flattened, constant branches are folded and double negations are removed.
+ * For the evaluation in memory, the combined filters can also be reordered,
+ * so that cheap and decisive filters are evaluated first.
+ */
+public final class QueryFilterNormalizer {
+    /**
+     * Estimated cost of reading a value through reflection compared to a column accessor.
+     */
+    private static final double REFLECTION_COST = 20;
+
+    private QueryFilterNormalizer() { }
+
+    /**
+     * Normalizes the specified filter without changing the order of its combined filters.
+     * @param filter Filter that should be normalized.
+     * @return The normalized filter; or the specified filter itself if it is already normalized.
+     */
+    public static QueryFilter normalize(QueryFilter filter) {
+        ParameterCheck.notNull(filter, "filter");
+
+        if (filter instanceof CombinedQueryFilter) {
+            return normalizeCombination((CombinedQueryFilter)filter);
+        }
+
+        if (filter instanceof NotQueryFilter) {
+            QueryFilter negated = normalize(((NotQueryFilter)filter).getNegated());
+            if (negated instanceof NotQueryFilter) return ((NotQueryFilter)negated).getNegated();
+            return negated == ((NotQueryFilter)filter).getNegated() ? filter : new NotQueryFilter(negated);
+        }
+
+        return filter;
+    }
+
+    /**
+     * Normalizes the specified filter and orders its combined filters for the evaluation in memory,
+     * so that filters which are cheap to evaluate and likely to decide the result come first.
+     * @param filter Filter that should be optimized.
+     * @return The optimized filter; or the specified filter itself if it cannot be optimized.
+     */
+    public static QueryFilter optimizeForEvaluation(QueryFilter filter) {
+        return reorder(normalize(filter));
+    }
+
+    /**
+     * Creates a filter that never matches.
+     * @return A filter that never matches.
+     */
+    public static QueryFilter never() {
+        return new NotQueryFilter(new EmptyQueryFilter());
+    }
+
+    private static QueryFilter normalizeCombination(CombinedQueryFilter filter) {
+        CombinedQueryFilter.CombinationType type = filter.getCombinationType();
+        boolean decisiveResult = type.getDecisiveResult();
+        List<QueryFilter> filters = new ArrayList();
+        boolean changed = false;
+
+        for (QueryFilter combined : filter.getFilters()) {
+            QueryFilter normalized = normalize(combined);
+            changed |= normalized != combined;
+
+            Boolean constant = getConstantResult(normalized);
+            if (constant != null) {
+                // A decisive constant decides the whole combination, others do not contribute.
+                if (constant == decisiveResult) return normalized;
+                changed = true;
+            } else if (normalized instanceof CombinedQueryFilter
+                    && ((CombinedQueryFilter)normalized).getCombinationType() == type) {
+                filters.addAll(((CombinedQueryFilter)normalized).getFilters());
+                changed = true;
+            } else {
+                filters.add(normalized);
+            }
+        }
+
+        if (filters.isEmpty()) return decisiveResult ? never() : new EmptyQueryFilter();
+        if (filters.size() == 1) return filters.get(0);
+        return changed ? new CombinedQueryFilter(type, filters) : filter;
+    }
+
+    /**
+     * Gets the result of a filter that matches either everything or nothing.
+     * @return The constant result of the filter; or null if it depends on the target.
+     */
+    private static Boolean getConstantResult(QueryFilter filter) {
+        if (filter instanceof EmptyQueryFilter) return true;
+        if (filter instanceof NotQueryFilter && ((NotQueryFilter)filter).getNegated() instanceof EmptyQueryFilter) return false;
+        return null;
+    }
+
+    private static QueryFilter reorder(QueryFilter filter) {
+        if (filter instanceof NotQueryFilter) {
+            QueryFilter negated = reorder(((NotQueryFilter)filter).getNegated());
+            return negated == ((NotQueryFilter)filter).getNegated() ? filter : new NotQueryFilter(negated);
+        }
+
+        if (!(filter instanceof CombinedQueryFilter)) return filter;
+
+        CombinedQueryFilter combinedFilter = (CombinedQueryFilter)filter;
+        List<QueryFilter> filters = new ArrayList();
+        for (QueryFilter combined : combinedFilter.getFilters()) {
+            filters.add(reorder(combined));
+        }
+
+        // Sort by the expected cost until the result is decided; the sort is stable for equal ranks.
+        final boolean decisiveResult = combinedFilter.getCombinationType().getDecisiveResult();
+        Collections.sort(filters, new Comparator<QueryFilter>() {
+            @Override
+            public int compare(QueryFilter first, QueryFilter second) {
+                return Double.compare(getRank(first, decisiveResult), getRank(second, decisiveResult));
+            }
+        });
+
+        return filters.equals(combinedFilter.getFilters())
+            ? filter
+            : new CombinedQueryFilter(combinedFilter.getCombinationType(), filters);
+    }
+
+    /**
+     * Gets the cost of evaluating the filter divided by the probability that it decides the combination.
+     */
+    private static double getRank(QueryFilter filter, boolean decisiveResult) {
+        double matchProbability = estimateMatchProbability(filter);
+        double decisiveProbability = decisiveResult ? matchProbability : 1 - matchProbability;
+        return decisiveProbability <= 0 ? Double.MAX_VALUE : estimateCost(filter) / decisiveProbability;
+    }
+
+    private static double estimateCost(QueryFilter filter) {
+        if (filter instanceof EmptyQueryFilter) return 0;
+        if (filter instanceof ValueQueryFilter) return getReadCost(((ValueQueryFilter)filter).getColumnName());
+        if (filter instanceof InQueryFilter) return getReadCost(((InQueryFilter)filter).getColumnName()) + 1;
+        if (filter instanceof BetweenQueryFilter) return getReadCost(((BetweenQueryFilter)filter).getColumnName()) + 1;
+        if (filter instanceof NotQueryFilter) return estimateCost(((NotQueryFilter)filter).getNegated());
+
+        if (filter instanceof CombinedQueryFilter) {
+            double cost = 0;
+            for (QueryFilter combined : ((CombinedQueryFilter)filter).getFilters()) {
+                cost += estimateCost(combined);
+            }
+
+            return cost;
+        }
+
+        return REFLECTION_COST;
+    }
+
+    private static double estimateMatchProbability(QueryFilter filter) {
+        if (filter instanceof EmptyQueryFilter) return 1;
+        if (filter instanceof InQueryFilter) return 0.2;
+        if (filter instanceof BetweenQueryFilter) return 0.25;
+        if (filter instanceof NotQueryFilter) return 1 - estimateMatchProbability(((NotQueryFilter)filter).getNegated());
+
+        if (filter instanceof ValueQueryFilter) {
+            ValueQueryFilter valueFilter = (ValueQueryFilter)filter;
+            switch (valueFilter.getType()) {
+                case Equals: return TaskColumnAccessor.find(valueFilter.getColumnName()) == TaskColumnAccessor.Id ? 0.01 : 0.1;
+                case IsNull: return 0.5;
+                default: return 0.4;
+            }
+        }
+
+        if (filter instanceof CombinedQueryFilter) {
+            CombinedQueryFilter combinedFilter = (CombinedQueryFilter)filter;
+            boolean and = combinedFilter.getCombinationType() == CombinedQueryFilter.CombinationType.And;
+            double probability = 1;
+            for (QueryFilter combined : combinedFilter.getFilters()) {
+                double matchProbability = estimateMatchProbability(combined);
+                probability *= and ? matchProbability : 1 - matchProbability;
+            }
+
+            return and ? probability : 1 - probability;
+        }
+
+        return 0.5;
+    }
+
+    private static double getReadCost(String columnName) {
+        return TaskColumnAccessor.find(columnName) == null ? REFLECTION_COST : 1;
+    }
+}
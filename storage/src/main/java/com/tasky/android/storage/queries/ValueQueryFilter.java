@@ -1,12 +1,6 @@
 package com.tasky.android.storage.queries;
 
-import com.tasky.android.storage.SqliteTools;
 import com.tasky.android.utilities.ParameterCheck;
-import com.tasky.android.utilities.ReflectionTools;
-
-import java.lang.reflect.Field;
-import java.util.ArrayList;
-import java.util.List;
 
 /**
  * Represents a QueryFilter that puts a condition on a single property of the target items.
@@ -15,6 +9,7 @@ public class ValueQueryFilter<TValue> extends QueryFilterBase {
     private final String columnName;
     private final TValue expected;
     private final Type type;
+    private final ColumnValueReader reader;
 
     /**
      * Creates a ValueQueryFilter.
@@ -30,28 +25,63 @@ public class ValueQueryFilter<TValue> extends QueryFilterBase {
         this.columnName = columnName;
         this.type = type;
         this.expected = expected;
+        this.reader = new ColumnValueReader(columnName);
     }
 
     /**
-     * Generates a where clause that can be used in an Sqlite query.
-     * @return A String with the where clause.
+     * Gets the column that the ValueQueryFilter compares.
+     * @return The column that the ValueQueryFilter compares.
+     */
+    public String getColumnName() { return columnName; }
+
+    /**
+     * Gets the type of the comparison that is applied.
+     * @return The type of the comparison that is applied.
+     */
+    public Type getType() { return type; }
+
+    /**
+     * Gets the value that is used for the comparison.
+     * @return The value that is used for the comparison; or null if the comparison does not use a value.
+     */
+    public TValue getExpected() { return expected; }
+
+    /**
+     * Appends the where clause and the parameters of this QueryFilter to the compiler.
+     * @param compiler Compiler that collects the where clause and the parameters.
      */
     @Override
-    public String buildSqliteWhereClause() {
-        return this.columnName + " "
-                + type.getSqliteOperator()
-                + (type.usesValue() ? " ?" : "");
+    protected void compileSqlite(QueryFilterCompiler compiler) {
+        compiler.append(columnName);
+        compiler.append(" ");
+        compiler.append(type.getSqliteOperator());
+        if (type.usesValue()) {
+            compiler.append(" ?");
+            compiler.appendParameter(expected);
+        }
     }
 
     /**
-     * Gets a list of the parameters used in the where clause in the order of their appearance.
-     * @return A list of the parameters.
+     * Appends the where clause that matches the items which this QueryFilter does not match, including
+     * those with null values, and its parameters to the compiler.
+     * @param compiler Compiler that collects the where clause and the parameters.
      */
     @Override
-    public List<String> getSqliteParameters() {
-        List<String> result = new ArrayList();
-        if (type.usesValue()) result.add(SqliteTools.convertSqliteParameter(expected));
-        return result;
+    protected void compileNegatedSqlite(QueryFilterCompiler compiler) {
+        if (!type.usesValue()) {
+            // Checks for null values have a definite result.
+            compiler.append(columnName);
+            compiler.append(" ");
+            compiler.append(type.getNegatedSqliteOperator());
+            return;
+        }
+
+        compiler.beginNegatedComparison(columnName);
+        compiler.append(" ");
+        compiler.append(type.getNegatedSqliteOperator());
+        compiler.append(" ?");
+        compiler.appendParameter(expected);
+        compiler.endNegatedComparison(columnName);
     }
 
     /**
@@ -61,19 +91,12 @@ public class ValueQueryFilter<TValue> extends QueryFilterBase {
      */
     @Override
     public boolean evaluate(Object target) throws IllegalAccessException {
-        // Search for field in object with same name as the column.
-        // Ignoring case because Sqlite is not case-sensitive.
-        List<Field> fields = ReflectionTools.getFieldsWithInheritance(target.getClass());
-        for (Field field:fields) {
-            if (field.getName().equalsIgnoreCase(columnName)) {
-                // If found, compare the value in the field.
-                field.setAccessible(true);
-                return type.evaluate(expected, field.get(target));
-            }
+        try {
+            return type.evaluate(expected, reader.read(target));
+        } catch (NoSuchFieldException exception) {
+            // Field not found in target object; cannot match.
+            return false;
         }
-
-        // Field not found in target object; cannot match.
-        return false;
     }
 
     /**
@@ -83,7 +106,7 @@ public class ValueQueryFilter<TValue> extends QueryFilterBase {
         /**
          * Compares values for equality.
          */
-        Equals("=") {
+        Equals("=", "<>") {
             @Override
             public<TExpected> boolean evaluate(TExpected expected, Object actual) {
                 return actual != null && actual.equals(expected);
@@ -93,7 +116,7 @@ public class ValueQueryFilter<TValue> extends QueryFilterBase {
         /**
          * Checks if the value of the entity is smaller than the specified value.
          */
-        SmallerThan("<") {
+        SmallerThan("<", ">=") {
             @Override
             public<TExpected> boolean evaluate(TExpected expected, Object actual) {
                 if (actual == null) return false;
@@ -102,10 +125,46 @@ public class ValueQueryFilter<TValue> extends QueryFilterBase {
             }
         },
 
+        /**
+         * Checks if the value of the entity is greater than the specified value.
+         */
+        GreaterThan(">", "<=") {
+            @Override
+            public<TExpected> boolean evaluate(TExpected expected, Object actual) {
+                if (actual == null) return false;
+                Comparable<TExpected> asComparable = (Comparable<TExpected>)actual;
+                return asComparable.compareTo(expected) > 0;
+            }
+        },
+
+        /**
+         * Checks if the value of the entity is smaller than or equal to the specified value.
+         */
+        SmallerOrEqual("<=", ">") {
+            @Override
+            public<TExpected> boolean evaluate(TExpected expected, Object actual) {
+                if (actual == null) return false;
+                Comparable<TExpected> asComparable = (Comparable<TExpected>)actual;
+                return asComparable.compareTo(expected) <= 0;
+            }
+        },
+
+        /**
+         * Checks if the value of the entity is greater than or equal to the specified value.
+         */
+        GreaterOrEqual(">=", "<") {
+            @Override
+            public<TExpected> boolean evaluate(TExpected expected, Object actual) {
+                if (actual == null) return false;
+                Comparable<TExpected> asComparable = (Comparable<TExpected>)actual;
+                return asComparable.compareTo(expected) >= 0;
+            }
+        },
+
         /**
          * Checks if the value of the entity is null.
          */
-        IsNull("ISNULL", false) {
+        IsNull("ISNULL", "NOTNULL", false) {
             @Override
             public <TExpected> boolean evaluate(TExpected expected, Object actual) {
                 return actual == null;
@@ -113,11 +172,13 @@ public class ValueQueryFilter<TValue> extends QueryFilterBase {
         };
 
         private final String _sqliteOperator;
+        private final String _negatedSqliteOperator;
         private final boolean _usesValue;
 
-        Type(String sqliteOperator) { this(sqliteOperator, true); }
-        Type(String sqliteOperator, boolean usesValue) {
+        Type(String sqliteOperator, String negatedSqliteOperator) { this(sqliteOperator, negatedSqliteOperator, true); }
+        Type(String sqliteOperator, String negatedSqliteOperator, boolean usesValue) {
             _sqliteOperator = sqliteOperator;
+            _negatedSqliteOperator = negatedSqliteOperator;
             _usesValue = usesValue;
         }
 
@@ -127,6 +188,12 @@ public class ValueQueryFilter<TValue> extends QueryFilterBase {
          */
         public String getSqliteOperator() { return _sqliteOperator; }
 
+        /**
+         * Gets the identifier for the opposite comparison operation in Sqlite syntax.
+         * @return The identifier for the comparison operation that matches the non-null values which this one does not match.
+         */
+        public String getNegatedSqliteOperator() { return _negatedSqliteOperator; }
+
         /**
          * Indicates if the comparison operation makes use of the second operand.
          * @return True, if the operand is used; otherwise false.
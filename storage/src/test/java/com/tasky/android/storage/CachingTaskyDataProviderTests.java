@@ -0,0 +1,363 @@
+package com.tasky.android.storage;
+
+import com.tasky.android.entities.Task;
+import com.tasky.android.entities.TaskPriority;
+
+import org.joda.time.DateTime;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the CachingTaskyDataProvider implementation.
+ */
+public class CachingTaskyDataProviderTests {
+    private static final DateTime DONE_ON = new DateTime(2017, 6, 18, 12, 0);
+
+    @Test
+    public void CachingTaskyDataProvider_readsMissingTaskFromStorage() {
+        FakeTaskyDataProvider storage = new FakeTaskyDataProvider();
+        storage.store(createTask(1, "STORED"));
+        CachingTaskyDataProvider sut = new CachingTaskyDataProvider(storage, 10);
+
+        Task result = sut.getTask(1);
+
+        assertEquals("STORED", result.getTitle());
+        assertEquals(1, storage.getTaskCount);
+        assertEquals(0, sut.getHitCount());
+        assertEquals(1, sut.getMissCount());
+    }
+
+    @Test
+    public void CachingTaskyDataProvider_servesRepeatedReadFromCache() {
+        FakeTaskyDataProvider storage = new FakeTaskyDataProvider();
+        storage.store(createTask(1, "STORED"));
+        CachingTaskyDataProvider sut = new CachingTaskyDataProvider(storage, 10);
+
+        sut.getTask(1);
+        Task result = sut.getTask(1);
+
+        assertEquals("STORED", result.getTitle());
+        assertEquals(1, storage.getTaskCount);
+        assertEquals(1, sut.getHitCount());
+        assertEquals(1, sut.getMissCount());
+    }
+
+    @Test
+    public void CachingTaskyDataProvider_returnsNullForUnknownTask() {
+        CachingTaskyDataProvider sut = new CachingTaskyDataProvider(new FakeTaskyDataProvider(), 10);
+        assertNull(sut.getTask(1));
+    }
+
+    @Test
+    public void CachingTaskyDataProvider_writesInsertedTaskThrough() {
+        FakeTaskyDataProvider storage = new FakeTaskyDataProvider();
+        CachingTaskyDataProvider sut = new CachingTaskyDataProvider(storage, 10);
+
+        Task task = createTask(0, "INSERTED");
+        sut.insertTask(task);
+        Task result = sut.getTask(task.getId());
+
+        assertEquals("INSERTED", result.getTitle());
+        assertEquals(0, storage.getTaskCount);
+        assertEquals(1, sut.getHitCount());
+    }
+
+    @Test
+    public void CachingTaskyDataProvider_writesUpdatedTasksThrough() {
+        FakeTaskyDataProvider storage = new FakeTaskyDataProvider();
+        storage.store(createTask(1, "BEFORE"));
+        storage.store(createTask(2, "BEFORE"));
+        CachingTaskyDataProvider sut = new CachingTaskyDataProvider(storage, 10);
+        sut.getTask(1);
+        sut.getTask(2);
+
+        sut.updateTask(createTask(1, "SINGLE"));
+        sut.updateTasks(Arrays.asList(createTask(2, "BATCH")));
+
+        assertEquals("SINGLE", sut.getTask(1).getTitle());
+        assertEquals("BATCH", sut.getTask(2).getTitle());
+        assertEquals(2, storage.getTaskCount);
+    }
+
+    @Test
+    public void CachingTaskyDataProvider_doesNotCachePartialUpdateOfUncachedTask() {
+        FakeTaskyDataProvider storage = new FakeTaskyDataProvider();
+        storage.store(createTask(1, "STORED"));
+        CachingTaskyDataProvider sut = new CachingTaskyDataProvider(storage, 10);
+
+        Task update = new Task();
+        update.setId(1);
+        update.setPriority(TaskPriority.High);
+        sut.updateTask(update);
+
+        Task result = sut.getTask(1);
+        assertEquals("STORED", result.getTitle());
+        assertEquals(TaskPriority.High, result.getPriority());
+        assertEquals(1, storage.getTaskCount);
+    }
+
+    @Test
+    public void CachingTaskyDataProvider_doesNotCacheUpdateOfUnknownTask() {
+        FakeTaskyDataProvider storage = new FakeTaskyDataProvider();
+        CachingTaskyDataProvider sut = new CachingTaskyDataProvider(storage, 10);
+
+        sut.updateTask(createTask(42, "UNKNOWN"));
+
+        assertNull(sut.getTask(42));
+    }
+
+    @Test
+    public void CachingTaskyDataProvider_isNotAffectedByChangesOfReturnedInstances() {
+        FakeTaskyDataProvider storage = new FakeTaskyDataProvider();
+        storage.store(createTask(1, "STORED"));
+        CachingTaskyDataProvider sut = new CachingTaskyDataProvider(storage, 10);
+
+        sut.getTask(1).setTitle("CHANGED");
+
+        assertEquals("STORED", sut.getTask(1).getTitle());
+    }
+
+    @Test
+    public void CachingTaskyDataProvider_readsInvalidatedTaskFromStorage() {
+        FakeTaskyDataProvider storage = new FakeTaskyDataProvider();
+        storage.store(createTask(1, "BEFORE"));
+        CachingTaskyDataProvider sut = new CachingTaskyDataProvider(storage, 10);
+        sut.getTask(1);
+
+        storage.store(createTask(1, "EXTERNAL"));
+        sut.invalidate(1);
+
+        assertEquals("EXTERNAL", sut.getTask(1).getTitle());
+        assertEquals(2, storage.getTaskCount);
+    }
+
+    @Test
+    public void CachingTaskyDataProvider_dropsTaskChangedByOtherWriter() {
+        FakeTaskyDataProvider storage = new FakeTaskyDataProvider();
+        storage.store(createTask(1, "BEFORE"));
+        CachingTaskyDataProvider sut = new CachingTaskyDataProvider(storage, 10);
+        sut.getTask(1);
+
+        storage.store(createTask(1, "EXTERNAL"));
+
+        assertEquals("EXTERNAL", sut.getTask(1).getTitle());
+        assertEquals(2, storage.getTaskCount);
+    }
+
+    @Test
+    public void CachingTaskyDataProvider_keepsWriteMadeDuringRead() {
+        FakeTaskyDataProvider storage = new FakeTaskyDataProvider();
+        storage.store(createTask(1, "BEFORE"));
+        final CachingTaskyDataProvider sut = new CachingTaskyDataProvider(storage, 10);
+        storage.duringRead = new Runnable() {
+            @Override
+            public void run() {
+                sut.updateTask(createTask(1, "NEWER"));
+            }
+        };
+
+        assertEquals("BEFORE", sut.getTask(1).getTitle());
+        assertEquals("NEWER", sut.getTask(1).getTitle());
+    }
+
+    @Test
+    public void CachingTaskyDataProvider_doesNotCacheTaskChangedDuringRead() {
+        final FakeTaskyDataProvider storage = new FakeTaskyDataProvider();
+        storage.store(createTask(1, "BEFORE"));
+        CachingTaskyDataProvider sut = new CachingTaskyDataProvider(storage, 10);
+        storage.duringRead = new Runnable() {
+            @Override
+            public void run() {
+                storage.store(createTask(1, "EXTERNAL"));
+            }
+        };
+
+        sut.getTask(1);
+
+        assertEquals("EXTERNAL", sut.getTask(1).getTitle());
+        assertEquals(2, storage.getTaskCount);
+    }
+
+    @Test
+    public void CachingTaskyDataProvider_dropsLeastRecentlyUsedTask() {
+        FakeTaskyDataProvider storage = new FakeTaskyDataProvider();
+        storage.store(createTask(1, "FIRST"));
+        storage.store(createTask(2, "SECOND"));
+        storage.store(createTask(3, "THIRD"));
+        CachingTaskyDataProvider sut = new CachingTaskyDataProvider(storage, 2);
+
+        sut.getTask(1);
+        sut.getTask(2);
+        sut.getTask(1);
+        sut.getTask(3);
+        sut.getTask(1);
+        sut.getTask(2);
+
+        assertEquals(2, sut.getHitCount());
+        assertEquals(4, sut.getMissCount());
+    }
+
+    @Test
+    public void CachingTaskyDataProvider_invalidatesCacheOnFailedTransaction() {
+        FakeTaskyDataProvider storage = new FakeTaskyDataProvider();
+        storage.store(createTask(1, "BEFORE"));
+        final CachingTaskyDataProvider sut = new CachingTaskyDataProvider(storage, 10);
+        sut.getTask(1);
+
+        try {
+            sut.runInTransaction(new Runnable() {
+                @Override
+                public void run() {
+                    sut.updateTask(createTask(1, "ROLLED BACK"));
+                    throw new IllegalStateException();
+                }
+            });
+            fail();
+        } catch (IllegalStateException exception) {
+            // Expected.
+        }
+
+        storage.store(createTask(1, "BEFORE"));
+        assertEquals("BEFORE", sut.getTask(1).getTitle());
+    }
+
+    @Test
+    public void CachingTaskyDataProvider_doesNotCacheUncommittedWrites() {
+        final FakeTaskyDataProvider storage = new FakeTaskyDataProvider();
+        storage.store(createTask(1, "BEFORE"));
+        final CachingTaskyDataProvider sut = new CachingTaskyDataProvider(storage, 10);
+        sut.getTask(1);
+
+        sut.runInTransaction(new Runnable() {
+            @Override
+            public void run() {
+                sut.updateTask(createTask(1, "CHANGED"));
+                assertEquals("CHANGED", sut.getTask(1).getTitle());
+                assertEquals(2, storage.getTaskCount);
+            }
+        });
+
+        assertEquals("CHANGED", sut.getTask(1).getTitle());
+        assertEquals("CHANGED", sut.getTask(1).getTitle());
+        assertEquals(3, storage.getTaskCount);
+    }
+
+    @Test
+    public void CachingTaskyDataProvider_writesChangedFieldsIntoCachedTask() {
+        FakeTaskyDataProvider storage = new FakeTaskyDataProvider();
+        storage.store(createTask(1, "STORED"));
+        CachingTaskyDataProvider sut = new CachingTaskyDataProvider(storage, 10);
+        sut.getTask(1);
+
+        Task change = new Task();
+        change.setId(1);
+        change.setPriority(TaskPriority.High);
+        sut.updateTask(change);
+
+        Task result = sut.getTask(1);
+        assertEquals("STORED", result.getTitle());
+        assertEquals(TaskPriority.High, result.getPriority());
+        assertEquals(1, storage.getTaskCount);
+    }
+
+    @Test
+    public void CachingTaskyDataProvider_writesColumnUpdateThrough() {
+        FakeTaskyDataProvider storage = new FakeTaskyDataProvider();
+        storage.store(createTask(1, "STORED"));
+        CachingTaskyDataProvider sut = new CachingTaskyDataProvider(storage, 10);
+        sut.getTask(1);
+
+        int count = sut.updateTaskColumns(1, new TaskUpdate().setPriority(TaskPriority.Low));
+
+        Task result = sut.getTask(1);
+        assertEquals(1, count);
+        assertEquals("STORED", result.getTitle());
+        assertEquals(TaskPriority.Low, result.getPriority());
+        assertEquals(TaskPriority.Low, storage.getTask(1).getPriority());
+    }
+
+    @Test
+    public void CachingTaskyDataProvider_writesBulkColumnUpdateThrough() {
+        FakeTaskyDataProvider storage = new FakeTaskyDataProvider();
+        storage.store(createTask(1, "FIRST"));
+        storage.store(createTask(2, "SECOND"));
+        storage.store(createTask(3, "THIRD"));
+        CachingTaskyDataProvider sut = new CachingTaskyDataProvider(storage, 10);
+        sut.getTask(1);
+        sut.getTask(2);
+        sut.getTask(3);
+
+        int count = sut.updateTaskColumns(Arrays.asList(1L, 3L, 42L), new TaskUpdate().setDoneOn(DONE_ON));
+
+        assertEquals(2, count);
+        assertEquals(DONE_ON, sut.getTask(1).getDoneOn());
+        assertNull(sut.getTask(2).getDoneOn());
+        assertEquals(DONE_ON, sut.getTask(3).getDoneOn());
+        assertEquals("THIRD", sut.getTask(3).getTitle());
+        assertEquals(3, storage.getTaskCount);
+    }
+
+    @Test
+    public void CachingTaskyDataProvider_dropsArchivedTasks() {
+        FakeTaskyDataProvider storage = new FakeTaskyDataProvider();
+        storage.store(createTask(1, "DONE"));
+        storage.store(createTask(2, "OPEN"));
+        CachingTaskyDataProvider sut = new CachingTaskyDataProvider(storage, 10);
+        sut.updateTaskColumns(1, new TaskUpdate().setDoneOn(DONE_ON));
+        sut.getTask(1);
+        sut.getTask(2);
+
+        int count = sut.archiveTasks(DONE_ON.plusDays(1), 10);
+
+        assertEquals(1, count);
+        assertNull(sut.getTask(1));
+        assertEquals("OPEN", sut.getTask(2).getTitle());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void CachingTaskyDataProvider_rejectsNonPositiveSize() {
+        new CachingTaskyDataProvider(new FakeTaskyDataProvider(), 0);
+    }
+
+    private static Task createTask(long id, String title) {
+        Task task = new Task();
+        task.setId(id);
+        task.setTitle(title);
+        return task;
+    }
+
+    /**
+     * Stores tasks in memory and counts the reads by Id.
+     */
+    private static class FakeTaskyDataProvider extends InMemoryTaskyDataProvider {
+        int getTaskCount;
+        Runnable duringRead;
+
+        /**
+         * Writes the task directly into the storage, bypassing any cache.
+         */
+        void store(Task task) {
+            if (super.getTask(task.getId()) == null) {
+                insertTask(task);
+            } else {
+                updateTask(task);
+            }
+        }
+
+        @Override
+        public Task getTask(long id) {
+            getTaskCount++;
+            Task task = super.getTask(id);
+
+            // Simulates a write of another thread while the task is being read.
+            Runnable action = duringRead;
+            duringRead = null;
+            if (action != null) action.run();
+
+            return task;
+        }
+    }
+}
@@ -0,0 +1,516 @@
+package com.tasky.android.storage;
+
+import com.tasky.android.entities.Task;
+import com.tasky.android.entities.TaskPriority;
+import com.tasky.android.storage.queries.BetweenQueryFilter;
+import com.tasky.android.storage.queries.EmptyQueryFilter;
+import com.tasky.android.storage.queries.InQueryFilter;
+import com.tasky.android.storage.queries.NotQueryFilter;
+import com.tasky.android.storage.queries.QueryFilter;
+import com.tasky.android.storage.queries.QueryFilterBase;
+import com.tasky.android.storage.queries.QueryFilterFactory;
+import com.tasky.android.storage.queries.ValueQueryFilter;
+
+import org.joda.time.DateTime;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the InMemoryTaskyDataProvider implementation.
+ */
+public class InMemoryTaskyDataProviderTests {
+    private static final DateTime NOW = new DateTime(2017, 6, 18, 12, 0);
+
+    @Test
+    public void InMemoryTaskyDataProvider_insertsTaskWithNewId() {
+        InMemoryTaskyDataProvider sut = new InMemoryTaskyDataProvider();
+        Task first = createTask("FIRST", null);
+        Task second = createTask("SECOND", null);
+
+        sut.insertTasks(Arrays.asList(first, second));
+
+        assertNotEquals(first.getId(), second.getId());
+        assertEquals("FIRST", sut.getTask(first.getId()).getTitle());
+        assertEquals("SECOND", sut.getTask(second.getId()).getTitle());
+        assertNull(sut.getTask(second.getId() + 1));
+    }
+
+    @Test
+    public void InMemoryTaskyDataProvider_isNotAffectedByChangesOfInstances() {
+        InMemoryTaskyDataProvider sut = new InMemoryTaskyDataProvider();
+        Task task = createTask("STORED", null);
+        sut.insertTask(task);
+
+        task.setTitle("CHANGED");
+        sut.getTask(task.getId()).setTitle("CHANGED");
+
+        assertEquals("STORED", sut.getTask(task.getId()).getTitle());
+    }
+
+    @Test
+    public void InMemoryTaskyDataProvider_updatesTask() {
+        InMemoryTaskyDataProvider sut = new InMemoryTaskyDataProvider();
+        Task task = createTask("TITLE", null);
+        sut.insertTask(task);
+
+        task.setDoneOn(NOW);
+        sut.updateTask(task);
+
+        assertEquals(NOW, sut.getTask(task.getId()).getDoneOn());
+        assertEquals(0, sut.countTasks(isNotDone()));
+        assertEquals(1, sut.countTasks(new ValueQueryFilter(TaskyContract.Task.COLUMN_NAME_DONE_ON, ValueQueryFilter.Type.Equals, NOW)));
+    }
+
+    @Test
+    public void InMemoryTaskyDataProvider_ignoresUpdateOfUnknownTask() {
+        InMemoryTaskyDataProvider sut = new InMemoryTaskyDataProvider();
+        Task task = createTask("TITLE", null);
+        task.setId(42);
+
+        sut.updateTask(task);
+
+        assertNull(sut.getTask(42));
+        assertFalse(sut.anyTasks(new EmptyQueryFilter()));
+    }
+
+    @Test
+    public void InMemoryTaskyDataProvider_updatesOnlyChangedFields() {
+        InMemoryTaskyDataProvider sut = new InMemoryTaskyDataProvider();
+        Task task = createTask("BEFORE", null);
+        sut.insertTask(task);
+        Task first = sut.getTask(task.getId());
+        Task second = sut.getTask(task.getId());
+
+        first.setTitle("AFTER");
+        sut.updateTask(first);
+        second.setPriority(TaskPriority.High);
+        sut.updateTask(second);
+
+        Task result = sut.getTask(task.getId());
+        assertEquals("AFTER", result.getTitle());
+        assertEquals(TaskPriority.High, result.getPriority());
+        assertFalse(first.isDirty());
+        assertFalse(second.isDirty());
+    }
+
+    @Test
+    public void InMemoryTaskyDataProvider_updateTaskColumns_changesOnlyGivenColumns() {
+        InMemoryTaskyDataProvider sut = new InMemoryTaskyDataProvider();
+        Task task = createTask("TITLE", NOW);
+        sut.insertTask(task);
+
+        int count = sut.updateTaskColumns(task.getId(), new TaskUpdate().setDoneOn(NOW).setPriority(TaskPriority.Low));
+
+        Task result = sut.getTask(task.getId());
+        assertEquals(1, count);
+        assertEquals(NOW, result.getDoneOn());
+        assertEquals(TaskPriority.Low, result.getPriority());
+        assertEquals("TITLE", result.getTitle());
+        assertEquals(NOW, result.getDueDate());
+    }
+
+    @Test
+    public void InMemoryTaskyDataProvider_updateTaskColumns_returnsZeroForUnknownId() {
+        InMemoryTaskyDataProvider sut = new InMemoryTaskyDataProvider();
+
+        assertEquals(0, sut.updateTaskColumns(42, new TaskUpdate().setTitle("TITLE")));
+    }
+
+    @Test
+    public void InMemoryTaskyDataProvider_updateTaskColumns_updatesTasksByIds() {
+        InMemoryTaskyDataProvider sut = new InMemoryTaskyDataProvider();
+        Task first = createTask("FIRST", null);
+        Task second = createTask("SECOND", null);
+        Task third = createTask("THIRD", null);
+        sut.insertTasks(Arrays.asList(first, second, third));
+        final int[] eventCount = new int[1];
+        sut.addTaskChangeListener(new TaskChangeListener() {
+            @Override
+            public void onTasksChanged(TaskChangeEvent event) {
+                eventCount[0]++;
+            }
+        });
+
+        int count = sut.updateTaskColumns(Arrays.asList(first.getId(), third.getId(), 42L),
+            new TaskUpdate().setPostponedUntil(NOW));
+
+        assertEquals(2, count);
+        assertEquals(1, eventCount[0]);
+        assertEquals(NOW, sut.getTask(first.getId()).getPostponedUntil());
+        assertNull(sut.getTask(second.getId()).getPostponedUntil());
+        assertEquals(NOW, sut.getTask(third.getId()).getPostponedUntil());
+        assertEquals("THIRD", sut.getTask(third.getId()).getTitle());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void InMemoryTaskyDataProvider_updateTaskColumns_rejectsEmptyUpdate() {
+        InMemoryTaskyDataProvider sut = new InMemoryTaskyDataProvider();
+        Task task = createTask("TITLE", null);
+        sut.insertTask(task);
+
+        sut.updateTaskColumns(task.getId(), new TaskUpdate());
+    }
+
+    @Test
+    public void InMemoryTaskyDataProvider_skipsUpdateOfUnchangedTask() {
+        InMemoryTaskyDataProvider sut = new InMemoryTaskyDataProvider();
+        Task task = createTask("TITLE", null);
+        sut.insertTask(task);
+        final int[] eventCount = new int[1];
+        sut.addTaskChangeListener(new TaskChangeListener() {
+            @Override
+            public void onTasksChanged(TaskChangeEvent event) {
+                eventCount[0]++;
+            }
+        });
+
+        sut.updateTask(sut.getTask(task.getId()));
+
+        assertFalse(task.isDirty());
+        assertEquals(0, eventCount[0]);
+    }
+
+    @Test
+    public void InMemoryTaskyDataProvider_queriesByDateRanges() {
+        InMemoryTaskyDataProvider sut = new InMemoryTaskyDataProvider();
+        Task past = createTask("PAST", NOW.minusDays(1));
+        Task future = createTask("FUTURE", NOW.plusDays(1));
+        Task undated = createTask("UNDATED", null);
+        Task done = createTask("DONE", NOW.minusDays(2));
+        done.setDoneOn(NOW);
+        sut.insertTasks(Arrays.asList(past, future, undated, done));
+
+        QueryFilter filter = isNotDone().And(
+            QueryFilterFactory.smallerThanOrNull(TaskyContract.Task.COLUMN_NAME_DUE_DATE, NOW));
+        List<Task> result = sut.queryTasks(filter);
+
+        assertEquals(2, result.size());
+        assertEquals("PAST", result.get(0).getTitle());
+        assertEquals("UNDATED", result.get(1).getTitle());
+        assertEquals(1, sut.countTasks(new ValueQueryFilter(TaskyContract.Task.COLUMN_NAME_DUE_DATE, ValueQueryFilter.Type.GreaterThan, NOW)));
+    }
+
+    @Test
+    public void InMemoryTaskyDataProvider_queriesByNonIndexedColumns() {
+        InMemoryTaskyDataProvider sut = new InMemoryTaskyDataProvider();
+        Task task = createTask("TITLE", null);
+        task.setPriority(TaskPriority.High);
+        sut.insertTasks(Arrays.asList(createTask("OTHER", null), task));
+
+        List<Task> result = sut.queryTasks(isNotDone().And(
+            new ValueQueryFilter(TaskyContract.Task.COLUMN_NAME_PRIORITY, ValueQueryFilter.Type.Equals, TaskPriority.High)));
+
+        assertEquals(1, result.size());
+        assertEquals(task.getId(), result.get(0).getId());
+    }
+
+    @Test
+    public void InMemoryTaskyDataProvider_queriesById() {
+        InMemoryTaskyDataProvider sut = new InMemoryTaskyDataProvider();
+        Task task = createTask("TITLE", null);
+        sut.insertTasks(Arrays.asList(createTask("OTHER", null), task));
+
+        List<Task> result = sut.queryTasks(new ValueQueryFilter(TaskyContract.Task._ID, ValueQueryFilter.Type.Equals, task.getId()));
+
+        assertEquals(1, result.size());
+        assertEquals("TITLE", result.get(0).getTitle());
+    }
+
+    @Test
+    public void InMemoryTaskyDataProvider_queriesByIdSet() {
+        InMemoryTaskyDataProvider sut = new InMemoryTaskyDataProvider();
+        Task first = createTask("FIRST", null);
+        Task second = createTask("SECOND", null);
+        sut.insertTasks(Arrays.asList(first, createTask("OTHER", null), second));
+
+        List<Task> result = sut.queryTasks(new InQueryFilter(TaskyContract.Task._ID, Arrays.asList(second.getId(), first.getId(), 4711L)));
+
+        assertEquals(2, result.size());
+        assertEquals("FIRST", result.get(0).getTitle());
+        assertEquals("SECOND", result.get(1).getTitle());
+    }
+
+    @Test
+    public void InMemoryTaskyDataProvider_queriesByIdSetOfIntegers() {
+        InMemoryTaskyDataProvider sut = new InMemoryTaskyDataProvider();
+        Task task = createTask("TASK", null);
+        sut.insertTasks(Arrays.asList(createTask("OTHER", null), task));
+
+        List<Task> result = sut.queryTasks(new InQueryFilter(TaskyContract.Task._ID, Arrays.asList((int)task.getId())));
+
+        assertEquals(1, result.size());
+        assertEquals("TASK", result.get(0).getTitle());
+    }
+
+    @Test
+    public void InMemoryTaskyDataProvider_queriesByDateRangeWithBounds() {
+        InMemoryTaskyDataProvider sut = new InMemoryTaskyDataProvider();
+        for (int i = 0; i < 5; i++) {
+            sut.insertTask(createTask("TASK" + i, NOW.plusDays(i)));
+        }
+
+        QueryFilter between = new BetweenQueryFilter(TaskyContract.Task.COLUMN_NAME_DUE_DATE, NOW.plusDays(1), NOW.plusDays(3));
+        QueryFilter greaterOrEqual = new ValueQueryFilter(TaskyContract.Task.COLUMN_NAME_DUE_DATE, ValueQueryFilter.Type.GreaterOrEqual, NOW.plusDays(3));
+
+        assertEquals(3, sut.countTasks(between));
+        assertEquals(2, sut.countTasks(greaterOrEqual));
+        assertEquals(2, sut.countTasks(new NotQueryFilter(between)));
+    }
+
+    @Test
+    public void InMemoryTaskyDataProvider_readsPagesInOrder() {
+        InMemoryTaskyDataProvider sut = new InMemoryTaskyDataProvider();
+        for (int i = 0; i < 5; i++) {
+            sut.insertTask(createTask("TASK" + i, NOW.minusDays(i)));
+        }
+
+        TaskQuery query = new TaskQuery(new EmptyQueryFilter())
+            .orderBy(TaskSortOrder.by(TaskSortKey.DueDate, false))
+            .withLimit(2);
+        List<Task> firstPage = sut.queryTasks(query);
+        List<Task> secondPage = sut.queryTasks(query.after(firstPage.get(1)));
+
+        assertEquals("TASK4", firstPage.get(0).getTitle());
+        assertEquals("TASK3", firstPage.get(1).getTitle());
+        assertEquals(2, secondPage.size());
+        assertEquals("TASK2", secondPage.get(0).getTitle());
+    }
+
+    @Test
+    public void InMemoryTaskyDataProvider_readsOnlyProjectedColumns() {
+        InMemoryTaskyDataProvider sut = new InMemoryTaskyDataProvider();
+        Task task = createTask("TITLE", NOW);
+        sut.insertTask(task);
+
+        TaskQuery query = new TaskQuery(new EmptyQueryFilter())
+            .withProjection(TaskProjection.of(TaskyContract.Task.COLUMN_NAME_TITLE));
+        Task result = sut.queryTasks(query).get(0);
+
+        assertEquals(task.getId(), result.getId());
+        assertEquals("TITLE", result.getTitle());
+        assertNull(result.getDueDate());
+    }
+
+    @Test
+    public void InMemoryTaskyDataProvider_rollsBackFailedTransaction() {
+        final InMemoryTaskyDataProvider sut = new InMemoryTaskyDataProvider();
+        final Task task = createTask("BEFORE", null);
+        sut.insertTask(task);
+
+        try {
+            sut.runInTransaction(new Runnable() {
+                @Override
+                public void run() {
+                    task.setTitle("AFTER");
+                    task.setDoneOn(NOW);
+                    sut.updateTask(task);
+                    sut.insertTask(createTask("INSERTED", null));
+                    throw new IllegalStateException();
+                }
+            });
+            fail();
+        } catch (IllegalStateException exception) {
+            // Expected.
+        }
+
+        assertEquals(1, sut.countTasks(new EmptyQueryFilter()));
+        assertEquals(1, sut.countTasks(isNotDone()));
+        assertEquals("BEFORE", sut.queryTasks(isNotDone()).get(0).getTitle());
+    }
+
+    @Test
+    public void InMemoryTaskyDataProvider_rollsBackWholeTransactionWhenCaughtNestedTransactionFails() {
+        final InMemoryTaskyDataProvider sut = new InMemoryTaskyDataProvider();
+        final List<TaskChangeEvent> events = new ArrayList();
+        sut.addTaskChangeListener(new TaskChangeListener() {
+            @Override
+            public void onTasksChanged(TaskChangeEvent event) {
+                events.add(event);
+            }
+        });
+
+        sut.runInTransaction(new Runnable() {
+            @Override
+            public void run() {
+                sut.insertTask(createTask("OUTER", null));
+                try {
+                    sut.runInTransaction(new Runnable() {
+                        @Override
+                        public void run() {
+                            sut.insertTask(createTask("INNER", null));
+                            throw new IllegalStateException();
+                        }
+                    });
+                    fail();
+                } catch (IllegalStateException exception) {
+                    // Swallowed, like a caller retrying another way.
+                }
+            }
+        });
+
+        assertEquals(0, sut.countTasks(new EmptyQueryFilter()));
+        assertTrue(events.isEmpty());
+    }
+
+    @Test
+    public void InMemoryTaskyDataProvider_keepsTaskDirtyAfterRollback() {
+        final InMemoryTaskyDataProvider sut = new InMemoryTaskyDataProvider();
+        final Task task = createTask("BEFORE", null);
+        sut.insertTask(task);
+        task.setTitle("AFTER");
+
+        try {
+            sut.runInTransaction(new Runnable() {
+                @Override
+                public void run() {
+                    sut.updateTask(task);
+                    throw new IllegalStateException();
+                }
+            });
+            fail();
+        } catch (IllegalStateException exception) {
+            // Expected.
+        }
+
+        assertTrue(task.isDirty());
+        sut.updateTask(task);
+        assertEquals("AFTER", sut.getTask(task.getId()).getTitle());
+    }
+
+    @Test
+    public void InMemoryTaskyDataProvider_searchTasks_ordersByRelevance() {
+        InMemoryTaskyDataProvider sut = new InMemoryTaskyDataProvider();
+        sut.insertTask(createTask("Buy milk", null));
+        sut.insertTask(createTask("Buy bread", null));
+        sut.insertTask(createTask("Milk the cow, then milk the goat", null));
+        sut.insertTask(createTask("Call mom", null));
+
+        List<Task> result = sut.searchTasks("milk", new EmptyQueryFilter(), 10);
+
+        assertEquals(2, result.size());
+        assertEquals("Milk the cow, then milk the goat", result.get(0).getTitle());
+        assertEquals("Buy milk", result.get(1).getTitle());
+    }
+
+    @Test
+    public void InMemoryTaskyDataProvider_searchTasks_prefersRareWords() {
+        InMemoryTaskyDataProvider sut = new InMemoryTaskyDataProvider();
+        sut.insertTask(createTask("Buy buy milk", null));
+        sut.insertTask(createTask("Milk milk, buy", null));
+        sut.insertTask(createTask("Buy bread", null));
+        sut.insertTask(createTask("Buy eggs", null));
+
+        List<Task> result = sut.searchTasks("buy milk", new EmptyQueryFilter(), 1);
+
+        assertEquals(1, result.size());
+        assertEquals("Milk milk, buy", result.get(0).getTitle());
+    }
+
+    @Test
+    public void InMemoryTaskyDataProvider_searchTasks_appliesFilter() {
+        InMemoryTaskyDataProvider sut = new InMemoryTaskyDataProvider();
+        Task done = createTask("Buy milk", null);
+        done.setDoneOn(NOW);
+        sut.insertTask(done);
+        sut.insertTask(createTask("Buy more milk", null));
+
+        List<Task> result = sut.searchTasks("milk", isNotDone(), 10);
+
+        assertEquals(1, result.size());
+        assertEquals("Buy more milk", result.get(0).getTitle());
+    }
+
+    @Test
+    public void InMemoryTaskyDataProvider_archiveTasks_movesTasksDoneBeforeDate() {
+        InMemoryTaskyDataProvider sut = new InMemoryTaskyDataProvider();
+        Task old = createTask("OLD", null);
+        old.setDoneOn(NOW.minusDays(40));
+        sut.insertTask(old);
+        Task recent = createTask("RECENT", null);
+        recent.setDoneOn(NOW.minusDays(2));
+        sut.insertTask(recent);
+        sut.insertTask(createTask("OPEN", null));
+
+        int count = sut.archiveTasks(NOW.minusDays(30), 10);
+
+        assertEquals(1, count);
+        assertEquals(2, sut.countTasks(new EmptyQueryFilter()));
+        assertNull(sut.getTask(old.getId()));
+        assertEquals(3, sut.queryTasks(new TaskQuery(new EmptyQueryFilter()).includingArchived()).size());
+    }
+
+    @Test
+    public void InMemoryTaskyDataProvider_archiveTasks_movesTasksInBatches() {
+        InMemoryTaskyDataProvider sut = new InMemoryTaskyDataProvider();
+        for (int i = 0; i < 7; i++) {
+            Task task = createTask("DONE " + i, null);
+            task.setDoneOn(NOW.minusDays(40 + i));
+            sut.insertTask(task);
+        }
+
+        final int[] eventCount = new int[1];
+        sut.addTaskChangeListener(new TaskChangeListener() {
+            @Override
+            public void onTasksChanged(TaskChangeEvent event) {
+                assertEquals(TaskChangeEvent.Type.Archived, event.getType());
+                eventCount[0]++;
+            }
+        });
+
+        int count = sut.archiveTasks(NOW, 3);
+
+        assertEquals(7, count);
+        assertEquals(3, eventCount[0]);
+        assertEquals(0, sut.countTasks(new EmptyQueryFilter()));
+    }
+
+    @Test
+    public void InMemoryTaskyDataProvider_archiveTasks_archivesNewestTaskWithoutReusingItsId() {
+        InMemoryTaskyDataProvider sut = new InMemoryTaskyDataProvider();
+        Task newest = createTask("NEWEST", null);
+        newest.setDoneOn(NOW.minusDays(40));
+        sut.insertTask(newest);
+
+        int count = sut.archiveTasks(NOW.minusDays(30), 10);
+        Task inserted = createTask("INSERTED", null);
+        sut.insertTask(inserted);
+
+        assertEquals(1, count);
+        assertTrue(inserted.getId() > newest.getId());
+    }
+
+    @Test
+    public void InMemoryTaskyDataProvider_queriesArchivedTasksByFilter() {
+        InMemoryTaskyDataProvider sut = new InMemoryTaskyDataProvider();
+        Task archived = createTask("ARCHIVED", NOW);
+        archived.setDoneOn(NOW.minusDays(40));
+        sut.insertTask(archived);
+        sut.insertTask(createTask("OPEN", NOW));
+        sut.archiveTasks(NOW.minusDays(30), 10);
+
+        QueryFilter filter = new ValueQueryFilter(TaskyContract.Task.COLUMN_NAME_DUE_DATE, ValueQueryFilter.Type.Equals, NOW);
+        List<Task> result = sut.queryTasks(new TaskQuery(filter).orderBy(TaskSortOrder.ID).includingArchived());
+
+        assertEquals(2, result.size());
+        assertEquals("ARCHIVED", result.get(0).getTitle());
+        assertEquals(1, sut.queryTasks(filter).size());
+    }
+
+    private static QueryFilterBase isNotDone() {
+        return new ValueQueryFilter(TaskyContract.Task.COLUMN_NAME_DONE_ON, ValueQueryFilter.Type.IsNull, null);
+    }
+
+    private static Task createTask(String title, DateTime dueDate) {
+        Task task = new Task();
+        task.setTitle(title);
+        task.setDueDate(dueDate);
+        task.setCreatedOn(NOW);
+        task.setPriority(TaskPriority.Normal);
+        return task;
+    }
+}
@@ -0,0 +1,279 @@
+package com.tasky.android.storage;
+
+import com.tasky.android.entities.Task;
+import com.tasky.android.entities.TaskPriority;
+import com.tasky.android.storage.queries.ValueQueryFilter;
+
+import org.joda.time.DateTime;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the ObservableTaskQuery implementation.
+ */
+public class ObservableTaskQueryTests {
+    private static final DateTime NOW = new DateTime(2017, 6, 18, 12, 0);
+
+    @Test
+    public void ObservableTaskQuery_readsFirstPageOnStart() {
+        InMemoryTaskyDataProvider dataprovider = createDataProvider("FIRST", "SECOND", "THIRD");
+        RecordingObserver observer = new RecordingObserver();
+
+        new ObservableTaskQuery(dataprovider, createOpenTasksQuery(2), new QueuedExecutor(), observer).start();
+
+        assertEquals(Arrays.asList("FIRST", "SECOND"), observer.getTitles());
+        assertTrue(observer.hasMore);
+    }
+
+    @Test
+    public void ObservableTaskQuery_appendsNextPage() {
+        InMemoryTaskyDataProvider dataprovider = createDataProvider("FIRST", "SECOND", "THIRD");
+        RecordingObserver observer = new RecordingObserver();
+        ObservableTaskQuery sut = new ObservableTaskQuery(dataprovider, createOpenTasksQuery(2), new QueuedExecutor(), observer).start();
+
+        sut.loadMore();
+
+        assertEquals(Arrays.asList("FIRST", "SECOND", "THIRD"), observer.getTitles());
+        assertFalse(observer.hasMore);
+    }
+
+    @Test
+    public void ObservableTaskQuery_refreshesWhenLoadedTaskChanges() {
+        InMemoryTaskyDataProvider dataprovider = createDataProvider("FIRST", "SECOND");
+        RecordingObserver observer = new RecordingObserver();
+        ObservableTaskQuery sut = new ObservableTaskQuery(dataprovider, createOpenTasksQuery(10), new QueuedExecutor(), observer).start();
+
+        Task task = dataprovider.getTask(1);
+        task.setDoneOn(NOW);
+        dataprovider.updateTask(task);
+
+        assertEquals(2, sut.getRefreshCount());
+        assertEquals(Arrays.asList("SECOND"), observer.getTitles());
+    }
+
+    @Test
+    public void ObservableTaskQuery_refreshesWhenMatchingTaskIsInserted() {
+        InMemoryTaskyDataProvider dataprovider = createDataProvider("FIRST");
+        RecordingObserver observer = new RecordingObserver();
+        ObservableTaskQuery sut = new ObservableTaskQuery(dataprovider, createOpenTasksQuery(10), new QueuedExecutor(), observer).start();
+
+        dataprovider.insertTask(createTask("SECOND"));
+
+        assertEquals(2, sut.getRefreshCount());
+        assertEquals(Arrays.asList("FIRST", "SECOND"), observer.getTitles());
+    }
+
+    @Test
+    public void ObservableTaskQuery_refreshesWhenColumnUpdateMakesTaskMatch() {
+        InMemoryTaskyDataProvider dataprovider = createDataProvider("FIRST");
+        Task doneTask = createTask("REOPENED");
+        doneTask.setPriority(TaskPriority.High);
+        doneTask.setDoneOn(NOW);
+        dataprovider.insertTask(doneTask);
+        TaskQuery query = new TaskQuery(new ValueQueryFilter(TaskyContract.Task.COLUMN_NAME_DONE_ON, ValueQueryFilter.Type.IsNull, null)
+            .And(new ValueQueryFilter(TaskyContract.Task.COLUMN_NAME_PRIORITY, ValueQueryFilter.Type.Equals, TaskPriority.High)));
+        RecordingObserver observer = new RecordingObserver();
+        ObservableTaskQuery sut = new ObservableTaskQuery(dataprovider, query, new QueuedExecutor(), observer).start();
+
+        // The filter on the priority has to see the column that has not been updated.
+        dataprovider.updateTaskColumns(doneTask.getId(), new TaskUpdate().setDoneOn(null));
+
+        assertEquals(2, sut.getRefreshCount());
+        assertEquals(Arrays.asList("REOPENED"), observer.getTitles());
+    }
+
+    @Test
+    public void ObservableTaskQuery_ignoresUnrelatedChanges() {
+        InMemoryTaskyDataProvider dataprovider = createDataProvider("FIRST");
+        RecordingObserver observer = new RecordingObserver();
+        ObservableTaskQuery sut = new ObservableTaskQuery(dataprovider, createOpenTasksQuery(10), new QueuedExecutor(), observer).start();
+
+        Task doneTask = createTask("DONE");
+        doneTask.setDoneOn(NOW);
+        dataprovider.insertTask(doneTask);
+        doneTask.setTitle("STILL DONE");
+        dataprovider.updateTask(doneTask);
+
+        assertEquals(1, sut.getRefreshCount());
+    }
+
+    @Test
+    public void ObservableTaskQuery_coalescesBurstsOfChanges() {
+        InMemoryTaskyDataProvider dataprovider = createDataProvider("FIRST");
+        RecordingObserver observer = new RecordingObserver();
+        QueuedExecutor executor = new QueuedExecutor();
+        executor.paused = true;
+        ObservableTaskQuery sut = new ObservableTaskQuery(dataprovider, createOpenTasksQuery(20), executor, observer).start();
+
+        for (int i = 0; i < 10; i++) {
+            dataprovider.insertTask(createTask("TASK " + i));
+        }
+        executor.resume();
+
+        assertEquals(1, sut.getRefreshCount());
+        assertEquals(11, observer.tasks.size());
+    }
+
+    @Test
+    public void ObservableTaskQuery_stopsObservingWhenClosed() {
+        InMemoryTaskyDataProvider dataprovider = createDataProvider("FIRST");
+        RecordingObserver observer = new RecordingObserver();
+        ObservableTaskQuery sut = new ObservableTaskQuery(dataprovider, createOpenTasksQuery(10), new QueuedExecutor(), observer).start();
+
+        sut.close();
+        dataprovider.insertTask(createTask("SECOND"));
+
+        assertEquals(1, sut.getRefreshCount());
+        assertEquals(Arrays.asList("FIRST"), observer.getTitles());
+    }
+
+    @Test
+    public void ObservableTaskQuery_buildsQueryForEachRefresh() {
+        InMemoryTaskyDataProvider dataprovider = createDataProvider("FIRST", "SECOND", "THIRD");
+        RecordingObserver observer = new RecordingObserver();
+        final int[] limit = new int[] { 1 };
+        ObservableTaskQuery sut = new ObservableTaskQuery(dataprovider, new ObservableTaskQuery.QuerySource() {
+            @Override
+            public TaskQuery getQuery() {
+                return createOpenTasksQuery(limit[0]);
+            }
+        }, new QueuedExecutor(), observer).start();
+
+        limit[0] = 3;
+        sut.refresh();
+
+        assertEquals(Arrays.asList("FIRST", "SECOND", "THIRD"), observer.getTitles());
+    }
+
+    @Test
+    public void ObservableTaskQuery_reportsFailedRefreshAndRefreshesAgain() {
+        FailingTaskyDataProvider dataprovider = new FailingTaskyDataProvider();
+        dataprovider.insertTask(createTask("FIRST"));
+        RecordingObserver observer = new RecordingObserver();
+        dataprovider.failingQueries = 1;
+        ObservableTaskQuery sut = new ObservableTaskQuery(dataprovider, createOpenTasksQuery(10), new QueuedExecutor(), observer).start();
+
+        assertTrue(observer.exception instanceof IllegalStateException);
+        assertNull(observer.tasks);
+
+        sut.refresh();
+
+        assertEquals(2, sut.getRefreshCount());
+        assertEquals(Arrays.asList("FIRST"), observer.getTitles());
+    }
+
+    @Test
+    public void ObservableTaskQuery_reportsFailedPageAndLoadsAgainAfterRefresh() {
+        FailingTaskyDataProvider dataprovider = new FailingTaskyDataProvider();
+        for (String title : Arrays.asList("FIRST", "SECOND", "THIRD")) {
+            dataprovider.insertTask(createTask(title));
+        }
+        RecordingObserver observer = new RecordingObserver();
+        ObservableTaskQuery sut = new ObservableTaskQuery(dataprovider, createOpenTasksQuery(2), new QueuedExecutor(), observer).start();
+
+        dataprovider.failingQueries = 1;
+        sut.loadMore();
+
+        assertTrue(observer.exception instanceof IllegalStateException);
+        sut.loadMore();
+        assertEquals(Arrays.asList("FIRST", "SECOND"), observer.getTitles());
+
+        sut.refresh();
+        sut.loadMore();
+
+        assertEquals(Arrays.asList("FIRST", "SECOND", "THIRD"), observer.getTitles());
+    }
+
+    private static TaskQuery createOpenTasksQuery(int limit) {
+        return new TaskQuery(new ValueQueryFilter(TaskyContract.Task.COLUMN_NAME_DONE_ON, ValueQueryFilter.Type.IsNull, null))
+            .orderBy(TaskSortOrder.ID)
+            .withLimit(limit);
+    }
+
+    private static InMemoryTaskyDataProvider createDataProvider(String... titles) {
+        InMemoryTaskyDataProvider dataprovider = new InMemoryTaskyDataProvider();
+        for (String title : titles) {
+            dataprovider.insertTask(createTask(title));
+        }
+
+        return dataprovider;
+    }
+
+    private static Task createTask(String title) {
+        Task task = new Task();
+        task.setTitle(title);
+        task.setCreatedOn(NOW);
+        return task;
+    }
+
+    /**
+     * Runs the actions on the calling thread, or queues them while paused.
+     */
+    private static class QueuedExecutor implements Executor {
+        private final List<Runnable> queue = new ArrayList();
+        boolean paused;
+
+        @Override
+        public void execute(Runnable runnable) {
+            if (paused) queue.add(runnable);
+            else runnable.run();
+        }
+
+        void resume() {
+            paused = false;
+            for (Runnable runnable : queue) {
+                runnable.run();
+            }
+            queue.clear();
+        }
+    }
+
+    /**
+     * Fails the specified number of queries before reading the tasks again.
+     */
+    private static class FailingTaskyDataProvider extends InMemoryTaskyDataProvider {
+        int failingQueries;
+
+        @Override
+        public List<Task> queryTasks(TaskQuery query) {
+            if (failingQueries > 0) {
+                failingQueries--;
+                throw new IllegalStateException();
+            }
+
+            return super.queryTasks(query);
+        }
+    }
+
+    private static class RecordingObserver implements ObservableTaskQuery.Observer {
+        List<Task> tasks;
+        boolean hasMore;
+        Exception exception;
+
+        @Override
+        public void onTasksLoaded(List<Task> tasks, boolean hasMore) {
+            this.tasks = tasks;
+            this.hasMore = hasMore;
+        }
+
+        @Override
+        public void onError(Exception exception) {
+            this.exception = exception;
+        }
+
+        List<String> getTitles() {
+            List<String> titles = new ArrayList();
+            for (Task task : tasks) {
+                titles.add(task.getTitle());
+            }
+
+            return titles;
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package com.tasky.android.storage;
+
+import com.tasky.android.entities.Task;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the TaskChangeNotifier implementation.
+ */
+public class TaskChangeNotifierTests {
+    @Test
+    public void TaskChangeNotifier_notifiesImmediatelyOutsideOfTransactions() {
+        TaskChangeNotifier sut = new TaskChangeNotifier();
+        RecordingListener listener = new RecordingListener();
+        sut.addListener(listener);
+
+        sut.notifyChanged(TaskChangeEvent.Type.Inserted, createTask(1));
+
+        assertEquals(1, listener.events.size());
+        assertEquals(TaskChangeEvent.Type.Inserted, listener.events.get(0).getType());
+        assertTrue(listener.events.get(0).containsTask(1));
+    }
+
+    @Test
+    public void TaskChangeNotifier_passesSnapshotsOfTasks() {
+        TaskChangeNotifier sut = new TaskChangeNotifier();
+        RecordingListener listener = new RecordingListener();
+        sut.addListener(listener);
+
+        Task task = createTask(1);
+        task.setTitle("BEFORE");
+        sut.notifyChanged(TaskChangeEvent.Type.Updated, task);
+        task.setTitle("AFTER");
+
+        assertEquals("BEFORE", listener.events.get(0).getTasks().get(0).getTitle());
+    }
+
+    @Test
+    public void TaskChangeNotifier_combinesChangesOfCommittedTransaction() {
+        TaskChangeNotifier sut = new TaskChangeNotifier();
+        RecordingListener listener = new RecordingListener();
+        sut.addListener(listener);
+
+        sut.beginTransaction();
+        sut.notifyChanged(TaskChangeEvent.Type.Inserted, createTask(1));
+        sut.notifyChanged(TaskChangeEvent.Type.Inserted, createTask(2));
+        sut.notifyChanged(TaskChangeEvent.Type.Updated, createTask(1));
+        assertTrue(listener.events.isEmpty());
+        sut.endTransaction(true);
+
+        assertEquals(2, listener.events.size());
+        assertEquals(2, listener.events.get(0).getTasks().size());
+        assertEquals(TaskChangeEvent.Type.Updated, listener.events.get(1).getType());
+    }
+
+    @Test
+    public void TaskChangeNotifier_dropsChangesOfFailedTransactions() {
+        TaskChangeNotifier sut = new TaskChangeNotifier();
+        RecordingListener listener = new RecordingListener();
+        sut.addListener(listener);
+
+        sut.beginTransaction();
+        sut.notifyChanged(TaskChangeEvent.Type.Inserted, createTask(1));
+        sut.endTransaction(true);
+
+        sut.beginTransaction();
+        sut.notifyChanged(TaskChangeEvent.Type.Inserted, createTask(2));
+        sut.endTransaction(false);
+
+        assertEquals(1, listener.events.size());
+        assertEquals(Arrays.asList(1L), getIds(listener.events.get(0)));
+    }
+
+    @Test
+    public void TaskChangeNotifier_dropsAllChangesWhenCaughtNestedTransactionFails() {
+        TaskChangeNotifier sut = new TaskChangeNotifier();
+        RecordingListener listener = new RecordingListener();
+        sut.addListener(listener);
+
+        sut.beginTransaction();
+        sut.notifyChanged(TaskChangeEvent.Type.Inserted, createTask(1));
+        sut.beginTransaction();
+        sut.notifyChanged(TaskChangeEvent.Type.Inserted, createTask(2));
+        sut.endTransaction(false);
+        sut.notifyChanged(TaskChangeEvent.Type.Updated, createTask(1));
+        sut.endTransaction(true);
+
+        assertTrue(listener.events.isEmpty());
+
+        sut.beginTransaction();
+        sut.notifyChanged(TaskChangeEvent.Type.Inserted, createTask(3));
+        sut.endTransaction(true);
+
+        assertEquals(1, listener.events.size());
+        assertEquals(Arrays.asList(3L), getIds(listener.events.get(0)));
+    }
+
+    @Test
+    public void TaskChangeNotifier_runsRollbackActionsOfFailedTransactionsOnly() {
+        TaskChangeNotifier sut = new TaskChangeNotifier();
+        final List<String> rolledBack = new ArrayList();
+
+        sut.runOnRollback(createRollbackAction(rolledBack, "OUTSIDE"));
+        sut.beginTransaction();
+        sut.runOnRollback(createRollbackAction(rolledBack, "COMMITTED"));
+        sut.endTransaction(true);
+        sut.beginTransaction();
+        sut.runOnRollback(createRollbackAction(rolledBack, "FIRST"));
+        sut.runOnRollback(createRollbackAction(rolledBack, "SECOND"));
+        sut.endTransaction(false);
+
+        assertEquals(Arrays.asList("SECOND", "FIRST"), rolledBack);
+    }
+
+    @Test
+    public void TaskChangeNotifier_runsAllRollbackActionsWhenCaughtNestedTransactionFails() {
+        TaskChangeNotifier sut = new TaskChangeNotifier();
+        final List<String> rolledBack = new ArrayList();
+
+        sut.beginTransaction();
+        sut.runOnRollback(createRollbackAction(rolledBack, "OUTER"));
+        sut.beginTransaction();
+        sut.runOnRollback(createRollbackAction(rolledBack, "FAILED"));
+        sut.endTransaction(false);
+        sut.runOnRollback(createRollbackAction(rolledBack, "AFTER"));
+        sut.endTransaction(true);
+
+        assertEquals(Arrays.asList("AFTER", "FAILED", "OUTER"), rolledBack);
+    }
+
+    @Test
+    public void TaskChangeNotifier_runsRollbackActionsOfCommittedInnerTransactions() {
+        TaskChangeNotifier sut = new TaskChangeNotifier();
+        final List<String> rolledBack = new ArrayList();
+
+        sut.beginTransaction();
+        sut.runOnRollback(createRollbackAction(rolledBack, "OUTER"));
+        sut.beginTransaction();
+        sut.runOnRollback(createRollbackAction(rolledBack, "INNER"));
+        sut.endTransaction(true);
+        sut.endTransaction(false);
+
+        assertEquals(Arrays.asList("INNER", "OUTER"), rolledBack);
+    }
+
+    @Test
+    public void TaskChangeNotifier_doesNotNotifyRemovedListeners() {
+        TaskChangeNotifier sut = new TaskChangeNotifier();
+        RecordingListener listener = new RecordingListener();
+        sut.addListener(listener);
+        sut.removeListener(listener);
+
+        sut.notifyChanged(TaskChangeEvent.Type.Inserted, createTask(1));
+
+        assertTrue(listener.events.isEmpty());
+    }
+
+    private static List<Long> getIds(TaskChangeEvent event) {
+        List<Long> ids = new ArrayList();
+        for (Task task : event.getTasks()) {
+            ids.add(task.getId());
+        }
+
+        return ids;
+    }
+
+    private static Runnable createRollbackAction(final List<String> rolledBack, final String name) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                rolledBack.add(name);
+            }
+        };
+    }
+
+    private static Task createTask(long id) {
+        Task task = new Task();
+        task.setId(id);
+        return task;
+    }
+
+    private static class RecordingListener implements TaskChangeListener {
+        final List<TaskChangeEvent> events = new ArrayList();
+
+        @Override
+        public void onTasksChanged(TaskChangeEvent event) {
+            events.add(event);
+        }
+    }
+}
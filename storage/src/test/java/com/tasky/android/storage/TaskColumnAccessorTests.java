@@ -0,0 +1,88 @@
+package com.tasky.android.storage;
+
+import com.tasky.android.entities.Task;
+import com.tasky.android.entities.TaskPriority;
+
+import org.joda.time.DateTime;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the TaskColumnAccessor implementation.
+ */
+public class TaskColumnAccessorTests {
+    @Test
+    public void TaskColumnAccessor_findsAccessorIgnoringCase() {
+        assertEquals(TaskColumnAccessor.DueDate, TaskColumnAccessor.find(TaskyContract.Task.COLUMN_NAME_DUE_DATE));
+        assertEquals(TaskColumnAccessor.DueDate, TaskColumnAccessor.find("DUEDATE"));
+        assertEquals(TaskColumnAccessor.Id, TaskColumnAccessor.find(TaskyContract.Task._ID));
+    }
+
+    @Test
+    public void TaskColumnAccessor_findsNoAccessorForUnknownColumn() {
+        assertNull(TaskColumnAccessor.find("COLUMN"));
+    }
+
+    @Test
+    public void TaskColumnAccessor_hasAccessorForEachTaskColumn() {
+        for (String column : TaskProjection.ALL.getSqliteColumns()) {
+            assertNotNull(column, TaskColumnAccessor.find(column));
+        }
+    }
+
+    @Test
+    public void TaskColumnAccessor_detectsChangedFields() {
+        Task task = new Task();
+        task.setPostponedUntil(new DateTime(2017, 6, 18, 0, 0));
+        task.setPriority(TaskPriority.Low);
+
+        for (TaskColumnAccessor accessor : TaskColumnAccessor.values()) {
+            boolean changed = accessor == TaskColumnAccessor.PostponedUntil
+                || accessor == TaskColumnAccessor.Priority
+                || accessor == TaskColumnAccessor.PrioritySortIndex;
+            assertEquals(accessor.name(), changed, accessor.isDirty(task));
+        }
+
+        task.clearDirtyFields();
+        assertFalse(TaskColumnAccessor.PostponedUntil.isDirty(task));
+    }
+
+    @Test
+    public void TaskColumnAccessor_getsValues() {
+        Task task = createTask();
+
+        assertEquals(42L, TaskColumnAccessor.Id.get(task));
+        assertEquals("TITLE", TaskColumnAccessor.Title.get(task));
+        assertEquals(TaskPriority.High, TaskColumnAccessor.Priority.get(task));
+        assertEquals(TaskPriority.High.getSortIndex(), TaskColumnAccessor.PrioritySortIndex.get(task));
+        assertEquals(new DateTime(2017, 6, 18, 0, 0), TaskColumnAccessor.DueDate.get(task));
+        assertNull(TaskColumnAccessor.DoneOn.get(task));
+    }
+
+    @Test
+    public void TaskColumnAccessor_copiesValues() {
+        Task source = createTask();
+        Task target = new Task();
+
+        for (TaskColumnAccessor accessor : TaskColumnAccessor.values()) {
+            accessor.copy(source, target);
+        }
+
+        for (TaskColumnAccessor accessor : TaskColumnAccessor.values()) {
+            assertEquals(accessor.getColumn(), accessor.get(source), accessor.get(target));
+        }
+    }
+
+    private static Task createTask() {
+        Task task = new Task();
+        task.setId(42);
+        task.setTitle("TITLE");
+        task.setPriority(TaskPriority.High);
+        task.setCreatedOn(new DateTime(2017, 6, 17, 0, 0));
+        task.setPostponedUntil(new DateTime(2017, 6, 19, 0, 0));
+        task.setCreatedFromRecurringTaskId(7);
+        task.setDueDate(new DateTime(2017, 6, 18, 0, 0));
+        return task;
+    }
+}
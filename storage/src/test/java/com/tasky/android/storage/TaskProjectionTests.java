@@ -0,0 +1,54 @@
+package com.tasky.android.storage;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for the TaskProjection implementation.
+ */
+public class TaskProjectionTests {
+    @Test
+    public void TaskProjection_all_readsAllColumns() {
+        assertEquals(8, TaskProjection.ALL.getSqliteColumns().length);
+        assertEquals(TaskyContract.Task._ID, TaskProjection.ALL.getSqliteColumns()[0]);
+        assertTrue(TaskProjection.ALL.contains(TaskyContract.Task.COLUMN_NAME_DUE_DATE));
+    }
+
+    @Test
+    public void TaskProjection_equalsProjectionWithSameColumns() {
+        TaskProjection first = TaskProjection.of(TaskyContract.Task.COLUMN_NAME_TITLE);
+        TaskProjection second = TaskProjection.of(TaskyContract.Task.COLUMN_NAME_TITLE);
+        assertEquals(first, second);
+        assertEquals(first.hashCode(), second.hashCode());
+    }
+
+    @Test
+    public void TaskProjection_alwaysReadsId() {
+        TaskProjection sut = TaskProjection.of(TaskyContract.Task.COLUMN_NAME_TITLE);
+        assertArrayEquals(new String[] { TaskyContract.Task._ID, TaskyContract.Task.COLUMN_NAME_TITLE },
+            sut.getSqliteColumns());
+    }
+
+    @Test
+    public void TaskProjection_ignoresDuplicateColumns() {
+        TaskProjection sut = TaskProjection.of(TaskyContract.Task._ID,
+            TaskyContract.Task.COLUMN_NAME_TITLE, TaskyContract.Task.COLUMN_NAME_TITLE);
+        assertEquals(2, sut.getSqliteColumns().length);
+    }
+
+    @Test
+    public void TaskProjection_containsOnlySpecifiedColumns() {
+        TaskProjection sut = TaskProjection.of(TaskyContract.Task.COLUMN_NAME_TITLE);
+        assertTrue(sut.contains(TaskyContract.Task.COLUMN_NAME_TITLE));
+        assertFalse(sut.contains(TaskyContract.Task.COLUMN_NAME_DUE_DATE));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void TaskProjection_rejectsUnknownColumn() {
+        TaskProjection.of("UNKNOWN");
+    }
+}
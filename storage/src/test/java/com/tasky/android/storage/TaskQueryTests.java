@@ -0,0 +1,109 @@
+package com.tasky.android.storage;
+
+import com.tasky.android.entities.Task;
+import com.tasky.android.entities.TaskPriority;
+import com.tasky.android.storage.queries.EmptyQueryFilter;
+import com.tasky.android.storage.queries.QueryFilter;
+
+import org.joda.time.DateTime;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for the TaskQuery implementation.
+ */
+public class TaskQueryTests {
+    @Test
+    public void TaskQuery_orderClause_defaultsToId() {
+        TaskQuery sut = new TaskQuery(new EmptyQueryFilter());
+        assertEquals("_id ASC", sut.buildSqliteOrderClause());
+    }
+
+    @Test
+    public void TaskQuery_limitClause_isCorrect() {
+        assertNull(new TaskQuery(new EmptyQueryFilter()).buildSqliteLimitClause());
+        assertEquals("25", new TaskQuery(new EmptyQueryFilter()).withLimit(25).buildSqliteLimitClause());
+    }
+
+    @Test
+    public void TaskQuery_firstPage_usesFilterOnly() {
+        QueryFilter filter = new EmptyQueryFilter();
+        TaskQuery sut = new TaskQuery(filter).withLimit(10);
+        assertTrue(filter == sut.buildSqlitePageFilter());
+    }
+
+    @Test
+    public void TaskQuery_nextPage_startsAfterLastTask() {
+        Task last = new Task();
+        last.setId(42);
+        last.setPriority(TaskPriority.High);
+
+        TaskQuery sut = new TaskQuery(new EmptyQueryFilter())
+            .orderBy(TaskSortOrder.by(TaskSortKey.Priority, true)).after(last);
+        QueryFilter result = sut.buildSqlitePageFilter();
+
+        assertEquals("(prioritySortIndex < ?)OR((prioritySortIndex = ?)AND(_id > ?))", result.buildSqliteWhereClause());
+        List<String> parameters = result.getSqliteParameters();
+        assertEquals(3, parameters.size());
+        assertEquals("1", parameters.get(0));
+        assertEquals("1", parameters.get(1));
+        assertEquals("42", parameters.get(2));
+    }
+
+    @Test
+    public void TaskQuery_nextPage_byMultipleKeys() {
+        Task last = new Task();
+        last.setId(42);
+        last.setPriority(TaskPriority.Low);
+        last.setCreatedOn(new DateTime(2017, 6, 18, 0, 0));
+
+        TaskQuery sut = new TaskQuery(new EmptyQueryFilter())
+            .orderBy(TaskSortOrder.by(TaskSortKey.Priority, false).thenBy(TaskSortKey.CreatedOn, false)).after(last);
+        QueryFilter result = sut.buildSqlitePageFilter();
+
+        assertEquals("(((prioritySortIndex > ?)OR((prioritySortIndex = ?)AND(createdOn > ?)))" +
+            "OR(((prioritySortIndex = ?)AND(createdOn = ?))AND(_id > ?)))", "(" + result.buildSqliteWhereClause() + ")");
+        assertEquals(6, result.getSqliteParameters().size());
+    }
+
+    @Test
+    public void TaskQuery_nextPage_byId() {
+        Task last = new Task();
+        last.setId(42);
+
+        TaskQuery sut = new TaskQuery(new EmptyQueryFilter()).after(last);
+        assertEquals("_id > ?", sut.buildSqlitePageFilter().buildSqliteWhereClause());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void TaskQuery_nextPage_rejectsNullSortValue() {
+        Task last = new Task();
+        new TaskQuery(new EmptyQueryFilter()).orderBy(TaskSortOrder.by(TaskSortKey.DueDate, false)).after(last);
+    }
+
+    @Test
+    public void TaskQuery_nextPage_inMemory() {
+        Task last = new Task();
+        last.setId(42);
+        last.setPriority(TaskPriority.Normal);
+        Task before = new Task();
+        before.setId(50);
+        before.setPriority(TaskPriority.High);
+        Task after = new Task();
+        after.setId(43);
+        after.setPriority(TaskPriority.Normal);
+
+        TaskQuery sut = new TaskQuery(new EmptyQueryFilter())
+            .orderBy(TaskSortOrder.by(TaskSortKey.Priority, false)).after(last);
+
+        assertFalse(sut.isAfterPreviousPage(before));
+        assertFalse(sut.isAfterPreviousPage(last));
+        assertTrue(sut.isAfterPreviousPage(after));
+    }
+}
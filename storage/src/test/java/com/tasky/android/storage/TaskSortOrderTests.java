@@ -0,0 +1,63 @@
+package com.tasky.android.storage;
+
+import com.tasky.android.entities.Task;
+import com.tasky.android.entities.TaskPriority;
+
+import org.joda.time.DateTime;
+import org.junit.Test;
+
+import java.util.Comparator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for the TaskSortOrder implementation.
+ */
+public class TaskSortOrderTests {
+    @Test
+    public void TaskSortOrder_orderClause_usesIdAsTieBreaker() {
+        TaskSortOrder sut = TaskSortOrder.by(TaskSortKey.Priority, false).thenBy(TaskSortKey.DueDate, true);
+        assertEquals("prioritySortIndex ASC,dueDate DESC,_id ASC", sut.buildSqliteOrderClause());
+    }
+
+    @Test
+    public void TaskSortOrder_orderClause_endingWithId() {
+        TaskSortOrder sut = TaskSortOrder.by(TaskSortKey.CreatedOn, false).thenBy(TaskSortKey.Id, true);
+        assertEquals("createdOn ASC,_id DESC", sut.buildSqliteOrderClause());
+    }
+
+    @Test
+    public void TaskSortOrder_comparesByPrioritySortIndex() {
+        Comparator<Task> sut = TaskSortOrder.by(TaskSortKey.Priority, false).getComparator();
+        assertTrue(sut.compare(createTask(1, TaskPriority.High, null), createTask(2, TaskPriority.Normal, null)) < 0);
+        assertTrue(sut.compare(createTask(1, TaskPriority.Low, null), createTask(2, TaskPriority.Normal, null)) > 0);
+    }
+
+    @Test
+    public void TaskSortOrder_comparesNullDatesFirst() {
+        Comparator<Task> sut = TaskSortOrder.by(TaskSortKey.DueDate, false).getComparator();
+        assertTrue(sut.compare(createTask(2, null, null), createTask(1, null, new DateTime(2017, 6, 18, 0, 0))) < 0);
+    }
+
+    @Test
+    public void TaskSortOrder_comparesDescending() {
+        Comparator<Task> sut = TaskSortOrder.by(TaskSortKey.DueDate, true).getComparator();
+        assertTrue(sut.compare(createTask(1, null, new DateTime(2017, 6, 19, 0, 0)),
+            createTask(2, null, new DateTime(2017, 6, 18, 0, 0))) < 0);
+    }
+
+    @Test
+    public void TaskSortOrder_comparesEqualValuesById() {
+        Comparator<Task> sut = TaskSortOrder.by(TaskSortKey.Priority, true).getComparator();
+        assertTrue(sut.compare(createTask(1, TaskPriority.High, null), createTask(2, TaskPriority.High, null)) < 0);
+    }
+
+    private Task createTask(long id, TaskPriority priority, DateTime dueDate) {
+        Task task = new Task();
+        task.setId(id);
+        task.setPriority(priority);
+        task.setDueDate(dueDate);
+        return task;
+    }
+}
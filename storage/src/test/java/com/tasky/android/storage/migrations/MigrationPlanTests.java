@@ -0,0 +1,78 @@
+package com.tasky.android.storage.migrations;
+
+import android.database.sqlite.SQLiteDatabase;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests for the MigrationPlan implementation.
+ */
+public class MigrationPlanTests {
+    @Test
+    public void MigrationPlan_latestVersion_isCorrect() {
+        MigrationPlan sut = new MigrationPlan(new FakeMigration(1), new FakeMigration(2), new FakeMigration(3));
+        assertEquals(3, sut.getLatestVersion());
+    }
+
+    @Test
+    public void MigrationPlan_newDatabase_getsAllMigrations() {
+        MigrationPlan sut = new MigrationPlan(new FakeMigration(1), new FakeMigration(2), new FakeMigration(3));
+        List<Migration> result = sut.getMigrations(0, 3);
+        assertEquals(3, result.size());
+        assertEquals(1, result.get(0).getTargetVersion());
+        assertEquals(2, result.get(1).getTargetVersion());
+        assertEquals(3, result.get(2).getTargetVersion());
+    }
+
+    @Test
+    public void MigrationPlan_upgrade_getsOnlyMissingMigrations() {
+        MigrationPlan sut = new MigrationPlan(new FakeMigration(1), new FakeMigration(2), new FakeMigration(3));
+        List<Migration> result = sut.getMigrations(1, 3);
+        assertEquals(2, result.size());
+        assertEquals(2, result.get(0).getTargetVersion());
+        assertEquals(3, result.get(1).getTargetVersion());
+    }
+
+    @Test
+    public void MigrationPlan_currentVersion_getsNoMigrations() {
+        MigrationPlan sut = new MigrationPlan(new FakeMigration(1), new FakeMigration(2));
+        List<Migration> result = sut.getMigrations(2, 2);
+        assertEquals(0, result.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void MigrationPlan_rejectsGapInVersions() {
+        new MigrationPlan(new FakeMigration(1), new FakeMigration(3));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void MigrationPlan_rejectsDowngrade() {
+        MigrationPlan sut = new MigrationPlan(new FakeMigration(1), new FakeMigration(2));
+        sut.getMigrations(2, 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void MigrationPlan_rejectsUnknownVersion() {
+        MigrationPlan sut = new MigrationPlan(new FakeMigration(1), new FakeMigration(2));
+        sut.getMigrations(0, 3);
+    }
+
+    /**
+     * Fake implementation of a Migration with a configurable target version.
+     */
+    private class FakeMigration implements Migration {
+        private final int targetVersion;
+
+        public FakeMigration(int targetVersion) { this.targetVersion = targetVersion; }
+
+        @Override
+        public int getTargetVersion() { return targetVersion; }
+
+        @Override
+        public void apply(SQLiteDatabase db) { }
+    }
+}
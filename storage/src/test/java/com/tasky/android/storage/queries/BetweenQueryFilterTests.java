@@ -0,0 +1,45 @@
+package com.tasky.android.storage.queries;
+
+import com.tasky.android.storage.SqliteTools;
+
+import org.joda.time.DateTime;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the BetweenQueryFilter implementation.
+ */
+public class BetweenQueryFilterTests {
+    @Test
+    public void BetweenQueryFilter_whereClause_isCorrect() {
+        QueryFilter sut = new BetweenQueryFilter("COLUMN", 1, 5);
+        assertEquals("COLUMN BETWEEN ? AND ?", sut.buildSqliteWhereClause());
+    }
+
+    @Test
+    public void BetweenQueryFilter_parameters_areCorrect() {
+        DateTime lower = new DateTime(2017, 6, 18, 0, 0);
+        DateTime upper = new DateTime(2017, 6, 19, 0, 0);
+        QueryFilter sut = new BetweenQueryFilter("COLUMN", lower, upper);
+        assertEquals(Arrays.asList(SqliteTools.convertDateTime(lower).toString(), SqliteTools.convertDateTime(upper).toString()),
+            sut.getSqliteParameters());
+    }
+
+    @Test
+    public void BetweenQueryFilter_evaluates_correctly() throws Exception {
+        QueryFilter sut = new BetweenQueryFilter("COLUMN", 1, 5);
+        assertTrue(sut.evaluate(new FakeEntity(1)));
+        assertTrue(sut.evaluate(new FakeEntity(5)));
+        assertFalse(sut.evaluate(new FakeEntity(0)));
+        assertFalse(sut.evaluate(new FakeEntity(6)));
+        assertFalse(sut.evaluate(new FakeEntity(null)));
+    }
+
+    private class FakeEntity {
+        private Integer column;
+        public FakeEntity(Integer column) { this.column = column; }
+    }
+}
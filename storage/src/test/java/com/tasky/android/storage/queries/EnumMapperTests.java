@@ -2,10 +2,13 @@ package com.tasky.android.storage.queries;
 
 import com.tasky.android.entities.TaskPriority;
 import com.tasky.android.storage.EnumMapper;
+import com.tasky.android.storage.EnumMapping;
 
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
 
 /**
  * Tests for the EnumMapper implementation.
@@ -24,4 +27,72 @@ public class EnumMapperTests {
         TaskPriority result = EnumMapper.getEnumByInteger(input, TaskPriority.class);
         assertEquals(TaskPriority.High, result);
     }
+
+    @Test
+    public void EnumMapper_mapping_getsCodeByEnum() {
+        assertEquals(0, EnumMapper.TASK_PRIORITY.getCode(TaskPriority.Low));
+        assertEquals(1, EnumMapper.TASK_PRIORITY.getCode(TaskPriority.Normal));
+        assertEquals(2, EnumMapper.TASK_PRIORITY.getCode(TaskPriority.High));
+    }
+
+    @Test
+    public void EnumMapper_mapping_getsEnumByCode() {
+        assertEquals(TaskPriority.Low, EnumMapper.TASK_PRIORITY.getValue(0));
+        assertEquals(TaskPriority.Normal, EnumMapper.TASK_PRIORITY.getValue(1));
+        assertEquals(TaskPriority.High, EnumMapper.TASK_PRIORITY.getValue(2));
+    }
+
+    @Test
+    public void EnumMapper_mapsNullValues() {
+        assertNull(EnumMapper.getIntegerByEnum(null));
+        assertNull(EnumMapper.getEnumByInteger(null, TaskPriority.class));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void EnumMapper_rejectsUnknownCode() {
+        EnumMapper.TASK_PRIORITY.getValue(3);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void EnumMapper_rejectsUnregisteredEnum() {
+        EnumMapper.getIntegerByEnum(FakeEnum.First);
+    }
+
+    @Test
+    public void EnumMapper_registersMapping() {
+        EnumMapping<FakeRegisteredEnum> mapping = EnumMapper.register(FakeRegisteredEnum.class, 5, 3);
+        assertEquals((Object)5, EnumMapper.getIntegerByEnum(FakeRegisteredEnum.First));
+        assertEquals(FakeRegisteredEnum.Second, mapping.getValue(3));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void EnumMapper_rejectsDuplicateCodes() {
+        EnumMapper.register(FakeEnum.class, 1, 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void EnumMapper_rejectsMissingCodes() {
+        EnumMapper.register(FakeEnum.class, 1);
+    }
+
+    @Test
+    public void EnumMapper_keepsMappingOnDuplicateRegistration() {
+        EnumMapping<FakeDuplicateEnum> mapping = EnumMapper.register(FakeDuplicateEnum.class, 7, 8);
+
+        try {
+            EnumMapper.register(FakeDuplicateEnum.class, 1, 2);
+            fail();
+        } catch (IllegalArgumentException exception) {
+            // Expected.
+        }
+
+        assertEquals((Object)7, EnumMapper.getIntegerByEnum(FakeDuplicateEnum.First));
+        assertEquals(FakeDuplicateEnum.Second, mapping.getValue(8));
+    }
+
+    private enum FakeEnum { First, Second }
+
+    private enum FakeDuplicateEnum { First, Second }
+
+    private enum FakeRegisteredEnum { First, Second }
 }
\ No newline at end of file
@@ -0,0 +1,55 @@
+package com.tasky.android.storage.queries;
+
+import com.tasky.android.entities.Task;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the FullTextQueryFilter implementation.
+ */
+public class FullTextQueryFilterTests {
+    @Test
+    public void FullTextQueryFilter_whereClause_isCorrect() {
+        QueryFilter sut = new FullTextQueryFilter("Buy Milk");
+        assertEquals("_id IN (SELECT docid FROM taskSearch WHERE taskSearch MATCH ?)", sut.buildSqliteWhereClause());
+        assertEquals("buy* milk*", sut.getSqliteParameters().get(0));
+    }
+
+    @Test
+    public void FullTextQueryFilter_ignoresOperatorsAndDuplicateWords() {
+        FullTextQueryFilter sut = new FullTextQueryFilter("\"milk\" OR -milk* NEAR bread");
+        assertEquals(Arrays.asList("milk", "or", "near", "bread"), sut.getTerms());
+        assertEquals("milk* or* near* bread*", sut.getSqliteMatchExpression());
+    }
+
+    @Test
+    public void FullTextQueryFilter_tokenizesLikeFullTextIndex() {
+        assertEquals(Arrays.asList("call", "mom", "at", "5pm"), FullTextQueryFilter.tokenize("Call MOM, at 5pm!"));
+        assertEquals(Arrays.asList("\u00dcbung", "a"), FullTextQueryFilter.tokenize("\u00dcbung_A"));
+    }
+
+    @Test
+    public void FullTextQueryFilter_evaluates_correctly() throws Exception {
+        QueryFilter sut = new FullTextQueryFilter("mil bu");
+        assertTrue(sut.evaluate(createTask("Buy milk")));
+        assertTrue(sut.evaluate(createTask("MILK: buy two")));
+        assertFalse(sut.evaluate(createTask("Buy bread")));
+        assertFalse(sut.evaluate(createTask("Homemilk to buy")));
+        assertFalse(sut.evaluate(createTask(null)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void FullTextQueryFilter_rejectsTextWithoutWords() {
+        new FullTextQueryFilter(" - * ");
+    }
+
+    private static Task createTask(String title) {
+        Task task = new Task();
+        task.setTitle(title);
+        return task;
+    }
+}
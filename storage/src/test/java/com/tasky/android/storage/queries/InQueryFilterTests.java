@@ -0,0 +1,141 @@
+package com.tasky.android.storage.queries;
+
+import com.tasky.android.entities.Task;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeSet;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the InQueryFilter implementation.
+ */
+public class InQueryFilterTests {
+    @Test
+    public void InQueryFilter_whereClause_isCorrect() {
+        QueryFilter sut = new InQueryFilter("COLUMN", Arrays.asList(1, 2, 3));
+        assertEquals("COLUMN IN (?,?,?)", sut.buildSqliteWhereClause());
+    }
+
+    @Test
+    public void InQueryFilter_parameters_areCorrect() {
+        QueryFilter sut = new InQueryFilter("COLUMN", Arrays.asList(3, 1, 3));
+        List<String> result = sut.getSqliteParameters();
+        assertEquals(Arrays.asList("3", "1"), result);
+    }
+
+    @Test
+    public void InQueryFilter_writesManyIntegralValuesIntoWhereClause() {
+        InQueryFilter<Long> sut = new InQueryFilter("COLUMN", createValues(QueryFilterCompiler.MAXIMUM_PARAMETERS + 1));
+
+        CompiledQueryFilter result = sut.compile();
+
+        assertTrue(result.getWhereClause().startsWith("COLUMN IN (0,1,2,"));
+        assertTrue(result.getWhereClause().endsWith("," + QueryFilterCompiler.MAXIMUM_PARAMETERS + ")"));
+        assertEquals(0, result.getParameterCount());
+        assertTrue(result.hasInlinedValues());
+    }
+
+    @Test
+    public void InQueryFilter_bindsValuesWithinParameterLimit() {
+        CompiledQueryFilter result = new InQueryFilter("COLUMN", createValues(QueryFilterCompiler.MAXIMUM_PARAMETERS)).compile();
+
+        assertEquals(QueryFilterCompiler.MAXIMUM_PARAMETERS, result.getParameterCount());
+        assertFalse(result.hasInlinedValues());
+    }
+
+    @Test
+    public void InQueryFilter_countsParametersOfCombinedFilters() {
+        QueryFilterBase first = new InQueryFilter("FIRST", createValues(500));
+        QueryFilterBase second = new InQueryFilter("SECOND", createValues(500));
+        first.compile();
+
+        CompiledQueryFilter result = first.And(second).compile();
+
+        assertEquals(0, result.getParameterCount());
+        assertTrue(result.hasInlinedValues());
+        assertFalse(result.getWhereClause().contains("?"));
+    }
+
+    @Test
+    public void InQueryFilter_keepsOtherParametersBoundWhenInlining() {
+        QueryFilterBase sut = new InQueryFilter("COLUMN", createValues(999))
+            .And(new ValueQueryFilter("TITLE", ValueQueryFilter.Type.Equals, "TITLE"));
+
+        CompiledQueryFilter result = sut.compile();
+
+        assertEquals(Arrays.asList("TITLE"), result.getSqliteParameterList());
+        assertTrue(result.hasInlinedValues());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void InQueryFilter_rejectsManyNonIntegralValues() {
+        List<String> values = new ArrayList();
+        for (int i = 0; i <= QueryFilterCompiler.MAXIMUM_PARAMETERS; i++) {
+            values.add("VALUE" + i);
+        }
+
+        new InQueryFilter("COLUMN", values);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void InQueryFilter_rejectsEmptyValues() {
+        new InQueryFilter("COLUMN", Collections.emptyList());
+    }
+
+    @Test
+    public void InQueryFilter_evaluates_correctly() throws Exception {
+        QueryFilter sut = new InQueryFilter("COLUMN", Arrays.asList(1, 2));
+        assertTrue(sut.evaluate(new FakeEntity(2)));
+        assertFalse(sut.evaluate(new FakeEntity(3)));
+        assertFalse(sut.evaluate(new FakeEntity(null)));
+    }
+
+    @Test
+    public void InQueryFilter_evaluatesTaskIds() throws Exception {
+        Task task = new Task();
+        task.setId(42);
+
+        assertTrue(new InQueryFilter("_id", Arrays.asList(41L, 42L)).evaluate(task));
+        assertFalse(new InQueryFilter("_id", Arrays.asList(41L, 43L)).evaluate(task));
+    }
+
+    @Test
+    public void InQueryFilter_evaluatesIntegralValuesOfOtherTypes() throws Exception {
+        Task task = new Task();
+        task.setId(42);
+
+        assertTrue(new InQueryFilter("_id", Arrays.asList(41, 42)).evaluate(task));
+        assertTrue(new InQueryFilter("COLUMN", Arrays.asList(1L, 2L)).evaluate(new FakeEntity(2)));
+    }
+
+    @Test
+    public void InQueryFilter_acceptsCollectionsRejectingNullLookups() {
+        InQueryFilter<Integer> sut = new InQueryFilter("COLUMN", new TreeSet(Arrays.asList(2, 1)));
+        assertEquals(Arrays.asList(1, 2), sut.getValues());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void InQueryFilter_rejectsNullValues() {
+        new InQueryFilter("COLUMN", Arrays.asList(1, null));
+    }
+
+    private static List<Long> createValues(int count) {
+        List<Long> values = new ArrayList();
+        for (long i = 0; i < count; i++) {
+            values.add(i);
+        }
+
+        return values;
+    }
+
+    private class FakeEntity {
+        private Integer column;
+        public FakeEntity(Integer column) { this.column = column; }
+    }
+}
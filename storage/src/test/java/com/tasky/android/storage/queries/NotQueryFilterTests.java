@@ -0,0 +1,78 @@
+package com.tasky.android.storage.queries;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the NotQueryFilter implementation.
+ */
+public class NotQueryFilterTests {
+    @Test
+    public void NotQueryFilter_whereClause_isCorrect() {
+        QueryFilter sut = new NotQueryFilter(new ValueQueryFilter("COLUMN", ValueQueryFilter.Type.SmallerThan, 5));
+        assertEquals("(COLUMN >= ? OR COLUMN ISNULL)", sut.buildSqliteWhereClause());
+        assertEquals("5", sut.getSqliteParameters().get(0));
+    }
+
+    @Test
+    public void NotQueryFilter_rowId_whereClause_hasNoNullCheck() {
+        QueryFilter sut = new NotQueryFilter(new ValueQueryFilter("_id", ValueQueryFilter.Type.Equals, 5));
+        assertEquals("_id <> ?", sut.buildSqliteWhereClause());
+    }
+
+    @Test
+    public void NotQueryFilter_isNull_whereClause_isCorrect() {
+        QueryFilter sut = new NotQueryFilter(new ValueQueryFilter("COLUMN", ValueQueryFilter.Type.IsNull, null));
+        assertEquals("COLUMN NOTNULL", sut.buildSqliteWhereClause());
+    }
+
+    @Test
+    public void NotQueryFilter_in_whereClause_isCorrect() {
+        QueryFilter sut = new NotQueryFilter(new InQueryFilter("COLUMN", Arrays.asList(1, 2)));
+        assertEquals("(COLUMN NOT IN (?,?) OR COLUMN ISNULL)", sut.buildSqliteWhereClause());
+        assertEquals(Arrays.asList("1", "2"), sut.getSqliteParameters());
+    }
+
+    @Test
+    public void NotQueryFilter_between_whereClause_isCorrect() {
+        QueryFilter sut = new NotQueryFilter(new BetweenQueryFilter("COLUMN", 1, 5));
+        assertEquals("(COLUMN NOT BETWEEN ? AND ? OR COLUMN ISNULL)", sut.buildSqliteWhereClause());
+    }
+
+    @Test
+    public void NotQueryFilter_combined_whereClause_appliesDeMorgan() {
+        QueryFilter sut = new NotQueryFilter(new CombinedQueryFilter(
+            new ValueQueryFilter("FIRST", ValueQueryFilter.Type.GreaterThan, 1),
+            new NotQueryFilter(new ValueQueryFilter("SECOND", ValueQueryFilter.Type.Equals, 2)),
+            CombinedQueryFilter.CombinationType.And));
+        assertEquals("((FIRST <= ? OR FIRST ISNULL))OR(SECOND = ?)", sut.buildSqliteWhereClause());
+        assertEquals(Arrays.asList("1", "2"), sut.getSqliteParameters());
+    }
+
+    @Test
+    public void NotQueryFilter_empty_whereClause_matchesNothing() {
+        QueryFilter sut = new NotQueryFilter(new EmptyQueryFilter());
+        assertEquals("0", sut.buildSqliteWhereClause());
+    }
+
+    @Test
+    public void NotQueryFilter_evaluates_correctly() throws Exception {
+        QueryFilter sut = new NotQueryFilter(new ValueQueryFilter("COLUMN", ValueQueryFilter.Type.SmallerThan, 5));
+        assertTrue(sut.evaluate(new FakeEntity(5)));
+        assertFalse(sut.evaluate(new FakeEntity(4)));
+    }
+
+    @Test
+    public void NotQueryFilter_matchesNullValues() throws Exception {
+        QueryFilter sut = new NotQueryFilter(new ValueQueryFilter("COLUMN", ValueQueryFilter.Type.SmallerThan, 5));
+        assertTrue(sut.evaluate(new FakeEntity(null)));
+    }
+
+    private class FakeEntity {
+        private Integer column;
+        public FakeEntity(Integer column) { this.column = column; }
+    }
+}
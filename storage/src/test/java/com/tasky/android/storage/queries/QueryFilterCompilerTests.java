@@ -0,0 +1,109 @@
+package com.tasky.android.storage.queries;
+
+import org.joda.time.DateTime;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the QueryFilterCompiler implementation.
+ */
+public class QueryFilterCompilerTests {
+    @Test
+    public void QueryFilterCompiler_compilesWhereClauseAndParameters() {
+        QueryFilter filter = new ValueQueryFilter("A", ValueQueryFilter.Type.Equals, 1)
+            .And(new ValueQueryFilter("B", ValueQueryFilter.Type.IsNull, null))
+            .Or(new ValueQueryFilter("C", ValueQueryFilter.Type.SmallerThan, true));
+
+        CompiledQueryFilter result = QueryFilterCompiler.compile(filter);
+
+        assertEquals("((A = ?)AND(B ISNULL))OR(C < ?)", result.getWhereClause());
+        assertArrayEquals(new String[] { "1", "1" }, result.getSqliteParameters());
+    }
+
+    @Test
+    public void QueryFilterCompiler_convertsParameters() {
+        DateTime parameter = new DateTime(2017, 6, 18, 0, 0);
+        QueryFilter filter = new ValueQueryFilter("A", ValueQueryFilter.Type.Equals, parameter);
+
+        CompiledQueryFilter result = QueryFilterCompiler.compile(filter);
+
+        assertEquals(String.valueOf(parameter.getMillis()), result.getSqliteParameters()[0]);
+    }
+
+    @Test
+    public void QueryFilterCompiler_compilesFilterOnlyOnce() {
+        QueryFilter filter = new ValueQueryFilter("A", ValueQueryFilter.Type.Equals, 1);
+        assertSame(QueryFilterCompiler.compile(filter), QueryFilterCompiler.compile(filter));
+    }
+
+    @Test
+    public void QueryFilterCompiler_compilesIdenticalStructuresToSameWhereClause() {
+        QueryFilter first = new ValueQueryFilter("A", ValueQueryFilter.Type.Equals, 1)
+            .And(new ValueQueryFilter("B", ValueQueryFilter.Type.GreaterThan, 2));
+        QueryFilter second = new ValueQueryFilter("A", ValueQueryFilter.Type.Equals, 3)
+            .And(new ValueQueryFilter("B", ValueQueryFilter.Type.GreaterThan, 4));
+
+        CompiledQueryFilter firstResult = QueryFilterCompiler.compile(first);
+        CompiledQueryFilter secondResult = QueryFilterCompiler.compile(second);
+
+        assertEquals(firstResult.getWhereClause(), secondResult.getWhereClause());
+        assertArrayEquals(new String[] { "3", "4" }, secondResult.getSqliteParameters());
+    }
+
+    @Test
+    public void QueryFilterCompiler_reusesCompiledSubtrees() {
+        QueryFilterBase inner = new ValueQueryFilter("A", ValueQueryFilter.Type.Equals, 1);
+        inner.compile();
+
+        CompiledQueryFilter result = QueryFilterCompiler.compile(inner.Or(new ValueQueryFilter("B", ValueQueryFilter.Type.Equals, 2)));
+
+        assertEquals("(A = ?)OR(B = ?)", result.getWhereClause());
+        assertArrayEquals(new String[] { "1", "2" }, result.getSqliteParameters());
+    }
+
+    @Test
+    public void QueryFilterCompiler_compilesEmptyFilterWithoutWhereClause() {
+        CompiledQueryFilter result = QueryFilterCompiler.compile(new EmptyQueryFilter());
+
+        assertNull(result.getWhereClause());
+        assertEquals(0, result.getParameterCount());
+    }
+
+    @Test
+    public void QueryFilterCompiler_compilesNestedEmptyFilterAsMatch() {
+        QueryFilter filter = new ValueQueryFilter("A", ValueQueryFilter.Type.Equals, 1).Or(new EmptyQueryFilter());
+        assertEquals("(A = ?)OR(1)", QueryFilterCompiler.compile(filter).getWhereClause());
+    }
+
+    @Test
+    public void QueryFilterCompiler_compilesOtherFiltersByTheirWhereClause() {
+        QueryFilter filter = new ValueQueryFilter("A", ValueQueryFilter.Type.Equals, 1).And(new FakeQueryFilter());
+
+        CompiledQueryFilter result = QueryFilterCompiler.compile(filter);
+
+        assertEquals("(A = ?)AND(CLAUSE ?)", result.getWhereClause());
+        assertArrayEquals(new String[] { "1", "PARAMETER" }, result.getSqliteParameters());
+    }
+
+    /**
+     * Fake implementation of a QueryFilter that does not derive from QueryFilterBase.
+     */
+    private class FakeQueryFilter implements QueryFilter {
+        @Override
+        public String buildSqliteWhereClause() { return "CLAUSE ?"; }
+
+        @Override
+        public List<String> getSqliteParameters() {
+            List<String> result = new ArrayList();
+            result.add("PARAMETER");
+            return result;
+        }
+
+        @Override
+        public boolean evaluate(Object target) throws IllegalAccessException { return true; }
+    }
+}
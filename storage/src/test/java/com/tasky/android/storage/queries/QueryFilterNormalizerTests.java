@@ -0,0 +1,93 @@
+package com.tasky.android.storage.queries;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the QueryFilterNormalizer implementation.
+ */
+public class QueryFilterNormalizerTests {
+    @Test
+    public void QueryFilterNormalizer_flattensNestedCombinations() {
+        QueryFilter filter = equals("A").And(equals("B")).And(equals("C")).Or(equals("D"));
+
+        QueryFilter result = QueryFilterNormalizer.normalize(filter);
+
+        assertEquals("((A = ?)AND(B = ?)AND(C = ?))OR(D = ?)", result.buildSqliteWhereClause());
+        assertEquals(4, result.getSqliteParameters().size());
+    }
+
+    @Test
+    public void QueryFilterNormalizer_keepsNormalizedFilter() {
+        QueryFilter filter = equals("A").And(equals("B"));
+        assertSame(filter, QueryFilterNormalizer.normalize(filter));
+    }
+
+    @Test
+    public void QueryFilterNormalizer_removesEmptyFiltersFromAnd() {
+        QueryFilter filter = new EmptyQueryFilter();
+        filter = equals("A").And(filter).And(equals("B"));
+
+        assertEquals("(A = ?)AND(B = ?)", QueryFilterNormalizer.normalize(filter).buildSqliteWhereClause());
+    }
+
+    @Test
+    public void QueryFilterNormalizer_foldsOrWithEmptyFilter() {
+        QueryFilter filter = equals("A").Or(new EmptyQueryFilter()).And(equals("B"));
+        assertEquals("B = ?", QueryFilterNormalizer.normalize(filter).buildSqliteWhereClause());
+    }
+
+    @Test
+    public void QueryFilterNormalizer_foldsAndWithNeverMatchingFilter() {
+        QueryFilter filter = equals("A").And(QueryFilterNormalizer.never()).Or(equals("B"));
+        assertEquals("B = ?", QueryFilterNormalizer.normalize(filter).buildSqliteWhereClause());
+    }
+
+    @Test
+    public void QueryFilterNormalizer_foldsCombinationOfConstants() {
+        QueryFilter filter = new CombinedQueryFilter(new EmptyQueryFilter(), new EmptyQueryFilter(), CombinedQueryFilter.CombinationType.And);
+        assertTrue(QueryFilterNormalizer.normalize(filter) instanceof EmptyQueryFilter);
+    }
+
+    @Test
+    public void QueryFilterNormalizer_removesDoubleNegation() {
+        QueryFilter inner = equals("A");
+        assertSame(inner, QueryFilterNormalizer.normalize(new NotQueryFilter(new NotQueryFilter(inner))));
+    }
+
+    @Test
+    public void QueryFilterNormalizer_ordersCheapDecisiveFiltersFirst() {
+        QueryFilter reflected = new ValueQueryFilter("COLUMN", ValueQueryFilter.Type.Equals, 1);
+        QueryFilter isNull = new ValueQueryFilter("doneOn", ValueQueryFilter.Type.IsNull, null);
+        QueryFilter byId = new ValueQueryFilter("_id", ValueQueryFilter.Type.Equals, 1L);
+
+        CombinedQueryFilter result = (CombinedQueryFilter)QueryFilterNormalizer.optimizeForEvaluation(
+            new CombinedQueryFilter(CombinedQueryFilter.CombinationType.And, Arrays.asList(reflected, isNull, byId)));
+
+        assertEquals(Arrays.asList(byId, isNull, reflected), result.getFilters());
+    }
+
+    @Test
+    public void QueryFilterNormalizer_optimizedFilterEvaluatesLikeOriginal() throws Exception {
+        QueryFilter filter = equals("column").And(new EmptyQueryFilter()).Or(
+            new NotQueryFilter(new ValueQueryFilter("column", ValueQueryFilter.Type.IsNull, null)).And(equals("column")));
+        QueryFilter result = QueryFilterNormalizer.optimizeForEvaluation(filter);
+
+        for (Integer value : Arrays.asList(null, 0, 1)) {
+            FakeEntity target = new FakeEntity(value);
+            assertEquals(filter.evaluate(target), result.evaluate(target));
+        }
+    }
+
+    private static QueryFilterBase equals(String column) {
+        return new ValueQueryFilter(column, ValueQueryFilter.Type.Equals, 1);
+    }
+
+    private class FakeEntity {
+        private Integer column;
+        public FakeEntity(Integer column) { this.column = column; }
+    }
+}
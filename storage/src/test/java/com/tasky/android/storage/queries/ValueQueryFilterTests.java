@@ -1,5 +1,7 @@
 package com.tasky.android.storage.queries;
 
+import com.tasky.android.entities.Task;
+import com.tasky.android.entities.TaskPriority;
 import com.tasky.android.storage.SqliteTools;
 
 import org.joda.time.DateTime;
@@ -84,6 +86,40 @@ public class ValueQueryFilterTests {
         assertEquals(false, result);
     }
 
+    @Test
+    public void ValueQueryFilter_greaterThan_evaluates_correctly_true() throws Exception {
+        QueryFilter sut = new ValueQueryFilter("COLUMN", ValueQueryFilter.Type.GreaterThan, 5);
+        FakeEntity target = new FakeEntity(6);
+        boolean result = sut.evaluate(target);
+        assertEquals(true, result);
+    }
+
+    @Test
+    public void ValueQueryFilter_greaterThan_evaluates_correctly_false() throws Exception {
+        QueryFilter sut = new ValueQueryFilter("COLUMN", ValueQueryFilter.Type.GreaterThan, 5);
+        FakeEntity target = new FakeEntity(5);
+        boolean result = sut.evaluate(target);
+        assertEquals(false, result);
+    }
+
+    @Test
+    public void ValueQueryFilter_greaterOrEqual_evaluates_correctly() throws Exception {
+        QueryFilter sut = new ValueQueryFilter("COLUMN", ValueQueryFilter.Type.GreaterOrEqual, 5);
+        assertTrue(sut.evaluate(new FakeEntity(5)));
+        assertTrue(sut.evaluate(new FakeEntity(6)));
+        assertFalse(sut.evaluate(new FakeEntity(4)));
+        assertEquals("COLUMN >= ?", sut.buildSqliteWhereClause());
+    }
+
+    @Test
+    public void ValueQueryFilter_smallerOrEqual_evaluates_correctly() throws Exception {
+        QueryFilter sut = new ValueQueryFilter("COLUMN", ValueQueryFilter.Type.SmallerOrEqual, 5);
+        assertTrue(sut.evaluate(new FakeEntity(5)));
+        assertTrue(sut.evaluate(new FakeEntity(4)));
+        assertFalse(sut.evaluate(new FakeEntity(6)));
+        assertEquals("COLUMN <= ?", sut.buildSqliteWhereClause());
+    }
+
     @Test
     public void ValueQueryFilter_isnull_evaluates_correctly_true() throws Exception {
         QueryFilter sut = new ValueQueryFilter("COLUMN", ValueQueryFilter.Type.IsNull, 0);
@@ -100,6 +136,35 @@ public class ValueQueryFilterTests {
         assertEquals(false, result);
     }
 
+    @Test
+    public void ValueQueryFilter_evaluatesTaskColumns() throws Exception {
+        Task task = new Task();
+        task.setPriority(TaskPriority.High);
+        task.setDueDate(new DateTime(2017, 6, 18, 0, 0));
+
+        assertTrue(new ValueQueryFilter("priority", ValueQueryFilter.Type.Equals, TaskPriority.High).evaluate(task));
+        assertTrue(new ValueQueryFilter("DUEDATE", ValueQueryFilter.Type.SmallerThan, new DateTime(2017, 6, 19, 0, 0)).evaluate(task));
+        assertTrue(new ValueQueryFilter("doneOn", ValueQueryFilter.Type.IsNull, null).evaluate(task));
+        assertFalse(new ValueQueryFilter("doneOn", ValueQueryFilter.Type.IsNull, null).Or(
+            new ValueQueryFilter("title", ValueQueryFilter.Type.Equals, "TITLE")).And(
+            new ValueQueryFilter("_id", ValueQueryFilter.Type.GreaterThan, 0L)).evaluate(task));
+    }
+
+    @Test
+    public void ValueQueryFilter_evaluatesDerivedTaskColumns() throws Exception {
+        Task task = new Task();
+        task.setPriority(TaskPriority.High);
+
+        QueryFilter sut = new ValueQueryFilter("prioritySortIndex", ValueQueryFilter.Type.Equals, TaskPriority.High.getSortIndex());
+        assertTrue(sut.evaluate(task));
+    }
+
+    @Test
+    public void ValueQueryFilter_unknownTaskColumn_evaluates_false() throws Exception {
+        QueryFilter sut = new ValueQueryFilter("COLUMN", ValueQueryFilter.Type.IsNull, null);
+        assertFalse(sut.evaluate(new Task()));
+    }
+
     private class FakeEntity {
         private Integer column;
         public FakeEntity(Integer column) { this.column = column; }
@@ -1,6 +1,7 @@
 package com.tasky.android.utilities;
 
 import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -24,7 +25,29 @@ public class ReflectionTools {
     }
 
     /**
-     * Copies the values from all fields from one object to another.
+     * Gets the value of the field with the specified name, ignoring case.
+     * @param target Object from which to read the field value.
+     * @param fieldName Name of the field to read; compared ignoring case.
+     * @return The value of the field.
+     * @throws NoSuchFieldException If the object has no field with the specified name.
+     */
+    public static Object getFieldValueIgnoreCase(Object target, String fieldName)
+            throws IllegalAccessException, NoSuchFieldException {
+        ParameterCheck.notNull(target, "target");
+        ParameterCheck.notNull(fieldName, "fieldName");
+
+        for (Field field : getFieldsWithInheritance(target.getClass())) {
+            if (field.getName().equalsIgnoreCase(fieldName)) {
+                field.setAccessible(true);
+                return field.get(target);
+            }
+        }
+
+        throw new NoSuchFieldException(fieldName);
+    }
+
+    /**
+     * Copies the values from all instance fields from one object to another.
      * @param source Object with the values to copy.
      * @param target Object that should be updated.
      * @param <T> Type of the objects.
@@ -36,6 +59,9 @@ public class ReflectionTools {
 
         List<Field> fields = getFieldsWithInheritance(source.getClass());
         for (Field field : fields) {
+            // Static fields are shared by both objects; constants cannot be written anyway.
+            if (Modifier.isStatic(field.getModifiers())) continue;
+
             field.setAccessible(true);
             field.set(target, field.get(source));
         }